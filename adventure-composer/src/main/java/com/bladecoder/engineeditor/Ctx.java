@@ -17,9 +17,11 @@ package com.bladecoder.engineeditor;
 
 import com.bladecoder.engineeditor.model.Project;
 import com.bladecoder.engineeditor.utils.Message;
+import com.bladecoder.engineeditor.utils.ThumbnailService;
 
 public class Ctx {
 	public static Project project;
 	public static Message msg;
 	public static EditorAssetManager assetManager;
+	public static ThumbnailService thumbnails;
 }
@@ -41,6 +41,7 @@ import com.bladecoder.engineeditor.ui.ProjectToolbar;
 import com.bladecoder.engineeditor.ui.ScenePanel;
 import com.bladecoder.engineeditor.utils.EditorLogger;
 import com.bladecoder.engineeditor.utils.Message;
+import com.bladecoder.engineeditor.utils.ThumbnailService;
 import com.bladecoder.engineeditor.utils.Versions;
 
 //TODO: Show COPYRIGHT_STR + VERSION_STR
@@ -68,6 +69,7 @@ public class Editor implements ApplicationListener {
 		Ctx.project = new Project();
 		Ctx.msg = new Message(skin);
 		Ctx.assetManager = new EditorAssetManager();
+		Ctx.thumbnails = new ThumbnailService();
 
 		scnEditor = new ScnEditor(skin);
 		skin.getFont("default-font").getData().markupEnabled = true;
@@ -156,7 +158,8 @@ public class Editor implements ApplicationListener {
 
 	@Override
 	public void resume() {
-
+		// the window has the focus again, the images may have changed
+		Ctx.thumbnails.refresh();
 	}
 
 	@Override
@@ -164,7 +167,9 @@ public class Editor implements ApplicationListener {
 		scnEditor.dispose();
 		stage.dispose();
 		
+		Ctx.project.dispose();
 		Ctx.project.saveConfig();
+		Ctx.thumbnails.dispose();
 		
 //		try {
 //			Ctx.project.saveProject();
@@ -175,6 +180,16 @@ public class Editor implements ApplicationListener {
 	}
 
 	public void exit() {
+		try {
+			Ctx.project.flushDocuments();
+		} catch (IOException e) {
+			// the documents of the failed writes are modified again and the
+			// next exit asks to save them
+			EditorLogger.error(e.getMessage());
+			Ctx.msg.show(stage, "Something went wrong while saving the project.\n\n" + e.getMessage(), 4);
+			return;
+		}
+
 		if (Ctx.project.getWorld().isModified()
 				|| Ctx.project.getSelectedChapter().isModified()) {
 			new Dialog("Save Project", skin) {
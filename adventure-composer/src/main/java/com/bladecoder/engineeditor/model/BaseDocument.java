@@ -18,11 +18,14 @@ package com.bladecoder.engineeditor.model;
 import java.beans.PropertyChangeEvent;
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.Writer;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.Collections;
 import java.util.Enumeration;
 import java.util.HashMap;
@@ -40,6 +43,7 @@ import javax.xml.transform.dom.DOMSource;
 import javax.xml.transform.stream.StreamResult;
 import javax.xml.xpath.XPath;
 import javax.xml.xpath.XPathConstants;
+import javax.xml.xpath.XPathExpression;
 import javax.xml.xpath.XPathExpressionException;
 import javax.xml.xpath.XPathFactory;
 
@@ -67,6 +71,12 @@ public abstract class BaseDocument extends PropertyChange {
 
 	protected boolean modified = false;
 
+	private ElementIndex index;
+
+	/** Compiled XPath expressions. XPath objects are not thread safe. */
+	private final HashMap<String, XPathExpression> xpathCache = new HashMap<String, XPathExpression>();
+	private XPath xpath;
+
 	public abstract String getRootTag();
 
 	@SuppressWarnings("serial")
@@ -80,6 +90,8 @@ public abstract class BaseDocument extends PropertyChange {
 
 		doc.appendChild(rootElement);
 
+		createIndex();
+
 		// To save in alphabetical order we override the keys method
 		i18n = new Properties() {
 			@Override
@@ -135,47 +147,162 @@ public abstract class BaseDocument extends PropertyChange {
 		return i18n;
 	}
 
-	private void saveI18N() {
-		String i18nFilename = getI18NFilename();
-		
-		I18NUtils.deleteUnusedKeys(this);
-
-		try {
-			FileOutputStream os = new FileOutputStream(i18nFilename);
-			Writer out = new OutputStreamWriter(os, "ISO-8859-1");
-			i18n.store(out, filename);
-		} catch (IOException e) {
-			EngineLogger.error("ERROR WRITING BUNDLE: " + i18nFilename);
-		}
-	}
-
 	public void load() throws ParserConfigurationException, SAXException, IOException {
 		File fXmlFile = new File(getAbsoluteName());
 		DocumentBuilderFactory dbFactory = DocumentBuilderFactory.newInstance();
 		DocumentBuilder dBuilder = dbFactory.newDocumentBuilder();
 		doc = dBuilder.parse(fXmlFile);
 
+		createIndex();
+
 		loadI18N();
 
 		modified = false;
 	}
 
-	public void save() throws TransformerException, FileNotFoundException {
+	public void save() throws TransformerException, IOException {
+		Snapshot s = snapshot();
 
-		if (!modified)
+		if (s == null)
 			return;
 
-		TransformerFactory transformerFactory = TransformerFactory.newInstance();
-		Transformer transformer = transformerFactory.newTransformer();
-		transformer.setOutputProperty(OutputKeys.INDENT, "yes");
-		DOMSource source = new DOMSource(doc);
-		StreamResult result = new StreamResult(new FileOutputStream(getAbsoluteName()));
-		transformer.transform(source, result);
+		try {
+			s.write();
+		} catch (TransformerException | IOException e) {
+			modified = true;
+			throw e;
+		}
+
+		firePropertyChange(NOTIFY_DOCUMENT_SAVED);
+	}
+
+	/**
+	 * Copies the document and its translations to write them in another
+	 * thread. Must be called from the thread that modifies the document. The
+	 * document is marked as not modified.
+	 * 
+	 * @return null if the document is not modified.
+	 */
+	public Snapshot snapshot() {
+		if (!modified)
+			return null;
+
+		I18NUtils.deleteUnusedKeys(this);
 
-		saveI18N();
+		Snapshot s = new Snapshot((Document) doc.cloneNode(true), (Properties) i18n.clone(), getAbsoluteName(),
+				getI18NFilename(), filename);
 
 		modified = false;
-		firePropertyChange(NOTIFY_DOCUMENT_SAVED);
+
+		return s;
+	}
+
+	/**
+	 * Document copy written with temp. files and renames, so the files are
+	 * never left half written.
+	 */
+	public static class Snapshot {
+		private final Document doc;
+		private final Properties i18n;
+		private final String filename;
+		private final String i18nFilename;
+		private final String comment;
+
+		private Snapshot(Document doc, Properties i18n, String filename, String i18nFilename, String comment) {
+			this.doc = doc;
+			this.i18n = i18n;
+			this.filename = filename;
+			this.i18nFilename = i18nFilename;
+			this.comment = comment;
+		}
+
+		public String getFilename() {
+			return filename;
+		}
+
+		public void write() throws TransformerException, IOException {
+			File f = new File(filename);
+			File tmp = createTempFile(f);
+
+			try {
+				TransformerFactory transformerFactory = TransformerFactory.newInstance();
+				Transformer transformer = transformerFactory.newTransformer();
+				transformer.setOutputProperty(OutputKeys.INDENT, "yes");
+				DOMSource source = new DOMSource(doc);
+
+				OutputStream os = new FileOutputStream(tmp);
+
+				try {
+					transformer.transform(source, new StreamResult(os));
+				} finally {
+					os.close();
+				}
+
+				replace(tmp, f);
+			} finally {
+				tmp.delete();
+			}
+
+			writeI18N();
+		}
+
+		private void writeI18N() {
+			File f = new File(i18nFilename);
+
+			try {
+				File tmp = createTempFile(f);
+
+				try {
+					Writer out = new OutputStreamWriter(new FileOutputStream(tmp), "ISO-8859-1");
+
+					try {
+						i18n.store(out, comment);
+					} finally {
+						out.close();
+					}
+
+					replace(tmp, f);
+				} finally {
+					tmp.delete();
+				}
+
+				I18NUtils.compileStrings(i18nFilename);
+			} catch (IOException e) {
+				EngineLogger.error("ERROR WRITING BUNDLE: " + i18nFilename);
+			}
+		}
+
+		private static File createTempFile(File f) throws IOException {
+			return File.createTempFile(f.getName(), ".tmp", f.getAbsoluteFile().getParentFile());
+		}
+
+		private static void replace(File tmp, File f) throws IOException {
+			try {
+				Files.move(tmp.toPath(), f.toPath(), StandardCopyOption.REPLACE_EXISTING,
+						StandardCopyOption.ATOMIC_MOVE);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(tmp.toPath(), f.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			}
+		}
+	}
+
+	private void createIndex() {
+		if (index != null)
+			index.dispose();
+
+		index = new ElementIndex(doc);
+	}
+
+	/**
+	 * @return the first element with the tag and id inside 'scope'. Null if
+	 *         not found.
+	 */
+	public Element getElementById(Element scope, String tag, String id) {
+		return index.get(scope, tag, id);
+	}
+
+	protected ElementIndex getIndex() {
+		return index;
 	}
 
 	public boolean isModified() {
@@ -352,34 +479,31 @@ public abstract class BaseDocument extends PropertyChange {
 	}
 
 	public NodeList getVerbs(Element e) {
-		// return e.getElementsByTagName("verb");
-
-		XPathFactory xpathFactory = XPathFactory.newInstance();
-		XPath xpath = xpathFactory.newXPath();
+		return getChildrenByTag(e, "verb");
+	}
 
+	public NodeList getChildrenByTag(Element e, String tag) {
 		try {
-			return (NodeList) xpath.evaluate("./verb", e, XPathConstants.NODESET);
+			return (NodeList) compileXPath("./" + tag).evaluate(e, XPathConstants.NODESET);
 		} catch (XPathExpressionException ex) {
-			// TODO Auto-generated catch block
-			ex.printStackTrace();
+			EngineLogger.error("ERROR EVALUATING XPATH: ./" + tag, ex);
 		}
 
 		return null;
 	}
 
-	public NodeList getChildrenByTag(Element e, String tag) {
+	private synchronized XPathExpression compileXPath(String expr) throws XPathExpressionException {
+		XPathExpression c = xpathCache.get(expr);
 
-		XPathFactory xpathFactory = XPathFactory.newInstance();
-		XPath xpath = xpathFactory.newXPath();
+		if (c == null) {
+			if (xpath == null)
+				xpath = XPathFactory.newInstance().newXPath();
 
-		try {
-			return (NodeList) xpath.evaluate("./" + tag, e, XPathConstants.NODESET);
-		} catch (XPathExpressionException ex) {
-			// TODO Auto-generated catch block
-			ex.printStackTrace();
+			c = xpath.compile(expr);
+			xpathCache.put(expr, c);
 		}
 
-		return null;
+		return c;
 	}
 
 	public Element getElement() {
@@ -402,24 +526,12 @@ public abstract class BaseDocument extends PropertyChange {
 		String idChecked = id;
 
 		if (e.getParentNode() instanceof Element) {
-
-			NodeList nl = ((Element) e.getParentNode()).getElementsByTagName(e.getTagName());
-			boolean checked = false;
-
+			Element parent = (Element) e.getParentNode();
 			int i = 1;
 
-			while (!checked) {
-				checked = true;
-
-				for (int j = 0; j < nl.getLength(); j++) {
-					Element e2 = (Element) nl.item(j);
-					if (e2.getAttribute("id").equals(idChecked) && e != e2) {
-						i++;
-						idChecked = id + i;
-						checked = false;
-						break;
-					}
-				}
+			while (index.get(parent, e.getTagName(), idChecked, e) != null) {
+				i++;
+				idChecked = id + i;
 			}
 		}
 
@@ -16,7 +16,7 @@
 package com.bladecoder.engineeditor.model;
 
 import java.io.File;
-import java.io.FileNotFoundException;
+import java.io.IOException;
 
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.transform.TransformerException;
@@ -67,15 +67,7 @@ public class ChapterDocument extends BaseDocument {
 	}
 
 	public Element getActor(Element scn, String id) {
-		NodeList actorsNL = getActors(scn);
-		for (int j = 0; j < actorsNL.getLength(); j++) {
-			Element e = (Element) actorsNL.item(j);
-			if (id.equals(e.getAttribute(XMLConstants.ID_ATTR))) {
-				return e;
-			}
-		}
-
-		return null;
+		return getElementById(scn, XMLConstants.ACTOR_TAG, id);
 	}
 
 	public NodeList getActors(Element scn) {
@@ -170,6 +162,9 @@ public class ChapterDocument extends BaseDocument {
 
 	public Scene getEngineScene(Element s, int wWidth, int wHeight) {
 		Scene scn = new Scene();
+		
+		// the editor modifies the actor bboxes in place
+		scn.setSpatialHashEnabled(false);
 
 		scn.setId(getId());
 
@@ -230,14 +225,14 @@ public class ChapterDocument extends BaseDocument {
 		return scn;
 	}
 
-	public void create(String id) throws ParserConfigurationException, FileNotFoundException, TransformerException {
+	public void create(String id) throws ParserConfigurationException, IOException, TransformerException {
 		create();
 		setId(id);
 		setFilenameFromId();
 		save();
 	}
 
-	public void rename(String newId) throws FileNotFoundException, TransformerException {
+	public void rename(String newId) throws IOException, TransformerException {
 
 		deleteFiles();
 
@@ -278,28 +273,13 @@ public class ChapterDocument extends BaseDocument {
 	 * @param id
 	 */
 	public void setActorId(Element scn, Element e, String id) {
-		NodeList actors = getActors(scn);
-
-		boolean checked = false;
-
 		int i = 1;
 
 		String idChecked = id;
 
-		while (!checked) {
-			checked = true;
-
-			for (int j = 0; j < actors.getLength(); j++) {
-				Element ae = (Element) actors.item(j);
-				String id2 = ae.getAttribute(XMLConstants.ID_ATTR);
-
-				if (id2.equals(idChecked) && e != ae) {
-					i++;
-					idChecked = id + i;
-					checked = false;
-					break;
-				}
-			}
+		while (getIndex().get(scn, XMLConstants.ACTOR_TAG, idChecked, e) != null) {
+			i++;
+			idChecked = id + i;
 		}
 
 		setRootAttr(e, XMLConstants.ID_ATTR, idChecked);
@@ -635,15 +615,6 @@ public class ChapterDocument extends BaseDocument {
 	}
 
 	public Element getSceneById(String id) {
-		NodeList scenes = getScenes();
-		
-		for(int i = 0; i < scenes.getLength(); i++) {
-			Element e = (Element) scenes.item(i);
-			
-			if(e.getAttribute(XMLConstants.ID_ATTR).equals(id))
-				return e;
-		}
-		
-		return null;
+		return getElementById(getElement(), XMLConstants.SCENE_TAG, id);
 	}
 }
@@ -0,0 +1,313 @@
+/*******************************************************************************
+ * Copyright 2014 Rafael Garcia Moreno.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.bladecoder.engineeditor.model;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import com.bladecoder.engineeditor.utils.EditorLogger;
+
+/**
+ * Loads and saves the documents in a background thread.
+ *
+ * Saving takes a snapshot of the document in the UI thread and writes it in
+ * the background. If a document is saved again before its previous write
+ * starts, only the last snapshot is written. Loads and writes run in order in
+ * a single thread, so a document is never loaded while it is being written.
+ *
+ * The callbacks are called in the UI thread through the 'ui' executor. The
+ * failed writes are also kept until the next flush(), that throws a
+ * WriteException, so they are not lost if the UI thread doesn't run the
+ * callbacks anymore.
+ */
+public class DocumentIO {
+	/** Delay used by saveLater() */
+	public static final long COALESCE_DELAY_MS = 2000;
+
+	public interface Callback<T> {
+		void done(T result);
+
+		void failed(Exception e);
+	}
+
+	/**
+	 * Thrown by flush() when background writes have failed. The documents are
+	 * marked as modified again so they can be saved again.
+	 */
+	public static class WriteException extends IOException {
+		private static final long serialVersionUID = 1L;
+
+		private final List<BaseDocument> documents;
+
+		public WriteException(List<BaseDocument> documents, Exception cause) {
+			super(cause.getMessage(), cause);
+			this.documents = documents;
+		}
+
+		public List<BaseDocument> getDocuments() {
+			return documents;
+		}
+	}
+
+	private final Executor ui;
+	private final ScheduledExecutorService executor;
+
+	/** Queued writes by document */
+	private final HashMap<BaseDocument, PendingWrite> pending = new HashMap<BaseDocument, PendingWrite>();
+
+	/** Failed writes by document not reported by flush() yet */
+	private final HashMap<BaseDocument, Exception> failures = new HashMap<BaseDocument, Exception>();
+
+	/** Delayed saves by document. Only accessed from the UI thread. */
+	private final HashMap<BaseDocument, ScheduledFuture<?>> delayed = new HashMap<BaseDocument, ScheduledFuture<?>>();
+
+	public DocumentIO(Executor ui) {
+		this.ui = ui;
+
+		executor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread t = new Thread(r, "document-io");
+				t.setDaemon(true);
+				return t;
+			}
+		});
+	}
+
+	/**
+	 * Saves the document in background. Must be called from the UI thread.
+	 *
+	 * @param cb
+	 *            can be null.
+	 */
+	public void save(final BaseDocument doc, Callback<Void> cb) {
+		cancelDelayed(doc);
+
+		BaseDocument.Snapshot s = doc.snapshot();
+
+		if (s == null) {
+			if (cb != null)
+				cb.done(null);
+
+			return;
+		}
+
+		synchronized (pending) {
+			PendingWrite w = pending.get(doc);
+
+			if (w != null) {
+				// not started yet: writes the last snapshot only
+				w.snapshot = s;
+
+				if (cb != null)
+					w.callbacks.add(cb);
+
+				return;
+			}
+
+			w = new PendingWrite();
+			w.snapshot = s;
+
+			if (cb != null)
+				w.callbacks.add(cb);
+
+			pending.put(doc, w);
+		}
+
+		executor.execute(new Runnable() {
+			@Override
+			public void run() {
+				write(doc);
+			}
+		});
+	}
+
+	/**
+	 * Saves the document after COALESCE_DELAY_MS. The calls made before the
+	 * save starts are merged in one save. Must be called from the UI thread.
+	 */
+	public void saveLater(final BaseDocument doc) {
+		cancelDelayed(doc);
+
+		delayed.put(doc, executor.schedule(new Runnable() {
+			@Override
+			public void run() {
+				ui.execute(new Runnable() {
+					@Override
+					public void run() {
+						delayed.remove(doc);
+						save(doc, null);
+					}
+				});
+			}
+		}, COALESCE_DELAY_MS, TimeUnit.MILLISECONDS));
+	}
+
+	/**
+	 * Runs the loader in background and calls the callback in the UI thread.
+	 * The loader runs after the queued writes.
+	 */
+	public <T> void load(final Callable<T> loader, final Callback<T> cb) {
+		executor.execute(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					final T result = loader.call();
+
+					ui.execute(new Runnable() {
+						@Override
+						public void run() {
+							cb.done(result);
+						}
+					});
+				} catch (final Exception e) {
+					ui.execute(new Runnable() {
+						@Override
+						public void run() {
+							cb.failed(e);
+						}
+					});
+				}
+			}
+		});
+	}
+
+	/**
+	 * Writes the delayed saves and waits for all the queued writes and loads.
+	 * Must be called from the UI thread.
+	 * 
+	 * @throws WriteException
+	 *             if a write has failed since the last flush.
+	 */
+	public void flush() throws IOException {
+		for (BaseDocument doc : new ArrayList<BaseDocument>(delayed.keySet()))
+			save(doc, null);
+
+		try {
+			executor.submit(new Runnable() {
+				@Override
+				public void run() {
+				}
+			}).get();
+		} catch (InterruptedException e) {
+			throw new IOException("Interrupted waiting for the documents to be saved");
+		} catch (ExecutionException e) {
+			throw new IOException(e.getCause());
+		}
+
+		List<BaseDocument> failed = null;
+		Exception first = null;
+
+		synchronized (pending) {
+			if (failures.isEmpty())
+				return;
+
+			failed = new ArrayList<BaseDocument>(failures.keySet());
+			first = failures.values().iterator().next();
+			failures.clear();
+		}
+
+		// the changes are not in disk
+		for (BaseDocument doc : failed)
+			doc.modified = true;
+
+		throw new WriteException(failed, first);
+	}
+
+	/**
+	 * Waits for the pending writes and stops the background thread.
+	 */
+	public void dispose() {
+		try {
+			flush();
+		} catch (IOException e) {
+			EditorLogger.error(e.getMessage());
+		}
+
+		executor.shutdown();
+	}
+
+	private void cancelDelayed(BaseDocument doc) {
+		ScheduledFuture<?> f = delayed.remove(doc);
+
+		if (f != null)
+			f.cancel(false);
+	}
+
+	private void write(final BaseDocument doc) {
+		final PendingWrite w;
+
+		synchronized (pending) {
+			w = pending.remove(doc);
+		}
+
+		if (w == null)
+			return;
+
+		Exception error = null;
+
+		try {
+			w.snapshot.write();
+		} catch (Exception e) {
+			EditorLogger.error("ERROR SAVING " + w.snapshot.getFilename() + ": " + e.getMessage());
+			error = e;
+		}
+
+		synchronized (pending) {
+			if (error == null)
+				failures.remove(doc);
+			else
+				failures.put(doc, new IOException("ERROR SAVING " + w.snapshot.getFilename() + ": "
+						+ error.getMessage(), error));
+		}
+
+		final Exception result = error;
+
+		ui.execute(new Runnable() {
+			@Override
+			public void run() {
+				if (result == null) {
+					doc.firePropertyChange(BaseDocument.NOTIFY_DOCUMENT_SAVED);
+				} else {
+					// the changes are not in disk
+					doc.modified = true;
+				}
+
+				for (Callback<Void> cb : w.callbacks) {
+					if (result == null)
+						cb.done(null);
+					else
+						cb.failed(result);
+				}
+			}
+		});
+	}
+
+	private static class PendingWrite {
+		BaseDocument.Snapshot snapshot;
+		final List<Callback<Void>> callbacks = new ArrayList<Callback<Void>>();
+	}
+}
@@ -0,0 +1,231 @@
+/*******************************************************************************
+ * Copyright 2014 Rafael Garcia Moreno.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.bladecoder.engineeditor.model;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+import org.w3c.dom.events.Event;
+import org.w3c.dom.events.EventListener;
+import org.w3c.dom.events.EventTarget;
+import org.w3c.dom.events.MutationEvent;
+
+import com.bladecoder.engine.loader.XMLConstants;
+
+/**
+ * Index of the document elements by tag and id.
+ *
+ * The index listens to the DOM mutation events, so it is kept up to date by
+ * any change in the document: the document methods, the undo operations or
+ * the elements modified directly. Only the elements attached to the document
+ * are indexed.
+ *
+ * If the DOM implementation doesn't support mutation events, the lookups scan
+ * the elements.
+ */
+public class ElementIndex {
+	private static final String NODE_INSERTED = "DOMNodeInserted";
+	private static final String NODE_REMOVED = "DOMNodeRemoved";
+	private static final String ATTR_MODIFIED = "DOMAttrModified";
+
+	private final Document doc;
+
+	/** tag -> id -> elements */
+	private final HashMap<String, HashMap<String, List<Element>>> index = new HashMap<String, HashMap<String, List<Element>>>();
+
+	/** Indexed id of every element */
+	private final IdentityHashMap<Element, String> ids = new IdentityHashMap<Element, String>();
+
+	private boolean enabled;
+
+	private final EventListener listener = new EventListener() {
+		@Override
+		public void handleEvent(Event evt) {
+			if (!(evt.getTarget() instanceof Element))
+				return;
+
+			Element e = (Element) evt.getTarget();
+			String type = evt.getType();
+
+			if (type.equals(NODE_INSERTED)) {
+				addTree(e);
+			} else if (type.equals(NODE_REMOVED)) {
+				removeTree(e);
+			} else if (XMLConstants.ID_ATTR.equals(((MutationEvent) evt).getAttrName())) {
+				remove(e);
+				add(e);
+			}
+		}
+	};
+
+	public ElementIndex(Document doc) {
+		this.doc = doc;
+
+		if (doc instanceof EventTarget) {
+			EventTarget t = (EventTarget) doc;
+
+			t.addEventListener(NODE_INSERTED, listener, false);
+			t.addEventListener(NODE_REMOVED, listener, false);
+			t.addEventListener(ATTR_MODIFIED, listener, false);
+
+			if (doc.getDocumentElement() != null)
+				addTree(doc.getDocumentElement());
+
+			enabled = true;
+		}
+	}
+
+	/**
+	 * Stops listening to the document.
+	 */
+	public void dispose() {
+		if (enabled) {
+			EventTarget t = (EventTarget) doc;
+
+			t.removeEventListener(NODE_INSERTED, listener, false);
+			t.removeEventListener(NODE_REMOVED, listener, false);
+			t.removeEventListener(ATTR_MODIFIED, listener, false);
+
+			index.clear();
+			ids.clear();
+			enabled = false;
+		}
+	}
+
+	/**
+	 * @return the first element, in document order, with the tag and id
+	 *         inside 'scope'. Null if not found.
+	 */
+	public Element get(Element scope, String tag, String id) {
+		return get(scope, tag, id, null);
+	}
+
+	/**
+	 * Like get() but ignoring the 'exclude' element.
+	 */
+	public Element get(Element scope, String tag, String id, Element exclude) {
+		if (!enabled) {
+			NodeList nl = scope.getElementsByTagName(tag);
+
+			for (int i = 0; i < nl.getLength(); i++) {
+				Element e = (Element) nl.item(i);
+
+				if (e != exclude && e.getAttribute(XMLConstants.ID_ATTR).equals(id))
+					return e;
+			}
+
+			return null;
+		}
+
+		HashMap<String, List<Element>> byId = index.get(tag);
+
+		if (byId == null)
+			return null;
+
+		List<Element> l = byId.get(id);
+
+		if (l == null)
+			return null;
+
+		Element found = null;
+
+		for (Element e : l) {
+			if (e == exclude || !isDescendant(scope, e))
+				continue;
+
+			if (found == null
+					|| (found.compareDocumentPosition(e) & Node.DOCUMENT_POSITION_PRECEDING) != 0)
+				found = e;
+		}
+
+		return found;
+	}
+
+	private static boolean isDescendant(Element scope, Node n) {
+		if (n == scope)
+			return false;
+
+		for (Node p = n.getParentNode(); p != null; p = p.getParentNode()) {
+			if (p == scope)
+				return true;
+		}
+
+		return false;
+	}
+
+	private void addTree(Element e) {
+		add(e);
+
+		for (Node n = e.getFirstChild(); n != null; n = n.getNextSibling()) {
+			if (n instanceof Element)
+				addTree((Element) n);
+		}
+	}
+
+	private void removeTree(Element e) {
+		remove(e);
+
+		for (Node n = e.getFirstChild(); n != null; n = n.getNextSibling()) {
+			if (n instanceof Element)
+				removeTree((Element) n);
+		}
+	}
+
+	private void add(Element e) {
+		String id = e.getAttribute(XMLConstants.ID_ATTR);
+
+		if (id.isEmpty() || ids.containsKey(e))
+			return;
+
+		HashMap<String, List<Element>> byId = index.get(e.getTagName());
+
+		if (byId == null) {
+			byId = new HashMap<String, List<Element>>();
+			index.put(e.getTagName(), byId);
+		}
+
+		List<Element> l = byId.get(id);
+
+		if (l == null) {
+			l = new ArrayList<Element>(1);
+			byId.put(id, l);
+		}
+
+		l.add(e);
+		ids.put(e, id);
+	}
+
+	private void remove(Element e) {
+		String id = ids.remove(e);
+
+		if (id == null)
+			return;
+
+		HashMap<String, List<Element>> byId = index.get(e.getTagName());
+		List<Element> l = byId.get(id);
+
+		l.remove(e);
+
+		if (l.isEmpty())
+			byId.remove(id);
+	}
+}
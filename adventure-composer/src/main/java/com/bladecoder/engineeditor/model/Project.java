@@ -24,6 +24,8 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
 
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.transform.TransformerException;
@@ -31,6 +33,7 @@ import javax.xml.transform.TransformerException;
 import org.w3c.dom.Element;
 import org.xml.sax.SAXException;
 
+import com.badlogic.gdx.Gdx;
 import com.bladecoder.engine.util.Config;
 import com.bladecoder.engineeditor.setup.BladeEngineSetup;
 import com.bladecoder.engineeditor.setup.Dependency;
@@ -61,10 +64,13 @@ public class Project extends PropertyChange {
 	public static final String SPINE_PATH = ASSETS_PATH + "/spine";
 	public static final String UI_PATH = ASSETS_PATH + "/ui";
 
-	private static final String CONFIG_DIR = System.getProperty("user.home") + "/.AdventureComposer";
+	public static final String CONFIG_DIR = System.getProperty("user.home") + "/.AdventureComposer";
 	private static final String CONFIG_FILENAME = "config.properties";
 	
 	public static final String LAST_PROJECT_PROP = "last_project";
+	
+	/** Editor config. property to save the documents automatically after the changes */
+	public static final String AUTOSAVE_PROP = "autosave";
 
 	private final Properties editorConfig = new Properties();
 
@@ -72,17 +78,25 @@ public class Project extends PropertyChange {
 
 	private final WorldDocument world = new WorldDocument();
 	private final UndoStack undoStack = new UndoStack();
+	private final DocumentIO io;
 	private Properties projectConfig;
 
 	private ChapterDocument selectedChapter;
 	private Element selectedScene;
 	private Element selectedActor;
 	private String selectedFA;
+	
+	/** Incremented by every chapter load. Older background loads are dropped */
+	private int chapterLoadSeq = 0;
 
 	final PropertyChangeListener modelChangeListener = new PropertyChangeListener() {
 		@Override
 		public void propertyChange(PropertyChangeEvent evt) {
 			firePropertyChange(evt.getPropertyName(), evt.getOldValue(), evt.getNewValue());
+			
+			if (!BaseDocument.NOTIFY_DOCUMENT_SAVED.equals(evt.getPropertyName())
+					&& Boolean.parseBoolean(editorConfig.getProperty(AUTOSAVE_PROP, "false")))
+				autosave();
 		}
 
 	};
@@ -90,6 +104,16 @@ public class Project extends PropertyChange {
 	public Project() {
 		world.addPropertyChangeListener(modelChangeListener);
 		loadConfig();
+		
+		undoStack.setLimits(getIntConfig(UndoStack.MAX_OPS_PROP, UndoStack.DEFAULT_MAX_OPS),
+				getIntConfig(UndoStack.MAX_MEMORY_PROP, UndoStack.DEFAULT_MAX_MEMORY_MB));
+		
+		io = new DocumentIO(new Executor() {
+			@Override
+			public void execute(Runnable r) {
+				Gdx.app.postRunnable(r);
+			}
+		});
 	}
 	
 	public UndoStack getUndoStack() {
@@ -128,6 +152,20 @@ public class Project extends PropertyChange {
 		return editorConfig;
 	}
 	
+	private int getIntConfig(String prop, int defaultValue) {
+		String value = editorConfig.getProperty(prop);
+
+		if (value != null) {
+			try {
+				return Integer.parseInt(value.trim());
+			} catch (NumberFormatException e) {
+				EditorLogger.error("Invalid " + prop + ": " + value);
+			}
+		}
+
+		return defaultValue;
+	}
+	
 	public Properties getProjectConfig() {
 		return projectConfig;
 	}
@@ -241,15 +279,117 @@ public class Project extends PropertyChange {
 			sdk, null);
 	}
 
+	/**
+	 * Saves the project and waits for it. Use it when the files are needed
+	 * in disk (running or packaging the game).
+	 */
 	public void saveProject() throws IOException, TransformerException {
 		if (projectFile != null) {
+			DocumentIO.WriteException failed = null;
+			
+			try {
+				io.flush();
+			} catch (DocumentIO.WriteException e) {
+				// the world and the chapter are written again below
+				failed = e;
+			}
+			
 			world.save();
 			selectedChapter.save();
 			
-			projectConfig.store(new FileOutputStream(projectFile.getAbsolutePath()+ "/" + ASSETS_PATH + "/" + Config.PROPERTIES_FILENAME), null);
+			saveProjectConfig();
+			
+			// a previous chapter can't be written again
+			if (failed != null) {
+				for (BaseDocument d : failed.getDocuments()) {
+					if (d != world && d != selectedChapter)
+						throw failed;
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Saves the project in background. The callback is called in the UI
+	 * thread when the world and the chapter are written.
+	 */
+	public void saveProjectInBackground(final DocumentIO.Callback<Void> cb) {
+		if (projectFile == null) {
+			if (cb != null)
+				cb.done(null);
+			
+			return;
+		}
+		
+		DocumentIO.Callback<Void> join = new DocumentIO.Callback<Void>() {
+			int remaining = 2;
+			Exception error;
+			
+			@Override
+			public void done(Void result) {
+				finished();
+			}
+
+			@Override
+			public void failed(Exception e) {
+				if (error == null)
+					error = e;
+				
+				finished();
+			}
+			
+			private void finished() {
+				if (--remaining > 0 || cb == null)
+					return;
+				
+				if (error == null)
+					cb.done(null);
+				else
+					cb.failed(error);
+			}
+		};
+		
+		io.save(world, join);
+		io.save(selectedChapter, join);
+		
+		try {
+			saveProjectConfig();
+		} catch (IOException e) {
+			EditorLogger.error("ERROR SAVING PROJECT CONFIG: " + e.getMessage());
+		}
+	}
+	
+	private void saveProjectConfig() throws IOException {
+		FileOutputStream os = new FileOutputStream(projectFile.getAbsolutePath()+ "/" + ASSETS_PATH + "/" + Config.PROPERTIES_FILENAME);
+		
+		try {
+			projectConfig.store(os, null);
+		} finally {
+			os.close();
 		}
 	}
 	
+	private void autosave() {
+		if (projectFile == null)
+			return;
+		
+		io.saveLater(world);
+		
+		if (selectedChapter != null)
+			io.saveLater(selectedChapter);
+	}
+	
+	/**
+	 * Waits for the documents being saved or loaded in background.
+	 */
+	public void flushDocuments() throws IOException {
+		io.flush();
+	}
+	
+	public void dispose() {
+		io.dispose();
+	}
+
 	public void closeProject() {
 		this.projectFile = null;
 	}
@@ -338,6 +478,11 @@ public class Project extends PropertyChange {
 	}
 
 	public void loadChapter(String selChapter) throws ParserConfigurationException, SAXException, IOException {
+		io.flush();
+		
+		// the pending background loads are superseded
+		chapterLoadSeq++;
+		
 		undoStack.clear();
 		
 		selectedChapter = world.loadChapter(selChapter);
@@ -350,4 +495,47 @@ public class Project extends PropertyChange {
 //				setSelectedScene(null);
 //		}
 	}
+	
+	/**
+	 * Loads the chapter in background. The editor keeps working with the
+	 * current chapter until the new one is loaded. The chapter is loaded
+	 * after the pending saves and the changes made to the current chapter
+	 * during the load are saved when it is replaced.
+	 * 
+	 * If another chapter load starts before this one finishes, this load is
+	 * discarded and 'cb' is not called.
+	 */
+	public void loadChapterInBackground(final String selChapter, final DocumentIO.Callback<ChapterDocument> cb) {
+		final int seq = ++chapterLoadSeq;
+		
+		io.load(new Callable<ChapterDocument>() {
+			@Override
+			public ChapterDocument call() throws Exception {
+				return world.loadChapter(selChapter);
+			}
+		}, new DocumentIO.Callback<ChapterDocument>() {
+			@Override
+			public void done(ChapterDocument result) {
+				if (seq != chapterLoadSeq)
+					return;
+				
+				// saves the changes made while loading
+				if (selectedChapter != null && selectedChapter.isModified())
+					io.save(selectedChapter, null);
+				
+				undoStack.clear();
+				selectedChapter = result;
+				
+				cb.done(result);
+			}
+
+			@Override
+			public void failed(Exception e) {
+				if (seq != chapterLoadSeq)
+					return;
+				
+				cb.failed(e);
+			}
+		});
+	}
 }
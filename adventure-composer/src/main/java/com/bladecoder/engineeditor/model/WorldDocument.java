@@ -139,7 +139,7 @@ public class WorldDocument extends  BaseDocument {
 		firePropertyChange();
 	}
 	
-	public ChapterDocument createChapter(String id) throws FileNotFoundException, TransformerException, ParserConfigurationException {
+	public ChapterDocument createChapter(String id) throws IOException, TransformerException, ParserConfigurationException {
 		ChapterDocument chapter = new ChapterDocument(modelPath);	
 		String checkedId = getChapterCheckedId(id);
 		
@@ -0,0 +1,207 @@
+/*******************************************************************************
+ * Copyright 2014 Rafael Garcia Moreno.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.bladecoder.engineeditor.scneditor;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+import com.badlogic.gdx.assets.AssetManager;
+import com.badlogic.gdx.graphics.Pixmap.Format;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.TextureAtlas;
+import com.badlogic.gdx.utils.Array;
+import com.bladecoder.engineeditor.utils.EditorLogger;
+
+/**
+ * Keeps the atlases and textures of the previous scenes loaded, so switching
+ * between scenes in the editor only loads the missing assets.
+ *
+ * The AssetManager counts the references of every asset: the cache holds one
+ * reference to each retained asset and the scene holds the others. When the
+ * cache evicts an asset it only releases its reference, the asset is disposed
+ * when no scene uses it.
+ *
+ * The least recently used assets are evicted when the estimated VRAM of the
+ * retained assets is over the budget.
+ */
+public class PreviewAssetCache {
+	/** Editor config property with the VRAM budget in MB */
+	public static final String VRAM_BUDGET_PROP = "preview_vram_budget";
+	public static final int DEFAULT_VRAM_BUDGET_MB = 256;
+
+	private static class Entry {
+		String name;
+		long bytes;
+		long lastModified;
+	}
+
+	/** Retained assets in access order */
+	private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<String, Entry>(16, 0.75f, true);
+
+	private final AssetManager manager;
+	private final long budget;
+	private long size;
+
+	/**
+	 * @param budgetMB
+	 *            estimated VRAM of the retained assets before evicting.
+	 */
+	public PreviewAssetCache(AssetManager manager, int budgetMB) {
+		this.manager = manager;
+		this.budget = budgetMB * 1024L * 1024L;
+	}
+
+	/**
+	 * Retains the atlases and textures loaded in the manager. Must be called
+	 * before disposing the scene that uses them.
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public void retainLoaded() {
+		Array<String> names = manager.getAssetNames();
+
+		// the atlas pages are retained through their atlas
+		HashSet<String> deps = new HashSet<String>();
+
+		for (String n : names) {
+			Array<String> d = manager.getDependencies(n);
+
+			if (d != null)
+				for (String s : d)
+					deps.add(s);
+		}
+
+		boolean added = false;
+
+		for (String n : names) {
+			if (deps.contains(n))
+				continue;
+
+			Class type = manager.getAssetType(n);
+
+			if (type != TextureAtlas.class && type != Texture.class)
+				continue;
+
+			// touch it as the most recently used
+			if (entries.get(n) != null)
+				continue;
+
+			Entry e = new Entry();
+			e.name = n;
+			e.bytes = estimateSize(manager.get(n, type));
+			e.lastModified = lastModified(n);
+
+			// a load of a loaded asset increments its reference count
+			manager.load(n, type);
+
+			entries.put(n, e);
+			size += e.bytes;
+			added = true;
+		}
+
+		if (added)
+			manager.finishLoading();
+	}
+
+	/**
+	 * Releases the least recently used assets until the retained assets fit
+	 * in the budget.
+	 */
+	public void trim() {
+		Iterator<Entry> it = entries.values().iterator();
+
+		while (size > budget && it.hasNext()) {
+			Entry e = it.next();
+
+			it.remove();
+			release(e);
+		}
+	}
+
+	/**
+	 * Releases the assets whose files changed on disk, so the next scene
+	 * loads them again. Must be called when no scene is using them.
+	 */
+	public void releaseModified() {
+		Iterator<Entry> it = entries.values().iterator();
+
+		while (it.hasNext()) {
+			Entry e = it.next();
+
+			if (e.lastModified != lastModified(e.name)) {
+				EditorLogger.debug("Preview asset modified: " + e.name);
+				it.remove();
+				release(e);
+			}
+		}
+	}
+
+	/**
+	 * Releases all the retained assets.
+	 */
+	public void clear() {
+		for (Entry e : entries.values())
+			release(e);
+
+		entries.clear();
+	}
+
+	/**
+	 * @return the estimated VRAM of the retained assets in bytes.
+	 */
+	public long getSize() {
+		return size;
+	}
+
+	private void release(Entry e) {
+		size -= e.bytes;
+
+		if (manager.isLoaded(e.name))
+			manager.unload(e.name);
+	}
+
+	private long lastModified(String name) {
+		return manager.getFileHandleResolver().resolve(name).lastModified();
+	}
+
+	private static long estimateSize(Object asset) {
+		if (asset instanceof Texture)
+			return estimateSize((Texture) asset);
+
+		long bytes = 0;
+
+		if (asset instanceof TextureAtlas) {
+			for (Texture t : ((TextureAtlas) asset).getTextures())
+				bytes += estimateSize(t);
+		}
+
+		return bytes;
+	}
+
+	private static long estimateSize(Texture t) {
+		Format f = t.getTextureData().getFormat();
+		int bpp = 4;
+
+		if (f == Format.RGB888)
+			bpp = 3;
+		else if (f == Format.RGB565 || f == Format.RGBA4444 || f == Format.LuminanceAlpha)
+			bpp = 2;
+		else if (f == Format.Alpha || f == Format.Intensity)
+			bpp = 1;
+
+		return (long) t.getWidth() * t.getHeight() * bpp;
+	}
+}
@@ -97,6 +97,9 @@ public class ScnWidget extends Widget {
 	 */
 	private boolean projectLoadedFlag = false;
 
+	/** Assets of the previous scenes kept loaded for the next scene switches */
+	private PreviewAssetCache previewCache;
+
 	public ScnWidget(Skin skin) {
 		bigFont = skin.get("big-font", BitmapFont.class);
 		defaultFont = skin.get("default-font", BitmapFont.class);
@@ -238,6 +241,9 @@ public class ScnWidget extends Widget {
 		if(projectLoadedFlag) {
 			projectLoadedFlag = false;
 			
+			// the retained assets are disposed with the manager
+			previewCache = null;
+
 			if (scn != null) {
 				scn.dispose();
 				EngineAssetManager.getInstance().dispose();
@@ -246,6 +252,8 @@ public class ScnWidget extends Widget {
 
 			EngineAssetManager.createEditInstance(Ctx.project
 					.getProjectDir().getAbsolutePath() + Project.ASSETS_PATH, Ctx.project.getWorld().getWidth(), Ctx.project.getWorld().getHeight());
+
+			previewCache = new PreviewAssetCache(EngineAssetManager.getInstance(), getVRAMBudget());
 			
 			setSelectedScene(Ctx.project.getSelectedScene());
 			setSelectedActor(Ctx.project.getSelectedActor());
@@ -577,10 +585,18 @@ public class ScnWidget extends Widget {
 
 	public void setSelectedScene(Element e) {
 		if (scn != null) {
+			if (previewCache != null)
+				previewCache.retainLoaded();
+
 			scn.dispose();
 			scn = null;
-			
-			EngineAssetManager.getInstance().clear();
+
+			if (previewCache != null) {
+				previewCache.releaseModified();
+				previewCache.trim();
+			} else {
+				EngineAssetManager.getInstance().clear();
+			}
 		}
 
 		loadingError = false;
@@ -705,12 +721,31 @@ public class ScnWidget extends Widget {
 		}
 	}
 
+	private int getVRAMBudget() {
+		String prop = Ctx.project.getEditorConfig().getProperty(PreviewAssetCache.VRAM_BUDGET_PROP);
+
+		if (prop != null) {
+			try {
+				return Integer.parseInt(prop.trim());
+			} catch (NumberFormatException e) {
+				EditorLogger.error("Invalid " + PreviewAssetCache.VRAM_BUDGET_PROP + ": " + prop);
+			}
+		}
+
+		return PreviewAssetCache.DEFAULT_VRAM_BUDGET_MB;
+	}
+
 	public void dispose() {
 		if (scn != null) {
 			scn.dispose();
 			scn = null;
 		}
 
+		if (previewCache != null) {
+			previewCache.clear();
+			previewCache = null;
+		}
+
 		faRenderer.dispose();
 	}
 
@@ -15,11 +15,8 @@
  ******************************************************************************/
 package com.bladecoder.engineeditor.scneditor;
 
-import java.io.IOException;
 import java.util.ArrayList;
 
-import javax.xml.transform.TransformerException;
-
 import org.w3c.dom.Element;
 
 import com.badlogic.gdx.Gdx;
@@ -36,9 +33,11 @@ import com.bladecoder.engine.model.SpriteActor;
 import com.bladecoder.engine.polygonalpathfinder.PolygonalNavGraph;
 import com.bladecoder.engine.util.PolygonUtils;
 import com.bladecoder.engineeditor.Ctx;
+import com.bladecoder.engineeditor.model.DocumentIO;
 import com.bladecoder.engineeditor.undo.UndoDeleteElement;
 import com.bladecoder.engineeditor.undo.UndoOp;
 import com.bladecoder.engineeditor.undo.UndoSetAttr;
+import com.bladecoder.engineeditor.utils.EditorLogger;
 
 public class ScnWidgetInputListener extends ClickListener {
 	private final ScnWidget scnWidget;
@@ -430,7 +429,16 @@ public class ScnWidgetInputListener extends ClickListener {
 			break;
 		case Keys.Z:
 			if (Gdx.input.isKeyPressed(Keys.CONTROL_LEFT)) {
-				Ctx.project.getUndoStack().undo();
+				if (Gdx.input.isKeyPressed(Keys.SHIFT_LEFT))
+					Ctx.project.getUndoStack().redo();
+				else
+					Ctx.project.getUndoStack().undo();
+			}
+			break;
+			
+		case Keys.Y:
+			if (Gdx.input.isKeyPressed(Keys.CONTROL_LEFT)) {
+				Ctx.project.getUndoStack().redo();
 			}
 			break;
 			
@@ -444,17 +452,22 @@ public class ScnWidgetInputListener extends ClickListener {
 			
 		case Keys.S:
 			if (Gdx.input.isKeyPressed(Keys.CONTROL_LEFT)) {
-				try {
-					Ctx.project.saveProject();
-				} catch (TransformerException | IOException e1) {
-					String msg = "Something went wrong while saving the actor.\n\n"
-							+ e1.getClass().getSimpleName()
-							+ " - "
-							+ e1.getMessage();
-					Ctx.msg.show(scnWidget.getStage(), msg, 4);
-
-					e1.printStackTrace();
-				}
+				Ctx.project.saveProjectInBackground(new DocumentIO.Callback<Void>() {
+					@Override
+					public void done(Void result) {
+					}
+
+					@Override
+					public void failed(Exception e1) {
+						String msg = "Something went wrong while saving the actor.\n\n"
+								+ e1.getClass().getSimpleName()
+								+ " - "
+								+ e1.getMessage();
+						Ctx.msg.show(scnWidget.getStage(), msg, 4);
+
+						EditorLogger.error(msg, e1);
+					}
+				});
 			}
 			break;
 			
@@ -23,11 +23,13 @@ import java.io.FilenameFilter;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
 import java.util.List;
 
 import javax.swing.JFileChooser;
 import javax.swing.filechooser.FileNameExtensionFilter;
 
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.badlogic.gdx.scenes.scene2d.Actor;
 import com.badlogic.gdx.scenes.scene2d.ui.Container;
 import com.badlogic.gdx.scenes.scene2d.ui.ScrollPane;
@@ -38,6 +40,7 @@ import com.badlogic.gdx.scenes.scene2d.utils.ChangeListener;
 import com.badlogic.gdx.utils.Array;
 import com.bladecoder.engineeditor.Ctx;
 import com.bladecoder.engineeditor.model.Project;
+import com.bladecoder.engineeditor.ui.components.CellRenderer;
 import com.bladecoder.engineeditor.ui.components.CustomList;
 import com.bladecoder.engineeditor.ui.components.EditToolbar;
 import com.bladecoder.engineeditor.utils.ImageUtils;
@@ -46,6 +49,8 @@ public class AssetsList extends Table {
 	private static final String[] ASSET_TYPES = { "3d models", 
 			"atlases", "music", "sounds", "images", "spine" };
 
+	private static final int THUMBNAIL_WIDTH = 100;
+
 	private SelectBox<String> assetTypes;
 	protected EditToolbar toolbar;
     protected CustomList<String> list;
@@ -54,6 +59,10 @@ public class AssetsList extends Table {
 
 	private File lastDir;
 
+	/** Thumbnails of the shown images by file name */
+	private final HashMap<String, TextureRegion> thumbnails = new HashMap<String, TextureRegion>();
+	private int thumbnailsGeneration;
+
 	public AssetsList(Skin skin) {
 		super(skin);
 		
@@ -62,7 +71,7 @@ public class AssetsList extends Table {
 		
 		this.skin = skin;	
 		
-		list = new CustomList<String>(skin);
+		list = new CustomList<String>(skin, listCellRenderer);
 		
 		Array<String> items = new Array<String>();
 		list.setItems(items);
@@ -133,6 +142,8 @@ public class AssetsList extends Table {
 
 	private void addAssets() {
 		list.getItems().clear();
+		thumbnails.clear();
+		Ctx.thumbnails.refresh();
 
 		if (Ctx.project.getProjectDir() != null) {
 			String type = assetTypes.getSelected();
@@ -332,4 +343,34 @@ public class AssetsList extends Table {
 			ex.printStackTrace();
 		}
 	}
+
+	// -------------------------------------------------------------------------
+	// ListCellRenderer
+	// -------------------------------------------------------------------------
+	private final CellRenderer<String> listCellRenderer = new CellRenderer<String>() {
+
+		@Override
+		public TextureRegion getCellImage(String e) {
+			if (thumbnailsGeneration != Ctx.thumbnails.getGeneration()) {
+				thumbnails.clear();
+				thumbnailsGeneration = Ctx.thumbnails.getGeneration();
+			}
+
+			TextureRegion r = thumbnails.get(e);
+
+			if (r == null) {
+				File f = new File(getAssetDir(assetTypes.getSelected()) + "/1/" + e);
+
+				r = Ctx.thumbnails.getImage(f, THUMBNAIL_WIDTH, Ctx.assetManager.getIcon("ic_assets"));
+				thumbnails.put(e, r);
+			}
+
+			return r;
+		}
+
+		@Override
+		protected boolean hasImage() {
+			return assetTypes.getSelected().equals("images");
+		}
+	};
 }
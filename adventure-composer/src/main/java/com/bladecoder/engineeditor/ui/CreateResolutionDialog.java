@@ -18,17 +18,21 @@ package com.bladecoder.engineeditor.ui;
 import java.io.File;
 import java.io.IOException;
 
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.scenes.scene2d.InputEvent;
 import com.badlogic.gdx.scenes.scene2d.Stage;
 import com.badlogic.gdx.scenes.scene2d.ui.Skin;
 import com.badlogic.gdx.scenes.scene2d.utils.ChangeListener;
 import com.badlogic.gdx.scenes.scene2d.utils.ChangeListener.ChangeEvent;
+import com.badlogic.gdx.scenes.scene2d.utils.ClickListener;
 import com.bladecoder.engine.actions.Param;
 import com.bladecoder.engineeditor.Ctx;
 import com.bladecoder.engineeditor.model.Project;
 import com.bladecoder.engineeditor.ui.components.EditDialog;
 import com.bladecoder.engineeditor.ui.components.InputPanel;
 import com.bladecoder.engineeditor.ui.components.InputPanelFactory;
-import com.bladecoder.engineeditor.utils.ImageUtils;
+import com.bladecoder.engineeditor.utils.AtlasBuildCache;
+import com.bladecoder.engineeditor.utils.ResolutionGenerator;
 
 public class CreateResolutionDialog extends EditDialog {
 
@@ -61,8 +65,6 @@ public class CreateResolutionDialog extends EditDialog {
 			@Override
 			public void run() {
 				Ctx.msg.show(stage, "Creating resolution...", true);
-				
-				createResolution();
 
 				String msg = scaleImages();				
 				
@@ -77,16 +79,6 @@ public class CreateResolutionDialog extends EditDialog {
 		}).start();		
 	}
 	
-	private void createResolution() {
-//		float s = Float.parseFloat(scale.getText());
-//		String prefix = (int)(Ctx.project.getWorld().getWidth() * s) + "_" +  (int)(Ctx.project.getWorld().getHeight() * s);
-		String prefix = scale.getText().trim();
-		
-		new File(atlasDir + "/" + prefix).mkdir();
-		new File(uiDir + "/" + prefix).mkdir();
-		new File(imageDir + "/" + prefix).mkdir();		
-	}
-
 	private String scaleImages() {
 		
 		float s = Float.parseFloat(scale.getText());
@@ -94,16 +86,60 @@ public class CreateResolutionDialog extends EditDialog {
 		String prefix = scale.getText().trim();
 		
 		// COPY ASSETS FROM WORLD RESOLUTION SCALED
+		// The generator creates the resolution folders and removes them if
+		// cancelled or failed
 		String wPrefix = Ctx.project.getResDir();
 		
+		final ResolutionGenerator generator = new ResolutionGenerator(s, Ctx.project.getWorld().getWidth());
+		generator.setBuildCache(AtlasBuildCache.getInstance());
+		
+		generator.addImageDir(new File(uiDir + "/" + wPrefix), new File(uiDir + "/" + prefix));
+		generator.addImageDir(new File(imageDir + "/" + wPrefix), new File(imageDir + "/" + prefix));
+		generator.addAtlasDir(new File(atlasDir + "/" + wPrefix), new File(atlasDir + "/" + prefix));
+		generator.addAtlasDir(new File(uiDir + "/" + wPrefix), new File(uiDir + "/" + prefix));
+		
+		generator.setProgressListener(new ResolutionGenerator.ProgressListener() {
+			@Override
+			public void progress(final int done, final int total, String name) {
+				Gdx.app.postRunnable(new Runnable() {
+					@Override
+					public void run() {
+						if(!generator.isCancelled())
+							Ctx.msg.setText("Creating resolution... " + done + "/" + total + "\n(click to cancel)");
+					}
+				});
+			}
+		});
+		
+		// the message is modal, clicking it cancels the generation
+		final ClickListener cancelListener = new ClickListener() {
+			@Override
+			public void clicked(InputEvent event, float x, float y) {
+				generator.cancel();
+				Ctx.msg.setText("Cancelling...");
+			}
+		};
+		
+		// the actors must be modified in the render thread
+		Gdx.app.postRunnable(new Runnable() {
+			@Override
+			public void run() {
+				Ctx.msg.addListener(cancelListener);
+			}
+		});
+		
 		try {
-			ImageUtils.scaleDirFiles(new File(uiDir + "/" + wPrefix), new File(uiDir + "/" + prefix), s);
-			ImageUtils.scaleDirFiles(new File(imageDir + "/" + wPrefix), new File(imageDir + "/" + prefix), s);
-			
-			ImageUtils.scaleDirAtlases(new File(atlasDir + "/" + wPrefix), new File(atlasDir + "/" + prefix), s);
-			ImageUtils.scaleDirAtlases(new File(uiDir + "/" + wPrefix), new File(uiDir + "/" + prefix), s);
+			if(!generator.run())
+				return "Resolution creation cancelled";
 		} catch (IOException e) {
 			return e.getMessage();
+		} finally {
+			Gdx.app.postRunnable(new Runnable() {
+				@Override
+				public void run() {
+					Ctx.msg.removeListener(cancelListener);
+				}
+			});
 		}
 		
 		return null;
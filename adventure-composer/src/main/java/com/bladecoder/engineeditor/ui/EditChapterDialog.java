@@ -15,7 +15,6 @@
  ******************************************************************************/
 package com.bladecoder.engineeditor.ui;
 
-import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.text.MessageFormat;
 
@@ -71,7 +70,7 @@ public class EditChapterDialog extends EditDialog {
 	private void create() {
 		try {
 			newId = ((WorldDocument) doc).createChapter(inputId.getText()).getRootAttr("id");
-		} catch (FileNotFoundException | TransformerException
+		} catch (IOException | TransformerException
 				| ParserConfigurationException e) {
 			String msg = "Something went wrong while creating the chapter.\n\n"
 					+ e.getClass().getSimpleName() + " - " + e.getMessage();
@@ -86,6 +85,9 @@ public class EditChapterDialog extends EditDialog {
 		if (previousId != null && !previousId.equals(newId)) {
 
 			try {
+				// waits for the chapters being saved in background
+				Ctx.project.flushDocuments();
+				
 				// save selected chapter if renamed chapter is the selected chapter
 				if(previousId.equals(Ctx.project.getSelectedChapter())) {
 					Ctx.project.getSelectedChapter().save();
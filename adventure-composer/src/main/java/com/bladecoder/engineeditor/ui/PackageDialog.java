@@ -33,6 +33,8 @@ import com.bladecoder.engineeditor.ui.components.EditDialog;
 import com.bladecoder.engineeditor.ui.components.FileInputPanel;
 import com.bladecoder.engineeditor.ui.components.InputPanel;
 import com.bladecoder.engineeditor.ui.components.InputPanelFactory;
+import com.bladecoder.engine.actions.Param;
+import com.bladecoder.engineeditor.utils.PackageBuilder;
 import com.bladecoder.engineeditor.utils.RunProccess;
 
 public class PackageDialog extends EditDialog {
@@ -54,6 +56,7 @@ public class PackageDialog extends EditDialog {
 	private InputPanel linux32JRE;
 	private InputPanel winJRE;
 	private InputPanel osxJRE;
+	private InputPanel zip;
 	private InputPanel version;
 	private InputPanel icon;
 	private InputPanel androidSDK;
@@ -62,7 +65,7 @@ public class PackageDialog extends EditDialog {
 	private InputPanel androidKeyStorePassword;
 	private InputPanel androidKeyAliasPassword;
 
-	private InputPanel[] options = new InputPanel[11];
+	private InputPanel[] options = new InputPanel[12];
 
 	@SuppressWarnings("unchecked")
 	public PackageDialog(Skin skin) {
@@ -76,6 +79,8 @@ public class PackageDialog extends EditDialog {
 		linux32JRE = new FileInputPanel(skin, "JRE.Linux32", "Select the 32 bits Linux JRE Location to bundle. Must be a ZIP file", false);
 		winJRE = new FileInputPanel(skin, "JRE.Windows", "Select the Windows JRE Location to bundle. Must be a ZIP file", false);
 		osxJRE = new FileInputPanel(skin, "JRE.OSX", "Select the OSX JRE Location to bundle. Must be a ZIP file", false);
+		zip = InputPanelFactory.createInputPanel(skin, "Zip", "Compress every bundle in a ZIP file to distribute it",
+				Param.Type.BOOLEAN, true, "false");
 		version = InputPanelFactory.createInputPanel(skin, "Version", "Select the version of the package");
 		icon = new FileInputPanel(skin, "Icon", "The icon for the .exe file", false);
 		androidSDK = new FileInputPanel(skin, "SDK", "Select the Android SDK Location", true);
@@ -95,6 +100,7 @@ public class PackageDialog extends EditDialog {
 		options[8] = androidSDK;
 		options[9] = androidKeyStore;
 		options[10] = androidKeyAlias;
+		options[11] = zip;
 
 		addInputPanel(arch);
 		addInputPanel(dir);
@@ -269,9 +275,11 @@ public class PackageDialog extends EditDialog {
 	private void typeChanged() {
 		if (type.getText().equals(TYPES[0])) {
 			setVisible(os, true);
+			setVisible(zip, true);
 		} else {
 			setVisible(os, false);
 			setVisible(icon, false);
+			setVisible(zip, false);
 		}
 
 		osChanged();
@@ -395,5 +403,12 @@ public class PackageDialog extends EditDialog {
 		config.outDir = outDir + "/" + exe + "-" + suffix;
 
 		new Packr().pack(config);
+
+		if (Boolean.parseBoolean(zip.getText())) {
+			// the jars are stored, they are already compressed
+			PackageBuilder builder = new PackageBuilder(new File(config.outDir + ".zip"));
+			builder.addDir("", new File(config.outDir));
+			builder.build();
+		}
 	}
 }
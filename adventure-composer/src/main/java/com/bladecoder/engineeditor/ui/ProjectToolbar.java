@@ -20,6 +20,7 @@ import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
 import java.io.File;
 import java.io.IOException;
+import java.util.List;
 
 import javax.swing.JFileChooser;
 
@@ -35,7 +36,10 @@ import com.badlogic.gdx.scenes.scene2d.ui.Table;
 import com.badlogic.gdx.scenes.scene2d.utils.ChangeListener;
 import com.badlogic.gdx.scenes.scene2d.utils.TextureRegionDrawable;
 import com.bladecoder.engineeditor.Ctx;
+import com.bladecoder.engineeditor.model.DocumentIO;
 import com.bladecoder.engineeditor.model.Project;
+import com.bladecoder.engineeditor.utils.EditorLogger;
+import com.bladecoder.engineeditor.utils.ProjectValidator;
 import com.bladecoder.engineeditor.utils.RunProccess;
 
 public class ProjectToolbar extends Table {
@@ -47,6 +51,7 @@ public class ProjectToolbar extends Table {
 	private ImageButton playBtn;
 	private ImageButton assetsBtn;
 	private ImageButton atlasBtn;
+	private ImageButton checkBtn;
 
 	private Skin skin;
 
@@ -62,6 +67,7 @@ public class ProjectToolbar extends Table {
 		playBtn = new ImageButton(skin);
 		assetsBtn = new ImageButton(skin);
 		atlasBtn = new ImageButton(skin);
+		checkBtn = new ImageButton(skin);
 
 		addToolBarButton(skin, newBtn, "ic_new", "New", "Create a new project");
 		addToolBarButton(skin, loadBtn, "ic_load", "Load", "Load an existing project");
@@ -73,6 +79,7 @@ public class ProjectToolbar extends Table {
 		addToolBarButton(skin, packageBtn, "ic_package", "Package", "Package the game for distribution");
 		addToolBarButton(skin, assetsBtn, "ic_assets", "Assets", "Open assets folder");
 		addToolBarButton(skin, atlasBtn, "ic_atlases", "Atlas", "Create Atlas");
+		addToolBarButton(skin, checkBtn, "ic_check", "Check", "Check the project for errors");
 
 		newBtn.setDisabled(false);
 		loadBtn.setDisabled(false);
@@ -102,7 +109,7 @@ public class ProjectToolbar extends Table {
 		saveBtn.addListener(new ChangeListener() {
 			@Override
 			public void changed(ChangeEvent event, Actor actor) {
-				saveProject();
+				saveProjectInBackground();
 			}
 		});
 
@@ -134,6 +141,13 @@ public class ProjectToolbar extends Table {
 			}
 		});
 
+		checkBtn.addListener(new ChangeListener() {
+			@Override
+			public void changed(ChangeEvent event, Actor actor) {
+				checkProject();
+			}
+		});
+
 		Ctx.project.getWorld().addPropertyChangeListener(new PropertyChangeListener() {
 			@Override
 			public void propertyChange(PropertyChangeEvent e) {
@@ -148,6 +162,7 @@ public class ProjectToolbar extends Table {
 				playBtn.setDisabled(Ctx.project.getProjectDir() == null);
 				assetsBtn.setDisabled(Ctx.project.getProjectDir() == null);
 				atlasBtn.setDisabled(Ctx.project.getProjectDir() == null);
+				checkBtn.setDisabled(Ctx.project.getProjectDir() == null);
 			}
 		});
 	}
@@ -226,6 +241,29 @@ public class ProjectToolbar extends Table {
 		}
 	}
 
+	private void saveProjectInBackground() {
+		if (Ctx.project.getProjectDir() == null) {
+			String msg = "Please create a new project first.";
+			Ctx.msg.show(getStage(), msg, 2);
+			return;
+		}
+
+		final Stage stage = getStage();
+
+		Ctx.project.saveProjectInBackground(new DocumentIO.Callback<Void>() {
+			@Override
+			public void done(Void result) {
+			}
+
+			@Override
+			public void failed(Exception ex) {
+				String msg = "Something went wrong while saving the project.\n\n" + ex.getClass().getSimpleName()
+						+ " - " + ex.getMessage();
+				Ctx.msg.show(stage, msg, 2);
+			}
+		});
+	}
+
 	private void packageProject() {
 		saveProject();
 
@@ -271,4 +309,36 @@ public class ProjectToolbar extends Table {
 		new CreateAtlasDialog(skin).show(getStage());
 	}
 
+	private void checkProject() {
+		// the validator reads the files
+		saveProject();
+
+		new Thread(new Runnable() {
+			Stage stage = getStage();
+
+			@Override
+			public void run() {
+				Ctx.msg.show(stage, "Checking project...");
+
+				try {
+					List<ProjectValidator.Issue> issues = new ProjectValidator(Ctx.project.getProjectDir())
+							.validate(Runtime.getRuntime().availableProcessors());
+					int errors = 0;
+
+					for (ProjectValidator.Issue i : issues) {
+						EditorLogger.error(i.toString());
+
+						if (i.severity == ProjectValidator.Severity.ERROR)
+							errors++;
+					}
+
+					Ctx.msg.show(stage, errors + " errors and " + (issues.size() - errors)
+							+ " warnings found. See the log for details.", 4);
+				} catch (IOException e) {
+					Ctx.msg.show(stage, "There was a problem checking the project: " + e.getMessage(), 3);
+				}
+			}
+		}).start();
+	}
+
 }
@@ -17,27 +17,14 @@ package com.bladecoder.engineeditor.ui;
 
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
-import java.io.IOException;
+import java.io.File;
 import java.util.HashMap;
 
-import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.transform.TransformerException;
-
 import org.w3c.dom.Element;
-import org.xml.sax.SAXException;
-
-import com.badlogic.gdx.Gdx;
-import com.badlogic.gdx.graphics.Color;
-import com.badlogic.gdx.graphics.GL20;
-import com.badlogic.gdx.graphics.OrthographicCamera;
-import com.badlogic.gdx.graphics.Pixmap.Format;
-import com.badlogic.gdx.graphics.g2d.Batch;
-import com.badlogic.gdx.graphics.g2d.SpriteBatch;
-import com.badlogic.gdx.graphics.g2d.TextureAtlas;
-import com.badlogic.gdx.graphics.g2d.TextureAtlas.AtlasRegion;
+
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
-import com.badlogic.gdx.graphics.glutils.FrameBuffer;
 import com.badlogic.gdx.scenes.scene2d.Actor;
+import com.badlogic.gdx.scenes.scene2d.Stage;
 import com.badlogic.gdx.scenes.scene2d.ui.HorizontalGroup;
 import com.badlogic.gdx.scenes.scene2d.ui.ImageButton;
 import com.badlogic.gdx.scenes.scene2d.ui.Label;
@@ -45,10 +32,11 @@ import com.badlogic.gdx.scenes.scene2d.ui.SelectBox;
 import com.badlogic.gdx.scenes.scene2d.ui.Skin;
 import com.badlogic.gdx.scenes.scene2d.utils.ChangeListener;
 import com.badlogic.gdx.utils.Array;
-import com.badlogic.gdx.utils.ScreenUtils;
 import com.bladecoder.engine.loader.XMLConstants;
-import com.bladecoder.engine.util.EngineLogger;
 import com.bladecoder.engineeditor.Ctx;
+import com.bladecoder.engineeditor.model.BaseDocument;
+import com.bladecoder.engineeditor.model.ChapterDocument;
+import com.bladecoder.engineeditor.model.DocumentIO;
 import com.bladecoder.engineeditor.model.Project;
 import com.bladecoder.engineeditor.model.WorldDocument;
 import com.bladecoder.engineeditor.ui.components.CellRenderer;
@@ -57,11 +45,26 @@ import com.bladecoder.engineeditor.ui.components.ElementList;
 import com.bladecoder.engineeditor.utils.EditorLogger;
 
 public class SceneList extends ElementList {
+	private static final int BG_ICON_WIDTH = 200;
 
 	private ImageButton initBtn;
+
+	/** Background thumbnails of the shown scenes */
+	private final HashMap<Element, BgIcon> bgIcons = new HashMap<Element, BgIcon>();
+	private int bgIconsGeneration;
+
+	private static class BgIcon {
+		final String atlas;
+		final String region;
+		final TextureRegion icon;
+
+		BgIcon(String atlas, String region, TextureRegion icon) {
+			this.atlas = atlas;
+			this.region = region;
+			this.icon = icon;
+		}
+	}
 	private SelectBox<String> chapters;
-	private HashMap<String, TextureRegion> bgIconCache = new HashMap<String, TextureRegion>();
-	private boolean disposeBgCache = false;
 
 	public SceneList(Skin skin) {
 		super(skin, true);
@@ -120,7 +123,7 @@ public class SceneList extends ElementList {
 					public void propertyChange(PropertyChangeEvent arg0) {
 						toolbar.disableCreate(Ctx.project.getProjectDir() == null);
 
-						disposeBgCache = true;
+						Ctx.thumbnails.clear();
 						addChapters();
 					}
 				});
@@ -153,31 +156,43 @@ public class SceneList extends ElementList {
 	ChangeListener chapterListener = new ChangeListener() {
 		@Override
 		public void changed(ChangeEvent event, Actor actor) {
-			String selChapter = (String) chapters.getSelected();
+			final String selChapter = (String) chapters.getSelected();
 
 			if (selChapter != null && !selChapter.equals(Ctx.project.getSelectedChapter().getId())) {
+				final Stage stage = getStage();
 
-				// Save the project when changing chapter
-				try {
-					Ctx.project.saveProject();
-				} catch (IOException | TransformerException e1) {
-					Ctx.msg.show(getStage(),
-							"Error saving project", 3);
-					EditorLogger.error(e1.getMessage());
-				}
+				// Save the project when changing chapter. The chapter is
+				// loaded after the save, the editor is not blocked.
+				Ctx.project.saveProjectInBackground(new DocumentIO.Callback<Void>() {
+					@Override
+					public void done(Void result) {
+					}
 
-				try {
-					
-					if(selChapter != null)
-						Ctx.project.loadChapter(selChapter);
-					
-					doc = Ctx.project.getSelectedChapter();
-					
-					addElements(doc, doc.getElement(), "scene");
-				} catch (ParserConfigurationException | SAXException
-						| IOException e1) {
-					e1.printStackTrace();
-				}
+					@Override
+					public void failed(Exception e) {
+						Ctx.msg.show(stage, "Error saving project", 3);
+						EditorLogger.error(e.getMessage());
+					}
+				});
+
+				Ctx.msg.show(stage, "Loading chapter " + selChapter + "...");
+
+				Ctx.project.loadChapterInBackground(selChapter, new DocumentIO.Callback<ChapterDocument>() {
+					@Override
+					public void done(ChapterDocument result) {
+						Ctx.msg.hide();
+
+						doc = result;
+
+						addElements(doc, doc.getElement(), "scene");
+					}
+
+					@Override
+					public void failed(Exception e) {
+						Ctx.msg.show(stage, "Error loading chapter " + selChapter, 3);
+						EditorLogger.error(e.getMessage());
+					}
+				});
 			}
 		}
 	};
@@ -233,71 +248,32 @@ public class SceneList extends ElementList {
 		return new EditSceneDialog(skin, doc, parent, e);
 	}
 	
-	public TextureRegion getBgIcon(String atlas, String region) {
+	@Override
+	public void addElements(BaseDocument doc, Element parent, String tag) {
+		bgIcons.clear();
+		Ctx.thumbnails.refresh();
 		
-		// check here for dispose instead in project loading because the opengl context lost in new project thread		
-		if(disposeBgCache) {
-			dispose();
-			disposeBgCache = false;
+		super.addElements(doc, parent, tag);
+	}
+	
+	private TextureRegion getBgIcon(Element e, String atlas, String region) {
+		if (bgIconsGeneration != Ctx.thumbnails.getGeneration()) {
+			bgIcons.clear();
+			bgIconsGeneration = Ctx.thumbnails.getGeneration();
 		}
 		
+		BgIcon b = bgIcons.get(e);
 		
-		String s = atlas + "#" + region;
-		TextureRegion icon = bgIconCache.get(s);
-		
-		if(icon == null) {
-			try {
-				Batch batch = getStage().getBatch();
-				batch.end();
-				bgIconCache.put(s, createBgIcon(atlas, region));
-				batch.begin();
-			} catch (Exception e) {
-				EngineLogger.error("Error creating Background icon");
-				return null;
-			}
+		// the background can be changed in the scene dialog
+		if (b == null || !b.atlas.equals(atlas) || !b.region.equals(region)) {
+			File f = new File(Ctx.project.getProjectPath() + "/" + Project.ATLASES_PATH + "/1/" + atlas + ".atlas");
 			
-			icon = bgIconCache.get(s);
+			b = new BgIcon(atlas, region, Ctx.thumbnails.getAtlasRegion(f, region, BG_ICON_WIDTH,
+					Ctx.assetManager.getIcon("ic_no_scene")));
+			bgIcons.put(e, b);
 		}
-		
-		return icon;
-	}
-	
-	public void dispose() {
-		for(TextureRegion r:bgIconCache.values())
-			r.getTexture().dispose();
-		
-		bgIconCache.clear();
-	}
-	
-	private TextureRegion createBgIcon(String atlas, String region) {
-		TextureAtlas a = new TextureAtlas(Gdx.files.absolute(Ctx.project.getProjectPath() + "/" + Project.ATLASES_PATH + 
-				"/1/" + atlas + ".atlas"));
-		AtlasRegion r = a.findRegion(region);	
-		FrameBuffer fbo = new FrameBuffer(Format.RGBA8888, 200, (int)(r.getRegionHeight() * 200f / r.getRegionWidth()), false);
-		
-		SpriteBatch fboBatch = new SpriteBatch();
-		fboBatch.setColor(Color.WHITE);
-		OrthographicCamera camera = new OrthographicCamera();
-		camera.setToOrtho(false, fbo.getWidth(), fbo.getHeight());
-		fboBatch.setProjectionMatrix(camera.combined);		
-
-		Gdx.gl.glDisable(GL20.GL_SCISSOR_TEST);
-		fbo.begin();
-		fboBatch.begin();
-		fboBatch.draw(r, 0, 0, fbo.getWidth(), fbo.getHeight());
-		fboBatch.end();
-
-		TextureRegion tex = ScreenUtils.getFrameBufferTexture(0,0,fbo.getWidth(), fbo.getHeight());		
-//		tex.flip(false, true);		
-		
-		fbo.end();
-		Gdx.gl.glEnable(GL20.GL_SCISSOR_TEST);
-		
-		fbo.dispose();
-		a.dispose();
-		fboBatch.dispose();
-		
-		return tex;
+
+		return b.icon;
 	}
 
 	// -------------------------------------------------------------------------
@@ -332,7 +308,7 @@ public class SceneList extends ElementList {
 			TextureRegion r = null;
 			
 			if(!atlas.isEmpty() && !region.isEmpty()) 
-				r = getBgIcon(atlas,region);
+				r = getBgIcon(e, atlas, region);
 
 			if (r == null)
 				r =  Ctx.assetManager.getIcon("ic_no_scene");
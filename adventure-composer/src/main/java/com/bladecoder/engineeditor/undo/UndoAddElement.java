@@ -1,21 +1,48 @@
 package com.bladecoder.engineeditor.undo;
 
 import org.w3c.dom.Element;
+import org.w3c.dom.Node;
 
 import com.bladecoder.engineeditor.model.BaseDocument;
 
 public class UndoAddElement implements UndoOp {
 	private BaseDocument doc;
 	private Element e;
+	private Element parent;
+	private Node next;
+	private long size;
 	
 	
 	public UndoAddElement(BaseDocument doc, Element e) {
 		this.doc = doc;
 		this.e = e;
+		this.size = UndoStack.OBJECT_SIZE + UndoStack.getSize(e);
 	}
 	
 	@Override
 	public void undo() {
+		parent = (Element)e.getParentNode();
+		next = e.getNextSibling();
 		doc.deleteElement(e);
 	}
+
+	@Override
+	public void redo() {
+		if (next != null && next.getParentNode() == parent)
+			parent.insertBefore(e, next);
+		else
+			parent.appendChild(e);
+
+		doc.setModified(e, this);
+	}
+
+	@Override
+	public long getSize() {
+		return size;
+	}
+
+	@Override
+	public boolean merge(UndoOp next) {
+		return false;
+	}
 }
@@ -1,6 +1,7 @@
 package com.bladecoder.engineeditor.undo;
 
 import org.w3c.dom.Element;
+import org.w3c.dom.Node;
 
 import com.bladecoder.engineeditor.model.BaseDocument;
 
@@ -8,17 +9,42 @@ public class UndoDeleteElement implements UndoOp {
 	private BaseDocument doc;
 	private Element e;
 	private Element parent;
+	private Node next;
+	private long size;
 	
 	
 	public UndoDeleteElement(BaseDocument doc, Element e) {
 		this.doc = doc;
 		this.e = e;
+		this.size = UndoStack.OBJECT_SIZE + UndoStack.getSize(e);
 		this.parent = (Element)e.getParentNode();
+		this.next = e.getNextSibling();
 	}
 	
 	@Override
 	public void undo() {
-		parent.appendChild(e);
+		// restores the element in its original position
+		if (next != null && next.getParentNode() == parent)
+			parent.insertBefore(e, next);
+		else
+			parent.appendChild(e);
+
 		doc.setModified(e, this);
 	}
+
+	@Override
+	public void redo() {
+		next = e.getNextSibling();
+		doc.deleteElement(e);
+	}
+
+	@Override
+	public long getSize() {
+		return size;
+	}
+
+	@Override
+	public boolean merge(UndoOp next) {
+		return false;
+	}
 }
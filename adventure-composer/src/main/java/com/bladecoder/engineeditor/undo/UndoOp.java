@@ -2,4 +2,19 @@ package com.bladecoder.engineeditor.undo;
 
 public interface UndoOp {
 	void undo();
+
+	void redo();
+
+	/**
+	 * @return the estimated memory retained by the operation in bytes.
+	 */
+	long getSize();
+
+	/**
+	 * Merges the next operation into this one when both change the same thing,
+	 * so undoing this one undoes both.
+	 * 
+	 * @return true if merged.
+	 */
+	boolean merge(UndoOp next);
 }
@@ -6,10 +6,15 @@ import com.bladecoder.engineeditor.model.BaseDocument;
 import com.bladecoder.engineeditor.utils.I18NUtils;
 
 public class UndoSetAttr implements UndoOp {
+	/** Changes of the same attribute closer than this are undone together */
+	public static final long COALESCE_TIME_MS = 1000;
+
 	private BaseDocument doc;
 	private Element e;
 	private String attr;
 	private String value;
+	private String redoValue;
+	private long time;
 	
 	
 	public UndoSetAttr(BaseDocument doc, Element e, String attr, String value) {
@@ -17,11 +22,42 @@ public class UndoSetAttr implements UndoOp {
 		this.e = e;
 		this.attr = attr;
 		this.value = value;
+		this.time = System.currentTimeMillis();
 	}
 	
 	@Override
 	public void undo() {
+		redoValue = doc.getTranslation(e.getAttribute(attr));
 		I18NUtils.setI18NAttr(doc, e, attr, value);
 		doc.setModified(attr, e);
 	}
+
+	@Override
+	public void redo() {
+		I18NUtils.setI18NAttr(doc, e, attr, redoValue);
+		doc.setModified(attr, e);
+		redoValue = null;
+	}
+
+	@Override
+	public long getSize() {
+		// the element is in the document, only the strings are retained
+		return UndoStack.OBJECT_SIZE + UndoStack.getSize(value) + UndoStack.getSize(redoValue);
+	}
+
+	@Override
+	public boolean merge(UndoOp next) {
+		if (!(next instanceof UndoSetAttr))
+			return false;
+
+		UndoSetAttr n = (UndoSetAttr) next;
+
+		if (n.doc != doc || n.e != e || !n.attr.equals(attr) || n.time - time > COALESCE_TIME_MS)
+			return false;
+
+		// keeps the oldest value
+		time = n.time;
+
+		return true;
+	}
 }
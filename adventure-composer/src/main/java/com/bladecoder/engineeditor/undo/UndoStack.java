@@ -3,21 +3,149 @@ package com.bladecoder.engineeditor.undo;
 import java.util.ArrayDeque;
 import java.util.Deque;
 
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+/**
+ * Undo and redo stacks of the editor.
+ * 
+ * The oldest operations are discarded when the number of operations or their
+ * estimated memory is over the limits. Consecutive changes of the same
+ * attribute are merged in one operation.
+ */
 public class UndoStack {
+	/** Editor config properties with the limits */
+	public static final String MAX_OPS_PROP = "undo_max_ops";
+	public static final String MAX_MEMORY_PROP = "undo_max_memory";
+
+	public static final int DEFAULT_MAX_OPS = 200;
+	public static final int DEFAULT_MAX_MEMORY_MB = 16;
+
+	/** Estimated size of an object without its fields */
+	static final long OBJECT_SIZE = 32;
+
 	Deque<UndoOp> stack = new ArrayDeque<UndoOp>();
+	Deque<UndoOp> redoStack = new ArrayDeque<UndoOp>();
+
+	private int maxOps = DEFAULT_MAX_OPS;
+	private long maxSize = DEFAULT_MAX_MEMORY_MB * 1024L * 1024L;
+
+	/** Estimated size of the operations in both stacks */
+	private long size;
+
+	/**
+	 * @param maxMemoryMB
+	 *            estimated memory of the operations before discarding the
+	 *            oldest ones.
+	 */
+	public void setLimits(int maxOps, int maxMemoryMB) {
+		this.maxOps = Math.max(1, maxOps);
+		this.maxSize = maxMemoryMB * 1024L * 1024L;
+
+		trim();
+	}
 
 	public void add(UndoOp op) {
+		clearRedo();
+
+		UndoOp top = stack.peek();
+
+		if (top != null) {
+			long old = top.getSize();
+
+			if (top.merge(op)) {
+				size += top.getSize() - old;
+				return;
+			}
+		}
+
 		stack.push(op);
+		size += op.getSize();
+
+		trim();
 	}
 
 	public void undo() {
 		if (!stack.isEmpty()) {
 			UndoOp op = stack.pop();
+			long old = op.getSize();
 			op.undo();
+			size += op.getSize() - old;
+			redoStack.push(op);
 		}
 	}
 
+	public void redo() {
+		if (!redoStack.isEmpty()) {
+			UndoOp op = redoStack.pop();
+			long old = op.getSize();
+			op.redo();
+			size += op.getSize() - old;
+			stack.push(op);
+		}
+	}
+
+	public boolean canUndo() {
+		return !stack.isEmpty();
+	}
+
+	public boolean canRedo() {
+		return !redoStack.isEmpty();
+	}
+
+	/**
+	 * @return the estimated memory of the operations in bytes.
+	 */
+	public long getSize() {
+		return size;
+	}
+
 	public void clear() {
 		stack.clear();
+		redoStack.clear();
+		size = 0;
+	}
+
+	private void clearRedo() {
+		for (UndoOp op : redoStack)
+			size -= op.getSize();
+
+		redoStack.clear();
+	}
+
+	/**
+	 * Discards the oldest operations until the stacks fit in the limits. The
+	 * last operation is always kept.
+	 */
+	private void trim() {
+		while (stack.size() > 1 && (stack.size() + redoStack.size() > maxOps || size > maxSize)) {
+			size -= stack.removeLast().getSize();
+		}
+	}
+
+	static long getSize(String s) {
+		return s == null ? 0 : OBJECT_SIZE + s.length() * 2;
+	}
+
+	/**
+	 * Estimates the memory of a DOM node and its children.
+	 */
+	static long getSize(Node n) {
+		long bytes = OBJECT_SIZE + getSize(n.getNodeName()) + getSize(n.getNodeValue());
+
+		NamedNodeMap attrs = n.getAttributes();
+
+		if (attrs != null) {
+			for (int i = 0; i < attrs.getLength(); i++)
+				bytes += OBJECT_SIZE + getSize(attrs.item(i).getNodeName()) + getSize(attrs.item(i).getNodeValue());
+		}
+
+		NodeList childs = n.getChildNodes();
+
+		for (int i = 0; i < childs.getLength(); i++)
+			bytes += getSize(childs.item(i));
+
+		return bytes;
 	}
 }
@@ -0,0 +1,320 @@
+/*******************************************************************************
+ * Copyright 2014 Rafael Garcia Moreno.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.bladecoder.engineeditor.utils;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.g2d.TextureAtlas.TextureAtlasData;
+import com.badlogic.gdx.graphics.g2d.TextureAtlas.TextureAtlasData.Page;
+import com.badlogic.gdx.tools.texturepacker.TexturePacker.Settings;
+import com.badlogic.gdx.utils.Json;
+import com.badlogic.gdx.utils.JsonWriter.OutputType;
+import com.bladecoder.engineeditor.Ctx;
+
+/**
+ * Remembers the content hashes of the inputs, the packer settings and the
+ * outputs of every generated atlas, so an atlas is only rebuilt when something
+ * changed.
+ *
+ * The cache is stored in the project folder. File hashes are reused while the
+ * size and the modification date of the file don't change.
+ */
+public class AtlasBuildCache {
+	public static final String FILENAME = ".atlascache.json";
+
+	public static class FileInfo {
+		public long size;
+		public long modified;
+		public String hash;
+	}
+
+	public static class Entry {
+		public String settings;
+		public HashMap<String, String> inputs = new HashMap<String, String>();
+		public HashMap<String, String> outputs = new HashMap<String, String>();
+	}
+
+	/** Serialized data */
+	public static class Data {
+		public HashMap<String, Entry> atlases = new HashMap<String, Entry>();
+		public HashMap<String, FileInfo> files = new HashMap<String, FileInfo>();
+	}
+
+	private static AtlasBuildCache projectCache;
+
+	private final File file;
+	private Data data;
+
+	/**
+	 * @return the cache of the current project.
+	 */
+	public static synchronized AtlasBuildCache getInstance() {
+		File f = new File(Ctx.project.getProjectDir(), FILENAME);
+
+		if (projectCache == null || !projectCache.file.equals(f))
+			projectCache = new AtlasBuildCache(f);
+
+		return projectCache;
+	}
+
+	public AtlasBuildCache(File file) {
+		this.file = file;
+
+		if (file.exists()) {
+			try {
+				data = getJson().fromJson(Data.class, new FileHandle(file));
+			} catch (Exception e) {
+				EditorLogger.error("ERROR READING ATLAS CACHE, IT WILL BE REBUILT: " + e.getMessage());
+			}
+		}
+
+		if (data == null)
+			data = new Data();
+	}
+
+	/**
+	 * @param atlas
+	 *            the output .atlas file.
+	 * @param inputs
+	 *            all the files used to build the atlas.
+	 * @param settings
+	 *            hash of the packer settings. See hashSettings().
+	 * @return true if the atlas exists and was built with the same inputs and
+	 *         settings.
+	 */
+	public synchronized boolean isUpToDate(File atlas, List<File> inputs, String settings) throws IOException {
+		Entry e = data.atlases.get(key(atlas));
+
+		if (e == null || !e.settings.equals(settings) || e.inputs.size() != inputs.size()
+				|| e.outputs.isEmpty())
+			return false;
+
+		for (File f : inputs) {
+			if (!hash(f).equals(e.inputs.get(key(f))))
+				return false;
+		}
+
+		for (Map.Entry<String, String> o : e.outputs.entrySet()) {
+			File f = new File(o.getKey());
+
+			if (!f.exists() || !hash(f).equals(o.getValue()))
+				return false;
+		}
+
+		return true;
+	}
+
+	/**
+	 * Records a built atlas. The outputs are the .atlas file and its pages.
+	 */
+	public synchronized void update(File atlas, List<File> inputs, String settings) throws IOException {
+		Entry e = new Entry();
+		e.settings = settings;
+
+		for (File f : inputs)
+			e.inputs.put(key(f), hash(f));
+
+		for (File f : getAtlasFiles(atlas))
+			e.outputs.put(key(f), hash(f));
+
+		data.atlases.put(key(atlas), e);
+	}
+
+	public synchronized void remove(File atlas) {
+		data.atlases.remove(key(atlas));
+	}
+
+	public synchronized void save() {
+		// forget the hashes of the files not used anymore
+		HashMap<String, FileInfo> used = new HashMap<String, FileInfo>();
+
+		for (Entry e : data.atlases.values()) {
+			for (String k : e.inputs.keySet())
+				used.put(k, data.files.get(k));
+
+			for (String k : e.outputs.keySet())
+				used.put(k, data.files.get(k));
+		}
+
+		used.remove(null);
+		data.files = used;
+
+		try {
+			new FileHandle(file).writeString(getJson().toJson(data), false, "UTF-8");
+		} catch (Exception e) {
+			EditorLogger.error("ERROR SAVING ATLAS CACHE: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * @return the content hash of the file. Reused while the size and date
+	 *         don't change.
+	 */
+	private String hash(File f) throws IOException {
+		String k = key(f);
+		FileInfo i = data.files.get(k);
+
+		if (i != null && i.size == f.length() && i.modified == f.lastModified())
+			return i.hash;
+
+		i = new FileInfo();
+		i.size = f.length();
+		i.modified = f.lastModified();
+		i.hash = hashFile(f);
+
+		data.files.put(k, i);
+
+		return i.hash;
+	}
+
+	private static String key(File f) {
+		return f.getAbsolutePath();
+	}
+
+	public static String hashFile(File f) throws IOException {
+		MessageDigest md = getDigest();
+		byte[] buf = new byte[64 * 1024];
+
+		InputStream in = new FileInputStream(f);
+
+		try {
+			int n;
+
+			while ((n = in.read(buf)) > 0)
+				md.update(buf, 0, n);
+		} finally {
+			in.close();
+		}
+
+		return toHex(md.digest());
+	}
+
+	/**
+	 * Hash of all the public fields of the settings and the extra values
+	 * (scale, etc.). New packer settings are included automatically.
+	 */
+	public static String hashSettings(Settings settings, Object... extra) {
+		StringBuilder sb = new StringBuilder();
+
+		for (Field f : Settings.class.getFields()) {
+			if (Modifier.isStatic(f.getModifiers()))
+				continue;
+
+			try {
+				Object v = f.get(settings);
+				sb.append(f.getName()).append('=');
+				sb.append(v != null && v.getClass().isArray() ? Arrays.deepToString(new Object[] { v }) : v);
+				sb.append(';');
+			} catch (IllegalAccessException e) {
+				// public fields
+			}
+		}
+
+		for (Object o : extra)
+			sb.append(o).append(';');
+
+		try {
+			return toHex(getDigest().digest(sb.toString().getBytes("UTF-8")));
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	/**
+	 * All the files in the folder and its subfolders, sorted by path.
+	 */
+	public static List<File> listFiles(File dir) {
+		List<File> l = new ArrayList<File>();
+		addFiles(dir, l);
+
+		return l;
+	}
+
+	private static void addFiles(File dir, List<File> l) {
+		File[] files = dir.listFiles();
+
+		if (files == null)
+			return;
+
+		Arrays.sort(files);
+
+		for (File f : files) {
+			if (f.isDirectory())
+				addFiles(f, l);
+			else
+				l.add(f);
+		}
+	}
+
+	/**
+	 * @return the .atlas file and its page images.
+	 */
+	public static List<File> getAtlasFiles(File atlas) {
+		List<File> l = new ArrayList<File>();
+
+		l.add(atlas);
+
+		if (atlas.exists()) {
+			TextureAtlasData d = new TextureAtlasData(new FileHandle(atlas), new FileHandle(atlas.getParentFile()),
+					false);
+
+			for (Page p : d.getPages())
+				l.add(p.textureFile.file());
+		}
+
+		return l;
+	}
+
+	private static MessageDigest getDigest() {
+		try {
+			return MessageDigest.getInstance("SHA-1");
+		} catch (NoSuchAlgorithmException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	private static String toHex(byte[] b) {
+		StringBuilder sb = new StringBuilder();
+
+		for (byte v : b)
+			sb.append(String.format("%02x", v));
+
+		return sb.toString();
+	}
+
+	private static Json getJson() {
+		Json json = new Json(OutputType.json);
+		json.setElementType(Data.class, "atlases", Entry.class);
+		json.setElementType(Data.class, "files", FileInfo.class);
+		json.setElementType(Entry.class, "inputs", String.class);
+		json.setElementType(Entry.class, "outputs", String.class);
+
+		return json;
+	}
+}
@@ -161,7 +161,12 @@ public class ExtractStrings {
 			FileOutputStream osES = new FileOutputStream(propFilenameLocales[i]);		
 			Writer outES = new OutputStreamWriter(osES, "ISO-8859-1");
 			propLocales[i].store(outES, null);
+			outES.close();
 		}
+		
+		out.close();
+		
+		I18NUtils.compileStrings(propFilename);
 	}
 
 	public void writeXML() throws TransformerException, FileNotFoundException {
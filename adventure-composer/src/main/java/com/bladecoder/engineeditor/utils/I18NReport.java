@@ -0,0 +1,357 @@
+/*******************************************************************************
+ * Copyright 2014 Rafael Garcia Moreno.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.bladecoder.engineeditor.utils;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Pattern;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import com.bladecoder.engine.loader.XMLConstants;
+import com.bladecoder.engineeditor.model.BaseDocument;
+
+/**
+ * Checks the translation keys of all the chapters of a project.
+ *
+ * The chapters are read in parallel with a streaming parser. For every locale,
+ * the report contains the keys used in the chapter but not found in the
+ * locale .properties file (missing) and the keys in the file not used by the
+ * chapter (unused). The default locale is reported as "default".
+ *
+ * A 'name_xx.properties' file is a locale of the document with the longest
+ * name that is a prefix of it, and 'xx' must be a locale code like 'es',
+ * 'ast' or 'pt_BR'. So 'act_2_es.properties' is the 'es' locale of
+ * 'act_2.chapter', not the '2_es' locale of 'act.chapter'.
+ */
+public class I18NReport {
+	public static final String DEFAULT_LOCALE = "default";
+
+	/** language[_COUNTRY] */
+	private static final Pattern LOCALE_PATTERN = Pattern.compile("[a-z]{2,3}(_[A-Z]{2})?");
+
+	/** Keys of a document in a locale */
+	public static class Result {
+		public final Set<String> missing = new TreeSet<String>();
+		public final Set<String> unused = new TreeSet<String>();
+	}
+
+	/** locale -> document -> result */
+	private final Map<String, Map<String, Result>> locales = new TreeMap<String, Map<String, Result>>();
+
+	private static final XMLInputFactory XML_FACTORY = XMLInputFactory.newInstance();
+
+	/**
+	 * Creates the report for the 'world.xml' and the chapters in the model
+	 * folder.
+	 *
+	 * @param threads
+	 *            number of chapters processed at the same time.
+	 */
+	public static I18NReport create(File modelDir, int threads) throws IOException {
+		File[] files = modelDir.listFiles();
+
+		if (files == null)
+			throw new IOException("Model folder not found: " + modelDir.getAbsolutePath());
+
+		Arrays.sort(files);
+
+		final List<File> docs = new ArrayList<File>();
+		final HashSet<String> localeNames = new HashSet<String>();
+
+		for (File f : files) {
+			String name = f.getName();
+
+			if (name.equals(XMLConstants.WORLD_FILENAME) || name.endsWith(XMLConstants.CHAPTER_EXT))
+				docs.add(f);
+		}
+
+		HashSet<String> baseNames = new HashSet<String>();
+
+		for (File d : docs)
+			baseNames.add(getBaseName(d));
+
+		// locales are found from the name_xx.properties files of any document
+		for (File f : files) {
+			String locale = getLocale(f.getName(), baseNames);
+
+			if (locale != null)
+				localeNames.add(locale);
+		}
+
+		ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, threads));
+		List<Future<DocumentKeys>> futures = new ArrayList<Future<DocumentKeys>>();
+
+		try {
+			for (final File d : docs) {
+				futures.add(executor.submit(new Callable<DocumentKeys>() {
+					@Override
+					public DocumentKeys call() throws Exception {
+						return DocumentKeys.load(d, localeNames);
+					}
+				}));
+			}
+
+			I18NReport report = new I18NReport();
+
+			// results added in file order
+			for (Future<DocumentKeys> f : futures)
+				report.add(f.get());
+
+			return report;
+		} catch (InterruptedException e) {
+			throw new IOException("Interrupted");
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException)
+				throw (IOException) e.getCause();
+
+			throw new IOException(e.getCause());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * @return the locales found, including the default locale.
+	 */
+	public Set<String> getLocales() {
+		return locales.keySet();
+	}
+
+	/**
+	 * @return document name -> result for the locale.
+	 */
+	public Map<String, Result> getResults(String locale) {
+		return locales.get(locale);
+	}
+
+	public int getMissingCount(String locale) {
+		int c = 0;
+
+		for (Result r : locales.get(locale).values())
+			c += r.missing.size();
+
+		return c;
+	}
+
+	public int getUnusedCount(String locale) {
+		int c = 0;
+
+		for (Result r : locales.get(locale).values())
+			c += r.unused.size();
+
+		return c;
+	}
+
+	public void print(PrintStream out) {
+		for (String locale : locales.keySet()) {
+			out.println("LOCALE: " + locale + " (" + getMissingCount(locale) + " missing, "
+					+ getUnusedCount(locale) + " unused)");
+
+			for (Map.Entry<String, Result> e : locales.get(locale).entrySet()) {
+				Result r = e.getValue();
+
+				if (r.missing.isEmpty() && r.unused.isEmpty())
+					continue;
+
+				out.println("  " + e.getKey() + ":");
+
+				for (String k : r.missing)
+					out.println("    MISSING: " + k);
+
+				for (String k : r.unused)
+					out.println("    UNUSED: " + k);
+			}
+		}
+	}
+
+	private void add(DocumentKeys d) {
+		for (Map.Entry<String, Set<String>> l : d.bundles.entrySet()) {
+			Map<String, Result> docs = locales.get(l.getKey());
+
+			if (docs == null) {
+				docs = new TreeMap<String, Result>();
+				locales.put(l.getKey(), docs);
+			}
+
+			Result r = new Result();
+			Set<String> bundle = l.getValue();
+
+			for (String k : d.used) {
+				if (!bundle.contains(k))
+					r.missing.add(k);
+			}
+
+			for (String k : bundle) {
+				if (!d.used.contains(k))
+					r.unused.add(k);
+			}
+
+			docs.put(d.name, r);
+		}
+	}
+
+	private static String getBaseName(File f) {
+		String name = f.getName();
+
+		return name.substring(0, name.lastIndexOf('.'));
+	}
+
+	/**
+	 * @return the locale of the .properties file or null if it is not the
+	 *         locale bundle of a document. The file belongs to the longest
+	 *         base name that matches.
+	 */
+	static String getLocale(String fileName, Set<String> baseNames) {
+		if (!fileName.endsWith(".properties"))
+			return null;
+
+		String name = fileName.substring(0, fileName.length() - ".properties".length());
+		String base = null;
+
+		for (String b : baseNames) {
+			if (name.startsWith(b + "_") && (base == null || b.length() > base.length()))
+				base = b;
+		}
+
+		if (base == null)
+			return null;
+
+		String locale = name.substring(base.length() + 1);
+
+		return LOCALE_PATTERN.matcher(locale).matches() ? locale : null;
+	}
+
+	/**
+	 * The keys used by a document and the keys of its bundles.
+	 */
+	private static class DocumentKeys {
+		String name;
+		final HashSet<String> used = new HashSet<String>();
+
+		/** locale -> keys */
+		final HashMap<String, Set<String>> bundles = new HashMap<String, Set<String>>();
+
+		static DocumentKeys load(File doc, Set<String> localeNames) throws IOException, XMLStreamException {
+			DocumentKeys d = new DocumentKeys();
+			d.name = doc.getName();
+
+			readUsedKeys(doc, d.used);
+
+			String base = getBaseName(doc);
+
+			d.bundles.put(DEFAULT_LOCALE, loadKeys(new File(doc.getParentFile(), base + ".properties")));
+
+			for (String l : localeNames)
+				d.bundles.put(l, loadKeys(new File(doc.getParentFile(), base + "_" + l + ".properties")));
+
+			return d;
+		}
+
+		private static void readUsedKeys(File doc, Set<String> used) throws IOException, XMLStreamException {
+			InputStream in = new BufferedInputStream(new FileInputStream(doc));
+
+			try {
+				XMLStreamReader r;
+
+				synchronized (XML_FACTORY) {
+					r = XML_FACTORY.createXMLStreamReader(in);
+				}
+
+				try {
+					while (r.hasNext()) {
+						if (r.next() != XMLStreamConstants.START_ELEMENT)
+							continue;
+
+						for (int i = 0; i < r.getAttributeCount(); i++) {
+							String v = r.getAttributeValue(i);
+
+							if (v.length() > 1 && v.charAt(0) == BaseDocument.I18NPREFIX)
+								used.add(v.substring(1));
+						}
+					}
+				} finally {
+					r.close();
+				}
+			} finally {
+				in.close();
+			}
+		}
+
+		private static Set<String> loadKeys(File f) throws IOException {
+			Properties p = new Properties();
+
+			if (f.exists()) {
+				InputStream in = new FileInputStream(f);
+
+				try {
+					p.load(in);
+				} finally {
+					in.close();
+				}
+			}
+
+			return p.stringPropertyNames();
+		}
+	}
+
+	/**
+	 * Main method
+	 *
+	 * @param args
+	 *            Model folder
+	 *            Number of threads (optional)
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length < 1) {
+			System.out.println("Model folder argument missing.\n");
+			System.exit(0);
+		}
+
+		int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+
+		I18NReport report = create(new File(args[0]), threads);
+		report.print(System.out);
+
+		for (String l : report.getLocales()) {
+			if (report.getMissingCount(l) > 0) {
+				System.exit(1);
+			}
+		}
+	}
+}
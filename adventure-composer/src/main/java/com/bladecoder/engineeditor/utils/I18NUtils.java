@@ -15,13 +15,23 @@
  ******************************************************************************/
 package com.bladecoder.engineeditor.utils;
 
-import java.util.ArrayList;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
 import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.Properties;
+import java.util.Set;
 
 import org.w3c.dom.Element;
 import org.w3c.dom.NamedNodeMap;
 import org.w3c.dom.NodeList;
 
+import com.bladecoder.engine.i18n.I18N;
+import com.bladecoder.engine.loader.XMLConstants;
 import com.bladecoder.engineeditor.model.BaseDocument;
 
 
@@ -210,7 +220,7 @@ public class I18NUtils {
 	}
 	
 	public static void deleteUnusedKeys(BaseDocument doc) {
-		ArrayList<String> usedKeys = new ArrayList<String>();
+		HashSet<String> usedKeys = new HashSet<String>();
 		getUsedKeys(doc.getRootElement(), usedKeys);
 		
 		Enumeration<Object> keys = doc.getI18N().keys();
@@ -224,7 +234,7 @@ public class I18NUtils {
 		}
 	}
 	
-	private static void getUsedKeys(Element e, ArrayList<String> usedKeys) {
+	private static void getUsedKeys(Element e, Set<String> usedKeys) {
 		NamedNodeMap attrs = e.getAttributes();
 		
 		for(int i = 0; i < attrs.getLength(); i++) {
@@ -240,4 +250,110 @@ public class I18NUtils {
 				getUsedKeys((Element)childs.item(i), usedKeys);
 		}		
 	}
+
+	/**
+	 * Generates the precompiled '.strings' files read by the engine for the
+	 * given '.properties' file and all its locale variants (name_xx.properties)
+	 * found in the same folder. Each compiled file contains the locale strings
+	 * merged with the parent bundles.
+	 * 
+	 * The locales are found like in I18NReport, so 'act_2.properties' is not a
+	 * locale of 'act.properties' when 'act_2.chapter' exists.
+	 * 
+	 * @param propFilename
+	 *            The default locale .properties file
+	 */
+	public static void compileStrings(String propFilename) throws IOException {
+		File propFile = new File(propFilename);
+		String baseName = propFile.getName().substring(0, propFile.getName().lastIndexOf('.'));
+
+		Properties base = loadProperties(propFile);
+		writeStrings(base, new File(propFile.getParentFile(), baseName + I18N.STRINGS_EXT));
+
+		File[] files = propFile.getParentFile().listFiles();
+
+		if (files == null)
+			return;
+
+		HashSet<String> baseNames = new HashSet<String>();
+		baseNames.add(baseName);
+
+		for (File f : files) {
+			String name = f.getName();
+
+			if (name.equals(XMLConstants.WORLD_FILENAME) || name.endsWith(XMLConstants.CHAPTER_EXT))
+				baseNames.add(name.substring(0, name.lastIndexOf('.')));
+		}
+
+		// first languages (name_xx) and then countries (name_xx_YY)
+		for (int pass = 1; pass <= 2; pass++) {
+			for (File f : files) {
+				String name = f.getName();
+				String suffix = I18NReport.getLocale(name, baseNames);
+
+				// not a bundle or a locale of another document
+				if (suffix == null || !name.equals(baseName + "_" + suffix + ".properties"))
+					continue;
+
+				String[] parts = suffix.split("_");
+
+				if (parts.length != pass)
+					continue;
+
+				Properties merged = new Properties();
+				merged.putAll(base);
+
+				if (pass == 2) {
+					File lang = new File(f.getParentFile(), baseName + "_" + parts[0] + ".properties");
+
+					if (lang.exists())
+						merged.putAll(loadProperties(lang));
+				}
+
+				merged.putAll(loadProperties(f));
+
+				writeStrings(merged, new File(f.getParentFile(), baseName + "_" + suffix + I18N.STRINGS_EXT));
+			}
+		}
+	}
+
+	private static Properties loadProperties(File f) throws IOException {
+		Properties p = new Properties();
+		InputStreamReader in = new InputStreamReader(new FileInputStream(f), "ISO-8859-1");
+
+		try {
+			p.load(in);
+		} finally {
+			in.close();
+		}
+
+		return p;
+	}
+
+	private static void writeStrings(Properties p, File f) throws IOException {
+		DataOutputStream out = new DataOutputStream(new FileOutputStream(f));
+
+		try {
+			out.writeInt(I18N.STRINGS_MAGIC);
+			out.writeInt(p.size());
+
+			for (String key : p.stringPropertyNames()) {
+				writeString(out, key);
+				writeString(out, p.getProperty(key));
+			}
+		} finally {
+			out.close();
+		}
+	}
+
+	/**
+	 * Writes the length in bytes and the UTF-8 bytes. 'writeUTF' fails with
+	 * strings longer than 64KB.
+	 */
+	private static void writeString(DataOutputStream out, String s) throws IOException {
+		byte[] bytes = s.getBytes(I18N.STRINGS_ENCODING);
+
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
 }
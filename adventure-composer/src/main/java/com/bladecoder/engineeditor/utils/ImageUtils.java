@@ -24,6 +24,7 @@ import java.io.FilenameFilter;
 import java.io.IOException;
 import java.net.URL;
 import java.nio.file.Files;
+import java.util.List;
 
 import javax.imageio.ImageIO;
 import javax.swing.ImageIcon;
@@ -113,15 +114,34 @@ public class ImageUtils {
 		});
 
 		for (File f : files) {
-			if(f.getName().endsWith(".9.png")) { // 9 patches doesn't scale
-				Files.copy(f.toPath(), new File(destDir, f.getName()).toPath());
-			} else {
-				ImageUtils.scaleImageFile(f, new File(destDir, f.getName()), scale);
-			}
+			scaleFile(f, destDir, scale);
+		}
+	}
+
+	/**
+	 * Scales an image to the dest. folder. 9 patches are copied.
+	 */
+	public static void scaleFile(File f, File destDir, float scale) throws IOException {
+		if(f.getName().endsWith(".9.png")) { // 9 patches doesn't scale
+			Files.copy(f.toPath(), new File(destDir, f.getName()).toPath());
+		} else {
+			ImageUtils.scaleImageFile(f, new File(destDir, f.getName()), scale);
 		}
 	}
 
 	public static void scaleAtlas(File orgAtlas, File destDir, float scale) throws IOException {
+		Settings settings = createAtlasSettings(Ctx.project.getWorld().getWidth(), scale, TextureFilter.Linear,
+				TextureFilter.Linear);
+		File atlasFile = new File(destDir, orgAtlas.getName());
+		List<File> inputs = AtlasBuildCache.getAtlasFiles(orgAtlas);
+		String settingsHash = AtlasBuildCache.hashSettings(settings, scale);
+		AtlasBuildCache cache = AtlasBuildCache.getInstance();
+
+		if (cache.isUpToDate(atlasFile, inputs, settingsHash)) {
+			EditorLogger.debug("ATLAS UP TO DATE: " + atlasFile.getAbsolutePath());
+			return;
+		}
+
 		CustomTextureUnpacker unpacker = new CustomTextureUnpacker();
 		File outputDir = DesktopUtils.createTempDirectory();
 
@@ -130,9 +150,12 @@ public class ImageUtils {
 		TextureAtlasData atlas = new TextureAtlasData(new FileHandle(orgAtlas), new FileHandle(atlasParentPath), false);
 		unpacker.splitAtlas(atlas, outputDir.getAbsolutePath());
 
-		createAtlas(outputDir.getAbsolutePath(), destDir.getAbsolutePath(), orgAtlas.getName(), scale, TextureFilter.Linear, TextureFilter.Linear);
+		packAtlas(outputDir, destDir.getAbsolutePath(), orgAtlas.getName(), scale, settings);
 		
 		DesktopUtils.removeDir(outputDir.getAbsolutePath());
+
+		cache.update(atlasFile, inputs, settingsHash);
+		cache.save();
 	}
 
 	public static void scaleDirAtlases(File orgDir, File destDir, float scale) throws IOException {
@@ -152,7 +175,53 @@ public class ImageUtils {
 		}
 	}
 
+	/**
+	 * Packs the images in 'inDir'. The atlas is not rebuilt if the images and
+	 * the settings didn't change since the last build. See AtlasBuildCache.
+	 */
 	public static void createAtlas(String inDir, String outdir, String name, float scale, TextureFilter filterMin, TextureFilter filterMag) throws IOException {
+		Settings settings = createAtlasSettings(Ctx.project.getWorld().getWidth(), scale, filterMin, filterMag);
+		String atlasName = name.endsWith(".atlas")?name: name + ".atlas";
+		File atlasFile = new File(outdir, atlasName);
+		List<File> inputs = AtlasBuildCache.listFiles(new File(inDir));
+		String settingsHash = AtlasBuildCache.hashSettings(settings, scale);
+		AtlasBuildCache cache = AtlasBuildCache.getInstance();
+
+		if (cache.isUpToDate(atlasFile, inputs, settingsHash)) {
+			EditorLogger.debug("ATLAS UP TO DATE: " + atlasFile.getAbsolutePath());
+			return;
+		}
+
+		packAtlas(new File(inDir), outdir, atlasName, scale, settings);
+
+		cache.update(atlasFile, inputs, settingsHash);
+		cache.save();
+	}
+
+	private static void packAtlas(File inDir, String outdir, String atlasName, float scale, Settings settings) throws IOException {
+		EditorLogger.debug("ATLAS MAXWIDTH: " + settings.maxWidth);
+
+		File inTmpDir = inDir;
+
+		// Resize images to create atlas for diferent resolutions
+		if (scale != 1.0f) {
+			inTmpDir = DesktopUtils.createTempDirectory();
+
+			ImageUtils.scaleDirFiles(inDir, inTmpDir, scale);
+		}
+
+		TexturePacker.process(settings, inTmpDir.getAbsolutePath(), outdir, atlasName);
+
+		if (scale != 1.0f) {
+			DesktopUtils.removeDir(inTmpDir.getAbsolutePath());
+		}
+	}
+
+	/**
+	 * Settings used to pack the atlases. The max. page size is twice the
+	 * world width at the given scale.
+	 */
+	public static Settings createAtlasSettings(int wWidth, float scale, TextureFilter filterMin, TextureFilter filterMag) {
 		Settings settings = new Settings();
 
 		settings.pot = false;
@@ -179,26 +248,9 @@ public class ImageUtils {
 		settings.fast = false;
 		settings.debug = false;
 
-		int wWidth = Ctx.project.getWorld().getWidth();
-
 		settings.maxWidth = MathUtils.nextPowerOfTwo((int) (wWidth * scale * 2f));
 		settings.maxHeight = MathUtils.nextPowerOfTwo((int) (wWidth * scale * 2f));
 
-		EditorLogger.debug("ATLAS MAXWIDTH: " + settings.maxWidth);
-
-		File inTmpDir = new File(inDir);
-
-		// Resize images to create atlas for diferent resolutions
-		if (scale != 1.0f) {
-			inTmpDir = DesktopUtils.createTempDirectory();
-
-			ImageUtils.scaleDirFiles(new File(inDir), inTmpDir, scale);
-		}
-
-		TexturePacker.process(settings, inTmpDir.getAbsolutePath(), outdir, name.endsWith(".atlas")?name: name + ".atlas");
-
-		if (scale != 1.0f) {
-			DesktopUtils.removeDir(inTmpDir.getAbsolutePath());
-		}
+		return settings;
 	}
 }
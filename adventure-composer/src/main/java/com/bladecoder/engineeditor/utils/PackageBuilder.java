@@ -0,0 +1,806 @@
+/*******************************************************************************
+ * Copyright 2014 Rafael Garcia Moreno.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.bladecoder.engineeditor.utils;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Builds zip packages compressing the entries in parallel.
+ *
+ * Every file is deflated in a worker thread with its own Deflater and the
+ * compressed data is written to the package in the order the files were
+ * added, so the result doesn't depend on the number of threads. Only a few
+ * entries ahead of the writer are kept compressed in memory (or in a temp.
+ * file if they are big).
+ *
+ * Files that are already compressed (images, sounds, zips...) are stored
+ * without compressing them again. Entries from other zips are copied raw,
+ * without inflating and deflating them.
+ *
+ * When two entries have the same name, the first one added is kept. The
+ * files keep their Unix executable permission.
+ */
+public class PackageBuilder {
+	/** Extensions of the files stored without compression */
+	public static final String[] STORED_EXTENSIONS = { "png", "jpg", "jpeg", "ogg", "mp3", "zip", "jar", "gz",
+			"apk", "etc1", "ktx" };
+
+	/** Compressed entries bigger than this are kept in temp. files */
+	private static final int MAX_MEMORY_ENTRY = 8 * 1024 * 1024;
+
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	private static final int LOCAL_HEADER_SIG = 0x04034b50;
+	private static final int CENTRAL_HEADER_SIG = 0x02014b50;
+	private static final int END_SIG = 0x06054b50;
+
+	private static final int FLAG_DATA_DESCRIPTOR = 0x0008;
+	private static final int FLAG_UTF8 = 0x0800;
+
+	/** 'version made by' of the entries with Unix permissions */
+	private static final int MADE_BY_UNIX = (3 << 8) | 20;
+	private static final long UNIX_FILE = 0100644L << 16;
+	private static final long UNIX_EXECUTABLE = 0100755L << 16;
+
+	private static final int STORED = 0;
+	private static final int DEFLATED = 8;
+
+	private static final long MAX_ZIP32 = 0xffffffffL;
+
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	private final File output;
+	private int threads = Runtime.getRuntime().availableProcessors();
+	private int level = Deflater.DEFAULT_COMPRESSION;
+
+	private final List<Item> items = new ArrayList<Item>();
+	private final Set<String> names = new HashSet<String>();
+	private final List<RawZip> zips = new ArrayList<RawZip>();
+
+	private final List<Deflater> deflaters = new ArrayList<Deflater>();
+
+	private final ThreadLocal<Deflater> deflater = new ThreadLocal<Deflater>() {
+		@Override
+		protected Deflater initialValue() {
+			Deflater d = new Deflater(level, true);
+
+			synchronized (deflaters) {
+				deflaters.add(d);
+			}
+
+			return d;
+		}
+	};
+
+	private final ThreadLocal<byte[]> buffer = new ThreadLocal<byte[]>() {
+		@Override
+		protected byte[] initialValue() {
+			return new byte[BUFFER_SIZE];
+		}
+	};
+
+	public PackageBuilder(File output) {
+		this.output = output;
+	}
+
+	public void setThreads(int threads) {
+		this.threads = Math.max(1, threads);
+	}
+
+	public void setLevel(int level) {
+		this.level = level;
+	}
+
+	/**
+	 * Adds a file with the given entry name.
+	 */
+	public void addFile(String name, File file) throws IOException {
+		if (!file.canRead()) {
+			EditorLogger.error("Cannot read " + file.getCanonicalPath() + " (maybe because of permissions)");
+			return;
+		}
+
+		if (names.add(name))
+			items.add(new Item(name, file, isStored(file.getName())));
+	}
+
+	/**
+	 * Adds the folder and its content in 'path'. The folder name is part of
+	 * the entry names.
+	 */
+	public void addDir(String path, File dir) throws IOException {
+		if (!dir.canRead()) {
+			EditorLogger.error("Cannot read " + dir.getCanonicalPath() + " (maybe because of permissions)");
+			return;
+		}
+
+		File[] files = dir.listFiles();
+		Arrays.sort(files);
+
+		path = buildPath(path, dir.getName());
+
+		for (File source : files) {
+			if (source.isDirectory()) {
+				addDir(path, source);
+			} else {
+				addFile(buildPath(path, source.getName()), source);
+			}
+		}
+	}
+
+	/**
+	 * Adds all the entries of the zip. The entries are copied compressed.
+	 */
+	public void addZip(File zip) throws IOException {
+		RawZip z = new RawZip(zip);
+		zips.add(z);
+
+		for (RawEntry e : z.entries) {
+			if (names.add(e.name)) {
+				Item i = new Item(e.name, null, false);
+				i.raw = e;
+				items.add(i);
+			}
+		}
+	}
+
+	/**
+	 * Writes the package and releases the added zips. The builder can only be
+	 * built once.
+	 */
+	public void build() throws IOException {
+		EditorLogger.debug("Packaging " + items.size() + " entries to " + output.getName());
+
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		List<Future<Compressed>> pending = new ArrayList<Future<Compressed>>();
+
+		List<CentralEntry> central = new ArrayList<CentralEntry>();
+		CountingOutputStream out = new CountingOutputStream(new BufferedOutputStream(new FileOutputStream(output),
+				BUFFER_SIZE));
+		byte[] buf = new byte[BUFFER_SIZE];
+
+		// number of entries compressed ahead of the writer
+		int window = threads * 4;
+		int next = 0;
+
+		try {
+			for (int i = 0; i < items.size(); i++) {
+				while (next < items.size() && next - i < window) {
+					pending.add(submit(executor, items.get(next)));
+					next++;
+				}
+
+				Item item = items.get(i);
+				Compressed c = pending.get(i) != null ? get(pending.get(i)) : null;
+				pending.set(i, null);
+
+				try {
+					central.add(writeEntry(out, item, c, buf));
+				} finally {
+					if (c != null)
+						c.dispose();
+				}
+			}
+
+			writeCentralDirectory(out, central);
+		} finally {
+			executor.shutdownNow();
+
+			// removes the temp. files of the entries not written
+			try {
+				executor.awaitTermination(1, TimeUnit.MINUTES);
+			} catch (InterruptedException e) {
+			}
+
+			for (Future<Compressed> f : pending) {
+				if (f != null && f.isDone())
+					dispose(f);
+			}
+
+			out.close();
+
+			for (RawZip z : zips)
+				z.close();
+
+			zips.clear();
+
+			synchronized (deflaters) {
+				for (Deflater d : deflaters)
+					d.end();
+
+				deflaters.clear();
+			}
+		}
+
+		EditorLogger.debug("Done");
+	}
+
+	public static boolean isStored(String fileName) {
+		int idx = fileName.lastIndexOf('.');
+
+		if (idx == -1)
+			return false;
+
+		String ext = fileName.substring(idx + 1).toLowerCase();
+
+		for (String s : STORED_EXTENSIONS) {
+			if (s.equals(ext))
+				return true;
+		}
+
+		return false;
+	}
+
+	private static String buildPath(String path, String file) {
+		if (path == null || path.isEmpty()) {
+			return file;
+		} else {
+			return path + "/" + file;
+		}
+	}
+
+	private Future<Compressed> submit(ExecutorService executor, final Item item) {
+		// raw entries are copied by the writer
+		if (item.raw != null)
+			return null;
+
+		return executor.submit(new Callable<Compressed>() {
+			@Override
+			public Compressed call() throws IOException {
+				return item.stored ? checksum(item.file) : compress(item.file);
+			}
+		});
+	}
+
+	private static Compressed get(Future<Compressed> f) throws IOException {
+		try {
+			return f.get();
+		} catch (InterruptedException e) {
+			throw new IOException("Packaging interrupted");
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException)
+				throw (IOException) e.getCause();
+
+			throw new IOException(e.getCause());
+		}
+	}
+
+	private static void dispose(Future<Compressed> f) {
+		try {
+			f.get().dispose();
+		} catch (Exception e) {
+			// failed or cancelled
+		}
+	}
+
+	/**
+	 * Calcs the CRC of a file that will be stored.
+	 */
+	private Compressed checksum(File f) throws IOException {
+		Compressed c = new Compressed();
+		CRC32 crc = new CRC32();
+		byte[] buf = buffer.get();
+
+		InputStream in = new FileInputStream(f);
+
+		try {
+			int n;
+
+			while ((n = in.read(buf)) != -1) {
+				crc.update(buf, 0, n);
+				c.size += n;
+			}
+		} finally {
+			in.close();
+		}
+
+		c.method = STORED;
+		c.crc = crc.getValue();
+		c.csize = c.size;
+
+		return c;
+	}
+
+	private Compressed compress(File f) throws IOException {
+		Compressed c = new Compressed();
+		CRC32 crc = new CRC32();
+		byte[] buf = buffer.get();
+
+		Deflater d = deflater.get();
+		d.reset();
+
+		SpillOutputStream data = new SpillOutputStream();
+		DeflaterOutputStream dout = new DeflaterOutputStream(data, d, BUFFER_SIZE);
+		InputStream in = new FileInputStream(f);
+
+		try {
+			int n;
+
+			while ((n = in.read(buf)) != -1) {
+				crc.update(buf, 0, n);
+				dout.write(buf, 0, n);
+				c.size += n;
+			}
+
+			dout.finish();
+		} catch (IOException e) {
+			data.dispose();
+			throw e;
+		} finally {
+			in.close();
+			data.close();
+		}
+
+		c.crc = crc.getValue();
+
+		if (data.getCount() >= c.size) {
+			// not worth it
+			data.dispose();
+			c.method = STORED;
+			c.csize = c.size;
+		} else {
+			c.method = DEFLATED;
+			c.csize = data.getCount();
+			c.data = data;
+		}
+
+		return c;
+	}
+
+	private CentralEntry writeEntry(CountingOutputStream out, Item item, Compressed c, byte[] buf)
+			throws IOException {
+		CentralEntry e = new CentralEntry();
+
+		e.name = item.name.getBytes(UTF8);
+		e.offset = out.getCount();
+
+		if (item.raw != null) {
+			RawEntry r = item.raw;
+
+			e.versionMadeBy = r.versionMadeBy;
+			e.versionNeeded = r.versionNeeded;
+			e.flags = (r.flags & ~FLAG_DATA_DESCRIPTOR) | FLAG_UTF8;
+			e.method = r.method;
+			e.dosTime = r.dosTime;
+			e.crc = r.crc;
+			e.csize = r.csize;
+			e.size = r.size;
+			e.externalAttrs = r.externalAttrs;
+		} else {
+			e.versionMadeBy = MADE_BY_UNIX;
+			e.externalAttrs = item.file.canExecute() ? UNIX_EXECUTABLE : UNIX_FILE;
+			e.versionNeeded = c.method == DEFLATED ? 20 : 10;
+			e.flags = FLAG_UTF8;
+			e.method = c.method;
+			e.dosTime = toDosTime(item.file.lastModified());
+			e.crc = c.crc;
+			e.csize = c.csize;
+			e.size = c.size;
+		}
+
+		if (e.offset > MAX_ZIP32 || e.csize > MAX_ZIP32 || e.size > MAX_ZIP32)
+			throw new IOException("Package too big: " + item.name + ". Zip64 is not supported.");
+
+		writeInt(out, LOCAL_HEADER_SIG);
+		writeShort(out, e.versionNeeded);
+		writeShort(out, e.flags);
+		writeShort(out, e.method);
+		writeInt(out, e.dosTime);
+		writeInt(out, e.crc);
+		writeInt(out, e.csize);
+		writeInt(out, e.size);
+		writeShort(out, e.name.length);
+		writeShort(out, 0);
+		out.write(e.name);
+
+		if (item.raw != null) {
+			item.raw.zip.copy(item.raw, out, buf);
+		} else if (c.data != null) {
+			c.data.writeTo(out, buf);
+		} else {
+			copy(item.file, out, buf, c.size);
+		}
+
+		return e;
+	}
+
+	private static void copy(File f, OutputStream out, byte[] buf, long size) throws IOException {
+		InputStream in = new FileInputStream(f);
+		long total = 0;
+
+		try {
+			int n;
+
+			while ((n = in.read(buf)) != -1) {
+				out.write(buf, 0, n);
+				total += n;
+			}
+		} finally {
+			in.close();
+		}
+
+		if (total != size)
+			throw new IOException("File modified while packaging: " + f.getAbsolutePath());
+	}
+
+	private static void writeCentralDirectory(CountingOutputStream out, List<CentralEntry> central)
+			throws IOException {
+		if (central.size() > 0xffff)
+			throw new IOException("Too many entries: " + central.size() + ". Zip64 is not supported.");
+
+		long start = out.getCount();
+
+		for (CentralEntry e : central) {
+			writeInt(out, CENTRAL_HEADER_SIG);
+			writeShort(out, e.versionMadeBy);
+			writeShort(out, e.versionNeeded);
+			writeShort(out, e.flags);
+			writeShort(out, e.method);
+			writeInt(out, e.dosTime);
+			writeInt(out, e.crc);
+			writeInt(out, e.csize);
+			writeInt(out, e.size);
+			writeShort(out, e.name.length);
+			writeShort(out, 0); // extra
+			writeShort(out, 0); // comment
+			writeShort(out, 0); // disk
+			writeShort(out, 0); // internal attrs
+			writeInt(out, e.externalAttrs);
+			writeInt(out, e.offset);
+			out.write(e.name);
+		}
+
+		long size = out.getCount() - start;
+
+		if (start > MAX_ZIP32 || size > MAX_ZIP32)
+			throw new IOException("Package too big. Zip64 is not supported.");
+
+		writeInt(out, END_SIG);
+		writeShort(out, 0);
+		writeShort(out, 0);
+		writeShort(out, central.size());
+		writeShort(out, central.size());
+		writeInt(out, size);
+		writeInt(out, start);
+		writeShort(out, 0);
+	}
+
+	private static long toDosTime(long time) {
+		Calendar c = Calendar.getInstance();
+		c.setTimeInMillis(time);
+
+		int year = c.get(Calendar.YEAR);
+
+		if (year < 1980)
+			return (1 << 21) | (1 << 16);
+
+		return (year - 1980) << 25 | (c.get(Calendar.MONTH) + 1) << 21 | c.get(Calendar.DAY_OF_MONTH) << 16
+				| c.get(Calendar.HOUR_OF_DAY) << 11 | c.get(Calendar.MINUTE) << 5 | c.get(Calendar.SECOND) >> 1;
+	}
+
+	private static void writeShort(OutputStream out, int v) throws IOException {
+		out.write(v & 0xff);
+		out.write((v >>> 8) & 0xff);
+	}
+
+	private static void writeInt(OutputStream out, long v) throws IOException {
+		writeShort(out, (int) (v & 0xffff));
+		writeShort(out, (int) ((v >>> 16) & 0xffff));
+	}
+
+	private static class Item {
+		final String name;
+		final File file;
+		final boolean stored;
+		RawEntry raw;
+
+		Item(String name, File file, boolean stored) {
+			this.name = name;
+			this.file = file;
+			this.stored = stored;
+		}
+	}
+
+	/**
+	 * Result of a worker. 'data' is null when the file is stored.
+	 */
+	private static class Compressed {
+		int method;
+		long crc;
+		long size;
+		long csize;
+		SpillOutputStream data;
+
+		void dispose() {
+			if (data != null)
+				data.dispose();
+		}
+	}
+
+	private static class CentralEntry {
+		byte[] name;
+		int versionMadeBy;
+		int versionNeeded;
+		int flags;
+		int method;
+		long dosTime;
+		long crc;
+		long csize;
+		long size;
+		long externalAttrs;
+		long offset;
+	}
+
+	private static class RawEntry {
+		RawZip zip;
+		String name;
+		int versionMadeBy;
+		int versionNeeded;
+		int flags;
+		int method;
+		long dosTime;
+		long crc;
+		long csize;
+		long size;
+		long externalAttrs;
+		long localOffset;
+	}
+
+	/**
+	 * Reads the central directory of a zip to copy its entries without
+	 * decompressing them.
+	 */
+	private static class RawZip {
+		final File file;
+		final RandomAccessFile raf;
+		final List<RawEntry> entries = new ArrayList<RawEntry>();
+
+		RawZip(File file) throws IOException {
+			this.file = file;
+			raf = new RandomAccessFile(file, "r");
+
+			try {
+				readCentralDirectory();
+			} catch (IOException e) {
+				raf.close();
+				throw e;
+			}
+		}
+
+		private void readCentralDirectory() throws IOException {
+			long length = raf.length();
+			int tail = (int) Math.min(length, 0xffff + 22);
+			byte[] b = new byte[tail];
+
+			raf.seek(length - tail);
+			raf.readFully(b);
+
+			int end = -1;
+
+			for (int i = tail - 22; i >= 0; i--) {
+				if (getInt(b, i) == END_SIG) {
+					end = i;
+					break;
+				}
+			}
+
+			if (end == -1)
+				throw new IOException("Not a zip file: " + file.getAbsolutePath());
+
+			int count = getShort(b, end + 10);
+			long size = getInt(b, end + 12);
+			long offset = getInt(b, end + 16);
+
+			if (count == 0xffff || size == MAX_ZIP32 || offset == MAX_ZIP32)
+				throw new IOException("Zip64 is not supported: " + file.getAbsolutePath());
+
+			byte[] cd = new byte[(int) size];
+			raf.seek(offset);
+			raf.readFully(cd);
+
+			int p = 0;
+
+			for (int i = 0; i < count; i++) {
+				if (getInt(cd, p) != CENTRAL_HEADER_SIG)
+					throw new IOException("Invalid zip central directory: " + file.getAbsolutePath());
+
+				RawEntry e = new RawEntry();
+				e.zip = this;
+				e.versionMadeBy = getShort(cd, p + 4);
+				e.versionNeeded = getShort(cd, p + 6);
+				e.flags = getShort(cd, p + 8);
+				e.method = getShort(cd, p + 10);
+				e.dosTime = getInt(cd, p + 12);
+				e.crc = getInt(cd, p + 16);
+				e.csize = getInt(cd, p + 20);
+				e.size = getInt(cd, p + 24);
+
+				int nameLen = getShort(cd, p + 28);
+				int extraLen = getShort(cd, p + 30);
+				int commentLen = getShort(cd, p + 32);
+
+				e.externalAttrs = getInt(cd, p + 38);
+				e.localOffset = getInt(cd, p + 42);
+				e.name = new String(cd, p + 46, nameLen, UTF8);
+
+				if (e.csize == MAX_ZIP32 || e.size == MAX_ZIP32 || e.localOffset == MAX_ZIP32)
+					throw new IOException("Zip64 is not supported: " + file.getAbsolutePath());
+
+				if ((e.flags & 0x0001) != 0)
+					throw new IOException("Encrypted zips are not supported: " + file.getAbsolutePath());
+
+				entries.add(e);
+
+				p += 46 + nameLen + extraLen + commentLen;
+			}
+		}
+
+		void copy(RawEntry e, OutputStream out, byte[] buf) throws IOException {
+			byte[] h = new byte[30];
+
+			raf.seek(e.localOffset);
+			raf.readFully(h);
+
+			if (getInt(h, 0) != LOCAL_HEADER_SIG)
+				throw new IOException("Invalid zip entry: " + e.name + " in " + file.getAbsolutePath());
+
+			raf.seek(e.localOffset + 30 + getShort(h, 26) + getShort(h, 28));
+
+			long remaining = e.csize;
+
+			while (remaining > 0) {
+				int n = raf.read(buf, 0, (int) Math.min(buf.length, remaining));
+
+				if (n == -1)
+					throw new IOException("Truncated zip entry: " + e.name + " in " + file.getAbsolutePath());
+
+				out.write(buf, 0, n);
+				remaining -= n;
+			}
+		}
+
+		void close() throws IOException {
+			raf.close();
+		}
+
+		private static int getShort(byte[] b, int off) {
+			return (b[off] & 0xff) | (b[off + 1] & 0xff) << 8;
+		}
+
+		private static long getInt(byte[] b, int off) {
+			return (getShort(b, off) | (long) getShort(b, off + 2) << 16) & MAX_ZIP32;
+		}
+	}
+
+	/**
+	 * Keeps the data in memory and moves it to a temp. file when it grows
+	 * over MAX_MEMORY_ENTRY.
+	 */
+	private static class SpillOutputStream extends OutputStream {
+		private ByteArrayOutputStream mem = new ByteArrayOutputStream();
+		private File tmp;
+		private OutputStream fileOut;
+		private long count;
+
+		@Override
+		public void write(int b) throws IOException {
+			write(new byte[] { (byte) b }, 0, 1);
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			if (fileOut == null && mem.size() + len > MAX_MEMORY_ENTRY) {
+				tmp = File.createTempFile("package", ".tmp");
+				fileOut = new BufferedOutputStream(new FileOutputStream(tmp), BUFFER_SIZE);
+				mem.writeTo(fileOut);
+				mem = null;
+			}
+
+			if (fileOut != null)
+				fileOut.write(b, off, len);
+			else
+				mem.write(b, off, len);
+
+			count += len;
+		}
+
+		@Override
+		public void close() throws IOException {
+			if (fileOut != null)
+				fileOut.close();
+		}
+
+		long getCount() {
+			return count;
+		}
+
+		void writeTo(OutputStream out, byte[] buf) throws IOException {
+			if (tmp == null) {
+				mem.writeTo(out);
+			} else {
+				copy(tmp, out, buf, count);
+			}
+		}
+
+		void dispose() {
+			mem = null;
+
+			if (tmp != null) {
+				try {
+					close();
+				} catch (IOException e) {
+				}
+
+				tmp.delete();
+				tmp = null;
+			}
+		}
+	}
+
+	private static class CountingOutputStream extends OutputStream {
+		private final OutputStream out;
+		private long count;
+
+		CountingOutputStream(OutputStream out) {
+			this.out = out;
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			out.write(b);
+			count++;
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			out.write(b, off, len);
+			count += len;
+		}
+
+		@Override
+		public void close() throws IOException {
+			out.close();
+		}
+
+		long getCount() {
+			return count;
+		}
+	}
+}
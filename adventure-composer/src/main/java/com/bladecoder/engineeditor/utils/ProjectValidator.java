@@ -0,0 +1,859 @@
+/*******************************************************************************
+ * Copyright 2014 Rafael Garcia Moreno.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.bladecoder.engineeditor.utils;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.g2d.TextureAtlas.TextureAtlasData;
+import com.badlogic.gdx.graphics.g2d.TextureAtlas.TextureAtlasData.Region;
+import com.bladecoder.engine.actions.Action;
+import com.bladecoder.engine.actions.ActionFactory;
+import com.bladecoder.engine.actions.LeaveAction;
+import com.bladecoder.engine.actions.LoadChapterAction;
+import com.bladecoder.engine.actions.Param;
+import com.bladecoder.engine.loader.XMLConstants;
+import com.bladecoder.engineeditor.model.Project;
+
+/**
+ * Checks all the chapters of a project without loading them in the engine.
+ *
+ * The chapters are streamed and checked in parallel. The checks are:
+ *
+ * - the action names and classes, and the action params against
+ * Action.getParams(): unknown params, types and option values.
+ *
+ * - the actor, scene, chapter, layer and animation references of the actions.
+ * Actors not found in the scene are searched in all the scenes, they can be
+ * inventory items.
+ *
+ * - the atlas regions of the atlas animations and the scene backgrounds in
+ * every resolution.
+ *
+ * - the walk zone and obstacle polygons.
+ *
+ * - the scenes not reachable with 'Leave' or 'LoadChapter' actions from the
+ * init scene.
+ */
+public class ProjectValidator {
+	public enum Severity {
+		ERROR, WARNING
+	}
+
+	public static class Issue {
+		public final Severity severity;
+		public final String file;
+		public final int line;
+		public final String message;
+
+		public Issue(Severity severity, String file, int line, String message) {
+			this.severity = severity;
+			this.file = file;
+			this.line = line;
+			this.message = message;
+		}
+
+		@Override
+		public String toString() {
+			return severity + " " + file + (line > 0 ? ":" + line : "") + " " + message;
+		}
+	}
+
+	private static final XMLInputFactory XML_FACTORY = XMLInputFactory.newInstance();
+
+	/** Marker for the atlases not found */
+	private static final Set<String> NO_ATLAS = Collections.emptySet();
+
+	private final File modelDir;
+	private final File atlasesDir;
+	private final List<String> resolutions = new ArrayList<String>();
+
+	/** resolution/atlas -> region names */
+	private final ConcurrentHashMap<String, Set<String>> atlases = new ConcurrentHashMap<String, Set<String>>();
+
+	/** action name or class -> params. null when the action is not found */
+	private final HashMap<String, Param[]> actionParams = new HashMap<String, Param[]>();
+	private final HashMap<String, Class<?>> actionClasses = new HashMap<String, Class<?>>();
+
+	private final HashMap<String, ChapterInfo> chapters = new HashMap<String, ChapterInfo>();
+
+	/** Actor ids of all the scenes */
+	private final HashSet<String> allActors = new HashSet<String>();
+
+	public ProjectValidator(File projectDir) {
+		modelDir = new File(projectDir, Project.MODEL_PATH);
+		atlasesDir = new File(projectDir, Project.ATLASES_PATH);
+
+		String[] res = atlasesDir.list();
+
+		if (res != null) {
+			Arrays.sort(res);
+
+			for (String r : res) {
+				if (new File(atlasesDir, r).isDirectory())
+					resolutions.add(r);
+			}
+		}
+	}
+
+	/**
+	 * Checks the project.
+	 *
+	 * @param threads
+	 *            number of chapters checked at the same time.
+	 * @return the issues found sorted by file and line.
+	 */
+	public List<Issue> validate(int threads) throws IOException {
+		File[] files = modelDir.listFiles();
+
+		if (files == null)
+			throw new IOException("Model folder not found: " + modelDir.getAbsolutePath());
+
+		Arrays.sort(files);
+
+		ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, threads));
+		List<Issue> issues = new ArrayList<Issue>();
+
+		try {
+			// 1. read the chapters
+			List<Future<ChapterInfo>> read = new ArrayList<Future<ChapterInfo>>();
+
+			for (final File f : files) {
+				final String name = f.getName();
+
+				if (!name.endsWith(XMLConstants.CHAPTER_EXT) && !name.equals(XMLConstants.WORLD_FILENAME))
+					continue;
+
+				read.add(executor.submit(new Callable<ChapterInfo>() {
+					@Override
+					public ChapterInfo call() throws Exception {
+						return readChapter(f);
+					}
+				}));
+			}
+
+			List<ChapterInfo> infos = new ArrayList<ChapterInfo>();
+
+			for (Future<ChapterInfo> f : read)
+				infos.add(f.get());
+
+			for (ChapterInfo c : infos) {
+				if (c.id != null)
+					chapters.put(c.id, c);
+
+				for (SceneInfo s : c.scenes.values())
+					allActors.addAll(s.actors.keySet());
+
+				issues.addAll(c.issues);
+			}
+
+			resolveActions(infos);
+
+			// 2. check the references
+			List<Future<List<Issue>>> checks = new ArrayList<Future<List<Issue>>>();
+
+			for (final ChapterInfo c : infos) {
+				checks.add(executor.submit(new Callable<List<Issue>>() {
+					@Override
+					public List<Issue> call() throws Exception {
+						return checkChapter(c);
+					}
+				}));
+			}
+
+			for (Future<List<Issue>> f : checks)
+				issues.addAll(f.get());
+
+			checkReachable(infos, issues);
+		} catch (InterruptedException e) {
+			throw new IOException("Interrupted");
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException)
+				throw (IOException) e.getCause();
+
+			throw new IOException(e.getCause());
+		} finally {
+			executor.shutdownNow();
+		}
+
+		Collections.sort(issues, new Comparator<Issue>() {
+			@Override
+			public int compare(Issue a, Issue b) {
+				int c = a.file.compareTo(b.file);
+
+				return c != 0 ? c : a.line - b.line;
+			}
+		});
+
+		return issues;
+	}
+
+	// -------------------------------------------------------------------------
+	// Reading
+	// -------------------------------------------------------------------------
+
+	private static class ChapterInfo {
+		String file;
+		String id;
+		String initScene;
+		final LinkedHashMap<String, SceneInfo> scenes = new LinkedHashMap<String, SceneInfo>();
+		final List<ActionInfo> actions = new ArrayList<ActionInfo>();
+		final List<Issue> issues = new ArrayList<Issue>();
+	}
+
+	private static class SceneInfo {
+		String id;
+		int line;
+		final HashMap<String, ActorInfo> actors = new HashMap<String, ActorInfo>();
+		final HashSet<String> layers = new HashSet<String>();
+	}
+
+	private static class ActorInfo {
+		String layer;
+		int line;
+		final HashSet<String> animations = new HashSet<String>();
+	}
+
+	private static class ActionInfo {
+		SceneInfo scene;
+		String actor;
+		int line;
+		String name;
+		final LinkedHashMap<String, String> params = new LinkedHashMap<String, String>();
+	}
+
+	private ChapterInfo readChapter(File f) throws IOException, XMLStreamException {
+		ChapterInfo c = new ChapterInfo();
+		c.file = f.getName();
+
+		if (c.file.endsWith(XMLConstants.CHAPTER_EXT))
+			c.id = c.file.substring(0, c.file.length() - XMLConstants.CHAPTER_EXT.length());
+
+		InputStream in = new BufferedInputStream(new FileInputStream(f));
+
+		try {
+			XMLStreamReader r;
+
+			synchronized (XML_FACTORY) {
+				r = XML_FACTORY.createXMLStreamReader(in);
+			}
+
+			try {
+				read(r, c);
+			} finally {
+				r.close();
+			}
+		} catch (XMLStreamException e) {
+			int line = e.getLocation() != null ? e.getLocation().getLineNumber() : 0;
+			c.issues.add(new Issue(Severity.ERROR, c.file, line, "XML error: " + e.getMessage()));
+		} finally {
+			in.close();
+		}
+
+		return c;
+	}
+
+	private void read(XMLStreamReader r, ChapterInfo c) throws XMLStreamException {
+		SceneInfo scene = null;
+		String actorId = null;
+		ActorInfo actor = null;
+		String actorType = null;
+		boolean inVerb = false;
+
+		while (r.hasNext()) {
+			int event = r.next();
+
+			if (event == XMLStreamConstants.END_ELEMENT) {
+				String tag = r.getLocalName();
+
+				if (tag.equals(XMLConstants.VERB_TAG)) {
+					inVerb = false;
+				} else if (tag.equals(XMLConstants.ACTOR_TAG)) {
+					actorId = null;
+					actor = null;
+				} else if (tag.equals(XMLConstants.SCENE_TAG)) {
+					scene = null;
+				}
+
+				continue;
+			}
+
+			if (event != XMLStreamConstants.START_ELEMENT)
+				continue;
+
+			String tag = r.getLocalName();
+			int line = r.getLocation().getLineNumber();
+
+			if (inVerb) {
+				if (tag.equals(XMLConstants.ACTION_TAG)
+						&& !XMLConstants.FALSE_VALUE.equals(attr(r, XMLConstants.ACTION_ENABLED_ATTR)))
+					c.actions.add(readAction(r, scene, actorId, line));
+			} else if (tag.equals(XMLConstants.CHAPTER_TAG)) {
+				c.initScene = attr(r, XMLConstants.INIT_SCENE_ATTR);
+			} else if (tag.equals(XMLConstants.SCENE_TAG)) {
+				scene = new SceneInfo();
+				scene.id = attr(r, XMLConstants.ID_ATTR);
+				scene.line = line;
+
+				if (c.scenes.containsKey(scene.id))
+					c.issues.add(new Issue(Severity.ERROR, c.file, line, "Duplicated scene id: " + scene.id));
+
+				c.scenes.put(scene.id, scene);
+
+				checkRegion(c, line, attr(r, XMLConstants.BACKGROUND_ATLAS_ATTR),
+						attr(r, XMLConstants.BACKGROUND_REGION_ATTR));
+				checkRegion(c, line, attr(r, XMLConstants.LIGHTMAP_ATLAS_ATTR),
+						attr(r, XMLConstants.LIGHTMAP_REGION_ATTR));
+			} else if (tag.equals(XMLConstants.LAYER_TAG) && scene != null) {
+				scene.layers.add(attr(r, XMLConstants.ID_ATTR));
+			} else if (tag.equals(XMLConstants.ACTOR_TAG) && scene != null) {
+				actorId = attr(r, XMLConstants.ID_ATTR);
+				actorType = attr(r, XMLConstants.TYPE_ATTR);
+				actor = new ActorInfo();
+				actor.layer = attr(r, XMLConstants.LAYER_ATTR);
+				actor.line = line;
+
+				if (scene.actors.containsKey(actorId))
+					c.issues.add(new Issue(Severity.ERROR, c.file, line, "Duplicated actor id in scene '"
+							+ scene.id + "': " + actorId));
+
+				scene.actors.put(actorId, actor);
+			} else if (tag.equals(XMLConstants.ANIMATION_TAG) && actor != null) {
+				String id = attr(r, XMLConstants.ID_ATTR);
+				actor.animations.add(id);
+
+				if (XMLConstants.ATLAS_VALUE.equals(actorType))
+					checkRegion(c, line, attr(r, XMLConstants.SOURCE_ATTR), id);
+			} else if (tag.equals(XMLConstants.VERB_TAG)) {
+				inVerb = true;
+			} else if (tag.equals(XMLConstants.WALK_ZONE_TAG) || tag.equals(XMLConstants.OBSTACLE_TAG)) {
+				checkPolygon(c, line, tag, attr(r, XMLConstants.POLYGON_ATTR), attr(r, XMLConstants.POS_ATTR));
+			}
+		}
+	}
+
+	private static ActionInfo readAction(XMLStreamReader r, SceneInfo scene, String actor, int line) {
+		ActionInfo a = new ActionInfo();
+		a.scene = scene;
+		a.actor = actor;
+		a.line = line;
+
+		for (int i = 0; i < r.getAttributeCount(); i++) {
+			String n = r.getAttributeLocalName(i);
+			String v = r.getAttributeValue(i);
+
+			if (n.equals(XMLConstants.CLASS_ATTR) || n.equals(XMLConstants.ACTION_NAME_ATTR)) {
+				if (a.name == null || n.equals(XMLConstants.CLASS_ATTR))
+					a.name = v;
+			} else if (!n.equals(XMLConstants.ACTION_ENABLED_ATTR)) {
+				a.params.put(n, v);
+			}
+		}
+
+		return a;
+	}
+
+	private static String attr(XMLStreamReader r, String name) {
+		return r.getAttributeValue(null, name);
+	}
+
+	// -------------------------------------------------------------------------
+	// Assets
+	// -------------------------------------------------------------------------
+
+	private void checkRegion(ChapterInfo c, int line, String atlas, String region) {
+		if (atlas == null || atlas.isEmpty())
+			return;
+
+		for (String res : resolutions) {
+			Set<String> regions = getRegions(res, atlas);
+
+			if (regions == NO_ATLAS) {
+				c.issues.add(new Issue(Severity.ERROR, c.file, line, "Atlas '" + atlas + "' not found for resolution "
+						+ res));
+			} else if (region != null && !region.isEmpty() && !regions.contains(region)) {
+				c.issues.add(new Issue(Severity.ERROR, c.file, line, "Region '" + region + "' not found in atlas '"
+						+ atlas + "' for resolution " + res));
+			}
+		}
+	}
+
+	private Set<String> getRegions(String res, String atlas) {
+		String key = res + "/" + atlas;
+		Set<String> regions = atlases.get(key);
+
+		if (regions != null)
+			return regions;
+
+		File f = new File(atlasesDir, key + ".atlas");
+
+		if (!f.exists()) {
+			regions = NO_ATLAS;
+		} else {
+			regions = new HashSet<String>();
+			FileHandle fh = new FileHandle(f);
+
+			for (Region r : new TextureAtlasData(fh, fh.parent(), false).getRegions())
+				regions.add(r.name);
+		}
+
+		atlases.putIfAbsent(key, regions);
+
+		return regions;
+	}
+
+	private static void checkPolygon(ChapterInfo c, int line, String tag, String polygon, String pos) {
+		if (polygon == null || polygon.isEmpty()) {
+			c.issues.add(new Issue(Severity.ERROR, c.file, line, "Empty '" + tag + "' polygon"));
+			return;
+		}
+
+		if (pos != null && !pos.isEmpty() && Param.parseVector2(pos) == null) {
+			c.issues.add(new Issue(Severity.ERROR, c.file, line, "Invalid '" + tag + "' position: " + pos));
+		}
+
+		String[] vs = polygon.split(Param.NUMBER_PARAM_SEPARATOR);
+
+		if (vs.length < 6 || vs.length % 2 != 0) {
+			c.issues.add(new Issue(Severity.ERROR, c.file, line, "The '" + tag
+					+ "' polygon must have at least 3 vertices"));
+			return;
+		}
+
+		float[] v = new float[vs.length];
+
+		try {
+			for (int i = 0; i < vs.length; i++)
+				v[i] = Float.parseFloat(vs[i]);
+		} catch (NumberFormatException e) {
+			c.issues.add(new Issue(Severity.ERROR, c.file, line, "Invalid '" + tag + "' polygon: " + polygon));
+			return;
+		}
+
+		int n = v.length / 2;
+		float area = 0;
+
+		for (int i = 0; i < n; i++) {
+			int j = (i + 1) % n;
+			area += v[i * 2] * v[j * 2 + 1] - v[j * 2] * v[i * 2 + 1];
+		}
+
+		if (area == 0) {
+			c.issues.add(new Issue(Severity.ERROR, c.file, line, "The '" + tag + "' polygon has no area"));
+			return;
+		}
+
+		// non adjacent edges must not intersect
+		for (int i = 0; i < n; i++) {
+			for (int j = i + 2; j < n; j++) {
+				if (i == 0 && j == n - 1)
+					continue;
+
+				if (intersect(v, i, (i + 1) % n, j, (j + 1) % n)) {
+					c.issues.add(new Issue(Severity.ERROR, c.file, line, "The '" + tag
+							+ "' polygon intersects itself"));
+					return;
+				}
+			}
+		}
+	}
+
+	private static boolean intersect(float[] v, int a, int b, int c, int d) {
+		float o1 = orientation(v, a, b, c);
+		float o2 = orientation(v, a, b, d);
+		float o3 = orientation(v, c, d, a);
+		float o4 = orientation(v, c, d, b);
+
+		return o1 * o2 < 0 && o3 * o4 < 0;
+	}
+
+	private static float orientation(float[] v, int a, int b, int c) {
+		return (v[b * 2] - v[a * 2]) * (v[c * 2 + 1] - v[a * 2 + 1]) - (v[b * 2 + 1] - v[a * 2 + 1])
+				* (v[c * 2] - v[a * 2]);
+	}
+
+	// -------------------------------------------------------------------------
+	// Actions
+	// -------------------------------------------------------------------------
+
+	/**
+	 * Creates an instance of every action used to get its params. Runs in
+	 * one thread: the action classes are loaded only once.
+	 */
+	private void resolveActions(List<ChapterInfo> infos) {
+		HashSet<String> names = new HashSet<String>(Arrays.asList(ActionFactory.getActionList()));
+
+		for (ChapterInfo c : infos) {
+			for (ActionInfo a : c.actions) {
+				if (a.name == null || actionParams.containsKey(a.name))
+					continue;
+
+				Param[] params = null;
+				Class<?> clazz = null;
+
+				try {
+					Action action = null;
+
+					if (names.contains(a.name)) {
+						action = ActionFactory.create(a.name, null);
+					} else if (a.name.indexOf('.') != -1) {
+						action = (Action) Class.forName(a.name).newInstance();
+					}
+
+					if (action != null) {
+						params = action.getParams();
+						clazz = action.getClass();
+					}
+				} catch (Exception e) {
+					// not found
+				} catch (LinkageError e) {
+					// not found
+				}
+
+				actionParams.put(a.name, params);
+				actionClasses.put(a.name, clazz);
+			}
+		}
+	}
+
+	private List<Issue> checkChapter(ChapterInfo c) {
+		List<Issue> issues = new ArrayList<Issue>();
+
+		for (SceneInfo s : c.scenes.values()) {
+			for (Map.Entry<String, ActorInfo> e : s.actors.entrySet()) {
+				String layer = e.getValue().layer;
+
+				if (layer != null && !layer.isEmpty() && !s.layers.contains(layer))
+					issues.add(new Issue(Severity.ERROR, c.file, e.getValue().line, "Layer '" + layer
+							+ "' of actor '" + e.getKey() + "' not found in scene '" + s.id + "'"));
+			}
+		}
+
+		if (c.initScene != null && !c.initScene.isEmpty() && !c.scenes.containsKey(c.initScene))
+			issues.add(new Issue(Severity.ERROR, c.file, 0, "Init scene not found: " + c.initScene));
+
+		for (ActionInfo a : c.actions)
+			checkAction(c, a, issues);
+
+		return issues;
+	}
+
+	private void checkAction(ChapterInfo c, ActionInfo a, List<Issue> issues) {
+		if (a.name == null) {
+			issues.add(new Issue(Severity.ERROR, c.file, a.line, "Action without name or class"));
+			return;
+		}
+
+		Param[] params = actionParams.get(a.name);
+
+		if (params == null) {
+			// custom actions can be in the project classes
+			issues.add(new Issue(a.name.indexOf('.') != -1 ? Severity.WARNING : Severity.ERROR, c.file, a.line,
+					"Action not found: " + a.name));
+			return;
+		}
+
+		HashMap<String, Param> byName = new HashMap<String, Param>();
+
+		for (Param p : params)
+			byName.put(p.name, p);
+
+		for (Param p : params) {
+			if (p.mandatory && !a.params.containsKey(p.name) && !p.name.equals(XMLConstants.ACTOR_TAG))
+				issues.add(new Issue(Severity.WARNING, c.file, a.line, a.name + ": missing param '" + p.name + "'"));
+		}
+
+		// LoadChapter scenes are in the target chapter
+		ChapterInfo target = c;
+
+		if (actionClasses.get(a.name) == LoadChapterAction.class)
+			target = chapters.get(a.params.get("chapter"));
+
+		for (Map.Entry<String, String> e : a.params.entrySet()) {
+			Param p = byName.get(e.getKey());
+			String v = e.getValue();
+
+			if (p == null) {
+				issues.add(new Issue(Severity.WARNING, c.file, a.line, a.name + ": unknown param '" + e.getKey()
+						+ "'"));
+				continue;
+			}
+
+			if (v.isEmpty())
+				continue;
+
+			String error = checkParam(c, target, a, p, v);
+
+			if (error != null)
+				issues.add(new Issue(Severity.ERROR, c.file, a.line, a.name + "." + p.name + ": " + error));
+		}
+	}
+
+	/**
+	 * @return the error or null if the value is correct.
+	 */
+	private String checkParam(ChapterInfo c, ChapterInfo target, ActionInfo a, Param p, String v) {
+		if (p.options != null && p.type != Param.Type.EDITABLE_OPTION && !isOption(p.options, v))
+			return "'" + v + "' is not one of " + Arrays.toString(p.options);
+
+		switch (p.type) {
+		case BOOLEAN:
+			if (!v.equals(XMLConstants.TRUE_VALUE) && !v.equals(XMLConstants.FALSE_VALUE))
+				return "'" + v + "' is not a boolean";
+			break;
+		case INTEGER:
+			try {
+				Integer.parseInt(v);
+			} catch (NumberFormatException e) {
+				return "'" + v + "' is not an integer";
+			}
+			break;
+		case FLOAT:
+			try {
+				Float.parseFloat(v);
+			} catch (NumberFormatException e) {
+				return "'" + v + "' is not a number";
+			}
+			break;
+		case VECTOR2:
+			if (Param.parseVector2(v) == null)
+				return "'" + v + "' is not a 'x,y' vector";
+			break;
+		case VECTOR3:
+			if (Param.parseVector3(v) == null)
+				return "'" + v + "' is not a 'x,y,z' vector";
+			break;
+		case ACTOR:
+			if (!hasActor(a.scene, v))
+				return "actor '" + v + "' not found";
+			break;
+		case SCENE_ACTOR: {
+			String[] s = Param.parseString2(v);
+			SceneInfo scene = s[0] != null ? c.scenes.get(s[0]) : a.scene;
+
+			if (s[0] != null && scene == null)
+				return "scene '" + s[0] + "' not found";
+
+			if (!hasActor(scene, s[1]))
+				return "actor '" + s[1] + "' not found";
+			break;
+		}
+		case SCENE:
+			if (target == null)
+				break; // chapter error reported by its param
+
+			if (!target.scenes.containsKey(v))
+				return "scene '" + v + "' not found in chapter '" + target.id + "'";
+			break;
+		case CHAPTER:
+			if (!chapters.containsKey(v))
+				return "chapter '" + v + "' not found";
+			break;
+		case LAYER:
+			if (a.scene != null && !a.scene.layers.contains(v))
+				return "layer '" + v + "' not found in scene '" + a.scene.id + "'";
+			break;
+		case ACTOR_ANIMATION: {
+			String[] s = Param.parseString2(v);
+			String actorId = s[0] != null ? s[0] : a.params.get(XMLConstants.ACTOR_TAG);
+
+			if (actorId == null || actorId.isEmpty())
+				actorId = a.actor;
+
+			ActorInfo actor = a.scene != null && actorId != null ? a.scene.actors.get(actorId) : null;
+
+			if (actor != null && !hasAnimation(actor, s[1]))
+				return "animation '" + s[1] + "' not found in actor '" + actorId + "'";
+			break;
+		}
+		default:
+			break;
+		}
+
+		return null;
+	}
+
+	private static boolean isOption(String[] options, String v) {
+		for (String o : options) {
+			if (o.equalsIgnoreCase(v))
+				return true;
+		}
+
+		return false;
+	}
+
+	/**
+	 * Searches the actor in the scene and in all the scenes of the project.
+	 */
+	private boolean hasActor(SceneInfo scene, String id) {
+		return (scene != null && scene.actors.containsKey(id)) || allActors.contains(id);
+	}
+
+	/**
+	 * The animations can be selected without the direction suffix
+	 * ('walk' for 'walk.left').
+	 */
+	private static boolean hasAnimation(ActorInfo actor, String id) {
+		if (actor.animations.isEmpty() || actor.animations.contains(id))
+			return true;
+
+		for (String a : actor.animations) {
+			if (a.startsWith(id + "."))
+				return true;
+		}
+
+		return false;
+	}
+
+	/**
+	 * Reports the scenes not reachable from the chapter init scene with the
+	 * 'Leave' actions. The scenes loaded by 'LoadChapter' and the scenes left
+	 * from the world verbs are also starting points.
+	 */
+	private void checkReachable(List<ChapterInfo> infos, List<Issue> issues) {
+		HashMap<ChapterInfo, HashSet<String>> roots = new HashMap<ChapterInfo, HashSet<String>>();
+		HashSet<String> fromAnywhere = new HashSet<String>();
+
+		for (ChapterInfo c : infos) {
+			HashSet<String> r = new HashSet<String>();
+
+			if (c.initScene != null && !c.initScene.isEmpty())
+				r.add(c.initScene);
+			else if (!c.scenes.isEmpty())
+				r.add(c.scenes.keySet().iterator().next());
+
+			roots.put(c, r);
+		}
+
+		for (ChapterInfo c : infos) {
+			for (ActionInfo a : c.actions) {
+				Class<?> clazz = actionClasses.get(a.name);
+				String scene = a.params.get("scene");
+
+				if (scene == null || scene.isEmpty())
+					continue;
+
+				if (clazz == LoadChapterAction.class) {
+					ChapterInfo target = chapters.get(a.params.get("chapter"));
+
+					if (target != null)
+						roots.get(target).add(scene);
+				} else if (clazz == LeaveAction.class && a.scene == null) {
+					fromAnywhere.add(scene);
+				}
+			}
+		}
+
+		for (ChapterInfo c : infos) {
+			HashMap<String, List<String>> edges = new HashMap<String, List<String>>();
+
+			for (ActionInfo a : c.actions) {
+				if (a.scene == null || actionClasses.get(a.name) != LeaveAction.class)
+					continue;
+
+				List<String> l = edges.get(a.scene.id);
+
+				if (l == null) {
+					l = new ArrayList<String>();
+					edges.put(a.scene.id, l);
+				}
+
+				l.add(a.params.get("scene"));
+			}
+
+			HashSet<String> reached = new HashSet<String>(roots.get(c));
+			reached.addAll(fromAnywhere);
+
+			ArrayDeque<String> queue = new ArrayDeque<String>(reached);
+
+			while (!queue.isEmpty()) {
+				List<String> l = edges.get(queue.poll());
+
+				if (l == null)
+					continue;
+
+				for (String s : l) {
+					if (s != null && reached.add(s))
+						queue.add(s);
+				}
+			}
+
+			for (SceneInfo s : c.scenes.values()) {
+				if (!reached.contains(s.id))
+					issues.add(new Issue(Severity.WARNING, c.file, s.line, "Scene '" + s.id
+							+ "' is not reachable from the init scene"));
+			}
+		}
+	}
+
+	/**
+	 * Main method
+	 *
+	 * @param args
+	 *            Project folder
+	 *            Number of threads (optional)
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length < 1) {
+			System.out.println("Project folder argument missing.\n");
+			System.exit(0);
+		}
+
+		int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+
+		long t0 = System.currentTimeMillis();
+		List<Issue> issues = new ProjectValidator(new File(args[0])).validate(threads);
+		int errors = 0;
+
+		for (Issue i : issues) {
+			System.out.println(i);
+
+			if (i.severity == Severity.ERROR)
+				errors++;
+		}
+
+		System.out.println(errors + " errors, " + (issues.size() - errors) + " warnings in "
+				+ (System.currentTimeMillis() - t0) + " ms");
+
+		System.exit(errors > 0 ? 1 : 0);
+	}
+}
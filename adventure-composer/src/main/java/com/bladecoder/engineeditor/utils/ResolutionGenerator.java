@@ -0,0 +1,429 @@
+/*******************************************************************************
+ * Copyright 2014 Rafael Garcia Moreno.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.bladecoder.engineeditor.utils;
+
+import java.io.File;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.Texture.TextureFilter;
+import com.badlogic.gdx.graphics.g2d.TextureAtlas.TextureAtlasData;
+import com.badlogic.gdx.tools.texturepacker.TexturePacker;
+import com.badlogic.gdx.tools.texturepacker.TexturePacker.Settings;
+
+/**
+ * Scales the images and the atlases of a resolution to create a new one.
+ *
+ * Every image and every atlas is a task in a fork-join pool. The images of an
+ * atlas are scaled in parallel too. Every atlas is packed in its own temporary
+ * folder and the results are moved to the destination folder in name order,
+ * so the output is the same with any number of threads.
+ *
+ * The destination folders that don't exist are created and, if the generation
+ * is cancelled or fails, removed.
+ */
+public class ResolutionGenerator {
+
+	public interface ProgressListener {
+		/**
+		 * Called from the worker threads every time an image or an atlas is
+		 * finished.
+		 */
+		void progress(int done, int total, String name);
+	}
+
+	private static final FilenameFilter IMAGE_FILTER = new FilenameFilter() {
+		@Override
+		public boolean accept(File dir, String name) {
+			String n = name.toLowerCase();
+
+			return n.endsWith(".png") || n.endsWith(".jpg");
+		}
+	};
+
+	private static final FilenameFilter ATLAS_FILTER = new FilenameFilter() {
+		@Override
+		public boolean accept(File dir, String name) {
+			return name.toLowerCase().endsWith(".atlas");
+		}
+	};
+
+	private final float scale;
+	private final int worldWidth;
+	private final int threads;
+
+	private final List<File[]> imageDirs = new ArrayList<File[]>();
+	private final List<File[]> atlasDirs = new ArrayList<File[]>();
+
+	private ProgressListener listener;
+	private AtlasBuildCache cache;
+
+	private volatile boolean cancelled = false;
+	private final AtomicInteger done = new AtomicInteger();
+	private int total;
+
+	private volatile ForkJoinPool pool;
+
+	/**
+	 * @param worldWidth
+	 *            used to calc the max. size of the atlas pages.
+	 * @param threads
+	 *            max. number of images processed at the same time.
+	 */
+	public ResolutionGenerator(float scale, int worldWidth, int threads) {
+		this.scale = scale;
+		this.worldWidth = worldWidth;
+		this.threads = Math.max(1, threads);
+	}
+
+	public ResolutionGenerator(float scale, int worldWidth) {
+		this(scale, worldWidth, Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Scales all the .png and .jpg images in 'orgDir'.
+	 */
+	public void addImageDir(File orgDir, File destDir) {
+		imageDirs.add(new File[] { orgDir, destDir });
+	}
+
+	/**
+	 * Unpacks, scales and repacks all the atlases in 'orgDir'.
+	 */
+	public void addAtlasDir(File orgDir, File destDir) {
+		atlasDirs.add(new File[] { orgDir, destDir });
+	}
+
+	public void setProgressListener(ProgressListener listener) {
+		this.listener = listener;
+	}
+
+	/**
+	 * The atlases already generated from the same source atlas and settings
+	 * are not generated again.
+	 */
+	public void setBuildCache(AtlasBuildCache cache) {
+		this.cache = cache;
+	}
+
+	/**
+	 * Stops the generation. The running tasks finish their current image.
+	 */
+	public void cancel() {
+		cancelled = true;
+
+		ForkJoinPool p = pool;
+
+		if (p != null)
+			p.shutdownNow();
+	}
+
+	public boolean isCancelled() {
+		return cancelled;
+	}
+
+	/**
+	 * Runs the generation and waits for it.
+	 *
+	 * @return false if cancelled.
+	 */
+	public boolean run() throws IOException {
+		List<File> createdDirs = createDestDirs();
+		boolean completed = false;
+
+		List<ForkJoinTask<Void>> imageTasks = new ArrayList<ForkJoinTask<Void>>();
+		List<ForkJoinTask<File>> atlasTasks = new ArrayList<ForkJoinTask<File>>();
+		List<AtlasTask> atlases = new ArrayList<AtlasTask>();
+
+		for (File[] d : imageDirs) {
+			for (File f : list(d[0], IMAGE_FILTER))
+				imageTasks.add(ForkJoinTask.adapt(new ImageTask(f, d[1], true)));
+		}
+
+		for (File[] d : atlasDirs) {
+			for (File f : list(d[0], ATLAS_FILTER)) {
+				AtlasTask t = new AtlasTask(f, d[1]);
+				atlases.add(t);
+				atlasTasks.add(ForkJoinTask.adapt(t));
+			}
+		}
+
+		total = imageTasks.size() + atlasTasks.size();
+		done.set(0);
+
+		pool = new ForkJoinPool(threads);
+
+		try {
+			for (ForkJoinTask<Void> t : imageTasks)
+				pool.execute(t);
+
+			for (ForkJoinTask<File> t : atlasTasks)
+				pool.execute(t);
+
+			for (ForkJoinTask<Void> t : imageTasks)
+				get(t);
+
+			// moves the atlases in order
+			for (int i = 0; i < atlasTasks.size(); i++) {
+				File packDir = get(atlasTasks.get(i));
+
+				// null if up to date
+				if (packDir != null) {
+					AtlasTask t = atlases.get(i);
+
+					moveFiles(packDir, t.destDir);
+					DesktopUtils.removeDir(packDir.getAbsolutePath());
+
+					if (cache != null)
+						cache.update(t.getDestAtlas(), t.inputs, t.settingsHash);
+				}
+			}
+
+			completed = true;
+		} catch (CancellationException e) {
+			cancelled = true;
+		} finally {
+			ForkJoinPool p = pool;
+			pool = null;
+
+			p.shutdownNow();
+
+			// the running tasks finish their current image before their
+			// folders are removed
+			try {
+				p.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+
+			if (cache != null)
+				cache.save();
+
+			// removes the temp. folders of the atlases not moved
+			if (cancelled) {
+				for (ForkJoinTask<File> t : atlasTasks) {
+					if (t.isDone() && !t.isCompletedAbnormally() && t.getRawResult() != null)
+						DesktopUtils.removeDir(t.getRawResult().getAbsolutePath());
+				}
+			}
+
+			if (!completed || cancelled)
+				removeDirs(createdDirs);
+		}
+
+		return !cancelled;
+	}
+
+	/**
+	 * Creates the destination folders that don't exist.
+	 *
+	 * @return the folders created.
+	 */
+	private List<File> createDestDirs() throws IOException {
+		List<File> created = new ArrayList<File>();
+		List<File[]> dirs = new ArrayList<File[]>(imageDirs);
+		dirs.addAll(atlasDirs);
+
+		for (File[] d : dirs) {
+			if (d[1].isDirectory())
+				continue;
+
+			if (!d[1].mkdirs()) {
+				removeDirs(created);
+				throw new IOException("Error creating folder " + d[1].getAbsolutePath());
+			}
+
+			created.add(d[1]);
+		}
+
+		return created;
+	}
+
+	private static void removeDirs(List<File> dirs) {
+		for (File d : dirs) {
+			try {
+				DesktopUtils.removeDir(d.getAbsolutePath());
+			} catch (IOException e) {
+				EditorLogger.error("Error removing folder " + d.getAbsolutePath(), e);
+			}
+		}
+	}
+
+	private <T> T get(ForkJoinTask<T> t) throws IOException {
+		if (cancelled)
+			throw new CancellationException();
+
+		try {
+			return t.get();
+		} catch (InterruptedException e) {
+			throw new CancellationException();
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+
+			if (cause instanceof CancellationException)
+				throw (CancellationException) cause;
+
+			cancel();
+
+			// ForkJoinTask.adapt() wraps the checked exceptions
+			if (cause instanceof RuntimeException && cause.getCause() instanceof IOException)
+				cause = cause.getCause();
+
+			if (cause instanceof IOException)
+				throw (IOException) cause;
+
+			throw new IOException(cause);
+		}
+	}
+
+	private void checkCancelled() {
+		if (cancelled)
+			throw new CancellationException();
+	}
+
+	private void taskDone(String name) {
+		int d = done.incrementAndGet();
+
+		if (listener != null)
+			listener.progress(d, total, name);
+	}
+
+	private static File[] list(File dir, FilenameFilter filter) {
+		File[] files = dir.listFiles(filter);
+
+		if (files == null)
+			return new File[0];
+
+		Arrays.sort(files);
+
+		return files;
+	}
+
+	private static void moveFiles(File orgDir, File destDir) throws IOException {
+		for (File f : list(orgDir, null)) {
+			Files.move(f.toPath(), new File(destDir, f.getName()).toPath(), StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+
+	private class ImageTask implements Callable<Void> {
+		private final File org;
+		private final File destDir;
+		private final boolean report;
+
+		ImageTask(File org, File destDir, boolean report) {
+			this.org = org;
+			this.destDir = destDir;
+			this.report = report;
+		}
+
+		@Override
+		public Void call() throws IOException {
+			checkCancelled();
+
+			ImageUtils.scaleFile(org, destDir, scale);
+
+			if (report)
+				taskDone(org.getName());
+
+			return null;
+		}
+	}
+
+	/**
+	 * Unpacks the atlas, scales its images in parallel and packs them in a
+	 * temp. folder. Returns the folder or null if the destination atlas is up
+	 * to date.
+	 */
+	private class AtlasTask implements Callable<File> {
+		private final File atlas;
+		private final File destDir;
+		private final Settings settings;
+		private final String settingsHash;
+		private List<File> inputs;
+
+		AtlasTask(File atlas, File destDir) {
+			this.atlas = atlas;
+			this.destDir = destDir;
+
+			settings = ImageUtils.createAtlasSettings(worldWidth, scale, TextureFilter.Linear, TextureFilter.Linear);
+			settingsHash = AtlasBuildCache.hashSettings(settings, scale);
+		}
+
+		File getDestAtlas() {
+			return new File(destDir, atlas.getName());
+		}
+
+		@Override
+		public File call() throws IOException {
+			checkCancelled();
+
+			inputs = AtlasBuildCache.getAtlasFiles(atlas);
+
+			if (cache != null && cache.isUpToDate(getDestAtlas(), inputs, settingsHash)) {
+				taskDone(atlas.getName());
+				return null;
+			}
+
+			File unpackDir = DesktopUtils.createTempDirectory();
+			File scaledDir = DesktopUtils.createTempDirectory();
+			File packDir = DesktopUtils.createTempDirectory();
+
+			try {
+				TextureAtlasData data = new TextureAtlasData(new FileHandle(atlas), new FileHandle(
+						atlas.getParentFile()), false);
+				new CustomTextureUnpacker().splitAtlas(data, unpackDir.getAbsolutePath());
+
+				checkCancelled();
+
+				List<ForkJoinTask<Void>> tasks = new ArrayList<ForkJoinTask<Void>>();
+
+				for (File f : list(unpackDir, IMAGE_FILTER))
+					tasks.add(ForkJoinTask.adapt(new ImageTask(f, scaledDir, false)));
+
+				// rethrows the first exception
+				ForkJoinTask.invokeAll(tasks);
+
+				checkCancelled();
+
+				TexturePacker.process(settings, scaledDir.getAbsolutePath(), packDir.getAbsolutePath(),
+						atlas.getName());
+			} catch (IOException | RuntimeException e) {
+				DesktopUtils.removeDir(packDir.getAbsolutePath());
+				throw e;
+			} finally {
+				DesktopUtils.removeDir(unpackDir.getAbsolutePath());
+				DesktopUtils.removeDir(scaledDir.getAbsolutePath());
+			}
+
+			taskDone(atlas.getName());
+
+			return packDir;
+		}
+	}
+}
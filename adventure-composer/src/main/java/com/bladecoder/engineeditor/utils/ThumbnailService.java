@@ -0,0 +1,457 @@
+/*******************************************************************************
+ * Copyright 2014 Rafael Garcia Moreno.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.bladecoder.engineeditor.utils;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import javax.imageio.ImageIO;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.Texture.TextureFilter;
+import com.badlogic.gdx.graphics.g2d.TextureAtlas.TextureAtlasData;
+import com.badlogic.gdx.graphics.g2d.TextureAtlas.TextureAtlasData.Region;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.bladecoder.engineeditor.model.Project;
+
+/**
+ * Creates the thumbnails of the images and atlas regions shown in the lists.
+ *
+ * The thumbnails are generated in a pool of worker threads and stored in disk
+ * by path, modification date, size and width, so they are only generated once.
+ * For atlas regions, the modification date and size are the ones of the page
+ * image. The returned region shows the placeholder until the thumbnail is
+ * ready and is the same for every call, so the lists can keep it.
+ *
+ * The images are not checked in every call. refresh() checks the modification
+ * dates and updates the regions of the changed images.
+ *
+ * The thumbnails not used in MAX_CACHE_AGE_MS are removed from the disk cache
+ * at startup, and the least recently used ones too if the cache is bigger than
+ * MAX_CACHE_BYTES.
+ *
+ * The get methods must be called from the OpenGL thread.
+ */
+public class ThumbnailService {
+	public static final String CACHE_DIR = Project.CONFIG_DIR + "/thumbnails";
+
+	public static final long MAX_CACHE_BYTES = 64 * 1024 * 1024;
+	public static final long MAX_CACHE_AGE_MS = 30L * 24 * 60 * 60 * 1000;
+
+	private final ExecutorService executor;
+	private final File cacheDir;
+
+	/** Requested thumbnails in this session by path, region and width */
+	private final HashMap<String, Thumbnail> thumbnails = new HashMap<String, Thumbnail>();
+
+	private static class Thumbnail {
+		final File file;
+		final String region;
+		final int width;
+		final TextureRegion textureRegion;
+
+		Texture texture;
+
+		/** Modification date of the source when requested */
+		long modified;
+
+		/** Increased in every request to discard the older ones */
+		int version;
+
+		Thumbnail(File file, String region, int width, TextureRegion textureRegion) {
+			this.file = file;
+			this.region = region;
+			this.width = width;
+			this.textureRegion = textureRegion;
+		}
+	}
+
+	/** Page image of every region by atlas path */
+	private final HashMap<String, AtlasPages> atlases = new HashMap<String, AtlasPages>();
+
+	private static class AtlasPages {
+		long modified;
+		final HashMap<String, File> pages = new HashMap<String, File>();
+	}
+
+	/**
+	 * Increased by clear() to discard the thumbnails in progress. The regions
+	 * kept from a previous generation are not valid.
+	 */
+	private int generation = 0;
+
+	public ThumbnailService() {
+		cacheDir = new File(CACHE_DIR);
+		cacheDir.mkdirs();
+
+		int threads = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() - 1));
+
+		executor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread t = new Thread(r, "thumbnail");
+				t.setDaemon(true);
+				t.setPriority(Thread.MIN_PRIORITY);
+				return t;
+			}
+		});
+
+		executor.execute(new Runnable() {
+			@Override
+			public void run() {
+				pruneCache();
+			}
+		});
+	}
+
+	/**
+	 * @return the thumbnail of the image file scaled to 'width'.
+	 */
+	public TextureRegion getImage(File image, int width, TextureRegion placeholder) {
+		return get(image, null, width, placeholder);
+	}
+
+	/**
+	 * @return the thumbnail of the atlas region scaled to 'width'.
+	 */
+	public TextureRegion getAtlasRegion(File atlas, String region, int width, TextureRegion placeholder) {
+		return get(atlas, region, width, placeholder);
+	}
+
+	public int getGeneration() {
+		return generation;
+	}
+
+	/**
+	 * Disposes the thumbnails. Can be called from any thread.
+	 */
+	public void clear() {
+		Gdx.app.postRunnable(new Runnable() {
+			@Override
+			public void run() {
+				disposeThumbnails();
+			}
+		});
+	}
+
+	/**
+	 * Creates the thumbnails again for the images modified since they were
+	 * requested. Called when the lists are refreshed or the window gets the
+	 * focus.
+	 */
+	public void refresh() {
+		for (Thumbnail t : thumbnails.values()) {
+			if (getSource(t.file, t.region).lastModified() != t.modified)
+				request(t);
+		}
+	}
+
+	public void dispose() {
+		executor.shutdownNow();
+
+		disposeThumbnails();
+	}
+
+	private void disposeThumbnails() {
+		generation++;
+
+		for (Thumbnail t : thumbnails.values()) {
+			if (t.texture != null)
+				t.texture.dispose();
+		}
+
+		thumbnails.clear();
+		atlases.clear();
+	}
+
+	private TextureRegion get(File file, String region, int width, TextureRegion placeholder) {
+		String key = file.getAbsolutePath() + "#" + region + "@" + width;
+		Thumbnail t = thumbnails.get(key);
+
+		if (t == null) {
+			t = new Thumbnail(file, region, width,
+					placeholder != null ? new TextureRegion(placeholder) : new TextureRegion());
+			thumbnails.put(key, t);
+
+			request(t);
+		}
+
+		return t.textureRegion;
+	}
+
+	/**
+	 * Creates the thumbnail in the worker threads. When ready, it replaces the
+	 * texture of the region and the previous one is disposed.
+	 */
+	private void request(final Thumbnail t) {
+		final File source = getSource(t.file, t.region);
+		final int gen = generation;
+		final int version = ++t.version;
+
+		t.modified = source.lastModified();
+
+		executor.execute(new Runnable() {
+			@Override
+			public void run() {
+				final Pixmap p;
+
+				try {
+					p = load(t.file, t.region, source, t.width);
+				} catch (Exception e) {
+					EditorLogger.error("ERROR CREATING THUMBNAIL FOR " + t.file.getAbsolutePath() + "#" + t.region
+							+ ": " + e.getMessage());
+					return;
+				}
+
+				Gdx.app.postRunnable(new Runnable() {
+					@Override
+					public void run() {
+						if (gen == generation && version == t.version) {
+							Texture texture = new Texture(p);
+							texture.setFilter(TextureFilter.Linear, TextureFilter.Linear);
+
+							if (t.texture != null)
+								t.texture.dispose();
+
+							t.texture = texture;
+							t.textureRegion.setRegion(texture);
+						}
+
+						p.dispose();
+					}
+				});
+			}
+		});
+	}
+
+	/**
+	 * @return the image of the thumbnail: the file or the page of the atlas
+	 *         region. The atlas file is only read again when it changes.
+	 */
+	private File getSource(File file, String region) {
+		if (region == null)
+			return file;
+
+		String path = file.getAbsolutePath();
+		AtlasPages a = atlases.get(path);
+
+		if (a == null || a.modified != file.lastModified()) {
+			a = new AtlasPages();
+			a.modified = file.lastModified();
+
+			try {
+				FileHandle fh = new FileHandle(file);
+				TextureAtlasData data = new TextureAtlasData(fh, fh.parent(), false);
+
+				// the first region with the name, like readRegion()
+				for (Region r : data.getRegions()) {
+					if (!a.pages.containsKey(r.name))
+						a.pages.put(r.name, r.page.textureFile.file());
+				}
+			} catch (Exception e) {
+				EditorLogger.error("ERROR READING ATLAS " + path + ": " + e.getMessage());
+			}
+
+			atlases.put(path, a);
+		}
+
+		File page = a.pages.get(region);
+
+		return page != null ? page : file;
+	}
+
+	/**
+	 * Reads the thumbnail from the disk cache or creates it. Runs in the worker
+	 * threads.
+	 */
+	private Pixmap load(File file, String region, File source, int width) throws IOException {
+		File cached = new File(cacheDir, getCacheName(file, region, source, width));
+
+		if (cached.exists()) {
+			try {
+				byte[] bytes = Files.readAllBytes(cached.toPath());
+
+				// the date is used to remove the unused thumbnails
+				cached.setLastModified(System.currentTimeMillis());
+
+				return new Pixmap(bytes, 0, bytes.length);
+			} catch (NoSuchFileException e) {
+				// removed by pruneCache(), creates it again
+			}
+		}
+
+		BufferedImage img = region == null ? ImageIO.read(file) : readRegion(file, region);
+
+		if (img == null)
+			throw new IOException("Unsupported image format");
+
+		File tmp = new File(cacheDir, cached.getName() + "." + Thread.currentThread().getId() + ".tmp");
+
+		ImageIO.write(scale(img, width), "png", tmp);
+
+		try {
+			Files.move(tmp.toPath(), cached.toPath(), StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException e) {
+			Files.move(tmp.toPath(), cached.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		}
+
+		byte[] bytes = Files.readAllBytes(cached.toPath());
+
+		return new Pixmap(bytes, 0, bytes.length);
+	}
+
+	/**
+	 * Removes the thumbnails not used in MAX_CACHE_AGE_MS and the least
+	 * recently used ones until the cache is smaller than MAX_CACHE_BYTES.
+	 */
+	private void pruneCache() {
+		File[] files = cacheDir.listFiles();
+
+		if (files == null)
+			return;
+
+		final HashMap<File, Long> modified = new HashMap<File, Long>();
+		List<File> l = new ArrayList<File>();
+
+		for (File f : files) {
+			if (f.isFile()) {
+				modified.put(f, f.lastModified());
+				l.add(f);
+			}
+		}
+
+		// most recently used first
+		Collections.sort(l, new Comparator<File>() {
+			@Override
+			public int compare(File o1, File o2) {
+				return modified.get(o2).compareTo(modified.get(o1));
+			}
+		});
+
+		long now = System.currentTimeMillis();
+		long size = 0;
+		int removed = 0;
+
+		for (File f : l) {
+			size += f.length();
+
+			if ((now - modified.get(f) > MAX_CACHE_AGE_MS || size > MAX_CACHE_BYTES) && f.delete())
+				removed++;
+		}
+
+		if (removed > 0)
+			EditorLogger.debug("Thumbnails removed from the disk cache: " + removed);
+	}
+
+	private static BufferedImage readRegion(File atlas, String name) throws IOException {
+		FileHandle fh = new FileHandle(atlas);
+		TextureAtlasData data = new TextureAtlasData(fh, fh.parent(), false);
+
+		for (Region r : data.getRegions()) {
+			if (!r.name.equals(name))
+				continue;
+
+			BufferedImage page = ImageIO.read(r.page.textureFile.file());
+
+			if (page == null)
+				throw new IOException("Unsupported image format: " + r.page.textureFile.name());
+
+			if (!r.rotate)
+				return page.getSubimage(r.left, r.top, r.width, r.height);
+
+			// the packer rotates the regions 90 degrees counterclockwise
+			BufferedImage sub = page.getSubimage(r.left, r.top, r.height, r.width);
+			BufferedImage img = new BufferedImage(r.width, r.height, BufferedImage.TYPE_INT_ARGB);
+
+			for (int y = 0; y < r.height; y++)
+				for (int x = 0; x < r.width; x++)
+					img.setRGB(x, y, sub.getRGB(y, r.width - 1 - x));
+
+			return img;
+		}
+
+		throw new IOException("Region not found: " + name);
+	}
+
+	/**
+	 * Scales the image to the width keeping the aspect ratio. Big images are
+	 * halved first for a better quality.
+	 */
+	private static BufferedImage scale(BufferedImage img, int width) {
+		int w = img.getWidth();
+		int h = img.getHeight();
+		int height = Math.max(1, (int) ((float) h * width / w));
+
+		BufferedImage result = img;
+
+		do {
+			w = Math.max(width, w / 2);
+			h = Math.max(height, h / 2);
+
+			if (w < width * 2)
+				w = width;
+
+			if (h < height * 2)
+				h = height;
+
+			BufferedImage tmp = new BufferedImage(w, h, BufferedImage.TYPE_INT_ARGB);
+			Graphics2D g = tmp.createGraphics();
+			g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+			g.drawImage(result, 0, 0, w, h, null);
+			g.dispose();
+
+			result = tmp;
+		} while (w != width || h != height);
+
+		return result;
+	}
+
+	private static String getCacheName(File file, String region, File source, int width) throws IOException {
+		String s = file.getAbsolutePath() + "|" + region + "|" + source.lastModified() + "|" + source.length() + "|"
+				+ width;
+
+		try {
+			MessageDigest md = MessageDigest.getInstance("SHA-1");
+			StringBuilder sb = new StringBuilder();
+
+			for (byte b : md.digest(s.getBytes("UTF-8")))
+				sb.append(String.format("%02x", b));
+
+			return sb.append(".png").toString();
+		} catch (NoSuchAlgorithmException e) {
+			throw new IOException(e);
+		}
+	}
+}
@@ -0,0 +1,95 @@
+/*******************************************************************************
+ * Copyright 2014 Rafael Garcia Moreno.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.bladecoder.engineeditor.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class I18NReportTest {
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testGetLocale() {
+		Set<String> bases = new HashSet<String>(Arrays.asList("act", "act_2"));
+
+		assertEquals("es", I18NReport.getLocale("act_es.properties", bases));
+		assertEquals("es", I18NReport.getLocale("act_2_es.properties", bases));
+		assertEquals("pt_BR", I18NReport.getLocale("act_2_pt_BR.properties", bases));
+		assertEquals("ast", I18NReport.getLocale("act_ast.properties", bases));
+
+		// the default bundle of act_2 and files that are not bundles
+		assertNull(I18NReport.getLocale("act_2.properties", bases));
+		assertNull(I18NReport.getLocale("act.properties", bases));
+		assertNull(I18NReport.getLocale("act_notes.properties", bases));
+		assertNull(I18NReport.getLocale("act_es.chapter", bases));
+	}
+
+	/**
+	 * 'act' is a prefix of 'act_2': the 'act_2' bundles are not locales of
+	 * 'act'.
+	 */
+	@Test
+	public void testOverlappingBaseNames() throws IOException {
+		File dir = folder.getRoot();
+
+		write(dir, "act.chapter", "<chapter id=\"act\"><scene id=\"s\" desc=\"@a\"/></chapter>");
+		write(dir, "act_2.chapter", "<chapter id=\"act_2\"><scene id=\"s\" desc=\"@b\"/></chapter>");
+		write(dir, "act.properties", "a=A\n");
+		write(dir, "act_es.properties", "a=A\n");
+		write(dir, "act_2.properties", "b=B\n");
+		write(dir, "act_2_es.properties", "b=B\n");
+		write(dir, "act_2_pt_BR.properties", "b=B\nc=C\n");
+
+		I18NReport report = I18NReport.create(dir, 2);
+
+		assertEquals(new TreeSet<String>(Arrays.asList(I18NReport.DEFAULT_LOCALE, "es", "pt_BR")),
+				report.getLocales());
+
+		assertEquals(0, report.getMissingCount(I18NReport.DEFAULT_LOCALE));
+		assertEquals(0, report.getUnusedCount(I18NReport.DEFAULT_LOCALE));
+		assertEquals(0, report.getMissingCount("es"));
+		assertEquals(0, report.getUnusedCount("es"));
+
+		// act has no pt_BR bundle
+		assertTrue(report.getResults("pt_BR").get("act.chapter").missing.contains("a"));
+		assertTrue(report.getResults("pt_BR").get("act_2.chapter").unused.contains("c"));
+		assertEquals(1, report.getMissingCount("pt_BR"));
+	}
+
+	private static void write(File dir, String name, String content) throws IOException {
+		FileOutputStream os = new FileOutputStream(new File(dir, name));
+
+		try {
+			os.write(content.getBytes("ISO-8859-1"));
+		} finally {
+			os.close();
+		}
+	}
+}
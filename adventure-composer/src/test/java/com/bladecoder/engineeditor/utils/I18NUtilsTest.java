@@ -0,0 +1,91 @@
+/*******************************************************************************
+ * Copyright 2014 Rafael Garcia Moreno.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+import com.badlogic.gdx.files.FileHandle;
+import com.bladecoder.engine.i18n.I18N;
+
+public class I18NUtilsTest {
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	/**
+	 * 'act_2.properties' is the default bundle of 'act_2.chapter', not the
+	 * '2' locale of 'act'.
+	 */
+	@Test
+	public void testOverlappingBaseNames() throws IOException {
+		File dir = folder.getRoot();
+
+		write(dir, "act.chapter", "<chapter id=\"act\"/>");
+		write(dir, "act_2.chapter", "<chapter id=\"act_2\"/>");
+		write(dir, "act.properties", "a=A\n");
+		write(dir, "act_es.properties", "a=A es\n");
+		write(dir, "act_2.properties", "b=B\n");
+		write(dir, "act_2_es.properties", "b=B es\n");
+
+		I18NUtils.compileStrings(new File(dir, "act_2.properties").getAbsolutePath());
+		I18NUtils.compileStrings(new File(dir, "act.properties").getAbsolutePath());
+
+		HashMap<String, String> act2 = read(new File(dir, "act_2" + I18N.STRINGS_EXT));
+		assertEquals("B", act2.get("b"));
+		assertFalse(act2.containsKey("a"));
+
+		HashMap<String, String> act2es = read(new File(dir, "act_2_es" + I18N.STRINGS_EXT));
+		assertEquals("B es", act2es.get("b"));
+		assertFalse(act2es.containsKey("a"));
+
+		assertEquals("A es", read(new File(dir, "act_es" + I18N.STRINGS_EXT)).get("a"));
+	}
+
+	/**
+	 * 'DataOutput.writeUTF' can't write strings longer than 64KB.
+	 */
+	@Test
+	public void testLongStrings() throws IOException {
+		File dir = folder.getRoot();
+		StringBuilder sb = new StringBuilder();
+
+		for (int i = 0; i < 100000; i++)
+			sb.append((char) ('a' + i % 26));
+
+		write(dir, "world.properties", "long=" + sb + "\nshort=\\u00f1\n");
+
+		I18NUtils.compileStrings(new File(dir, "world.properties").getAbsolutePath());
+
+		HashMap<String, String> strings = read(new File(dir, "world" + I18N.STRINGS_EXT));
+
+		assertEquals(sb.toString(), strings.get("long"));
+		assertEquals("\u00f1", strings.get("short"));
+		assertEquals(2, strings.size());
+	}
+
+	private static HashMap<String, String> read(File f) throws IOException {
+		HashMap<String, String> table = new HashMap<String, String>();
+
+		I18N.readStrings(new FileHandle(f), table);
+
+		return table;
+	}
+
+	private static void write(File dir, String name, String content) throws IOException {
+		FileOutputStream os = new FileOutputStream(new File(dir, name));
+
+		try {
+			os.write(content.getBytes("ISO-8859-1"));
+		} finally {
+			os.close();
+		}
+	}
+}
@@ -0,0 +1,252 @@
+/*******************************************************************************
+ * Copyright 2014 Rafael Garcia Moreno.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.bladecoder.engine.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Random;
+
+import com.badlogic.gdx.ApplicationAdapter;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.backends.headless.HeadlessApplication;
+import com.badlogic.gdx.backends.headless.HeadlessApplicationConfiguration;
+import com.badlogic.gdx.math.Polygon;
+import com.bladecoder.engine.actions.Action;
+import com.bladecoder.engine.actions.ActionFactory;
+import com.bladecoder.engine.actions.Param;
+import com.bladecoder.engine.actions.PropertyAction;
+import com.bladecoder.engine.actions.SetStateAction;
+import com.bladecoder.engine.anim.AnimationDesc;
+import com.bladecoder.engine.anim.Tween;
+import com.bladecoder.engine.assets.EngineAssetManager;
+import com.bladecoder.engine.model.HeadlessRenderer;
+import com.bladecoder.engine.model.Scene;
+import com.bladecoder.engine.model.SceneLayer;
+import com.bladecoder.engine.model.SpriteActor;
+import com.bladecoder.engine.model.Verb;
+import com.bladecoder.engine.model.World;
+import com.bladecoder.engine.model.World.AssetState;
+import com.bladecoder.engine.polygonalpathfinder.PolygonalNavGraph;
+import com.bladecoder.engine.util.Config;
+
+/**
+ * Synthetic worlds for the benchmarks. Everything is created in code and runs
+ * in headless mode, so no game assets are needed.
+ *
+ * The generators are deterministic for a given seed.
+ */
+public class BenchmarkWorld {
+	public static final int WIDTH = 1920;
+	public static final int HEIGHT = 1080;
+	public static final float STEP = 1f / 60f;
+
+	public static final String CHAPTER = "bench";
+	public static final String LAYER = "foreground";
+	public static final String PLAYER = "player";
+
+	/** Verbs added to every actor */
+	public static final String[] VERBS = { Verb.LOOKAT_VERB, Verb.ACTION_VERB, Verb.TALKTO_VERB, Verb.USE_VERB };
+
+	private static File baseDir;
+
+	/**
+	 * Starts the libgdx headless backend and an asset manager over a temporary
+	 * folder with the files that the engine expects.
+	 */
+	public static synchronized void init() {
+		if (Gdx.app == null)
+			new HeadlessApplication(new ApplicationAdapter() {
+			}, new HeadlessApplicationConfiguration());
+
+		if (baseDir == null) {
+			try {
+				baseDir = Files.createTempDirectory("blade-bench").toFile();
+
+				new File(baseDir, EngineAssetManager.MODEL_DIR).mkdirs();
+				new File(baseDir, EngineAssetManager.ATLASES_DIR + "1").mkdirs();
+
+				new File(baseDir, Config.PROPERTIES_FILENAME).createNewFile();
+				new File(baseDir, EngineAssetManager.MODEL_DIR + "world.properties").createNewFile();
+				new File(baseDir, EngineAssetManager.MODEL_DIR + CHAPTER + ".properties").createNewFile();
+			} catch (IOException e) {
+				throw new RuntimeException("Error creating the benchmark folder", e);
+			}
+
+			EngineAssetManager.createEditInstance(baseDir.getAbsolutePath(), WIDTH, HEIGHT);
+		}
+	}
+
+	/**
+	 * Creates a headless world with 'numScenes' scenes and sets the first one
+	 * as the current scene.
+	 */
+	public static World createWorld(int numScenes, int numActors, int numObstacles, long seed) {
+		init();
+
+		Random rnd = new Random(seed);
+		World w = World.getInstance();
+
+		w.setHeadless(true);
+		w.setWidth(WIDTH);
+		w.setHeight(HEIGHT);
+		w.newChapter(CHAPTER);
+
+		for (int i = 0; i < numScenes; i++)
+			w.addScene(createScene("scene" + i, numActors, numObstacles, rnd));
+
+		w.setCurrentScene("scene0");
+
+		// retrieves the assets and inits the scene
+		for (int i = 0; i < 10 && w.getAssetState() != AssetState.LOADED; i++)
+			w.update(STEP);
+
+		return w;
+	}
+
+	/**
+	 * Creates a scene with 'numActors' actors with scripted verbs, a player
+	 * and a walk zone with 'numObstacles' obstacles. One of every four actors
+	 * has 'enter' and 'exit' verbs.
+	 */
+	public static Scene createScene(String id, int numActors, int numObstacles, Random rnd) {
+		Scene s = new Scene();
+		s.setId(id);
+
+		SceneLayer layer = new SceneLayer();
+		layer.setName(LAYER);
+		layer.setVisible(true);
+		layer.setDynamic(true);
+		s.addLayer(layer);
+
+		s.setPolygonalNavGraph(createNavGraph(numObstacles));
+		s.resetCamera(WIDTH, HEIGHT);
+
+		for (int i = 0; i < numActors; i++) {
+			String actorId = "actor" + i;
+			SpriteActor a = createActor(actorId, rnd.nextFloat() * WIDTH, rnd.nextFloat() * HEIGHT / 2);
+
+			for (String v : VERBS)
+				a.getVerbManager().addVerb(v, createVerb(v, id, actorId, 4));
+
+			if (i % 4 == 0) {
+				a.getVerbManager().addVerb("enter", createVerb("enter", id, actorId, 2));
+				a.getVerbManager().addVerb("exit", createVerb("exit", id, actorId, 2));
+			}
+
+			s.addActor(a);
+		}
+
+		SpriteActor player = createActor(PLAYER, WIDTH / 2, HEIGHT / 4);
+		s.addActor(player);
+		s.setPlayer(player);
+
+		return s;
+	}
+
+	public static SpriteActor createActor(String id, float x, float y) {
+		SpriteActor a = new SpriteActor();
+		a.setId(id);
+		a.setLayer(LAYER);
+
+		HeadlessRenderer r = new HeadlessRenderer();
+		r.addAnimation(createAnimation("idle", 1f));
+		r.addAnimation(createAnimation(AnimationDesc.STAND_ANIM + "." + AnimationDesc.FRONT, 0.5f));
+		r.addAnimation(createAnimation(AnimationDesc.WALK_ANIM + "." + AnimationDesc.FRONT, 0.5f));
+		a.setRenderer(r);
+
+		a.setBbox(new Polygon());
+		a.setBboxFromRenderer(true);
+		a.setPosition(x, y);
+
+		return a;
+	}
+
+	private static AnimationDesc createAnimation(String id, float duration) {
+		AnimationDesc fa = new AnimationDesc();
+		fa.set(id, id, duration, 0, Tween.INFINITY, Tween.REPEAT, null, null, null, false, false);
+
+		return fa;
+	}
+
+	/**
+	 * Creates a verb with 'numActions' non blocking actions that change the
+	 * state and the properties of the actor and the world.
+	 */
+	public static Verb createVerb(String id, String sceneId, String actorId, int numActions) {
+		Verb v = new Verb(id);
+
+		for (int i = 0; i < numActions; i++) {
+			HashMap<String, String> params = new HashMap<String, String>();
+			Action a;
+
+			switch (i % 3) {
+			case 0:
+				params.put("actor", sceneId + Param.STRING_PARAM_SEPARATOR + actorId);
+				params.put("state", id + i);
+				a = ActionFactory.createByClass(SetStateAction.class.getName(), params);
+				break;
+			case 1:
+				params.put("actor", actorId);
+				params.put("type", "actor");
+				params.put("prop", id);
+				params.put("value", Integer.toString(i));
+				a = ActionFactory.createByClass(PropertyAction.class.getName(), params);
+				break;
+			default:
+				params.put("type", "world");
+				params.put("prop", actorId);
+				params.put("value", id);
+				a = ActionFactory.createByClass(PropertyAction.class.getName(), params);
+				break;
+			}
+
+			v.add(a);
+		}
+
+		return v;
+	}
+
+	/**
+	 * Walk zone covering the bottom half of the screen with a grid of square
+	 * obstacles.
+	 */
+	public static PolygonalNavGraph createNavGraph(int numObstacles) {
+		float h = HEIGHT / 2;
+
+		PolygonalNavGraph g = new PolygonalNavGraph();
+		g.setWalkZone(new Polygon(new float[] { 0, 0, 0, h, WIDTH, h, WIDTH, 0 }));
+
+		int cols = (int) Math.ceil(Math.sqrt(numObstacles * 2));
+		int rows = cols == 0 ? 0 : (int) Math.ceil(numObstacles / (float) cols);
+		float cw = WIDTH / (cols + 1f);
+		float ch = h / (rows + 1f);
+		float size = Math.min(cw, ch) / 3;
+
+		for (int i = 0; i < numObstacles; i++) {
+			float x = cw * (i % cols + 1);
+			float y = ch * (i / cols + 1);
+
+			g.addObstacle(new Polygon(new float[] { x - size, y - size, x - size, y + size, x + size, y + size,
+					x + size, y - size }));
+		}
+
+		g.createInitialGraph();
+
+		return g;
+	}
+}
@@ -0,0 +1,82 @@
+/*******************************************************************************
+ * Copyright 2014 Rafael Garcia Moreno.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.bladecoder.engine.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.bladecoder.engine.actions.ActionCallback;
+import com.bladecoder.engine.model.BaseActor;
+import com.bladecoder.engine.model.Scene;
+import com.bladecoder.engine.model.Verb;
+import com.bladecoder.engine.util.ActionCallbackSerialization;
+
+/**
+ * ActionCallbackSerialization.find() of a callback in the last searched actor
+ * and of its serialized id, as done for every pending callback when saving and
+ * loading the game.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CallbackSerializationBenchmark {
+	@Param({ "10", "100" })
+	public int actors;
+
+	private ActionCallback cb;
+	private String id;
+
+	@Setup
+	public void setup() {
+		Scene s = BenchmarkWorld.createWorld(1, actors, 0, 0).getCurrentScene();
+
+		// the actors are searched in the HashMap order
+		BaseActor last = null;
+
+		for (BaseActor a : s.getActors().values())
+			last = a;
+
+		Verb v = BenchmarkWorld.createVerb("bench", s.getId(), last.getId(), 4);
+		last.getVerbManager().addVerb("bench", v);
+
+		cb = v;
+		id = ActionCallbackSerialization.find(cb);
+	}
+
+	@Benchmark
+	public String findId() {
+		return ActionCallbackSerialization.find(cb);
+	}
+
+	@Benchmark
+	public ActionCallback findCallback() {
+		return ActionCallbackSerialization.find(id);
+	}
+}
@@ -0,0 +1,86 @@
+/*******************************************************************************
+ * Copyright 2014 Rafael Garcia Moreno.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.bladecoder.engine.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.badlogic.gdx.math.Vector2;
+import com.bladecoder.engine.polygonalpathfinder.PolygonalNavGraph;
+
+/**
+ * PolygonalNavGraph.findPath() between random points of the walk zone and
+ * PolygonalNavGraph.createInitialGraph().
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PathfindingBenchmark {
+	private static final int NUM_POINTS = 1024;
+
+	@Param({ "0", "8", "32" })
+	public int obstacles;
+
+	private PolygonalNavGraph graph;
+	private float[] points;
+	private int pos;
+
+	@Setup
+	public void setup() {
+		BenchmarkWorld.init();
+
+		graph = BenchmarkWorld.createNavGraph(obstacles);
+
+		Random rnd = new Random(0);
+		points = new float[NUM_POINTS * 4];
+
+		for (int i = 0; i < points.length; i += 2) {
+			points[i] = rnd.nextFloat() * BenchmarkWorld.WIDTH;
+			points[i + 1] = rnd.nextFloat() * BenchmarkWorld.HEIGHT / 2;
+		}
+	}
+
+	@Benchmark
+	public ArrayList<Vector2> findPath() {
+		int i = pos;
+		pos = (pos + 4) % points.length;
+
+		return graph.findPath(points[i], points[i + 1], points[i + 2], points[i + 3]);
+	}
+
+	@Benchmark
+	public PolygonalNavGraph createInitialGraph() {
+		graph.createInitialGraph();
+
+		return graph;
+	}
+}
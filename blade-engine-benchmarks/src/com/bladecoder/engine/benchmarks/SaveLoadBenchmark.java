@@ -0,0 +1,88 @@
+/*******************************************************************************
+ * Copyright 2014 Rafael Garcia Moreno.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.bladecoder.engine.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.Json;
+import com.badlogic.gdx.utils.JsonWriter.OutputType;
+import com.bladecoder.engine.model.World;
+
+/**
+ * World JSON serialization, as done by World.saveGameState() without the file
+ * and the screenshot, and World.loadGameState() of the saved file.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SaveLoadBenchmark {
+	@Param({ "5", "20" })
+	public int scenes;
+
+	@Param({ "10", "50" })
+	public int actors;
+
+	private World world;
+	private FileHandle savedFile;
+
+	@Setup
+	public void setup() throws IOException {
+		world = BenchmarkWorld.createWorld(scenes, actors, 8, 0);
+
+		File f = File.createTempFile("blade-bench", ".gamestate");
+		savedFile = new FileHandle(f);
+		savedFile.writeString(save(), false, "UTF-8");
+	}
+
+	@TearDown
+	public void tearDown() {
+		savedFile.delete();
+	}
+
+	@Benchmark
+	public String save() {
+		Json json = new Json();
+		json.setOutputType(OutputType.javascript);
+
+		return json.toJson(world);
+	}
+
+	@Benchmark
+	public World load() {
+		world.loadGameState(savedFile);
+
+		return world;
+	}
+}
@@ -0,0 +1,72 @@
+/*******************************************************************************
+ * Copyright 2014 Rafael Garcia Moreno.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.bladecoder.engine.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.badlogic.gdx.math.MathUtils;
+import com.bladecoder.engine.model.Scene;
+import com.bladecoder.engine.model.SpriteActor;
+
+/**
+ * Scene.update() with N animated actors while the player walks across the
+ * scene, so the enter/exit triggers are checked every frame.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SceneUpdateBenchmark {
+	@Param({ "10", "100", "1000" })
+	public int actors;
+
+	private Scene scene;
+	private SpriteActor player;
+	private float t;
+
+	@Setup
+	public void setup() {
+		scene = BenchmarkWorld.createWorld(1, actors, 0, 0).getCurrentScene();
+		player = (SpriteActor) scene.getActor(BenchmarkWorld.PLAYER, false);
+	}
+
+	@Benchmark
+	public Scene update() {
+		t += BenchmarkWorld.STEP;
+
+		// 4 seconds from side to side
+		float x = (MathUtils.sin(t * MathUtils.PI / 4) + 1) / 2 * BenchmarkWorld.WIDTH;
+		player.setPosition(x, BenchmarkWorld.HEIGHT / 4);
+
+		scene.update(BenchmarkWorld.STEP);
+
+		return scene;
+	}
+}
@@ -0,0 +1,116 @@
+/*******************************************************************************
+ * Copyright 2014 Rafael Garcia Moreno.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.bladecoder.engine.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.badlogic.gdx.graphics.Color;
+import com.bladecoder.engine.model.Text;
+import com.bladecoder.engine.model.TextManager;
+
+/**
+ * Subtitles of a scripted conversation through the TextManager.
+ *
+ * The allocations are measured with the JMH gc profiler. After the warmup,
+ * 'gc.alloc.rate.norm' should be close to 0 B/op for both benchmarks:
+ *
+ * ./gradlew :blade-engine-benchmarks:jmh -PjmhArgs="['Subtitle', '-prof', 'gc']"
+ *
+ * Lines with escaped newlines ('\\n') are copied once when added.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SubtitleBenchmark {
+	@Param({ "1000" })
+	public int lines;
+
+	private final TextManager tm = new TextManager();
+	private String[] conversation;
+
+	@Setup
+	public void setup() {
+		BenchmarkWorld.init();
+
+		conversation = new String[lines];
+
+		// plain lines, lines with duration and lines with several pieces
+		for (int i = 0; i < lines; i++) {
+			switch (i % 3) {
+			case 0:
+				conversation[i] = "Line " + i + " of the conversation.";
+				break;
+			case 1:
+				conversation[i] = "2.5#Line " + i + " with its own duration.";
+				break;
+			default:
+				conversation[i] = "1#First piece of line " + i + ".\n\nSecond piece of line " + i + ".";
+				break;
+			}
+		}
+
+		tm.clear();
+		addConversation();
+	}
+
+	private void addConversation() {
+		for (String l : conversation)
+			tm.addSubtitle(l, TextManager.POS_SUBTITLE, TextManager.POS_SUBTITLE, true, Text.Type.PLAIN,
+					Color.WHITE, null);
+	}
+
+	/**
+	 * Advances one subtitle. The conversation is queued again when it ends.
+	 */
+	@Benchmark
+	public Text advance() {
+		tm.next();
+
+		if (tm.getCurrentSubtitle() == null)
+			addConversation();
+
+		return tm.getCurrentSubtitle();
+	}
+
+	/**
+	 * Queues the whole conversation and plays it until the end. One operation
+	 * is 'lines' lines.
+	 */
+	@Benchmark
+	public TextManager conversation() {
+		addConversation();
+
+		while (tm.getCurrentSubtitle() != null)
+			tm.update(10f);
+
+		return tm;
+	}
+}
@@ -0,0 +1,83 @@
+/*******************************************************************************
+ * Copyright 2014 Rafael Garcia Moreno.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.bladecoder.engine.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.bladecoder.engine.actions.ActionCallback;
+import com.bladecoder.engine.actions.ActionCallbackQueue;
+import com.bladecoder.engine.anim.Timers;
+
+/**
+ * One frame of Timers.update() with N concurrent timers of up to 'maxTime'
+ * seconds. Every expired timer adds a new one, so the number of pending
+ * timers is constant.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TimersBenchmark {
+	@Param({ "1000", "10000", "100000" })
+	public int timers;
+
+	@Param({ "1", "60" })
+	public float maxTime;
+
+	private final Random rnd = new Random(0);
+	private final Timers t = new Timers();
+
+	private final ActionCallback cb = new ActionCallback() {
+		@Override
+		public void resume() {
+			t.addTimer(rnd.nextFloat() * maxTime, this);
+		}
+	};
+
+	@Setup
+	public void setup() {
+		BenchmarkWorld.init();
+
+		t.clear();
+		ActionCallbackQueue.clear();
+
+		for (int i = 0; i < timers; i++)
+			t.addTimer(rnd.nextFloat() * maxTime, cb);
+	}
+
+	@Benchmark
+	public Timers update() {
+		t.update(BenchmarkWorld.STEP);
+		ActionCallbackQueue.run();
+
+		return t;
+	}
+}
@@ -0,0 +1,90 @@
+/*******************************************************************************
+ * Copyright 2014 Rafael Garcia Moreno.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.bladecoder.engine.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.bladecoder.engine.model.BaseActor;
+import com.bladecoder.engine.model.Verb;
+import com.bladecoder.engine.model.VerbManager;
+import com.bladecoder.engine.model.World;
+
+/**
+ * Verb lookup with the 'id.target.state' fallbacks and execution of scripted
+ * verbs with non blocking actions.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VerbBenchmark {
+	@Param({ "4", "16" })
+	public int actions;
+
+	private VerbManager verbs;
+	private Verb verb;
+
+	@Setup
+	public void setup() {
+		World w = BenchmarkWorld.createWorld(1, 10, 0, 0);
+		BaseActor a = w.getCurrentScene().getActor("actor0", false);
+
+		verbs = a.getVerbManager();
+		verbs.addVerb("use.actor1", new Verb("use.actor1"));
+		verbs.addVerb("use.actor2.open", new Verb("use.actor2.open"));
+		verbs.addVerb("lookat.open", new Verb("lookat.open"));
+
+		verb = BenchmarkWorld.createVerb("bench", "scene0", "actor0", actions);
+	}
+
+	/** Found in the first lookup: 'id.target.state' */
+	@Benchmark
+	public Verb getVerbTargetState() {
+		return verbs.getVerb("use", "open", "actor2");
+	}
+
+	/** Falls back to 'id' after three lookups */
+	@Benchmark
+	public Verb getVerbFallback() {
+		return verbs.getVerb("use", "closed", "actor3");
+	}
+
+	@Benchmark
+	public Verb getVerbState() {
+		return verbs.getVerb("lookat", "open", null);
+	}
+
+	@Benchmark
+	public Verb run() {
+		verb.run();
+
+		return verb;
+	}
+}
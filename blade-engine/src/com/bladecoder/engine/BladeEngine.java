@@ -22,13 +22,17 @@ import com.badlogic.gdx.ApplicationListener;
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.graphics.GL20;
 import com.badlogic.gdx.utils.BufferUtils;
+import com.bladecoder.engine.actions.ActionCallbackQueue;
 import com.bladecoder.engine.assets.EngineAssetManager;
+import com.bladecoder.engine.metrics.Metrics;
 import com.bladecoder.engine.model.World;
 import com.bladecoder.engine.ui.SceneScreen;
 import com.bladecoder.engine.ui.UI;
 import com.bladecoder.engine.ui.UI.Screens;
 import com.bladecoder.engine.util.Config;
 import com.bladecoder.engine.util.EngineLogger;
+import com.bladecoder.engine.util.FrameProfiler;
+import com.bladecoder.engine.util.ScriptProfiler;
 
 public class BladeEngine implements ApplicationListener {
 
@@ -93,6 +97,12 @@ public class BladeEngine implements ApplicationListener {
 		if(forceRes != null) {
 			EngineAssetManager.getInstance().forceResolution(forceRes);
 		}
+		
+		ActionCallbackQueue.setTimeBudget(Config.getProperty(Config.CALLBACK_TIME_BUDGET_PROP, 0f));
+		ActionCallbackQueue.setMaxCallbacksPerFrame(Config.getProperty(Config.CALLBACK_MAX_PER_FRAME_PROP, 0));
+		ScriptProfiler.setEnabled(Config.getProperty(Config.SCRIPT_PROFILER_PROP, false));
+		FrameProfiler.setEnabled(Config.getProperty(Config.FRAME_PROFILER_PROP, false));
+		Metrics.get().init();
 		
 		World.getInstance().loadXMLWorld();
 		
@@ -150,6 +160,8 @@ public class BladeEngine implements ApplicationListener {
 	@Override
 	public void dispose() {
 		EngineLogger.debug("GAME DISPOSE");
+		FrameProfiler.stopTrace();
+		Metrics.get().stop();
 		World.getInstance().dispose();
 		ui.dispose();
 	}
@@ -0,0 +1,220 @@
+/*******************************************************************************
+ * Copyright 2014 Rafael Garcia Moreno.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.bladecoder.engine;
+
+import java.util.HashMap;
+import java.util.Properties;
+
+import com.badlogic.gdx.Application;
+import com.badlogic.gdx.math.RandomXS128;
+import com.bladecoder.engine.actions.ActionCallbackQueue;
+import com.bladecoder.engine.assets.EngineAssetManager;
+import com.bladecoder.engine.i18n.I18N;
+import com.bladecoder.engine.metrics.Metrics;
+import com.bladecoder.engine.model.Verb;
+import com.bladecoder.engine.model.World;
+import com.bladecoder.engine.util.EngineLogger;
+import com.bladecoder.engine.util.FrameProfiler;
+import com.bladecoder.engine.util.ScriptProfiler;
+
+/**
+ * Owns the state of a game instance: the World, the EngineAssetManager, the
+ * world verbs, the ActionCallbackQueue, the I18N strings, the Config
+ * properties, the log levels, the random generator, the profilers and the
+ * metrics.
+ *
+ * The static accessors (World.getInstance(), EngineAssetManager.getInstance(),
+ * etc.) use the context bound to the current thread or the default context if
+ * none is bound:
+ *
+ * <pre>
+ * EngineContext.setCurrent(new EngineContext());
+ * World.getInstance().loadXMLWorld();
+ * ...
+ * EngineContext.setCurrent(null);
+ * </pre>
+ *
+ * The members are created the first time they are requested. A context must
+ * be used by only one thread at a time, so games can run in parallel in the
+ * same JVM binding a different context to every thread.
+ *
+ * The libgdx globals (Gdx.app, Gdx.files, Gdx.gl...) are shared by all the
+ * contexts: the logs and exit() calls go to the last created application. The
+ * graphics state tied to the GL context (the managed textures reloading, the
+ * 3D batches and the GLProfiler) belongs to the default context. Headless
+ * games don't use it.
+ */
+public class EngineContext {
+	private static final EngineContext defaultContext = new EngineContext();
+	private static final ThreadLocal<EngineContext> current = new ThreadLocal<EngineContext>();
+
+	/** Avoids the ThreadLocal lookup when no context was ever bound */
+	private static volatile boolean bound = false;
+
+	private World world;
+	private EngineAssetManager assetManager;
+	private ActionCallbackQueue actionCallbackQueue;
+	private I18N i18n;
+	private HashMap<String, Verb> worldVerbs = new HashMap<String, Verb>();
+	private EngineLogger.ErrorListener errorListener;
+	private RandomXS128 random;
+	private ScriptProfiler scriptProfiler;
+	private FrameProfiler frameProfiler;
+	private Metrics metrics;
+	private Properties config;
+	private int logLevel = Application.LOG_ERROR;
+	private int debugLevel = EngineLogger.DEBUG0;
+
+	/**
+	 * @return the context of the current thread or the default context.
+	 */
+	public static EngineContext get() {
+		if (!bound)
+			return defaultContext;
+
+		EngineContext c = current.get();
+
+		return c == null ? defaultContext : c;
+	}
+
+	public static EngineContext getDefault() {
+		return defaultContext;
+	}
+
+	public boolean isDefault() {
+		return this == defaultContext;
+	}
+
+	/**
+	 * Binds the context to the current thread. null to use the default
+	 * context.
+	 */
+	public static void setCurrent(EngineContext c) {
+		if (c == null) {
+			current.remove();
+		} else {
+			bound = true;
+			current.set(c);
+		}
+	}
+
+	public World getWorld() {
+		return world;
+	}
+
+	public void setWorld(World world) {
+		this.world = world;
+	}
+
+	public EngineAssetManager getAssetManager() {
+		return assetManager;
+	}
+
+	public void setAssetManager(EngineAssetManager assetManager) {
+		this.assetManager = assetManager;
+	}
+
+	public ActionCallbackQueue getActionCallbackQueue() {
+		return actionCallbackQueue;
+	}
+
+	public void setActionCallbackQueue(ActionCallbackQueue actionCallbackQueue) {
+		this.actionCallbackQueue = actionCallbackQueue;
+	}
+
+	public I18N getI18N() {
+		return i18n;
+	}
+
+	public void setI18N(I18N i18n) {
+		this.i18n = i18n;
+	}
+
+	public HashMap<String, Verb> getWorldVerbs() {
+		return worldVerbs;
+	}
+
+	public void setWorldVerbs(HashMap<String, Verb> worldVerbs) {
+		this.worldVerbs = worldVerbs;
+	}
+
+	public EngineLogger.ErrorListener getErrorListener() {
+		return errorListener;
+	}
+
+	public void setErrorListener(EngineLogger.ErrorListener errorListener) {
+		this.errorListener = errorListener;
+	}
+
+	/**
+	 * The random generator of the game logic. Use it instead of MathUtils
+	 * to get the same results with the same seed.
+	 */
+	public RandomXS128 getRandom() {
+		if (random == null)
+			random = new RandomXS128();
+
+		return random;
+	}
+
+	public ScriptProfiler getScriptProfiler() {
+		return scriptProfiler;
+	}
+
+	public void setScriptProfiler(ScriptProfiler scriptProfiler) {
+		this.scriptProfiler = scriptProfiler;
+	}
+
+	public FrameProfiler getFrameProfiler() {
+		return frameProfiler;
+	}
+
+	public void setFrameProfiler(FrameProfiler frameProfiler) {
+		this.frameProfiler = frameProfiler;
+	}
+
+	public Metrics getMetrics() {
+		return metrics;
+	}
+
+	public void setMetrics(Metrics metrics) {
+		this.metrics = metrics;
+	}
+
+	public Properties getConfig() {
+		return config;
+	}
+
+	public void setConfig(Properties config) {
+		this.config = config;
+	}
+
+	public int getLogLevel() {
+		return logLevel;
+	}
+
+	public void setLogLevel(int logLevel) {
+		this.logLevel = logLevel;
+	}
+
+	public int getDebugLevel() {
+		return debugLevel;
+	}
+
+	public void setDebugLevel(int debugLevel) {
+		this.debugLevel = debugLevel;
+	}
+}
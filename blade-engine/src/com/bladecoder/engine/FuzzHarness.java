@@ -0,0 +1,159 @@
+/*******************************************************************************
+ * Copyright 2014 Rafael Garcia Moreno.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.bladecoder.engine;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.bladecoder.engine.util.FuzzReport;
+
+/**
+ * Runs several FuzzWorkers in parallel and merges their reports in a coverage
+ * report.
+ *
+ * Every worker runs in a thread of the pool with its own EngineContext. The
+ * libgdx globals must be initialized before, with a HeadlessApplication for
+ * example.
+ *
+ * Run 'i' uses the seed 'baseSeed + i', so a failing run can be reproduced
+ * alone.
+ */
+public class FuzzHarness {
+	public static final String REPORT_FILENAME = "fuzz_report.json";
+
+	private final List<String> workerArgs = new ArrayList<String>();
+
+	private int threads = Runtime.getRuntime().availableProcessors();
+	private int runs = threads;
+	private long baseSeed = 0;
+	private float maxTime = FuzzWorker.DEFAULT_MAX_TIME;
+	private File outDir = new File("fuzz");
+
+	/**
+	 * Arguments passed to every worker (see FuzzWorker.parseParams()). Ex.
+	 * '-chapter 01'.
+	 */
+	public void addWorkerArg(String arg) {
+		workerArgs.add(arg);
+	}
+
+	/**
+	 * Number of workers running at the same time. Defaults to the number of
+	 * cores.
+	 */
+	public void setThreads(int threads) {
+		this.threads = threads;
+	}
+
+	public void setRuns(int runs) {
+		this.runs = runs;
+	}
+
+	public void setBaseSeed(long baseSeed) {
+		this.baseSeed = baseSeed;
+	}
+
+	/**
+	 * Game time in seconds simulated by every run.
+	 */
+	public void setMaxTime(float maxTime) {
+		this.maxTime = maxTime;
+	}
+
+	/**
+	 * Folder for the reports of the workers.
+	 */
+	public void setOutDir(File outDir) {
+		this.outDir = outDir;
+	}
+
+	/**
+	 * Runs all the workers and writes the merged report to 'outDir'.
+	 */
+	public FuzzReport run() throws InterruptedException {
+		outDir.mkdirs();
+
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		List<Future<FuzzReport>> results = new ArrayList<Future<FuzzReport>>();
+
+		for (int i = 0; i < runs; i++) {
+			final long seed = baseSeed + i;
+
+			results.add(executor.submit(new Callable<FuzzReport>() {
+				@Override
+				public FuzzReport call() throws Exception {
+					return runWorker(seed);
+				}
+			}));
+		}
+
+		FuzzReport merged = new FuzzReport();
+
+		try {
+			for (int i = 0; i < results.size(); i++) {
+				try {
+					merged.merge(results.get(i).get());
+				} catch (ExecutionException e) {
+					merged.exceptions.add((baseSeed + i) + ": HARNESS: " + e.getCause());
+				}
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+
+		merged.write(new FileHandle(new File(outDir, REPORT_FILENAME)));
+
+		System.out.println("FUZZ - " + merged.getSummary());
+
+		return merged;
+	}
+
+	private FuzzReport runWorker(long seed) {
+		File reportFile = new File(outDir, "fuzz_" + seed + ".json");
+
+		reportFile.delete();
+
+		EngineContext ctx = new EngineContext();
+		EngineContext.setCurrent(ctx);
+
+		FuzzWorker worker = new FuzzWorker(seed, new FileHandle(reportFile));
+		worker.setContext(ctx);
+		worker.setMaxTime(maxTime);
+		worker.parseParams(workerArgs);
+
+		try {
+			worker.create();
+
+			return worker.play();
+		} catch (RuntimeException e) {
+			// the game failed to load
+			FuzzReport r = worker.getFuzzReport();
+			r.runs = 1;
+			r.exceptions.add(seed + ": WORKER: " + e);
+			return r;
+		} finally {
+			worker.dispose();
+			EngineContext.setCurrent(null);
+		}
+	}
+}
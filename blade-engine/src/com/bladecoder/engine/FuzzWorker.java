@@ -0,0 +1,242 @@
+/*******************************************************************************
+ * Copyright 2014 Rafael Garcia Moreno.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.bladecoder.engine;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.HashSet;
+import java.util.List;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+import com.bladecoder.engine.model.BaseActor;
+import com.bladecoder.engine.model.Scene;
+import com.bladecoder.engine.model.World;
+import com.bladecoder.engine.ui.TesterBot;
+import com.bladecoder.engine.util.EngineLogger;
+import com.bladecoder.engine.util.FuzzReport;
+
+/**
+ * One fuzzing run: the TesterBot plays the game in headless mode with a seeded
+ * random generator until 'maxTime' seconds of game time are simulated, an
+ * exception is thrown or the game state doesn't change in 'deadEndTime'
+ * seconds. The coverage is written to the report file.
+ *
+ * The exceptions caught by the engine to keep running, like the exceptions
+ * thrown by the actions, are added to the report but don't stop the run.
+ *
+ * The worker runs as a headless application or, calling play(), in a thread
+ * with its own EngineContext like in the FuzzHarness.
+ */
+public class FuzzWorker extends HeadlessEngine {
+	public static final float DEFAULT_MAX_TIME = 3600f;
+	public static final float DEFAULT_DEAD_END_TIME = 300f;
+
+	/** Coverage sampling interval in ticks */
+	private static final int SAMPLE_TICKS = 60;
+
+	private final TesterBot bot = new TesterBot();
+	private final FuzzReport report = new FuzzReport();
+	private final FileHandle reportFile;
+	private final long seed;
+
+	private float maxTime = DEFAULT_MAX_TIME;
+	private float deadEndTime = DEFAULT_DEAD_END_TIME;
+
+	/** Caught exceptions already reported */
+	private final HashSet<String> errors = new HashSet<String>();
+
+	private long lastHash;
+	private float lastHashChange;
+	private boolean done = false;
+
+	public FuzzWorker(long seed, FileHandle reportFile) {
+		this.seed = seed;
+		this.reportFile = reportFile;
+
+		setSeed(seed);
+	}
+
+	public TesterBot getTesterBot() {
+		return bot;
+	}
+
+	public void setMaxTime(float maxTime) {
+		this.maxTime = maxTime;
+	}
+
+	public void setDeadEndTime(float deadEndTime) {
+		this.deadEndTime = deadEndTime;
+	}
+
+	public FuzzReport getFuzzReport() {
+		return report;
+	}
+
+	/**
+	 * Parses the launcher arguments that configure the game: '-chapter
+	 * chapter', '-t scene', '-l game_state', '-res width' and '-d'.
+	 */
+	public void parseParams(List<String> args) {
+		for (int i = 0; i < args.size(); i++) {
+			String s = args.get(i);
+
+			if (s.equals("-chapter") && i + 1 < args.size()) {
+				setChapter(args.get(++i));
+			} else if (s.equals("-t") && i + 1 < args.size()) {
+				setTestMode(args.get(++i));
+			} else if (s.equals("-l") && i + 1 < args.size()) {
+				loadGameState(args.get(++i));
+			} else if (s.equals("-res") && i + 1 < args.size()) {
+				forceResolution(args.get(++i));
+			} else if (s.equals("-d")) {
+				setDebugMode();
+			}
+		}
+	}
+
+	/**
+	 * Adds the exceptions caught by the engine in the context of the worker to
+	 * the report. Every different exception is added once.
+	 */
+	void addErrorListener() {
+		bindContext();
+
+		EngineLogger.setErrorListener(new EngineLogger.ErrorListener() {
+			@Override
+			public void error(String message, Exception e) {
+				if (e == null || !errors.add(message + ": " + e))
+					return;
+
+				report.exceptions.add(seed + ": " + getSceneId() + ": " + message + ": " + getStackTrace(e));
+			}
+		});
+	}
+
+	@Override
+	public void create() {
+		addErrorListener();
+
+		super.create();
+
+		bot.setEnabled(true);
+		bot.setPassTexts(true);
+
+		report.runs = 1;
+		report.chapter = World.getInstance().getCurrentChapter();
+		lastHash = World.getInstance().getStateHash();
+	}
+
+	@Override
+	public void step() {
+		super.step();
+		bot.update(getStep());
+	}
+
+	@Override
+	public void render() {
+		if (done)
+			return;
+
+		bindContext();
+
+		runSamples(Math.max(1, getTicksPerFrame() / SAMPLE_TICKS));
+
+		if (done)
+			Gdx.app.exit();
+	}
+
+	/**
+	 * Runs the game in the current thread until the run is done. Must be
+	 * called after create().
+	 * 
+	 * @return the report, also written to the report file.
+	 */
+	public FuzzReport play() {
+		bindContext();
+
+		while (!done)
+			runSamples(Math.max(1, getTicksPerFrame() / SAMPLE_TICKS));
+
+		return report;
+	}
+
+	private void runSamples(int n) {
+		for (int i = 0; i < n && !done; i++) {
+			try {
+				run(SAMPLE_TICKS);
+			} catch (RuntimeException e) {
+				report.exceptions.add(seed + ": " + getSceneId() + ": " + getStackTrace(e));
+				done = true;
+			}
+
+			sample();
+
+			if (getSimulatedTime() >= maxTime)
+				done = true;
+		}
+
+		if (done) {
+			report.ticks = getTicks();
+			report.simulatedTime = getSimulatedTime();
+
+			if (reportFile != null)
+				report.write(reportFile);
+
+			Gdx.app.log(TAG, "FUZZ " + seed + " - " + report.getSummary() + " - " + getReport());
+		}
+	}
+
+	private void sample() {
+		World w = World.getInstance();
+		Scene s = w.getCurrentScene();
+
+		if (s != null) {
+			report.addScene(s.getId());
+
+			if (s.getState() != null)
+				report.addState(s.getId() + "#" + s.getState());
+
+			for (BaseActor a : s.getActors().values()) {
+				if (a.getState() != null)
+					report.addState(s.getId() + "/" + a.getId() + "#" + a.getState());
+			}
+		}
+
+		long h = w.getStateHash();
+
+		if (h != lastHash) {
+			lastHash = h;
+			lastHashChange = getSimulatedTime();
+		} else if (!done && getSimulatedTime() - lastHashChange >= deadEndTime) {
+			report.deadEnds.add(seed + ": " + getSceneId() + ": " + getSimulatedTime() + "s");
+			done = true;
+		}
+	}
+
+	private String getSceneId() {
+		Scene s = World.getInstance().getCurrentScene();
+
+		return s == null ? null : s.getId();
+	}
+
+	private static String getStackTrace(Exception e) {
+		StringWriter sw = new StringWriter();
+		e.printStackTrace(new PrintWriter(sw));
+
+		return sw.toString();
+	}
+}
@@ -0,0 +1,343 @@
+/*******************************************************************************
+ * Copyright 2014 Rafael Garcia Moreno.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.bladecoder.engine;
+
+import java.text.MessageFormat;
+
+import com.badlogic.gdx.ApplicationListener;
+import com.badlogic.gdx.Gdx;
+import com.bladecoder.engine.actions.ActionCallbackQueue;
+import com.bladecoder.engine.assets.EngineAssetManager;
+import com.bladecoder.engine.model.BaseActor;
+import com.bladecoder.engine.model.Scene;
+import com.bladecoder.engine.model.World;
+import com.bladecoder.engine.ui.Recorder;
+import com.bladecoder.engine.util.Config;
+import com.bladecoder.engine.util.EngineLogger;
+
+/**
+ * Runs the game logic without graphics, sound or UI at a fixed time step.
+ *
+ * Needs a backend that provides Gdx.files, like the libgdx headless backend:
+ *
+ * <pre>
+ * HeadlessEngine engine = new HeadlessEngine();
+ * engine.setChapter(&quot;00&quot;);
+ * engine.setMaxTicks(100000);
+ * new HeadlessApplication(engine);
+ * </pre>
+ *
+ * Every render() call runs 'ticksPerFrame' steps. The application exits when
+ * 'maxTicks' steps have been executed and the ticks per second are reported.
+ * 
+ * If a record is set, it is played in turbo mode verifying the state hash at
+ * every event and the application exits when the record ends.
+ *
+ * Several engines can run in parallel in the same JVM, every one in its own
+ * thread and EngineContext. In that case, call create() and run() from the
+ * threads instead of using a HeadlessApplication for every engine.
+ */
+public class HeadlessEngine implements ApplicationListener {
+	public static final String TAG = "HEADLESS";
+
+	public static final float DEFAULT_STEP = 1f / 60f;
+	public static final int DEFAULT_TICKS_PER_FRAME = 1000;
+
+	private String chapter;
+	private String gameState;
+	private String testScene;
+	private String forceRes;
+	private String recordName;
+	private boolean debug = false;
+
+	private Recorder recorder;
+
+	private EngineContext context;
+
+	private float step = DEFAULT_STEP;
+	private int ticksPerFrame = DEFAULT_TICKS_PER_FRAME;
+	private long maxTicks = 0;
+	private long recordTimeout = 0;
+	private long seed = 0;
+
+	private long ticks = 0;
+	private long elapsedNanos = 0;
+	private boolean finished = false;
+
+	public void setChapter(String chapter) {
+		this.chapter = chapter;
+	}
+
+	public void setTestMode(String s) {
+		testScene = s;
+	}
+
+	public void loadGameState(String s) {
+		gameState = s;
+	}
+
+	/**
+	 * Plays the record in turbo mode instead of stepping 'maxTicks'.
+	 */
+	public void setPlayMode(String recordName) {
+		this.recordName = recordName;
+	}
+
+	/**
+	 * @return the divergence found playing the record or null.
+	 */
+	public String getDivergence() {
+		return recorder == null ? null : recorder.getDivergence();
+	}
+
+	public void forceResolution(String forceRes) {
+		this.forceRes = forceRes;
+	}
+
+	public void setDebugMode() {
+		debug = true;
+	}
+
+	/**
+	 * Runs the engine in its own EngineContext instead of the default one.
+	 */
+	public void setContext(EngineContext context) {
+		this.context = context;
+	}
+
+	/**
+	 * Binds the context of the engine to the current thread.
+	 */
+	protected void bindContext() {
+		if (context != null)
+			EngineContext.setCurrent(context);
+	}
+
+	/**
+	 * The simulated time in seconds of every tick.
+	 */
+	public void setStep(float step) {
+		this.step = step;
+	}
+
+	public float getStep() {
+		return step;
+	}
+
+	public void setTicksPerFrame(int ticksPerFrame) {
+		this.ticksPerFrame = ticksPerFrame;
+	}
+
+	public int getTicksPerFrame() {
+		return ticksPerFrame;
+	}
+
+	/**
+	 * The application exits after this number of ticks. 0 to run forever.
+	 */
+	public void setMaxTicks(long maxTicks) {
+		this.maxTicks = maxTicks;
+	}
+
+	/**
+	 * Max. real time in ms to play the record. 0 for no limit. The record
+	 * playing is also limited by 'maxTicks' or, if 0, by
+	 * Recorder.TURBO_MAX_STEPS.
+	 */
+	public void setRecordTimeout(long ms) {
+		this.recordTimeout = ms;
+	}
+
+	/**
+	 * Seed for the random generator of the EngineContext, used by the actions
+	 * and the TesterBot.
+	 */
+	public void setSeed(long seed) {
+		this.seed = seed;
+	}
+
+	@Override
+	public void create() {
+		bindContext();
+
+		if (!debug)
+			debug = Config.getProperty(Config.DEBUG_PROP, debug);
+
+		if (debug)
+			EngineLogger.setDebug();
+
+		EngineLogger.debug("HEADLESS CREATE");
+
+		if (forceRes == null)
+			forceRes = Config.getProperty(Config.FORCE_RES_PROP, forceRes);
+
+		if (forceRes != null) {
+			EngineAssetManager.getInstance().forceResolution(forceRes);
+		}
+
+		// The time budget depends on the wall clock and breaks determinism
+		ActionCallbackQueue.setTimeBudget(0);
+		ActionCallbackQueue.setMaxCallbacksPerFrame(Config.getProperty(Config.CALLBACK_MAX_PER_FRAME_PROP, 0));
+
+		EngineContext.get().getRandom().setSeed(seed);
+
+		World.getInstance().setHeadless(true);
+		World.getInstance().loadXMLWorld();
+
+		if (chapter == null)
+			chapter = Config.getProperty(Config.CHAPTER_PROP, chapter);
+
+		if (testScene == null)
+			testScene = Config.getProperty(Config.TEST_SCENE_PROP, testScene);
+
+		if (gameState != null)
+			World.getInstance().loadGameState(gameState);
+		else
+			World.getInstance().loadXMLChapter(chapter, testScene);
+
+		if (recordName != null) {
+			recorder = new Recorder();
+			recorder.setFilename(recordName);
+			recorder.load();
+			recorder.setVerifyCheckpoints(true);
+		}
+	}
+
+	/**
+	 * Advances the world one fixed step.
+	 */
+	public void step() {
+		World.getInstance().update(step);
+		ticks++;
+	}
+
+	/**
+	 * Advances the world n fixed steps.
+	 */
+	public void run(int n) {
+		long t0 = System.nanoTime();
+
+		for (int i = 0; i < n; i++)
+			step();
+
+		elapsedNanos += System.nanoTime() - t0;
+	}
+
+	/**
+	 * Runs a verb of an actor in the current scene or in the inventory. If
+	 * the actor is null, the verb is searched in the scene.
+	 */
+	public void runVerb(String actorId, String verb, String target) {
+		Scene s = World.getInstance().getCurrentScene();
+
+		if (actorId == null) {
+			s.runVerb(verb);
+			return;
+		}
+
+		BaseActor a = s.getActor(actorId, true);
+
+		if (a == null) {
+			EngineLogger.error("HEADLESS: actor not found: " + actorId);
+			return;
+		}
+
+		if (target == null)
+			a.runVerb(verb);
+		else
+			a.runVerb(verb, target);
+	}
+
+	public long getTicks() {
+		return ticks;
+	}
+
+	/**
+	 * @return the simulated time in seconds.
+	 */
+	public float getSimulatedTime() {
+		return ticks * step;
+	}
+
+	public float getTicksPerSecond() {
+		if (elapsedNanos == 0)
+			return 0;
+
+		return ticks * 1000000000f / elapsedNanos;
+	}
+
+	public String getReport() {
+		return MessageFormat.format("TICKS: {0} SIMULATED TIME: {1}s REAL TIME: {2}ms TICKS/S: {3}", ticks,
+				getSimulatedTime(), elapsedNanos / 1000000, getTicksPerSecond());
+	}
+
+	@Override
+	public void render() {
+		if (finished)
+			return;
+
+		bindContext();
+
+		if (recorder != null) {
+			long t0 = System.nanoTime();
+			boolean ok = recorder.playTurbo(step, maxTicks > 0 ? maxTicks : Recorder.TURBO_MAX_STEPS,
+					recordTimeout);
+
+			elapsedNanos += System.nanoTime() - t0;
+			ticks += recorder.getTurboSteps();
+
+			String result = ok ? "RECORD OK - "
+					: (recorder.isTurboLimitReached() ? "RECORD LIMIT REACHED - " : "RECORD DIVERGED - ");
+
+			Gdx.app.log(TAG, result + getReport());
+			finished = true;
+			Gdx.app.exit();
+			return;
+		}
+
+		int n = ticksPerFrame;
+
+		if (maxTicks > 0 && ticks + n > maxTicks)
+			n = (int) (maxTicks - ticks);
+
+		run(n);
+
+		if (maxTicks > 0 && ticks >= maxTicks) {
+			Gdx.app.log(TAG, getReport());
+			finished = true;
+			Gdx.app.exit();
+		}
+	}
+
+	@Override
+	public void dispose() {
+		bindContext();
+		EngineLogger.debug("HEADLESS DISPOSE");
+		World.getInstance().dispose();
+	}
+
+	@Override
+	public void resize(int width, int height) {
+	}
+
+	@Override
+	public void pause() {
+	}
+
+	@Override
+	public void resume() {
+	}
+}
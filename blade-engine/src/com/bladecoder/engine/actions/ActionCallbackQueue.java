@@ -20,7 +20,9 @@ import java.util.List;
 
 import com.badlogic.gdx.utils.Json;
 import com.badlogic.gdx.utils.JsonValue;
+import com.bladecoder.engine.EngineContext;
 import com.bladecoder.engine.util.ActionCallbackSerialization;
+import com.bladecoder.engine.util.EngineLogger;
 
 /**
  * This is a queue to group all cb that must be triggered in the next iteration.
@@ -28,42 +30,190 @@ import com.bladecoder.engine.util.ActionCallbackSerialization;
  * 
  * All ActionCb must be called at once outside update methods of Actors.
  * 
+ * There is a queue for every EngineContext.
+ * 
  * @author rgarcia
  *
  */
 public class ActionCallbackQueue {
-	private static final List<ActionCallback> queue = new ArrayList<ActionCallback>();
-	private static final List<ActionCallback> runQueue = new ArrayList<ActionCallback>();
+	private final List<ActionCallback> queue = new ArrayList<ActionCallback>();
+	private final List<ActionCallback> runQueue = new ArrayList<ActionCallback>();
+
+	/**
+	 * Max. time in nanoseconds to spend resuming callbacks in a frame. When
+	 * the budget is exceeded, the remaining cb's are resumed in the next
+	 * frame. 0 disables the time slicing.
+	 */
+	private long timeBudget = 0;
+
+	/** Max. number of cb's to resume in a frame. 0 for no limit. */
+	private int maxCallbacksPerFrame = 0;
+
+	/** Time when the current time sliced run started. -1 when not running */
+	private long frameStart = -1;
+
+	/** Stats of the last frame */
+	private int lastResumed = 0;
+	private int lastCarried = 0;
+	private long lastTime = 0;
+
+	private ActionCallbackQueue() {
+	}
+
+	/**
+	 * @return the queue of the current EngineContext.
+	 */
+	private static ActionCallbackQueue get() {
+		EngineContext ctx = EngineContext.get();
+		ActionCallbackQueue q = ctx.getActionCallbackQueue();
+
+		if (q == null) {
+			q = new ActionCallbackQueue();
+			ctx.setActionCallbackQueue(q);
+		}
+
+		return q;
+	}
 	
 	public static void add(ActionCallback cb) {
-		queue.add(cb);
+		get().queue.add(cb);
 	}
 	
 	/**
 	 * Resume all cb's in the 'queue'. 
 	 * 
 	 * To do that, we copy all elements in the 'runQueue' and clean the 'queue' because 
-	 * cb.resume() can trigger more cb's
+	 * cb.resume() can trigger more cb's.
+	 * 
+	 * If a time budget or a max. number of cb's per frame is set, the cb's not
+	 * resumed are put back at the head of the 'queue' in the same order.
 	 */
 	public static void run() {
+		get().runQueue();
+	}
+
+	private void runQueue() {
+		lastResumed = 0;
+		lastCarried = 0;
+		lastTime = 0;
+		
 		if(!queue.isEmpty()) {
 			runQueue.addAll(queue);				
 			queue.clear();
 			
-			for(ActionCallback cb: runQueue)
-				cb.resume();
+			if(timeBudget <= 0 && maxCallbacksPerFrame <= 0) {
+				for(ActionCallback cb: runQueue)
+					cb.resume();
+				
+				lastResumed = runQueue.size();
+			} else {
+				runTimeSliced();
+			}
 			
 			runQueue.clear();
 		}
 	}
 	
+	private void runTimeSliced() {
+		long t0 = System.nanoTime();
+		int i = 0;
+		
+		frameStart = t0;
+		
+		while(i < runQueue.size()) {
+			ActionCallback cb = runQueue.get(i++);
+			long t = System.nanoTime();
+			
+			cb.resume();
+			
+			t = System.nanoTime() - t;
+			
+			if(timeBudget > 0 && t > timeBudget && EngineLogger.debugMode()) {
+				EngineLogger.debug("CALLBACK EXCEEDS FRAME BUDGET (" + t / 1000000f + "ms): "
+						+ ActionCallbackSerialization.find(cb));
+			}
+			
+			if((timeBudget > 0 && System.nanoTime() - t0 >= timeBudget)
+					|| (maxCallbacksPerFrame > 0 && i >= maxCallbacksPerFrame))
+				break;
+		}
+		
+		frameStart = -1;
+		lastResumed = i;
+		lastTime = System.nanoTime() - t0;
+		
+		if(i < runQueue.size()) {
+			lastCarried = runQueue.size() - i;
+			queue.addAll(0, runQueue.subList(i, runQueue.size()));
+		}
+	}
+	
+	/**
+	 * Sets the max. time to spend resuming cb's each frame.
+	 * 
+	 * @param ms
+	 *            the budget in milliseconds. 0 to resume all the cb's in the
+	 *            same frame.
+	 */
+	public static void setTimeBudget(float ms) {
+		get().timeBudget = (long) (ms * 1000000);
+	}
+	
+	public static float getTimeBudget() {
+		return get().timeBudget / 1000000f;
+	}
+	
+	public static void setMaxCallbacksPerFrame(int max) {
+		get().maxCallbacksPerFrame = max;
+	}
+	
+	public static int getMaxCallbacksPerFrame() {
+		return get().maxCallbacksPerFrame;
+	}
+	
+	/**
+	 * @return The number of cb's resumed in the last frame.
+	 */
+	public static int getLastResumed() {
+		return get().lastResumed;
+	}
+	
+	/**
+	 * @return The number of cb's carried over to the next frame.
+	 */
+	public static int getLastCarried() {
+		return get().lastCarried;
+	}
+	
+	/**
+	 * @return The time spent resuming cb's in the last frame in nanoseconds.
+	 *         Only measured when the time slicing is enabled.
+	 */
+	public static long getLastTime() {
+		return get().lastTime;
+	}
+	
+	/**
+	 * Verbs use this to stop running non blocking actions when the frame budget
+	 * is consumed. Only true while resuming cb's in time sliced mode.
+	 */
+	public static boolean isFrameBudgetExceeded() {
+		ActionCallbackQueue q = get();
+
+		return q.frameStart != -1 && q.timeBudget > 0 && System.nanoTime() - q.frameStart >= q.timeBudget;
+	}
+	
+	public static boolean isEmpty() {
+		return get().queue.isEmpty();
+	}
+	
 	public static void clear() {
-		queue.clear();
+		get().queue.clear();
 	}
 	
 	public static void write(Json json) {
 		ArrayList<String> q = new ArrayList<String>();
-		for(ActionCallback cb: queue) {
+		for(ActionCallback cb: get().queue) {
 			q.add(ActionCallbackSerialization.find(cb));
 		}
 		
@@ -75,6 +225,7 @@ public class ActionCallbackQueue {
 		ArrayList<String> q = json.readValue("queue", ArrayList.class, String.class,
 				jsonData);
 		
+		List<ActionCallback> queue = get().queue;
 		queue.clear();
 		
 		for(String s: q) {
@@ -18,9 +18,10 @@ package com.bladecoder.engine.actions;
 import java.util.ArrayList;
 import java.util.HashMap;
 
-import com.badlogic.gdx.math.MathUtils;
+import com.bladecoder.engine.EngineContext;
 import com.bladecoder.engine.actions.Param.Type;
 import com.bladecoder.engine.model.VerbRunner;
+import com.bladecoder.engine.util.ScriptProfiler;
 
 public class ChooseAction implements Action {
 	private static final String ITERATE = "iterate";
@@ -67,7 +68,7 @@ public class ChooseAction implements Action {
 		if(chooseCriteria.equals(ITERATE)) {			
 			chooseCount++;
 		} else if(chooseCriteria.equals(RANDOM)) {
-			chooseCount = MathUtils.random(0, numActions - 1);
+			chooseCount = EngineContext.get().getRandom().nextInt(numActions);
 		} else if(chooseCriteria.equals(CYCLE)) {
 			chooseCount = (chooseCount + 1) % numActions;
 		}
@@ -75,7 +76,18 @@ public class ChooseAction implements Action {
 		v.setIP(ip);
 		
 		if(chooseCount < numActions) {
-			return v.getActions().get(ip0 + chooseCount).run(v);
+			Action a = v.getActions().get(ip0 + chooseCount);
+			
+			if(ScriptProfiler.isEnabled()) {
+				long bytes0 = ScriptProfiler.getAllocatedBytes();
+				long t0 = System.nanoTime();
+				boolean blocking = a.run(v);
+				ScriptProfiler.action(a.getClass(), t0, bytes0);
+				
+				return blocking;
+			}
+			
+			return a.run(v);
 		}
 
 		return false;
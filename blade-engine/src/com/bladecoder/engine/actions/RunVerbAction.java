@@ -89,26 +89,7 @@ public class RunVerbAction extends BaseCallbackAction implements VerbRunner {
 	}
 
 	private void nextStep() {
-
-		boolean stop = false;
-
-		ArrayList<Action> actions = getActions();
-
-		while (ip < actions.size() && !stop) {
-			Action a = actions.get(ip);
-
-			if (EngineLogger.debugMode())
-				EngineLogger.debug("RunVerbAction: " + verb + "(" + ip + ") " + a.getClass().getSimpleName());
-
-			try {
-				if (a.run(this))
-					stop = true;
-				else
-					ip++;
-			} catch (Exception e) {
-				EngineLogger.error("EXCEPTION EXECUTING ACTION: " + a.getClass().getSimpleName(), e);
-			}
-		}
+		boolean stop = Verb.runActions(this, getActions(), verb);
 
 		if (getWait() && !stop) {
 			super.resume();
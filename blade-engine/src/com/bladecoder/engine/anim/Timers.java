@@ -21,59 +21,67 @@ import com.badlogic.gdx.utils.Json;
 import com.badlogic.gdx.utils.Json.Serializable;
 import com.badlogic.gdx.utils.JsonValue;
 import com.bladecoder.engine.actions.ActionCallback;
-import com.bladecoder.engine.actions.ActionCallbackQueue;
 import com.bladecoder.engine.util.ActionCallbackSerialization;
 
-public class Timers {
+/**
+ * Game timers. The deadlines are kept in a TimingWheel, so pending timers
+ * cost nothing per frame and expired timers are called in deadline order.
+ */
+public class Timers implements Serializable {
 	
-	ArrayList<Timer> timers = new ArrayList<Timer>();
+	private final TimingWheel wheel = new TimingWheel();
 
 	public void addTimer(float time, ActionCallback cb) {
-		Timer t = new Timer();
-		
-		t.time = time;
-		t.cb = cb;
-		
-		timers.add(t);		
+		wheel.add(time, 0, cb);
 	}
 	
 	public void clear() {
-		timers.clear();
+		wheel.clear();
+	}
+	
+	public int size() {
+		return wheel.size();
 	}
 	
 	public void update(float delta) {
+		wheel.update(delta);
+	}
+
+	@Override
+	public void write(Json json) {
+		ArrayList<TimingWheel.Entry> entries = new ArrayList<TimingWheel.Entry>();
+		wheel.getEntries(entries);
 		
-		for(int i = timers.size() - 1; i >= 0 ; i--) {
-			Timer t = timers.get(i);
-			
-			t.currentTime += delta;
+		json.writeArrayStart("timers");
+		
+		for(TimingWheel.Entry e: entries) {
+			ActionCallback cb = e.getCb();
 			
-			if(t.currentTime >= t.time) {
-				timers.remove(i);
-				ActionCallbackQueue.add(t.cb);			
-				i--;
-			}
+			json.writeObjectStart();
+			json.writeValue("time", e.getTime());
+			json.writeValue("currentTime", wheel.getCurrentTime(e));
+			json.writeValue("cb", ActionCallbackSerialization.find(cb), cb == null ? null : String.class);
+			json.writeObjectEnd();
 		}
+		
+		json.writeArrayEnd();
 	}
-	
-	static class Timer implements Serializable {
-		float time;
-		float currentTime = 0;
-		ActionCallback cb;
+
+	@Override
+	public void read (Json json, JsonValue jsonData) {
+		wheel.clear();
+		
+		JsonValue timers = jsonData.get("timers");
 		
-		@Override
-		public void write(Json json) {	
-			json.writeValue("time", time);
-			json.writeValue("currentTime", currentTime);	
-			json.writeValue("cb", ActionCallbackSerialization.find(cb), cb == null ? null : String.class);	
+		if(timers == null)
+			return;
+		
+		for(JsonValue t = timers.child; t != null; t = t.next) {
+			float time = json.readValue("time", Float.class, t);
+			float currentTime = json.readValue("currentTime", Float.class, t);
+			String cbSer = json.readValue("cb", String.class, t);
+			
+			wheel.add(time, currentTime, ActionCallbackSerialization.find(cbSer));
 		}
-
-		@Override
-		public void read (Json json, JsonValue jsonData) {
-			time = json.readValue("time", Float.class, jsonData);
-			currentTime = json.readValue("currentTime", Float.class, jsonData);
-			String cbSer = json.readValue("cb", String.class, jsonData);
-			cb = ActionCallbackSerialization.find(cbSer);
-		}		
 	}
 }
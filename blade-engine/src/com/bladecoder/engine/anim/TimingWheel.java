@@ -0,0 +1,267 @@
+/*******************************************************************************
+ * Copyright 2014 Rafael Garcia Moreno.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.bladecoder.engine.anim;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+
+import com.badlogic.gdx.utils.Pool;
+import com.bladecoder.engine.actions.ActionCallback;
+import com.bladecoder.engine.actions.ActionCallbackQueue;
+
+/**
+ * Hierarchical timing wheel for game time deadlines.
+ *
+ * The deadlines are stored in slots of 1ms. The first level has 256 slots and
+ * every upper level has 64 slots covering the whole lower level, so a
+ * deadline is moved at most 3 times before it expires. Updating costs the
+ * number of ms elapsed plus the expired entries, not the number of pending
+ * entries, and nothing when the wheel is empty.
+ *
+ * Expired callbacks are added to the ActionCallbackQueue in deadline order.
+ * The entries are pooled.
+ */
+public class TimingWheel {
+	/** Slots per second in the first level */
+	private static final int RESOLUTION = 1000;
+
+	private static final int[] SHIFTS = { 0, 8, 14, 20 };
+	private static final int[] SIZES = { 256, 64, 64, 64 };
+
+	public static class Entry {
+		private float time;
+		private double deadline;
+		private long tick;
+		private long seq;
+		private ActionCallback cb;
+		private Entry next;
+
+		/** Duration in seconds */
+		public float getTime() {
+			return time;
+		}
+
+		public ActionCallback getCb() {
+			return cb;
+		}
+	}
+
+	private static final Comparator<Entry> DEADLINE_ORDER = new Comparator<Entry>() {
+		@Override
+		public int compare(Entry o1, Entry o2) {
+			if (o1.deadline != o2.deadline)
+				return o1.deadline < o2.deadline ? -1 : 1;
+
+			return o1.seq < o2.seq ? -1 : (o1.seq == o2.seq ? 0 : 1);
+		}
+	};
+
+	private final Entry[][] slots = new Entry[SHIFTS.length][];
+
+	private final Pool<Entry> pool = new Pool<Entry>() {
+		@Override
+		protected Entry newObject() {
+			return new Entry();
+		}
+	};
+
+	private final ArrayList<Entry> expired = new ArrayList<Entry>();
+
+	/** Game time in seconds */
+	private double now = 0;
+
+	/** Last processed tick. Its slot is checked again in the next update. */
+	private long currentTick = 0;
+
+	private long seq = 0;
+	private int size = 0;
+
+	public TimingWheel() {
+		for (int i = 0; i < SHIFTS.length; i++)
+			slots[i] = new Entry[SIZES[i]];
+	}
+
+	/**
+	 * Adds a deadline 'time - currentTime' seconds from now.
+	 *
+	 * @param currentTime
+	 *            time already elapsed. Used to restore saved deadlines.
+	 */
+	public void add(float time, float currentTime, ActionCallback cb) {
+		Entry e = pool.obtain();
+
+		e.time = time;
+		e.deadline = now + time - currentTime;
+		e.tick = Math.max(currentTick, (long) Math.floor(e.deadline * RESOLUTION));
+		e.seq = seq++;
+		e.cb = cb;
+
+		insert(e);
+		size++;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public void clear() {
+		for (Entry[] level : slots) {
+			for (int i = 0; i < level.length; i++) {
+				free(level[i]);
+				level[i] = null;
+			}
+		}
+
+		size = 0;
+	}
+
+	public void update(float delta) {
+		now += delta;
+
+		if (size == 0) {
+			currentTick = (long) Math.floor(now * RESOLUTION);
+			return;
+		}
+
+		long lastTick = (long) Math.floor(now * RESOLUTION);
+
+		for (long t = currentTick; t <= lastTick && size > expired.size(); t++) {
+			currentTick = t;
+
+			for (int l = SHIFTS.length - 1; l > 0; l--) {
+				if ((t & ((1L << SHIFTS[l]) - 1)) == 0)
+					cascade(l, t);
+			}
+
+			collect(t, t < lastTick);
+		}
+
+		currentTick = lastTick;
+
+		if (expired.isEmpty())
+			return;
+
+		Collections.sort(expired, DEADLINE_ORDER);
+
+		for (int i = 0; i < expired.size(); i++) {
+			Entry e = expired.get(i);
+
+			ActionCallbackQueue.add(e.cb);
+
+			e.cb = null;
+			e.next = null;
+			pool.free(e);
+		}
+
+		size -= expired.size();
+		expired.clear();
+	}
+
+	/**
+	 * Remaining deadlines in expiration order.
+	 */
+	public void getEntries(ArrayList<Entry> out) {
+		for (Entry[] level : slots) {
+			for (Entry head : level) {
+				for (Entry e = head; e != null; e = e.next)
+					out.add(e);
+			}
+		}
+
+		Collections.sort(out, DEADLINE_ORDER);
+	}
+
+	/**
+	 * @return the time elapsed since the entry was added.
+	 */
+	public float getCurrentTime(Entry e) {
+		return (float) (e.time - (e.deadline - now));
+	}
+
+	/**
+	 * Moves the expired entries of the first level slot of tick 't' to the
+	 * 'expired' list. Only the slot of the current tick can contain entries
+	 * that are not expired yet.
+	 */
+	private void collect(long t, boolean past) {
+		int idx = (int) (t & (SIZES[0] - 1));
+		Entry prev = null;
+		Entry e = slots[0][idx];
+
+		while (e != null) {
+			Entry next = e.next;
+
+			if (e.tick <= t && (past || e.deadline <= now)) {
+				if (prev == null)
+					slots[0][idx] = next;
+				else
+					prev.next = next;
+
+				expired.add(e);
+			} else {
+				prev = e;
+			}
+
+			e = next;
+		}
+	}
+
+	/**
+	 * Reinserts the entries of the current slot of the level 'l' in the lower
+	 * levels.
+	 */
+	private void cascade(int l, long t) {
+		int idx = (int) ((t >> SHIFTS[l]) & (SIZES[l] - 1));
+		Entry e = slots[l][idx];
+		slots[l][idx] = null;
+
+		while (e != null) {
+			Entry next = e.next;
+			insert(e);
+			e = next;
+		}
+	}
+
+	private void insert(Entry e) {
+		int last = SHIFTS.length - 1;
+
+		for (int l = 0; l <= last; l++) {
+			long offset = (e.tick >> SHIFTS[l]) - (currentTick >> SHIFTS[l]);
+
+			if (offset < SIZES[l] || l == last) {
+				// beyond the last level: parks it in the farthest slot
+				// and it is reinserted when cascaded
+				long slotTick = offset < SIZES[l] ? e.tick >> SHIFTS[l] : (currentTick >> SHIFTS[l]) + SIZES[l] - 1;
+				int idx = (int) (slotTick & (SIZES[l] - 1));
+
+				e.next = slots[l][idx];
+				slots[l][idx] = e;
+				return;
+			}
+		}
+	}
+
+	private void free(Entry e) {
+		while (e != null) {
+			Entry next = e.next;
+			e.cb = null;
+			e.next = null;
+			pool.free(e);
+			e = next;
+		}
+	}
+}
@@ -48,6 +48,7 @@ import com.badlogic.gdx.graphics.g2d.freetype.FreeTypeFontGeneratorLoader;
 import com.badlogic.gdx.graphics.g2d.freetype.FreetypeFontLoader;
 import com.badlogic.gdx.graphics.g3d.Model;
 import com.badlogic.gdx.utils.Array;
+import com.bladecoder.engine.EngineContext;
 import com.bladecoder.engine.util.Config;
 import com.bladecoder.engine.util.EngineLogger;
 
@@ -66,8 +67,6 @@ public class EngineAssetManager extends AssetManager {
 	private static final String MODEL3D_EXT = ".g3db";
 	private static final String SPINE_EXT = ".skel";
 
-	private static EngineAssetManager instance = null;
-
 	private float scale = 1;
 
 	private EngineResolutionFileResolver resResolver;
@@ -86,7 +85,10 @@ public class EngineAssetManager extends AssetManager {
 		setLoader(FreeTypeFontGenerator.class, new FreeTypeFontGeneratorLoader(resolver));
 		setLoader(BitmapFont.class, ".ttf", new FreetypeFontLoader(resolver));
 
-		Texture.setAssetManager(this);
+		// the managed textures are reloaded in the GL context of the default
+		// context game
+		if (EngineContext.get().isDefault())
+			Texture.setAssetManager(this);
 	}
 
 	public float getScale() {
@@ -108,9 +110,16 @@ public class EngineAssetManager extends AssetManager {
 		EngineLogger.debug("Setting ASSETS SCALE: " + scale);
 	}
 
+	/**
+	 * @return the asset manager of the current EngineContext.
+	 */
 	public static EngineAssetManager getInstance() {
+		EngineContext ctx = EngineContext.get();
+		EngineAssetManager instance = ctx.getAssetManager();
+
 		if (instance == null) {
 			instance = new EngineAssetManager();
+			ctx.setAssetManager(instance);
 		}
 
 		return instance;
@@ -126,12 +135,15 @@ public class EngineAssetManager extends AssetManager {
 	 * @param worldWidth the width
 	 */
 	public static void createEditInstance(String base, int worldWidth, int worldHeight) {
-		if (instance != null)
-			instance.dispose();
+		EngineContext ctx = EngineContext.get();
 
-		instance = new EngineAssetManager(new BasePathResolver(base));
+		if (ctx.getAssetManager() != null)
+			ctx.getAssetManager().dispose();
+
+		EngineAssetManager instance = new EngineAssetManager(new BasePathResolver(base));
 		instance.forceResolution("1");
 		instance.setScale(worldWidth, worldHeight);
+		ctx.setAssetManager(instance);
 	}
 
 	public void forceResolution(String suffix) {
@@ -269,7 +281,11 @@ public class EngineAssetManager extends AssetManager {
 
 	public void dispose() {
 		super.dispose();
-		instance = null;
+
+		EngineContext ctx = EngineContext.get();
+
+		if (ctx.getAssetManager() == this)
+			ctx.setAssetManager(null);
 	}
 
 	public void loadMusic(String filename) {
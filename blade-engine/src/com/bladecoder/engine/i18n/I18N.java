@@ -15,47 +15,204 @@
  ******************************************************************************/
 package com.bladecoder.engine.i18n;
 
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.util.HashMap;
 import java.util.Locale;
 import java.util.ResourceBundle;
 
+import com.badlogic.gdx.files.FileHandle;
+import com.bladecoder.engine.EngineContext;
+import com.bladecoder.engine.assets.EngineAssetManager;
 import com.bladecoder.engine.util.EngineLogger;
+import com.bladecoder.engine.util.FileUtils;
 
+/**
+ * Translated strings for the world and the current chapter.
+ * 
+ * The bundles are flattened in a string table when loaded, so lookups are a
+ * single HashMap access. Chapter strings have priority over world strings.
+ * 
+ * For every bundle, if a precompiled '.strings' file exists for the locale it
+ * is used instead of the '.properties' files. The compiled file contains the
+ * strings of the locale already merged with its parent bundles.
+ * 
+ * There is a string table for every EngineContext.
+ */
 public class I18N {
-	private static ResourceBundle i18nWorld;
-	private static ResourceBundle i18nChapter;
-	
-	public static void loadChapter(String i18nChapterFilename) {
-		Locale locale = Locale.getDefault();
+	public static final char PREFIX = '@';
 
-		try {
-			i18nChapter = ResourceBundle.getBundle(i18nChapterFilename, locale,
-					new I18NControl("ISO-8859-1"));
-		} catch (Exception e) {
-			EngineLogger.error("ERROR LOADING BUNDLE: " + i18nChapter);
+	public static final String STRINGS_EXT = ".strings";
+	public static final int STRINGS_MAGIC = 0x42535432; // 'BST2'
+	public static final String STRINGS_ENCODING = "UTF-8";
+
+	private static final String ENCODING = "ISO-8859-1";
+
+	private final HashMap<String, String> worldStrings = new HashMap<String, String>();
+	private final HashMap<String, String> strings = new HashMap<String, String>();
+
+	/** Cache for keys with the '@' prefix to avoid substrings */
+	private final HashMap<String, String> prefixedStrings = new HashMap<String, String>();
+	
+	private I18N() {
+	}
+	
+	/**
+	 * @return the strings of the current EngineContext.
+	 */
+	private static I18N get() {
+		EngineContext ctx = EngineContext.get();
+		I18N i18n = ctx.getI18N();
+		
+		if (i18n == null) {
+			i18n = new I18N();
+			ctx.setI18N(i18n);
 		}
+		
+		return i18n;
+	}
+	
+	public static void loadChapter(String i18nChapterFilename) {
+		I18N i18n = get();
+		HashMap<String, String> strings = i18n.strings;
+		
+		strings.clear();
+		i18n.prefixedStrings.clear();
+		strings.putAll(i18n.worldStrings);
+		
+		loadTable(i18nChapterFilename, strings);
 	}
 	
 	public static void loadWorld(String i18nWorldFilename) {
+		I18N i18n = get();
+		
+		i18n.worldStrings.clear();
+		
+		loadTable(i18nWorldFilename, i18n.worldStrings);
+		
+		i18n.strings.clear();
+		i18n.prefixedStrings.clear();
+		i18n.strings.putAll(i18n.worldStrings);
+	}
+	
+	public static String getString(String key) {
+		String s = get().strings.get(key);
+		
+		if (s == null) {
+			EngineLogger.error("MISSING TRANSLATION KEY: " + key);
+			return key;
+		}
+		
+		return s;
+	}
+	
+	/**
+	 * Translates the string if it starts with the '@' prefix. In other case,
+	 * the string is returned unchanged.
+	 */
+	public static String translate(String str) {
+		if (str == null || str.isEmpty() || str.charAt(0) != PREFIX)
+			return str;
+		
+		HashMap<String, String> prefixedStrings = get().prefixedStrings;
+		String s = prefixedStrings.get(str);
+		
+		if (s == null) {
+			s = getString(str.substring(1));
+			prefixedStrings.put(str, s);
+		}
+		
+		return s;
+	}
+	
+	private static void loadTable(String baseName, HashMap<String, String> table) {
 		Locale locale = Locale.getDefault();
+		String[] suffixes = { "_" + locale.getLanguage() + "_" + locale.getCountry(),
+				"_" + locale.getLanguage(), "" };
+		
+		for (int i = 0; i < suffixes.length; i++) {
+			String suffix = suffixes[i];
+			FileHandle compiled = EngineAssetManager.getInstance().getAsset(baseName + suffix + STRINGS_EXT);
+			FileHandle props = EngineAssetManager.getInstance().getAsset(baseName + suffix + ".properties");
+			
+			boolean propsExists = FileUtils.exists(props);
+			
+			if (FileUtils.exists(compiled) && isUpToDate(compiled, baseName, suffixes, i)) {
+				try {
+					readStrings(compiled, table);
+					return;
+				} catch (Exception e) {
+					EngineLogger.error("ERROR LOADING STRINGS: " + compiled.path(), e);
+				}
+			}
+			
+			if (propsExists) {
+				loadBundle(baseName, locale, table);
+				return;
+			}
+		}
 		
+		EngineLogger.error("ERROR LOADING BUNDLE: " + baseName);
+	}
+	
+	/**
+	 * The compiled file for suffixes[i] merges the .properties of that suffix
+	 * and of its parents (suffixes[i+1..]). It is stale if any of them was
+	 * edited later.
+	 */
+	private static boolean isUpToDate(FileHandle compiled, String baseName, String[] suffixes, int i) {
+		long compiledTime = compiled.lastModified();
+		
+		for (int j = i; j < suffixes.length; j++) {
+			FileHandle props = EngineAssetManager.getInstance().getAsset(baseName + suffixes[j] + ".properties");
+			
+			if (FileUtils.exists(props) && props.lastModified() > compiledTime)
+				return false;
+		}
+		
+		return true;
+	}
+	
+	private static void loadBundle(String baseName, Locale locale, HashMap<String, String> table) {
 		try {
-			i18nWorld = ResourceBundle.getBundle(i18nWorldFilename, locale,
-					new I18NControl("ISO-8859-1"));
+			ResourceBundle bundle = ResourceBundle.getBundle(baseName, locale, new I18NControl(ENCODING));
+			
+			for (String key : bundle.keySet())
+				table.put(key, bundle.getString(key));
 		} catch (Exception e) {
-			EngineLogger.error("ERROR LOADING BUNDLE: " + i18nWorld);
+			EngineLogger.error("ERROR LOADING BUNDLE: " + baseName);
 		}
 	}
 	
-	public static String getString(String key) {
+	/**
+	 * Reads a compiled strings file.
+	 * 
+	 * Format: magic (int), count (int) and 'count' pairs of key and value.
+	 * Every string is written as its length in bytes (int) and its UTF-8
+	 * bytes, so they are not limited to 64KB like 'DataOutput.writeUTF'.
+	 */
+	public static void readStrings(FileHandle file, HashMap<String, String> table) throws IOException {
+		DataInputStream in = new DataInputStream(file.read(8192));
+		
 		try {
-			return i18nChapter.getString(key);
-		} catch (Exception e) {
-			try {
-				return i18nWorld.getString(key);
-			} catch (Exception e2) {
-				EngineLogger.error("MISSING TRANSLATION KEY: " + key);
-				return key;
+			if (in.readInt() != STRINGS_MAGIC)
+				throw new IOException("Not a strings file: " + file.path());
+			
+			int count = in.readInt();
+			
+			for (int i = 0; i < count; i++) {
+				String key = readString(in);
+				table.put(key, readString(in));
 			}
+		} finally {
+			in.close();
 		}
 	}
+	
+	private static String readString(DataInputStream in) throws IOException {
+		byte[] bytes = new byte[in.readInt()];
+		in.readFully(bytes);
+		
+		return new String(bytes, STRINGS_ENCODING);
+	}
 }
@@ -0,0 +1,174 @@
+/*******************************************************************************
+ * Copyright 2014 Rafael Garcia Moreno.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.bladecoder.engine.loader;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+import org.xml.sax.Attributes;
+import org.xml.sax.Locator;
+import org.xml.sax.SAXException;
+import org.xml.sax.SAXParseException;
+import org.xml.sax.helpers.DefaultHandler;
+
+import com.bladecoder.engine.util.EngineLogger;
+
+/**
+ * Indexes a chapter document without building the model.
+ *
+ * Every 'scene' element is stored as a standalone XML blob, keyed by the scene
+ * id, that can be parsed later by the {@link ChapterXMLLoader} when the scene
+ * is needed.
+ */
+public class ChapterXMLIndexer extends DefaultHandler {
+	private final HashMap<String, String> scenes = new HashMap<String, String>();
+	private final List<String> sceneIds = new ArrayList<String>();
+	private String initScene;
+
+	private StringBuilder blob;
+	private String sceneId;
+	private int depth;
+
+	private Locator locator;
+
+	public String getInitScene() {
+		return initScene;
+	}
+
+	/**
+	 * @return The scene ids in document order.
+	 */
+	public List<String> getSceneIds() {
+		return sceneIds;
+	}
+
+	/**
+	 * @return The scene blobs indexed by scene id.
+	 */
+	public HashMap<String, String> getScenes() {
+		return scenes;
+	}
+
+	@Override
+	public void startElement(String namespaceURI, String localName, String qName, Attributes atts)
+			throws SAXException {
+
+		if (blob == null) {
+			if (localName.equals(XMLConstants.CHAPTER_TAG)) {
+				initScene = atts.getValue(XMLConstants.INIT_SCENE_ATTR);
+				return;
+			} else if (!localName.equals(XMLConstants.SCENE_TAG)) {
+				EngineLogger.error("TAG not supported in Chapter document: " + localName + " LINE: "
+						+ locator.getLineNumber());
+				return;
+			}
+
+			sceneId = atts.getValue(XMLConstants.ID_ATTR);
+
+			if (sceneId == null || sceneId.isEmpty()) {
+				SAXParseException e2 = new SAXParseException("Scene 'id' not found or empty", locator);
+				error(e2);
+				throw e2;
+			}
+
+			blob = new StringBuilder(4096);
+			depth = 0;
+		}
+
+		depth++;
+
+		blob.append('<').append(localName);
+
+		for (int i = 0; i < atts.getLength(); i++) {
+			blob.append(' ').append(atts.getLocalName(i)).append("=\"");
+			escape(atts.getValue(i));
+			blob.append('"');
+		}
+
+		blob.append('>');
+	}
+
+	@Override
+	public void endElement(String namespaceURI, String localName, String qName) throws SAXException {
+		if (blob == null)
+			return;
+
+		blob.append("</").append(localName).append('>');
+
+		if (--depth == 0) {
+			scenes.put(sceneId, blob.toString());
+			sceneIds.add(sceneId);
+
+			if (initScene == null)
+				initScene = sceneId;
+
+			blob = null;
+			sceneId = null;
+		}
+	}
+
+	@Override
+	public void characters(char[] ch, int start, int length) throws SAXException {
+		if (blob != null) {
+			for (int i = start; i < start + length; i++)
+				escape(ch[i]);
+		}
+	}
+
+	private void escape(String s) {
+		for (int i = 0; i < s.length(); i++)
+			escape(s.charAt(i));
+	}
+
+	private void escape(char c) {
+		switch (c) {
+		case '&':
+			blob.append("&amp;");
+			break;
+		case '<':
+			blob.append("&lt;");
+			break;
+		case '>':
+			blob.append("&gt;");
+			break;
+		case '"':
+			blob.append("&quot;");
+			break;
+		case '\n':
+			blob.append("&#10;");
+			break;
+		case '\r':
+			blob.append("&#13;");
+			break;
+		case '\t':
+			blob.append("&#9;");
+			break;
+		default:
+			blob.append(c);
+		}
+	}
+
+	@Override
+	public void setDocumentLocator(Locator l) {
+		locator = l;
+	}
+
+	@Override
+	public void error(SAXParseException e) throws SAXException {
+		EngineLogger.error(e.getMessage() + " Line: " + e.getLineNumber() + " Column: " + e.getColumnNumber());
+	}
+}
@@ -16,6 +16,7 @@
 package com.bladecoder.engine.loader;
 
 import java.io.IOException;
+import java.io.StringReader;
 import java.text.MessageFormat;
 import java.util.HashMap;
 
@@ -73,6 +74,11 @@ public class WorldXMLLoader extends DefaultHandler {
 			chapter = world.getInitChapter();
 		}
 
+		if (world.isLazySceneLoading()) {
+			loadChapterIndex(chapter, world);
+			return;
+		}
+
 		SAXParserFactory spf = SAXParserFactory.newInstance();
 		spf.setNamespaceAware(true);
 		SAXParser saxParser = spf.newSAXParser();
@@ -97,7 +103,67 @@ public class WorldXMLLoader extends DefaultHandler {
 			world.setCurrentScene(parser.getInitScene());
 		else if (parser.getScenes().size() > 0)
 			world.setCurrentScene(parser.getScenes().get(0).getId());
-	}	
+	}
+
+	/**
+	 * Lazy version of 'loadChapter'. Only indexes the scenes of the chapter.
+	 * The init scene is created by 'setCurrentScene' and the rest of scenes are
+	 * created by the world when they are requested.
+	 */
+	private static void loadChapterIndex(String chapter, World world)
+			throws ParserConfigurationException, SAXException, IOException {
+		ChapterXMLIndexer index = indexChapter(chapter, world);
+
+		I18N.loadChapter(EngineAssetManager.MODEL_DIR + chapter);
+
+		world.setChapter(chapter);
+
+		if (index.getInitScene() != null)
+			world.setCurrentScene(index.getInitScene());
+	}
+
+	/**
+	 * Parses the chapter file and registers in the world the scenes not
+	 * already created as pending scenes.
+	 */
+	public static ChapterXMLIndexer indexChapter(String chapter, World world)
+			throws ParserConfigurationException, SAXException, IOException {
+		SAXParserFactory spf = SAXParserFactory.newInstance();
+		spf.setNamespaceAware(true);
+		SAXParser saxParser = spf.newSAXParser();
+
+		ChapterXMLIndexer parser = new ChapterXMLIndexer();
+		XMLReader xmlReader = saxParser.getXMLReader();
+		xmlReader.setContentHandler(parser);
+		xmlReader.parse(new InputSource(EngineAssetManager.getInstance()
+				.getModelFile(chapter + XMLConstants.CHAPTER_EXT).read()));
+
+		for (String id : parser.getSceneIds()) {
+			world.addPendingScene(id, parser.getScenes().get(id));
+		}
+
+		return parser;
+	}
+
+	/**
+	 * Creates a scene from the XML blob stored by the {@link ChapterXMLIndexer}.
+	 */
+	public static Scene loadScene(String sceneXML, World world)
+			throws ParserConfigurationException, SAXException, IOException {
+		SAXParserFactory spf = SAXParserFactory.newInstance();
+		spf.setNamespaceAware(true);
+		SAXParser saxParser = spf.newSAXParser();
+
+		ChapterXMLLoader parser = new ChapterXMLLoader();
+		XMLReader xmlReader = saxParser.getXMLReader();
+		xmlReader.setContentHandler(parser);
+		xmlReader.parse(new InputSource(new StringReader(sceneXML)));
+
+		Scene s = parser.getScenes().get(0);
+		s.resetCamera(world.getWidth(), world.getHeight());
+
+		return s;
+	}
 
 	public WorldXMLLoader(World world) {
 		this.world = world;
@@ -0,0 +1,54 @@
+/*******************************************************************************
+ * Copyright 2014 Rafael Garcia Moreno.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.bladecoder.engine.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Monotonic counter. Reporters read it from their own threads.
+ */
+public class Counter {
+	private final Metrics metrics;
+	private final String name;
+	private final AtomicLong count = new AtomicLong();
+
+	Counter(Metrics metrics, String name) {
+		this.metrics = metrics;
+		this.name = name;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public void inc() {
+		if (metrics.isEnabled())
+			count.incrementAndGet();
+	}
+
+	public void inc(long n) {
+		if (metrics.isEnabled())
+			count.addAndGet(n);
+	}
+
+	public long getCount() {
+		return count.get();
+	}
+
+	void reset() {
+		count.set(0);
+	}
+}
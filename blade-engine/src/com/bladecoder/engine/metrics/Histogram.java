@@ -0,0 +1,112 @@
+/*******************************************************************************
+ * Copyright 2014 Rafael Garcia Moreno.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.bladecoder.engine.metrics;
+
+import java.util.Arrays;
+
+/**
+ * Distribution of values. Count, min, max and mean are calculated over all the
+ * values and the percentiles over the last RESERVOIR_SIZE values.
+ *
+ * Timing histograms store microseconds.
+ */
+public class Histogram {
+	public static final int RESERVOIR_SIZE = 1024;
+
+	/** Names of the values returned by getSnapshot() */
+	public static final String[] SNAPSHOT_NAMES = { "count", "min", "max", "mean", "p50", "p95", "p99" };
+
+	private final Metrics metrics;
+	private final String name;
+	private final long[] reservoir = new long[RESERVOIR_SIZE];
+
+	private long count;
+	private long sum;
+	private long min;
+	private long max;
+
+	Histogram(Metrics metrics, String name) {
+		this.metrics = metrics;
+		this.name = name;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public void update(long value) {
+		if (!metrics.isEnabled())
+			return;
+
+		synchronized (this) {
+			if (count == 0 || value < min)
+				min = value;
+
+			if (count == 0 || value > max)
+				max = value;
+
+			reservoir[(int) (count % RESERVOIR_SIZE)] = value;
+			count++;
+			sum += value;
+		}
+	}
+
+	/**
+	 * Adds the microseconds elapsed since 't0'.
+	 *
+	 * @param t0
+	 *            the value returned by Metrics.startTime().
+	 */
+	public void updateSince(long t0) {
+		if (!metrics.isEnabled() || t0 == 0)
+			return;
+
+		update((System.nanoTime() - t0) / 1000);
+	}
+
+	/**
+	 * @return the values in SNAPSHOT_NAMES order.
+	 */
+	public synchronized double[] getSnapshot() {
+		double[] s = new double[SNAPSHOT_NAMES.length];
+
+		s[0] = count;
+
+		if (count == 0)
+			return s;
+
+		int n = (int) Math.min(count, RESERVOIR_SIZE);
+		long[] sorted = Arrays.copyOf(reservoir, n);
+		Arrays.sort(sorted);
+
+		s[1] = min;
+		s[2] = max;
+		s[3] = sum / (double) count;
+		s[4] = percentile(sorted, 0.50);
+		s[5] = percentile(sorted, 0.95);
+		s[6] = percentile(sorted, 0.99);
+
+		return s;
+	}
+
+	private static long percentile(long[] sorted, double p) {
+		return sorted[(int) Math.ceil(sorted.length * p) - 1];
+	}
+
+	synchronized void reset() {
+		count = sum = min = max = 0;
+	}
+}
@@ -0,0 +1,121 @@
+/*******************************************************************************
+ * Copyright 2014 Rafael Garcia Moreno.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.bladecoder.engine.metrics;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+
+import com.bladecoder.engine.util.EngineLogger;
+
+/**
+ * Minimal HTTP server that returns the metrics as JSON to any GET request.
+ * It only listens in the loopback interface; a local collector can publish
+ * them.
+ *
+ * <pre>
+ * curl http://localhost:8087/metrics
+ * </pre>
+ */
+public class HttpReporter implements MetricsReporter, Runnable {
+	public static final int DEFAULT_PORT = 8087;
+
+	private final Metrics metrics;
+	private final int port;
+
+	private volatile ServerSocket server;
+
+	public HttpReporter(Metrics metrics, int port) {
+		this.metrics = metrics;
+		this.port = port;
+	}
+
+	@Override
+	public void start() {
+		try {
+			server = new ServerSocket(port, 10, InetAddress.getByName(null));
+		} catch (IOException e) {
+			throw new RuntimeException("Error opening metrics port " + port, e);
+		}
+
+		Thread t = new Thread(this, "MetricsHttpReporter");
+		t.setDaemon(true);
+		t.start();
+	}
+
+	@Override
+	public void stop() {
+		ServerSocket s = server;
+		server = null;
+
+		if (s != null) {
+			try {
+				s.close();
+			} catch (IOException e) {
+			}
+		}
+	}
+
+	@Override
+	public void run() {
+		ServerSocket s;
+
+		while ((s = server) != null) {
+			try {
+				Socket c = s.accept();
+
+				try {
+					handle(c);
+				} finally {
+					c.close();
+				}
+			} catch (IOException e) {
+				if (server != null)
+					EngineLogger.error("METRICS HTTP ERROR: " + e.getMessage());
+			}
+		}
+	}
+
+	private void handle(Socket c) throws IOException {
+		c.setSoTimeout(2000);
+
+		BufferedReader in = new BufferedReader(new InputStreamReader(c.getInputStream(), "US-ASCII"));
+		String request = in.readLine();
+
+		String status;
+		String body;
+
+		if (request != null && request.startsWith("GET ")) {
+			status = "200 OK";
+			body = metrics.toJson();
+		} else {
+			status = "405 Method Not Allowed";
+			body = "{}";
+		}
+
+		byte[] bytes = body.getBytes("UTF-8");
+		OutputStream out = c.getOutputStream();
+
+		out.write(("HTTP/1.0 " + status + "\r\nContent-Type: application/json\r\nContent-Length: " + bytes.length
+				+ "\r\nConnection: close\r\n\r\n").getBytes("US-ASCII"));
+		out.write(bytes);
+		out.flush();
+	}
+}
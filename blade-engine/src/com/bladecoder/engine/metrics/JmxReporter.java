@@ -0,0 +1,110 @@
+/*******************************************************************************
+ * Copyright 2014 Rafael Garcia Moreno.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.bladecoder.engine.metrics;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+
+import com.bladecoder.engine.util.EngineLogger;
+
+/**
+ * Publishes the metrics in the platform MBean server (desktop only) with the
+ * name 'com.bladecoder.engine:type=Metrics'. They can be watched with
+ * jconsole/jvisualvm or any JMX collector.
+ *
+ * The management classes are accessed by reflection so the engine doesn't
+ * depend on them in platforms without JMX.
+ */
+public class JmxReporter implements MetricsReporter, EngineMetricsMXBean {
+	public static final String OBJECT_NAME = "com.bladecoder.engine:type=Metrics";
+
+	private final Metrics metrics;
+
+	private Object server;
+	private Class<?> serverClass;
+	private Object objectName;
+
+	public JmxReporter(Metrics metrics) {
+		this.metrics = metrics;
+	}
+
+	@Override
+	public void start() {
+		try {
+			Class<?> factory = Class.forName("java.lang.management.ManagementFactory");
+			server = factory.getMethod("getPlatformMBeanServer").invoke(null);
+			serverClass = Class.forName("javax.management.MBeanServer");
+			objectName = Class.forName("javax.management.ObjectName").getConstructor(String.class)
+					.newInstance(OBJECT_NAME);
+
+			if ((Boolean) invoke("isRegistered", objectName))
+				invoke("unregisterMBean", objectName);
+
+			invoke("registerMBean", this, objectName);
+		} catch (Exception e) {
+			server = null;
+			EngineLogger.error("JMX not supported: " + e.getMessage());
+		}
+	}
+
+	@Override
+	public void stop() {
+		if (server == null)
+			return;
+
+		try {
+			invoke("unregisterMBean", objectName);
+		} catch (Exception e) {
+			EngineLogger.error("ERROR UNREGISTERING METRICS MBEAN", e);
+		}
+
+		server = null;
+	}
+
+	private Object invoke(String method, Object... args) throws Exception {
+		for (Method m : serverClass.getMethods()) {
+			if (m.getName().equals(method) && m.getParameterTypes().length == args.length)
+				return m.invoke(server, args);
+		}
+
+		throw new NoSuchMethodException(method);
+	}
+
+	@Override
+	public Map<String, Double> getValues() {
+		return metrics.getValues();
+	}
+
+	@Override
+	public String getJson() {
+		return metrics.toJson();
+	}
+
+	@Override
+	public boolean isEnabled() {
+		return metrics.isEnabled();
+	}
+
+	@Override
+	public void setEnabled(boolean enabled) {
+		metrics.setEnabled(enabled);
+	}
+
+	@Override
+	public void reset() {
+		metrics.reset();
+	}
+}
@@ -0,0 +1,111 @@
+/*******************************************************************************
+ * Copyright 2014 Rafael Garcia Moreno.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.bladecoder.engine.metrics;
+
+import java.io.IOException;
+import java.io.Writer;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.bladecoder.engine.util.EngineLogger;
+
+/**
+ * Appends a JSON line with all the metrics to a log file every 'period'
+ * seconds. When the file exceeds 'maxBytes' it is rolled to 'file.1',
+ * 'file.2'... keeping 'maxFiles' old files.
+ */
+public class LogReporter implements MetricsReporter, Runnable {
+	public static final String DEFAULT_FILENAME = "metrics.log";
+	public static final long DEFAULT_MAX_BYTES = 1024 * 1024;
+	public static final int DEFAULT_MAX_FILES = 5;
+
+	private final Metrics metrics;
+	private final FileHandle file;
+	private final float period;
+	private final long maxBytes;
+	private final int maxFiles;
+
+	private volatile Thread thread;
+
+	public LogReporter(Metrics metrics, FileHandle file, float period, long maxBytes, int maxFiles) {
+		this.metrics = metrics;
+		this.file = file;
+		this.period = period;
+		this.maxBytes = maxBytes;
+		this.maxFiles = maxFiles;
+	}
+
+	@Override
+	public void start() {
+		thread = new Thread(this, "MetricsLogReporter");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	@Override
+	public void stop() {
+		Thread t = thread;
+		thread = null;
+
+		if (t != null) {
+			t.interrupt();
+			report();
+		}
+	}
+
+	@Override
+	public void run() {
+		while (thread == Thread.currentThread()) {
+			try {
+				Thread.sleep((long) (period * 1000));
+			} catch (InterruptedException e) {
+				return;
+			}
+
+			report();
+		}
+	}
+
+	public synchronized void report() {
+		if (file.exists() && file.length() > maxBytes)
+			roll();
+
+		Writer w = file.writer(true, "UTF-8");
+
+		try {
+			w.write(metrics.toJson());
+			w.write('\n');
+			w.close();
+		} catch (IOException e) {
+			EngineLogger.error("ERROR WRITING METRICS LOG", e);
+		}
+	}
+
+	private void roll() {
+		FileHandle parent = file.parent();
+
+		for (int i = maxFiles - 1; i > 0; i--) {
+			FileHandle f = parent.child(file.name() + "." + i);
+
+			if (f.exists())
+				f.moveTo(parent.child(file.name() + "." + (i + 1)));
+		}
+
+		if (maxFiles > 0)
+			file.moveTo(parent.child(file.name() + ".1"));
+		else
+			file.delete();
+	}
+}
@@ -0,0 +1,276 @@
+/*******************************************************************************
+ * Copyright 2014 Rafael Garcia Moreno.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.bladecoder.engine.metrics;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.badlogic.gdx.Application.ApplicationType;
+import com.badlogic.gdx.Gdx;
+import com.bladecoder.engine.EngineContext;
+import com.bladecoder.engine.assets.EngineAssetManager;
+import com.bladecoder.engine.util.Config;
+import com.bladecoder.engine.util.EngineLogger;
+
+/**
+ * Registry of the engine metrics: counters, gauges and histograms.
+ *
+ * There is a registry for every EngineContext. The engine metrics are created
+ * with the registry and updated from the instrumented points. When disabled,
+ * updating a metric is a boolean check without allocations. Timings are
+ * measured with:
+ *
+ * <pre>
+ * Metrics m = Metrics.get();
+ * long t0 = m.startTime();
+ * ...
+ * m.saveTime.updateSince(t0);
+ * </pre>
+ *
+ * The reporters (JMX, log file, HTTP) read the metrics from their own threads.
+ */
+public class Metrics {
+	private volatile boolean enabled = false;
+
+	private final Map<String, Counter> counters = new LinkedHashMap<String, Counter>();
+	private final Map<String, Gauge> gauges = new LinkedHashMap<String, Gauge>();
+	private final Map<String, Histogram> histograms = new LinkedHashMap<String, Histogram>();
+
+	private final List<MetricsReporter> reporters = new ArrayList<MetricsReporter>();
+
+	public final Histogram frameTime = histogram("frame_time_us");
+	public final Counter assetLoads = counter("asset_loads");
+	public final Histogram assetLoadTime = histogram("asset_load_time_us");
+	public final Counter pathQueries = counter("path_queries");
+	public final Histogram pathQueryTime = histogram("path_query_time_us");
+	public final Counter verbRuns = counter("verb_runs");
+	public final Histogram saveTime = histogram("save_time_us");
+	public final Histogram loadTime = histogram("load_time_us");
+	public final Counter errors = counter("errors");
+
+	public Metrics() {
+		gauge("heap_used_bytes", new Gauge() {
+			@Override
+			public long getValue() {
+				Runtime r = Runtime.getRuntime();
+				return r.totalMemory() - r.freeMemory();
+			}
+		});
+
+		gauge("heap_max_bytes", new Gauge() {
+			@Override
+			public long getValue() {
+				return Runtime.getRuntime().maxMemory();
+			}
+		});
+	}
+
+	/**
+	 * Enables the metrics and starts the reporters if the 'metrics' property
+	 * is set in BladeEngine.properties:
+	 *
+	 * <pre>
+	 * metrics=true
+	 * metrics_jmx=true          (desktop only, default true)
+	 * metrics_log_period=60     (seconds, 0 to disable the log file)
+	 * metrics_http_port=8087    (0 to disable the HTTP endpoint)
+	 * </pre>
+	 */
+	public void init() {
+		if (!Config.getProperty(Config.METRICS_PROP, false))
+			return;
+
+		setEnabled(true);
+
+		if (Config.getProperty(Config.METRICS_JMX_PROP, true) && Gdx.app.getType() == ApplicationType.Desktop)
+			addReporter(new JmxReporter(this));
+
+		float logPeriod = Config.getProperty(Config.METRICS_LOG_PERIOD_PROP, 0f);
+
+		if (logPeriod > 0)
+			addReporter(new LogReporter(this, EngineAssetManager.getInstance().getUserFile(
+					LogReporter.DEFAULT_FILENAME), logPeriod, LogReporter.DEFAULT_MAX_BYTES,
+					LogReporter.DEFAULT_MAX_FILES));
+
+		int port = Config.getProperty(Config.METRICS_HTTP_PORT_PROP, 0);
+
+		if (port > 0)
+			addReporter(new HttpReporter(this, port));
+	}
+
+	/**
+	 * @return the metrics of the current EngineContext.
+	 */
+	public static Metrics get() {
+		EngineContext ctx = EngineContext.get();
+		Metrics m = ctx.getMetrics();
+
+		if (m == null) {
+			m = new Metrics();
+			ctx.setMetrics(m);
+		}
+
+		return m;
+	}
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	public void setEnabled(boolean v) {
+		enabled = v;
+	}
+
+	/**
+	 * @return System.nanoTime() or 0 if disabled.
+	 */
+	public long startTime() {
+		return enabled ? System.nanoTime() : 0;
+	}
+
+	public synchronized Counter counter(String name) {
+		Counter c = counters.get(name);
+
+		if (c == null) {
+			c = new Counter(this, name);
+			counters.put(name, c);
+		}
+
+		return c;
+	}
+
+	public synchronized Histogram histogram(String name) {
+		Histogram h = histograms.get(name);
+
+		if (h == null) {
+			h = new Histogram(this, name);
+			histograms.put(name, h);
+		}
+
+		return h;
+	}
+
+	public synchronized void gauge(String name, Gauge g) {
+		gauges.put(name, g);
+	}
+
+	public synchronized void reset() {
+		for (Counter c : counters.values())
+			c.reset();
+
+		for (Histogram h : histograms.values())
+			h.reset();
+	}
+
+	/**
+	 * Starts the reporter and adds it to the list of reporters stopped by
+	 * stop().
+	 */
+	public synchronized void addReporter(MetricsReporter r) {
+		try {
+			r.start();
+			reporters.add(r);
+		} catch (Exception e) {
+			EngineLogger.error("ERROR STARTING METRICS REPORTER: " + r.getClass().getSimpleName(), e);
+		}
+	}
+
+	/**
+	 * Stops all the reporters.
+	 */
+	public synchronized void stop() {
+		for (MetricsReporter r : reporters)
+			r.stop();
+
+		reporters.clear();
+	}
+
+	/**
+	 * @return the value of every metric by name. The histogram values are
+	 *         'name.count', 'name.p99', etc.
+	 */
+	public synchronized Map<String, Double> getValues() {
+		Map<String, Double> values = new LinkedHashMap<String, Double>();
+
+		for (Counter c : counters.values())
+			values.put(c.getName(), (double) c.getCount());
+
+		for (Map.Entry<String, Gauge> e : gauges.entrySet())
+			values.put(e.getKey(), (double) e.getValue().getValue());
+
+		for (Histogram h : histograms.values()) {
+			double[] s = h.getSnapshot();
+
+			for (int i = 0; i < s.length; i++)
+				values.put(h.getName() + "." + Histogram.SNAPSHOT_NAMES[i], s[i]);
+		}
+
+		return values;
+	}
+
+	public synchronized String toJson() {
+		StringBuilder sb = new StringBuilder();
+
+		sb.append("{\"timestamp\": ").append(System.currentTimeMillis());
+
+		sb.append(", \"counters\": {");
+		int i = 0;
+
+		for (Counter c : counters.values()) {
+			if (i++ > 0)
+				sb.append(", ");
+
+			sb.append('"').append(c.getName()).append("\": ").append(c.getCount());
+		}
+
+		sb.append("}, \"gauges\": {");
+		i = 0;
+
+		for (Map.Entry<String, Gauge> e : gauges.entrySet()) {
+			if (i++ > 0)
+				sb.append(", ");
+
+			sb.append('"').append(e.getKey()).append("\": ").append(e.getValue().getValue());
+		}
+
+		sb.append("}, \"histograms\": {");
+		i = 0;
+
+		for (Histogram h : histograms.values()) {
+			if (i++ > 0)
+				sb.append(", ");
+
+			double[] s = h.getSnapshot();
+
+			sb.append('"').append(h.getName()).append("\": {");
+
+			for (int j = 0; j < s.length; j++) {
+				if (j > 0)
+					sb.append(", ");
+
+				sb.append('"').append(Histogram.SNAPSHOT_NAMES[j]).append("\": ").append(s[j]);
+			}
+
+			sb.append('}');
+		}
+
+		sb.append("}}");
+
+		return sb.toString();
+	}
+}
@@ -24,6 +24,7 @@ import com.badlogic.gdx.utils.Json.Serializable;
 import com.badlogic.gdx.utils.JsonValue;
 import com.bladecoder.engine.assets.AssetConsumer;
 import com.bladecoder.engine.assets.EngineAssetManager;
+import com.bladecoder.engine.util.StateHash;
 
 /**
  * A BaseActor is any object in a scene or in the inventory.
@@ -59,6 +60,9 @@ public class BaseActor implements Comparable<BaseActor>, Serializable, AssetCons
 	
 	/** State to know when the player is inside this actor to trigger the enter/exit verbs */ 
 	private boolean playerInside = false;
+	
+	/** Position in the draw order of the layer. Updated by SceneLayer */
+	private int drawIndex;
 
 	public String getId() {
 		return id;
@@ -80,6 +84,14 @@ public class BaseActor implements Comparable<BaseActor>, Serializable, AssetCons
 		return layer;
 	}
 	
+	int getDrawIndex() {
+		return drawIndex;
+	}
+	
+	void setDrawIndex(int drawIndex) {
+		this.drawIndex = drawIndex;
+	}
+	
 	public boolean hit(float x, float y) {
 		return getBBox().contains(x, y);
 	}
@@ -105,10 +117,22 @@ public class BaseActor implements Comparable<BaseActor>, Serializable, AssetCons
 			else
 				scene.getPolygonalNavGraph().removeDinamicObstacle(getBBox());
 		}
+		
+		boundsChanged();
 	}
 
 	public void setBbox(Polygon bbox) {
 		this.bbox = bbox;
+		boundsChanged();
+	}
+	
+	/**
+	 * Notifies the scene that the bbox has changed. Must be called after
+	 * modifying the bbox.
+	 */
+	protected void boundsChanged() {
+		if(scene != null)
+			scene.actorBoundsChanged(this);
 	}
 
 	public String getDesc() {
@@ -132,24 +156,31 @@ public class BaseActor implements Comparable<BaseActor>, Serializable, AssetCons
 	}
 	
 	public void update(float delta) {
-		BaseActor player = scene.getPlayer();
-		if(isVisible() && player != null) {
-			boolean hit = hit(player.getX(), player.getY());
-			if(!hit && playerInside) {
-				// the player leaves
-				playerInside = false;
-				
-				Verb v = getVerb("exit");
-				if(v!=null)
-					v.run();
-			} else if(hit && !playerInside){
-				// the player enters
-				playerInside = true;
-				
-				Verb v = getVerb("enter");
-				if(v!=null)
-					v.run();				
-			}
+	}
+	
+	public boolean isPlayerInside() {
+		return playerInside;
+	}
+	
+	/**
+	 * Called by the scene when the player position changes. Runs the 'enter'
+	 * or 'exit' verb when the player crosses the bbox.
+	 */
+	public void setPlayerInside(boolean inside) {
+		if(!inside && playerInside) {
+			// the player leaves
+			playerInside = false;
+			
+			Verb v = getVerb("exit");
+			if(v!=null)
+				v.run();
+		} else if(inside && !playerInside){
+			// the player enters
+			playerInside = true;
+			
+			Verb v = getVerb("enter");
+			if(v!=null)
+				v.run();				
 		}
 	}
 
@@ -233,6 +264,23 @@ public class BaseActor implements Comparable<BaseActor>, Serializable, AssetCons
 		return sb.toString();
 	}
 
+	/**
+	 * Hash of the logical state of the actor. The position is not included
+	 * because it depends on the frame rate.
+	 */
+	public long getStateHash() {
+		long h = StateHash.start();
+
+		h = StateHash.add(h, id);
+		h = StateHash.add(h, state);
+		h = StateHash.add(h, visible);
+		h = StateHash.add(h, interaction);
+		h = StateHash.add(h, layer);
+		h = StateHash.add(h, customProperties);
+
+		return h;
+	}
+
 	@Override
 	public int compareTo(BaseActor o) {
 		return (int) (o.getBBox().getY() - this.getBBox().getY());
@@ -293,6 +341,8 @@ public class BaseActor implements Comparable<BaseActor>, Serializable, AssetCons
 		if(inNavGraph) {
 			scene.getPolygonalNavGraph().addDinamicObstacle(bbox);
 		}
+		
+		boundsChanged();
 	}
 	
 	@Override
@@ -0,0 +1,450 @@
+/*******************************************************************************
+ * Copyright 2014 Rafael Garcia Moreno.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.bladecoder.engine.model;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.HashMap;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.graphics.g2d.TextureAtlas.TextureAtlasData;
+import com.badlogic.gdx.graphics.g2d.TextureAtlas.TextureAtlasData.Region;
+import com.badlogic.gdx.math.Polygon;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.Json;
+import com.badlogic.gdx.utils.JsonValue;
+import com.bladecoder.engine.actions.ActionCallback;
+import com.bladecoder.engine.actions.ActionCallbackQueue;
+import com.bladecoder.engine.anim.AnimationDesc;
+import com.bladecoder.engine.anim.Tween;
+import com.bladecoder.engine.assets.EngineAssetManager;
+import com.bladecoder.engine.i18n.I18N;
+import com.bladecoder.engine.util.EngineLogger;
+import com.bladecoder.engine.util.FileUtils;
+
+/**
+ * Renderer without graphics for the headless mode.
+ *
+ * Keeps the animations of the original renderer and only simulates their
+ * duration, so the blocking animations call their callbacks at the same time
+ * as in the real game.
+ *
+ * The size of the sprite is the size of the first frame of the current
+ * animation, read from the '.atlas' text file or the image header, so the
+ * bounding boxes are the same as in the real game. The default size is only
+ * used when the file can't be read.
+ */
+public class HeadlessRenderer implements ActorRenderer {
+	private final static float DEFAULT_DIM = 200;
+
+	private final static int SIZE_FIXED = 0;
+	private final static int SIZE_ATLAS = 1;
+	private final static int SIZE_IMAGE = 2;
+
+	private final static long PNG_SIGNATURE = 0x89504E470D0A1A0AL;
+	private final static int PNG_IHDR = 0x49484452;
+
+	/** Frame sizes by atlas or image file and animation, shared by all the renderers */
+	private final static HashMap<String, Vector2> SIZES = new HashMap<String, Vector2>();
+
+	/** How the size of the animations is found */
+	private int sizeType = SIZE_FIXED;
+
+	/** Size used when sizeType is SIZE_FIXED or when there is no animation */
+	private final Vector2 fixedSize = new Vector2(DEFAULT_DIM, DEFAULT_DIM);
+
+	private HashMap<String, AnimationDesc> fanims = new HashMap<String, AnimationDesc>();
+
+	/** Starts this anim the first time that the scene is loaded */
+	private String initAnimation;
+
+	private AnimationDesc currentAnimation;
+	private boolean flipX;
+
+	/** Size of the current animation. Resolved when first used after a change */
+	private Vector2 size;
+
+	private Tween animTween;
+
+	public HeadlessRenderer() {
+
+	}
+
+	/**
+	 * Replaces the renderer of the actors by a HeadlessRenderer with the same
+	 * animations.
+	 */
+	public static void install(Collection<? extends BaseActor> actors) {
+		for (BaseActor a : actors) {
+			if (a instanceof SpriteActor)
+				install((SpriteActor) a);
+		}
+	}
+
+	public static void install(SpriteActor a) {
+		ActorRenderer r = a.getRenderer();
+
+		if (r == null || r instanceof HeadlessRenderer)
+			return;
+
+		HeadlessRenderer h = new HeadlessRenderer();
+
+		h.fanims.putAll(r.getAnimations());
+		h.initAnimation = r.getInitAnimation();
+
+		if (r.getCurrentAnimationId() != null)
+			h.setCurrentAnimation(h.getAnimation(r.getCurrentAnimationId()));
+
+		if (r instanceof AtlasRenderer) {
+			h.sizeType = SIZE_ATLAS;
+		} else if (r instanceof ImageRenderer) {
+			h.sizeType = SIZE_IMAGE;
+		} else if (r instanceof Sprite3DRenderer) {
+			// the 3d renderers have a configured size
+			h.fixedSize.set(r.getWidth(), r.getHeight());
+		} else {
+			EngineLogger.error("HEADLESS: size of " + r.getClass().getSimpleName() + " not supported for actor "
+					+ a.getId() + ". Using " + DEFAULT_DIM + "x" + DEFAULT_DIM);
+		}
+
+		a.setRenderer(h);
+	}
+
+	@Override
+	public void setInitAnimation(String fa) {
+		initAnimation = fa;
+	}
+
+	@Override
+	public String getInitAnimation() {
+		return initAnimation;
+	}
+
+	@Override
+	public String[] getInternalAnimations(AnimationDesc anim) {
+		return new String[0];
+	}
+
+	@Override
+	public void update(float delta) {
+		if (animTween != null) {
+			animTween.update(delta);
+
+			if (animTween.isComplete()) {
+				animTween = null;
+			}
+		}
+	}
+
+	@Override
+	public void draw(SpriteBatch batch, float x, float y, float scale) {
+	}
+
+	@Override
+	public float getWidth() {
+		return getSize().x;
+	}
+
+	@Override
+	public float getHeight() {
+		return getSize().y;
+	}
+
+	private Vector2 getSize() {
+		if (size == null) {
+			if (sizeType == SIZE_FIXED || currentAnimation == null || currentAnimation.source == null)
+				size = fixedSize;
+			else
+				size = getSize(sizeType, currentAnimation);
+		}
+
+		return size;
+	}
+
+	private void setCurrentAnimation(AnimationDesc fa) {
+		currentAnimation = fa;
+		size = null;
+	}
+
+	private static Vector2 getSize(int type, AnimationDesc fa) {
+		EngineAssetManager am = EngineAssetManager.getInstance();
+		FileHandle f;
+		String key;
+
+		if (type == SIZE_ATLAS) {
+			f = am.getResAsset(EngineAssetManager.ATLASES_DIR + fa.source + ".atlas");
+			key = f.path() + "#" + fa.id;
+		} else {
+			f = am.getResAsset(EngineAssetManager.IMAGE_DIR + I18N.translate(fa.source));
+			key = f.path();
+		}
+
+		synchronized (SIZES) {
+			Vector2 size = SIZES.get(key);
+
+			if (size == null) {
+				try {
+					if (FileUtils.exists(f))
+						size = type == SIZE_ATLAS ? readAtlasSize(f, fa.id) : readImageSize(f);
+				} catch (Exception e) {
+					EngineLogger.error("HEADLESS: " + e.getMessage());
+				}
+
+				if (size == null) {
+					EngineLogger.error("HEADLESS: size of " + key + " not found. Using " + DEFAULT_DIM + "x"
+							+ DEFAULT_DIM);
+					size = new Vector2(DEFAULT_DIM, DEFAULT_DIM);
+				}
+
+				SIZES.put(key, size);
+			}
+
+			return size;
+		}
+	}
+
+	/**
+	 * Reads the size of the first frame of the animation from the atlas text
+	 * file. The textures are not loaded.
+	 */
+	private static Vector2 readAtlasSize(FileHandle f, String id) {
+		TextureAtlasData data = new TextureAtlasData(f, f.parent(), false);
+		Region first = null;
+
+		for (Region r : data.getRegions()) {
+			if (r.name.equals(id) && (first == null || r.index < first.index))
+				first = r;
+		}
+
+		if (first == null)
+			return null;
+
+		// same as the AtlasRegion created by TextureAtlas
+		return first.rotate ? new Vector2(first.height, first.width) : new Vector2(first.width, first.height);
+	}
+
+	/**
+	 * Reads the size from the IHDR chunk of the PNG images. Other formats are
+	 * decoded.
+	 */
+	private static Vector2 readImageSize(FileHandle f) throws IOException {
+		DataInputStream in = new DataInputStream(f.read());
+
+		try {
+			if (in.readLong() == PNG_SIGNATURE) {
+				in.readInt(); // chunk length
+
+				if (in.readInt() == PNG_IHDR)
+					return new Vector2(in.readInt(), in.readInt());
+			}
+		} finally {
+			in.close();
+		}
+
+		// decoded without a GL context
+		Pixmap p = new Pixmap(f);
+		Vector2 size = new Vector2(p.getWidth(), p.getHeight());
+		p.dispose();
+
+		return size;
+	}
+
+	@Override
+	public AnimationDesc getCurrentAnimation() {
+		return currentAnimation;
+	}
+
+	@Override
+	public String getCurrentAnimationId() {
+		if (currentAnimation == null)
+			return null;
+
+		String id = currentAnimation.id;
+
+		if (flipX) {
+			id = AnimationDesc.getFlipId(id);
+		}
+
+		return id;
+	}
+
+	@Override
+	public HashMap<String, AnimationDesc> getAnimations() {
+		return fanims;
+	}
+
+	@Override
+	public void startAnimation(String id, int repeatType, int count, ActionCallback cb) {
+		if (id == null)
+			id = initAnimation;
+
+		AnimationDesc fa = id == null ? null : getAnimation(id);
+
+		animTween = null;
+
+		if (fa == null) {
+			EngineLogger.error("AnimationDesc not found: " + id);
+
+			// don't block the script
+			if (cb != null)
+				ActionCallbackQueue.add(cb);
+
+			return;
+		}
+
+		setCurrentAnimation(fa);
+
+		if (fa.duration == 0.0) {
+			if (cb != null)
+				ActionCallbackQueue.add(cb);
+
+			return;
+		}
+
+		if (repeatType == Tween.FROM_FA) {
+			repeatType = fa.animationType;
+			count = fa.count;
+		}
+
+		animTween = new Tween();
+		animTween.setDuration(fa.duration);
+		animTween.setType(repeatType);
+		animTween.setCount(count);
+
+		if (cb != null)
+			animTween.setCb(cb);
+
+		animTween.restart();
+	}
+
+	private AnimationDesc getAnimation(String id) {
+		AnimationDesc fa = fanims.get(id);
+		flipX = false;
+
+		if (fa == null) {
+			fa = fanims.get(AnimationDesc.getFlipId(id));
+
+			if (fa != null)
+				flipX = true;
+		}
+
+		return fa;
+	}
+
+	@Override
+	public void lookat(float x, float y, Vector2 pf) {
+		lookat(AnimationDesc.getFrameDirection(x, y, pf));
+	}
+
+	@Override
+	public void lookat(String dir) {
+		startAnimation(AnimationDesc.STAND_ANIM + '.' + dir, Tween.FROM_FA, 1, null);
+	}
+
+	@Override
+	public void stand() {
+		String standFA = AnimationDesc.STAND_ANIM;
+		String current = getCurrentAnimationId();
+		int idx = current == null ? -1 : current.indexOf('.');
+
+		if (idx != -1) {
+			standFA += current.substring(idx);
+		}
+
+		startAnimation(standFA, Tween.FROM_FA, 1, null);
+	}
+
+	@Override
+	public void walk(Vector2 p0, Vector2 pf) {
+		String currentDirection = AnimationDesc.getFrameDirection(p0.x, p0.y, pf);
+		startAnimation(AnimationDesc.WALK_ANIM + '.' + currentDirection, Tween.FROM_FA, 1, null);
+	}
+
+	@Override
+	public void addAnimation(AnimationDesc fa) {
+		if (initAnimation == null)
+			initAnimation = fa.id;
+
+		fanims.put(fa.id, fa);
+	}
+
+	@Override
+	public void computeBbox(Polygon bbox) {
+		if (bbox.getVertices() == null || bbox.getVertices().length != 8) {
+			bbox.setVertices(new float[8]);
+		}
+
+		float[] verts = bbox.getVertices();
+
+		verts[0] = -getWidth() / 2;
+		verts[1] = 0f;
+		verts[2] = -getWidth() / 2;
+		verts[3] = getHeight();
+		verts[4] = getWidth() / 2;
+		verts[5] = getHeight();
+		verts[6] = getWidth() / 2;
+		verts[7] = 0f;
+		bbox.dirty();
+	}
+
+	@Override
+	public void loadAssets() {
+	}
+
+	@Override
+	public void retrieveAssets() {
+		if (currentAnimation == null && initAnimation != null)
+			startAnimation(initAnimation, Tween.FROM_FA, 1, null);
+	}
+
+	@Override
+	public void dispose() {
+	}
+
+	@Override
+	public void write(Json json) {
+		json.writeValue("fanims", fanims, HashMap.class, AnimationDesc.class);
+		json.writeValue("currentAnimation", currentAnimation == null ? null : currentAnimation.id);
+		json.writeValue("initAnimation", initAnimation);
+		json.writeValue("flipX", flipX);
+		json.writeValue("animTween", animTween, animTween == null ? null : Tween.class);
+		json.writeValue("sizeType", sizeType);
+		json.writeValue("fixedSize", fixedSize);
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public void read(Json json, JsonValue jsonData) {
+		fanims = json.readValue("fanims", HashMap.class, AnimationDesc.class, jsonData);
+
+		String currentAnimationId = json.readValue("currentAnimation", String.class, jsonData);
+
+		if (currentAnimationId != null)
+			setCurrentAnimation(fanims.get(currentAnimationId));
+
+		initAnimation = json.readValue("initAnimation", String.class, jsonData);
+		flipX = json.readValue("flipX", Boolean.class, jsonData);
+		animTween = json.readValue("animTween", Tween.class, jsonData);
+
+		if (jsonData.has("sizeType")) {
+			sizeType = json.readValue("sizeType", Integer.class, jsonData);
+			fixedSize.set(json.readValue("fixedSize", Vector2.class, jsonData));
+		}
+	}
+}
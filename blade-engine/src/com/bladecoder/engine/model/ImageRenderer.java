@@ -319,8 +319,7 @@ public class ImageRenderer implements ActorRenderer {
 
 		if (entry.refCounter == 0) {
 			// I18N for images
-			if(source.charAt(0) == '@')
-			source = I18N.getString(source.substring(1));
+			source = I18N.translate(source);
 			EngineAssetManager.getInstance().loadTexture(EngineAssetManager.IMAGE_DIR + source);
 		}
 
@@ -338,8 +337,7 @@ public class ImageRenderer implements ActorRenderer {
 
 		if (entry.tex == null) {
 			// I18N for images
-			if(source.charAt(0) == '@')
-				source = I18N.getString(source.substring(1));
+			source = I18N.translate(source);
 			
 			entry.tex = EngineAssetManager.getInstance().getTexture(EngineAssetManager.IMAGE_DIR + source);
 		}
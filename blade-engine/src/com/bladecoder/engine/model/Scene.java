@@ -17,6 +17,7 @@ package com.bladecoder.engine.model;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 
 import com.badlogic.gdx.audio.Music;
@@ -26,6 +27,7 @@ import com.badlogic.gdx.graphics.g2d.SpriteBatch;
 import com.badlogic.gdx.graphics.g2d.TextureAtlas.AtlasRegion;
 import com.badlogic.gdx.graphics.glutils.ShapeRenderer;
 import com.badlogic.gdx.graphics.glutils.ShapeRenderer.ShapeType;
+import com.badlogic.gdx.math.Intersector;
 import com.badlogic.gdx.math.Polygon;
 import com.badlogic.gdx.math.Rectangle;
 import com.badlogic.gdx.math.Vector2;
@@ -39,6 +41,9 @@ import com.bladecoder.engine.pathfinder.NavNode;
 import com.bladecoder.engine.polygonalpathfinder.NavNodePolygonal;
 import com.bladecoder.engine.polygonalpathfinder.PolygonalNavGraph;
 import com.bladecoder.engine.util.EngineLogger;
+import com.bladecoder.engine.util.FrameProfiler;
+import com.bladecoder.engine.util.SpatialHash;
+import com.bladecoder.engine.util.StateHash;
 
 public class Scene implements Serializable,
 		AssetConsumer {
@@ -47,6 +52,9 @@ public class Scene implements Serializable,
 			1f);
 	public static final Color WALKZONE_COLOR = Color.GREEN;
 	public static final Color OBSTACLE_COLOR = Color.RED;
+	
+	/** Cell size of the spatial hash used for hit-testing */
+	public static final float SPATIAL_HASH_CELL_SIZE = 256f;
 
 	/** 
 	 * All actors in the scene
@@ -102,6 +110,24 @@ public class Scene implements Serializable,
 	 * logic
 	 */
 	private HashMap<String, String> customProperties;
+	
+	/** Actor bounding boxes by cell. Built on the first query. */
+	transient private SpatialHash<BaseActor> spatialHash;
+	transient private boolean spatialHashEnabled = true;
+	
+	/** Actors with 'enter' or 'exit' verbs. Built on the first update. */
+	transient private ArrayList<BaseActor> triggers;
+	
+	/** The triggers list as a set, to find the actors in actorBoundsChanged() */
+	transient private HashSet<BaseActor> triggerSet;
+	
+	/** Player position when the triggers were evaluated */
+	transient private final Vector2 lastPlayerPos = new Vector2();
+	transient private boolean triggersDirty = true;
+	
+	// Used in updateTriggers(). Class variables to avoid allocations
+	transient private final Vector2 tmpSegStart = new Vector2();
+	transient private final Vector2 tmpSegEnd = new Vector2();
 
 	public Scene() {	
 	}
@@ -135,6 +161,19 @@ public class Scene implements Serializable,
 		return null;
 	}
 	
+	/**
+	 * @return the position of the layer in the draw order, the first is
+	 *         closer to the camera, or -1 if not found.
+	 */
+	private int getLayerIndex(String name) {
+		for(int i = 0; i < layers.size(); i++) {
+			if(name.equals(layers.get(i).getName()))
+				return i;
+		}
+		
+		return -1;
+	}
+	
 	public void addLayer(SceneLayer layer) {
 		layers.add(layer);
 	}
@@ -209,8 +248,10 @@ public class Scene implements Serializable,
 	public void update(float delta) {
 		// We draw the elements in order: from top to bottom.
 		// so we need to order the array list
+		FrameProfiler.begin(FrameProfiler.SCENE_LAYERS);
 		for(SceneLayer layer:layers)
 			layer.update();
+		FrameProfiler.end(FrameProfiler.SCENE_LAYERS);
 
 		// music delay update
 		if (music != null && !music.isPlaying()) {
@@ -234,15 +275,21 @@ public class Scene implements Serializable,
 			}
 		}
 
+		FrameProfiler.begin(FrameProfiler.SCENE_ACTORS);
 		for (BaseActor a:actors.values()) {
 			a.update(delta);
 		}
+		FrameProfiler.end(FrameProfiler.SCENE_ACTORS);
+		
+		updateTriggers();
 		
+		FrameProfiler.begin(FrameProfiler.SCENE_CAMERA);
 		camera.update(delta);
 		
 		if(followActor != null) {
 			camera.updatePos(followActor);
 		}
+		FrameProfiler.end(FrameProfiler.SCENE_CAMERA);
 	}
 
 	public void draw(SpriteBatch spriteBatch) {
@@ -325,6 +372,25 @@ public class Scene implements Serializable,
 		renderer.end();
 	}
 
+	/**
+	 * Hash of the scene state and the state of its actors.
+	 */
+	public long getStateHash() {
+		long h = StateHash.start();
+
+		h = StateHash.add(h, id);
+		h = StateHash.add(h, state);
+		h = StateHash.add(h, player);
+		h = StateHash.add(h, customProperties);
+
+		long actorsHash = 0;
+
+		for (BaseActor a : actors.values())
+			actorsHash += a.getStateHash();
+
+		return StateHash.add(h, actorsHash);
+	}
+
 	public BaseActor getActor(String id, boolean searchInventory) {
 		BaseActor a = actors.get(id);
 
@@ -352,6 +418,11 @@ public class Scene implements Serializable,
 		}
 		
 		layer.add(actor);
+		
+		if(spatialHash != null)
+			actorBoundsChanged(actor);
+		
+		triggers = null;
 	}
 
 	public void setBackground(String bgAtlas, String bgId, String lightMapAtlas, String lightMapId) {
@@ -362,6 +433,43 @@ public class Scene implements Serializable,
 	}
 
 	public BaseActor getActorAt(float x, float y) {
+		if(!spatialHashEnabled)
+			return getActorAtLinear(x, y);
+		
+		Array<BaseActor> cell = getSpatialHash().get(x, y);
+		
+		if(cell == null)
+			return null;
+		
+		// Same order as the linear search: first layer, last actor in the layer.
+		BaseActor result = null;
+		int resultLayer = 0;
+		int resultPos = 0;
+		
+		for (int i = 0; i < cell.size; i++) {
+			BaseActor a = cell.get(i);
+			
+			if (!a.hasInteraction() || !a.hit(x, y))
+				continue;
+			
+			int l = getLayerIndex(a.getLayer());
+			
+			if(l == -1 || !layers.get(l).isVisible())
+				continue;
+			
+			int pos = layers.get(l).getDrawIndex(a);
+			
+			if(result == null || l < resultLayer || (l == resultLayer && pos > resultPos)) {
+				result = a;
+				resultLayer = l;
+				resultPos = pos;
+			}
+		}
+
+		return result;
+	}
+	
+	private BaseActor getActorAtLinear(float x, float y) {
 		
 		for(SceneLayer layer:layers) {
 			
@@ -380,8 +488,143 @@ public class Scene implements Serializable,
 
 		return null;
 	}
+	
+	/**
+	 * Must be called when the bbox of an actor changes its position, scale
+	 * or vertices to keep the spatial hash and the triggers updated.
+	 */
+	public void actorBoundsChanged(BaseActor a) {
+		if(actors.get(a.getId()) != a)
+			return;
+		
+		if(triggers != null && triggerSet.contains(a))
+			triggersDirty = true;
+		
+		if(spatialHash == null)
+			return;
+		
+		Polygon bbox = a.getBBox();
+		
+		if(bbox == null || bbox.getVertices().length == 0)
+			spatialHash.remove(a);
+		else
+			spatialHash.put(a, bbox.getBoundingRectangle());
+	}
+	
+	/**
+	 * Fires the 'enter' and 'exit' verbs of the actors when the player
+	 * position changes.
+	 * 
+	 * The segment from the last position is tested against the actors so a
+	 * fast walk doesn't cross an actor without triggering it.
+	 */
+	private void updateTriggers() {
+		SpriteActor p = getPlayer();
+		
+		if(p == null)
+			return;
+		
+		if(triggers == null) {
+			triggers = new ArrayList<BaseActor>();
+			
+			for (BaseActor a : actors.values()) {
+				if(a != p && (a.getVerbManager().hasVerb("enter") || a.getVerbManager().hasVerb("exit")))
+					triggers.add(a);
+			}
+			
+			triggerSet = new HashSet<BaseActor>(triggers);
+			
+			triggersDirty = true;
+		}
+		
+		float x = p.getX();
+		float y = p.getY();
+		
+		if(!triggersDirty && x == lastPlayerPos.x && y == lastPlayerPos.y)
+			return;
+		
+		// the first evaluation or changes in the triggers are not swept
+		boolean sweep = !triggersDirty;
+		
+		triggersDirty = false;
+		
+		float x0 = lastPlayerPos.x;
+		float y0 = lastPlayerPos.y;
+		
+		lastPlayerPos.set(x, y);
+		
+		float minX = Math.min(x0, x), maxX = Math.max(x0, x);
+		float minY = Math.min(y0, y), maxY = Math.max(y0, y);
+		
+		// the verbs can change the scene actors and rebuild the list
+		ArrayList<BaseActor> t = triggers;
+		
+		for (int i = 0; i < t.size(); i++) {
+			BaseActor a = t.get(i);
+			
+			if(!a.isVisible())
+				continue;
+			
+			Polygon bbox = a.getBBox();
+			
+			// broad phase
+			if(!a.isPlayerInside()) {
+				if(bbox.getVertices().length == 0)
+					continue;
+
+				Rectangle r = bbox.getBoundingRectangle();
+				
+				if(sweep) {
+					if(maxX < r.x || minX > r.x + r.width || maxY < r.y || minY > r.y + r.height)
+						continue;
+				} else if(!r.contains(x, y)) {
+					continue;
+				}
+			}
+			
+			boolean hit = a.hit(x, y);
+			
+			if(!hit && !a.isPlayerInside() && sweep) {
+				tmpSegStart.set(x0, y0);
+				tmpSegEnd.set(x, y);
+				
+				if(Intersector.intersectSegmentPolygon(tmpSegStart, tmpSegEnd, bbox)) {
+					// crossed in one frame
+					a.setPlayerInside(true);
+				}
+			}
+			
+			a.setPlayerInside(hit);
+		}
+	}
+	
+	/**
+	 * The spatial hash must be disabled when the actor bboxes are modified
+	 * directly, like in the editor.
+	 */
+	public void setSpatialHashEnabled(boolean v) {
+		spatialHashEnabled = v;
+		spatialHash = null;
+	}
+	
+	public boolean isSpatialHashEnabled() {
+		return spatialHashEnabled;
+	}
+	
+	private SpatialHash<BaseActor> getSpatialHash() {
+		if(spatialHash == null) {
+			spatialHash = new SpatialHash<BaseActor>(SPATIAL_HASH_CELL_SIZE);
+			
+			for (BaseActor a : actors.values())
+				actorBoundsChanged(a);
+		}
+		
+		return spatialHash;
+	}
 
 	public void setPlayer(SpriteActor a) {
+		triggers = null;
+		
 		if (a != null) {
 			player = a.getId();
 			a.setInteraction(false);
@@ -416,7 +659,12 @@ public class Scene implements Serializable,
 		}
 		
 		SceneLayer layer = getLayer(a.getLayer());
-		layer.getActors().remove(a);
+		layer.remove(a);
+		
+		if(spatialHash != null)
+			spatialHash.remove(a);
+		
+		triggers = null;
 		
 		if(a.isWalkObstacle() && polygonalNavGraph != null)
 			polygonalNavGraph.removeDinamicObstacle(a.getBBox());
@@ -473,9 +721,15 @@ public class Scene implements Serializable,
 
 	@Override
 	public void retrieveAssets() {
+		boolean headless = World.getInstance().isHeadless();
 
 		// RETRIEVE BACKGROUND
-		if (backgroundAtlas != null && !backgroundAtlas.isEmpty()) {
+		if (headless) {
+			// no background, the scene has the size of the screen
+			float worldScale = EngineAssetManager.getInstance().getScale();
+			camera.setScrollingDimensions(World.getInstance().getWidth() * worldScale,
+					World.getInstance().getHeight() * worldScale);
+		} else if (backgroundAtlas != null && !backgroundAtlas.isEmpty()) {
 			background = EngineAssetManager.getInstance().getRegions(backgroundAtlas, backgroundRegionId);
 
 			int width = 0;
@@ -496,7 +750,7 @@ public class Scene implements Serializable,
 		}
 
 		// RETRIEVE LIGHT MAP
-		if (lightMapAtlas != null && !lightMapAtlas.isEmpty()) {
+		if (!headless && lightMapAtlas != null && !lightMapAtlas.isEmpty()) {
 			lightMap = EngineAssetManager.getInstance().getRegions(lightMapAtlas, lightMapRegionId);
 		}
 		
@@ -505,6 +759,9 @@ public class Scene implements Serializable,
 			polygonalNavGraph.createInitialGraph();
 		}
 
+		// the player could have been moved while the scene was not active
+		triggersDirty = true;
+
 		// RETRIEVE ACTORS
 		for (BaseActor a : actors.values()) {
 			a.retrieveAssets();
@@ -515,7 +772,7 @@ public class Scene implements Serializable,
 			}			
 		}
 
-		if (musicFilename != null) {
+		if (!headless && musicFilename != null) {
 			music = EngineAssetManager.getInstance().getMusic(musicFilename);
 			if (isPlayingSer) { // TODO must be in World???
 				if(music != null) {
@@ -621,6 +878,9 @@ public class Scene implements Serializable,
 				jsonData);
 		player = json.readValue("player", String.class, jsonData);
 
+		spatialHash = null;
+		triggers = null;
+
 		for (BaseActor actor: actors.values()) {			
 			actor.setScene(this);
 			
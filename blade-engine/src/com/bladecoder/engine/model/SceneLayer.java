@@ -14,9 +14,14 @@ public class SceneLayer {
 	
 	transient private final List<BaseActor> actors = new ArrayList<BaseActor>();
 	
+	/** The draw index of the actors must be updated */
+	transient private boolean drawIndicesDirty = true;
+	
 	public void update() {
-		if(dynamic && visible)
+		if(dynamic && visible) {
 			Collections.sort(actors);
+			drawIndicesDirty = true;
+		}
 	}
 	
 	public void draw(SpriteBatch spriteBatch) {
@@ -31,6 +36,22 @@ public class SceneLayer {
 	
 	public void add(BaseActor actor) {
 		actors.add(actor);
+		drawIndicesDirty = true;
+	}
+	
+	/**
+	 * @return the position of the actor in the draw order. The actors drawn
+	 *         later are closer to the camera.
+	 */
+	public int getDrawIndex(BaseActor actor) {
+		if(drawIndicesDirty) {
+			for(int i = 0; i < actors.size(); i++)
+				actors.get(i).setDrawIndex(i);
+			
+			drawIndicesDirty = false;
+		}
+		
+		return actor.getDrawIndex();
 	}
 
 	public String getName() {
@@ -69,9 +90,12 @@ public class SceneLayer {
 				return (int) (a1.getZIndex() - a2.getZIndex());
 			}
 		});
+		
+		drawIndicesDirty = true;
 	}
 
 	public void remove(BaseActor actor) {
 		actors.remove(actor);
+		drawIndicesDirty = true;
 	}
 }
@@ -61,6 +61,10 @@ public class SoundFX implements AssetConsumer {
 	
 	@Override
 	public void retrieveAssets() {
+		// not loaded in headless mode
+		if (World.getInstance().isHeadless())
+			return;
+		
 		s = EngineAssetManager.getInstance().getSound(filename);
 	}
 	
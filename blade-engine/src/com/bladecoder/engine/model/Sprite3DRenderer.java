@@ -228,7 +228,7 @@ public class Sprite3DRenderer implements ActorRenderer {
 			modelBatch.begin(currentSource.camera3d);
 
 			if (EngineLogger.debugMode()
-					&& EngineLogger.debugLevel == EngineLogger.DEBUG1)
+					&& EngineLogger.getDebugLevel() == EngineLogger.DEBUG1)
 				modelBatch.render(Utils3D.getAxes(), environment);
 
 			modelBatch.render(currentSource.modelInstance, environment);
@@ -630,7 +630,7 @@ public class Sprite3DRenderer implements ActorRenderer {
 		VIEWPORT.height = VIEWPORT_RESULTS.get(3);
 	}
 
-	public static void createBatchs() {
+	public static synchronized void createBatchs() {
 		Config modelConfigShader = new Config(Gdx.files.classpath(
 				"org/bladecoder/engine/shading/cel.vertex.glsl").readString(),
 				Gdx.files.classpath(
@@ -786,7 +786,7 @@ public class Sprite3DRenderer implements ActorRenderer {
 			fb.dispose();
 	}
 
-	public static void disposeBatchs() {
+	public static synchronized void disposeBatchs() {
 		
 		if(modelBatch == null)
 			return;
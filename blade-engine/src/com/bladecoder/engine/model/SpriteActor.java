@@ -32,6 +32,7 @@ import com.bladecoder.engine.anim.SpriteScaleTween;
 import com.bladecoder.engine.anim.Tween;
 import com.bladecoder.engine.anim.WalkTween;
 import com.bladecoder.engine.assets.EngineAssetManager;
+import com.bladecoder.engine.metrics.Metrics;
 import com.bladecoder.engine.util.EngineLogger;
 
 public class SpriteActor extends BaseActor {
@@ -113,6 +114,7 @@ public class SpriteActor extends BaseActor {
 	public void setScale(float scale) {
 		this.scale = scale;
 		bbox.setScale(scale, scale);
+		boundsChanged();
 	}
 
 	@Override
@@ -187,6 +189,8 @@ public class SpriteActor extends BaseActor {
 				if(inNavGraph) {
 					scene.getPolygonalNavGraph().addDinamicObstacle(bbox);
 				}
+				
+				boundsChanged();
 			}
 			
 			if (fa.sound != null) {
@@ -229,26 +233,34 @@ public class SpriteActor extends BaseActor {
 
 	public void lookat(Vector2 p) {
 		renderer.lookat(bbox.getX(), bbox.getY(), p);
-		if(bboxFromRenderer)
+		if(bboxFromRenderer) {
 			renderer.computeBbox(bbox);
+			boundsChanged();
+		}
 	}
 
 	public void lookat(String direction) {
 		renderer.lookat(direction);
-		if(bboxFromRenderer)
+		if(bboxFromRenderer) {
 			renderer.computeBbox(bbox);
+			boundsChanged();
+		}
 	}
 
 	public void stand() {
 		renderer.stand();
-		if(bboxFromRenderer)
+		if(bboxFromRenderer) {
 			renderer.computeBbox(bbox);
+			boundsChanged();
+		}
 	}
 
 	public void startWalkFA(Vector2 p0, Vector2 pf) {
 		renderer.walk(p0, pf);
-		if(bboxFromRenderer)
+		if(bboxFromRenderer) {
 			renderer.computeBbox(bbox);
+			boundsChanged();
+		}
 	}
 
 	/**
@@ -276,7 +288,11 @@ public class SpriteActor extends BaseActor {
 		}
 
 		if(scene.getPolygonalNavGraph() != null) {
+			Metrics m = Metrics.get();
+			long t0 = m.startTime();
 			walkingPath = scene.getPolygonalNavGraph().findPath(p0.x, p0.y, pf.x, pf.y);
+			m.pathQueries.inc();
+			m.pathQueryTime.updateSince(t0);
 		}
 
 		if (walkingPath == null || walkingPath.size() == 0) {
@@ -19,11 +19,18 @@ import com.badlogic.gdx.graphics.Color;
 import com.badlogic.gdx.utils.Json;
 import com.badlogic.gdx.utils.Json.Serializable;
 import com.badlogic.gdx.utils.JsonValue;
+import com.badlogic.gdx.utils.Pool.Poolable;
 import com.bladecoder.engine.actions.ActionCallback;
 import com.bladecoder.engine.actions.ActionCallbackQueue;
 import com.bladecoder.engine.util.ActionCallbackSerialization;
 
-public class Text implements Serializable {
+/**
+ * A subtitle piece. The text shown is the 'str' range between 'start' and
+ * 'end', so a long subtitle can be cut in pieces without creating substrings.
+ * 
+ * Texts are pooled by the TextManager.
+ */
+public class Text implements Serializable, Poolable {
 	private static final float DEFAULT_TIME = 1f;
 	
 	public enum Type {
@@ -31,6 +38,8 @@ public class Text implements Serializable {
 	};
 	
 	public String str;
+	public int start;
+	public int end;
 	public float x;
 	public float y;
 	public float time;
@@ -42,7 +51,14 @@ public class Text implements Serializable {
 	}
 
 	public Text(String str, float x, float y, float time, Type type, Color color, ActionCallback cb) {
+		set(str, 0, str.length(), x, y, time, type, color, cb);
+	}
+
+	public void set(String str, int start, int end, float x, float y, float time, Type type, Color color,
+			ActionCallback cb) {
 		this.str = str;
+		this.start = start;
+		this.end = end;
 		this.x = x;
 		this.y = y;
 		this.time = time;
@@ -51,7 +67,7 @@ public class Text implements Serializable {
 		this.cb = cb;
 
 		if (this.time <= 0) {
-			this.time = DEFAULT_TIME + DEFAULT_TIME * str.length() / 20f;
+			this.time = DEFAULT_TIME + DEFAULT_TIME * (end - start) / 20f;
 		}
 	}
 	
@@ -61,10 +77,19 @@ public class Text implements Serializable {
 		}
 	}
 	
+	@Override
+	public void reset() {
+		str = null;
+		start = end = 0;
+		color = null;
+		type = null;
+		cb = null;
+	}
+	
 	@Override
 	public void write(Json json) {	
 		
-		json.writeValue("str", str);
+		json.writeValue("str", start == 0 && end == str.length() ? str : str.substring(start, end));
 		json.writeValue("x", x);
 		json.writeValue("y", y);
 		json.writeValue("time",time);
@@ -77,6 +102,8 @@ public class Text implements Serializable {
 	@Override
 	public void read (Json json, JsonValue jsonData) {
 		str = json.readValue("str", String.class, jsonData);
+		start = 0;
+		end = str.length();
 		x = json.readValue("x", Float.class, jsonData);
 		y = json.readValue("y", Float.class, jsonData);
 		time = json.readValue("time", Float.class, jsonData);
@@ -16,15 +16,12 @@
 package com.bladecoder.engine.model;
 
 import java.util.ArrayList;
-import java.util.LinkedList;
-import java.util.Queue;
-
-import com.bladecoder.engine.model.Text;
 
 import com.badlogic.gdx.graphics.Color;
 import com.badlogic.gdx.utils.Json;
 import com.badlogic.gdx.utils.Json.Serializable;
 import com.badlogic.gdx.utils.JsonValue;
+import com.badlogic.gdx.utils.Pool;
 import com.bladecoder.engine.actions.ActionCallback;
 import com.bladecoder.engine.i18n.I18N;
 
@@ -35,6 +32,8 @@ import com.bladecoder.engine.i18n.I18N;
  * 
  * A subtitle is cut in pieces and quee. Each piece has is own time in screen.
  * 
+ * Pieces are pooled and reference ranges of the original string, so adding
+ * subtitles doesn't generate garbage.
  * 
  * @author rgarcia
  * 
@@ -44,70 +43,175 @@ public class TextManager implements Serializable {
 	public static final float POS_SUBTITLE = -2f;
 	public static final float RECT_MARGIN = 18f;
 	public static final float RECT_BORDER = 2f;
+	
+	private static final String PIECE_SEPARATOR = "\n\n";
+	private static final String ESCAPED_NEWLINE = "\\n";
 
 	private float inScreenTime;
 	private Text currentSubtitle = null;
+	
+	/** Incremented every time the current subtitle changes */
+	private int currentSubtitleVersion = 0;
 
-	private Queue<Text> fifo;
+	/** Ring buffer */
+	private Text[] fifo = new Text[16];
+	private int fifoHead = 0;
+	private int fifoSize = 0;
+	
+	private final Pool<Text> textPool = new Pool<Text>() {
+		@Override
+		protected Text newObject() {
+			return new Text();
+		}
+	};
 
 	public TextManager() {
-		fifo = new LinkedList<Text>();
 	}
 
 	public void addSubtitle(String str, float x, float y, boolean quee, Text.Type type,
 			Color color, ActionCallback cb) {
 		
-		if(str.charAt(0) == '@')
-			str = I18N.getString(str.substring(1));
+		str = I18N.translate(str);
 		
-		String s = str.replace("\\n", "\n");
-		String[] text = s.split("\n\n");
+		if (str.indexOf(ESCAPED_NEWLINE) != -1)
+			str = str.replace(ESCAPED_NEWLINE, "\n");
 
 		if (!quee)
 			clear();
-
-		for (int i = 0; i < text.length; i++) {
-			String cutStr = text[i];
+		
+		// Pieces are separated by "\n\n". Like String.split(), trailing empty
+		// pieces are ignored.
+		int len = str.length();
+		int textEnd = 0;
+		
+		for (int start = 0;;) {
+			int sep = str.indexOf(PIECE_SEPARATOR, start);
+			int end = sep == -1 ? len : sep;
+			
+			if (end > start)
+				textEnd = end;
+			
+			if (sep == -1)
+				break;
+			
+			start = sep + PIECE_SEPARATOR.length();
+		}
+		
+		for (int start = 0;;) {
+			int sep = str.indexOf(PIECE_SEPARATOR, start);
+			int end = (sep == -1 || sep >= textEnd) ? textEnd : sep;
+			boolean last = end == textEnd;
 
 			// search for embedded duration in the string ex:
 			// "2#two seconds subtitle"
 			float duration = 0;
-			String finalStr = cutStr;
+			int textStart = start;
 
-			int idx = cutStr.indexOf('#');
-			if (idx != -1) {
-				duration = Float.parseFloat(cutStr.substring(0, idx));
-				finalStr = cutStr.substring(idx + 1);
+			int idx = str.indexOf('#', start);
+			if (idx != -1 && idx < end) {
+				duration = parseDuration(str, start, idx);
+				textStart = idx + 1;
 			}
 
-			Text sub;
+			Text sub = textPool.obtain();
+			sub.set(str, textStart, end, x, y, duration, type, color, last ? cb : null);
 
-			if (i != text.length - 1) {
-				sub = new Text(finalStr, x, y, duration, type, color, null);
-			} else {
-				sub = new Text(finalStr, x, y, duration, type, color, cb);
-			}
-
-			fifo.add(sub);
+			push(sub);
+			
+			if (last)
+				break;
+			
+			start = sep + PIECE_SEPARATOR.length();
 		}
 
 		if (!quee || currentSubtitle == null) {
 			if (currentSubtitle != null) {
 				next();
 			} else {
-				setCurrentSubtitle(fifo.poll());
+				setCurrentSubtitle(poll());
 			}
 		}
 
 	}
 	
+	/**
+	 * Parses simple decimal numbers without creating substrings. Other formats
+	 * are delegated to Float.parseFloat().
+	 */
+	private static float parseDuration(String str, int start, int end) {
+		float value = 0;
+		float decimal = 0;
+		boolean digits = false;
+		
+		for (int i = start; i < end; i++) {
+			char c = str.charAt(i);
+			
+			if (c >= '0' && c <= '9') {
+				digits = true;
+				
+				if (decimal == 0) {
+					value = value * 10 + (c - '0');
+				} else {
+					value += (c - '0') * decimal;
+					decimal /= 10;
+				}
+			} else if (c == '.' && decimal == 0) {
+				decimal = 0.1f;
+			} else {
+				return Float.parseFloat(str.substring(start, end));
+			}
+		}
+		
+		if (!digits)
+			return Float.parseFloat(str.substring(start, end));
+		
+		return value;
+	}
+	
+	private void push(Text t) {
+		if (fifoSize == fifo.length) {
+			Text[] newFifo = new Text[fifo.length * 2];
+			
+			for (int i = 0; i < fifoSize; i++)
+				newFifo[i] = fifo[(fifoHead + i) % fifo.length];
+			
+			fifo = newFifo;
+			fifoHead = 0;
+		}
+		
+		fifo[(fifoHead + fifoSize) % fifo.length] = t;
+		fifoSize++;
+	}
+	
+	private Text poll() {
+		if (fifoSize == 0)
+			return null;
+		
+		Text t = fifo[fifoHead];
+		fifo[fifoHead] = null;
+		fifoHead = (fifoHead + 1) % fifo.length;
+		fifoSize--;
+		
+		return t;
+	}
+	
 	public Text getCurrentSubtitle() {
 		return currentSubtitle;
 	}
+	
+	/**
+	 * Texts are pooled, so the same instance can be returned by
+	 * 'getCurrentSubtitle' for different subtitles. Use this version to detect
+	 * changes.
+	 */
+	public int getCurrentSubtitleVersion() {
+		return currentSubtitleVersion;
+	}
 
 	private void setCurrentSubtitle(Text sub) {
 		inScreenTime = 0f;
 		currentSubtitle = sub;
+		currentSubtitleVersion++;
 	}
 
 	public void update(float delta) {
@@ -127,8 +231,9 @@ public class TextManager implements Serializable {
 		if (currentSubtitle != null) {
 
 			currentSubtitle.callCb();
+			textPool.free(currentSubtitle);
 
-			setCurrentSubtitle(fifo.poll());
+			setCurrentSubtitle(poll());
 		}
 	}
 
@@ -155,9 +260,14 @@ public class TextManager implements Serializable {
 
 	@Override
 	public void write(Json json) {
+		ArrayList<Text> l = new ArrayList<Text>(fifoSize);
+		
+		for (int i = 0; i < fifoSize; i++)
+			l.add(fifo[(fifoHead + i) % fifo.length]);
+		
 		json.writeValue("inScreenTime", inScreenTime);
 		json.writeValue("currentSubtitle", currentSubtitle);
-		json.writeValue("fifo", new ArrayList<Text>(fifo), ArrayList.class, Text.class);
+		json.writeValue("fifo", l, ArrayList.class, Text.class);
 	}
 
 	@SuppressWarnings("unchecked")
@@ -165,6 +275,13 @@ public class TextManager implements Serializable {
 	public void read (Json json, JsonValue jsonData) {
 		inScreenTime = json.readValue("inScreenTime", Float.class, jsonData);
 		currentSubtitle = json.readValue("currentSubtitle", Text.class, jsonData);
-		fifo = new LinkedList<Text>(json.readValue("fifo", ArrayList.class, Text.class, jsonData));
+		currentSubtitleVersion++;
+		
+		ArrayList<Text> l = json.readValue("fifo", ArrayList.class, Text.class, jsonData);
+		
+		fifoHead = fifoSize = 0;
+		
+		for (Text t : l)
+			push(t);
 	}
 }
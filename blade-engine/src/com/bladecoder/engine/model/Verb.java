@@ -18,7 +18,10 @@ package com.bladecoder.engine.model;
 import java.util.ArrayList;
 
 import com.bladecoder.engine.actions.Action;
+import com.bladecoder.engine.actions.ActionCallbackQueue;
+import com.bladecoder.engine.metrics.Metrics;
 import com.bladecoder.engine.util.EngineLogger;
+import com.bladecoder.engine.util.ScriptProfiler;
 
 public class Verb implements VerbRunner {
 	public static final String LOOKAT_VERB = "lookat";
@@ -63,33 +66,78 @@ public class Verb implements VerbRunner {
 		if(EngineLogger.debugMode())
 			EngineLogger.debug(">>> Running verb: "+ id);
 		
+		if(ScriptProfiler.isEnabled())
+			ScriptProfiler.verbRun(id);
+		
+		Metrics.get().verbRuns.inc();
+		
 		ip = 0;
 		nextStep();
 	}
 	
 	public void nextStep() {
 		
-		boolean stop = false;
+		boolean profile = ScriptProfiler.isEnabled();
+		long stepT0 = 0, stepBytes0 = 0;
+		
+		if(profile) {
+			stepBytes0 = ScriptProfiler.getAllocatedBytes();
+			stepT0 = System.nanoTime();
+		}
+		
+		runActions(this, actions, id);
+		
+		if(profile)
+			ScriptProfiler.verbStep(id, stepT0, stepBytes0);
+		
+		if(EngineLogger.debugMode() && isFinished())
+			EngineLogger.debug(">>> Verb FINISHED: "+ id);
+	}
+	
+	/**
+	 * Runs the actions from the runner ip until a blocking action or the end.
+	 * When the frame budget is exceeded the runner is queued and continues in
+	 * the next frame, the runner resume() must increment the ip.
+	 * 
+	 * @return true if stopped before the end.
+	 */
+	public static boolean runActions(VerbRunner runner, ArrayList<Action> actions, String verbId) {
+		boolean profile = ScriptProfiler.isEnabled();
 		
-		while( !isFinished() && !stop) {
-			Action a = actions.get(ip);
+		while(runner.getIP() < actions.size()) {
+			Action a = actions.get(runner.getIP());
 			
 			if(EngineLogger.debugMode())
-				EngineLogger.debug(ip + ". " + a.getClass().getSimpleName());
+				EngineLogger.debug(verbId + "(" + runner.getIP() + ") " + a.getClass().getSimpleName());
 			
 			try {
-				if(a.run(this))
-					stop = true;
-				else
-					ip++;
+				boolean blocking;
+				
+				if(profile) {
+					long bytes0 = ScriptProfiler.getAllocatedBytes();
+					long t0 = System.nanoTime();
+					blocking = a.run(runner);
+					ScriptProfiler.action(a.getClass(), t0, bytes0);
+				} else {
+					blocking = a.run(runner);
+				}
+				
+				if(blocking)
+					return true;
+				
+				if(ActionCallbackQueue.isFrameBudgetExceeded()) {
+					// continue in the next frame
+					ActionCallbackQueue.add(runner);
+					return true;
+				}
 			} catch (Exception e) {
-				EngineLogger.error("EXCEPTION EXECUTING ACTION: " + a.getClass().getSimpleName(), e);
-				ip++;
+				EngineLogger.error("EXCEPTION EXECUTING ACTION: " + a.getClass().getSimpleName() + " IN VERB: " + verbId, e);
 			}
+			
+			runner.setIP(runner.getIP() + 1);
 		}
 		
-		if(EngineLogger.debugMode() && isFinished())
-			EngineLogger.debug(">>> Verb FINISHED: "+ id);
+		return false;
 	}
 	
 	private boolean isFinished() {
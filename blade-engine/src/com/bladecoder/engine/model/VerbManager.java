@@ -23,10 +23,10 @@ import com.bladecoder.engine.model.Verb;
 import com.badlogic.gdx.utils.Json;
 import com.badlogic.gdx.utils.Json.Serializable;
 import com.badlogic.gdx.utils.JsonValue;
+import com.bladecoder.engine.EngineContext;
 import com.bladecoder.engine.util.EngineLogger;
 
 public class VerbManager implements Serializable {
-	protected static HashMap<String, Verb> worldVerbs = new HashMap<String, Verb>();
 	protected HashMap<String, Verb> verbs = new HashMap<String, Verb>();
 
 	public void addVerb(String id, Verb v) {
@@ -34,7 +34,7 @@ public class VerbManager implements Serializable {
 	}
 
 	public static void addDefaultVerb(String id, Verb v) {
-		worldVerbs.put(id, v);
+		getWorldVerbs().put(id, v);
 	}
 	
 	// Used only in getVerb(). It is a class variable to avoid allocations
@@ -82,8 +82,30 @@ public class VerbManager implements Serializable {
 		return v;
 	}
 	
+	/**
+	 * Returns true if the verb is defined for any state or target.
+	 */
+	public boolean hasVerb(String id) {
+		if (verbs.containsKey(id))
+			return true;
+
+		for (String k : verbs.keySet()) {
+			if (k.length() > id.length() && k.charAt(id.length()) == '.' && k.startsWith(id))
+				return true;
+		}
+
+		return false;
+	}
+	
+	/**
+	 * @return the world verbs of the current EngineContext.
+	 */
 	public static HashMap<String, Verb> getWorldVerbs() {
-		return worldVerbs;
+		return EngineContext.get().getWorldVerbs();
+	}
+
+	public static void setWorldVerbs(HashMap<String, Verb> verbs) {
+		EngineContext.get().setWorldVerbs(verbs);
 	}
 
 	public HashMap<String, Verb> getVerbs() {
@@ -105,7 +127,7 @@ public class VerbManager implements Serializable {
 		v = getVerb(verb, state, target);
 
 		if (v == null) {
-			v = worldVerbs.get(verb);
+			v = getWorldVerbs().get(verb);
 		}
 
 		if (v != null) {
@@ -128,7 +150,7 @@ public class VerbManager implements Serializable {
 		v = getVerb(verb, state, target);
 
 		if (v == null) {
-			v = worldVerbs.get(verb);
+			v = getWorldVerbs().get(verb);
 		}
 
 		if (v != null)
@@ -18,7 +18,10 @@ package com.bladecoder.engine.model;
 import java.io.IOException;
 import java.io.Writer;
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Set;
 
 import javax.xml.parsers.ParserConfigurationException;
 
@@ -33,17 +36,23 @@ import com.badlogic.gdx.graphics.g2d.SpriteBatch;
 import com.badlogic.gdx.graphics.glutils.FrameBuffer;
 import com.badlogic.gdx.utils.Json;
 import com.badlogic.gdx.utils.Json.Serializable;
+import com.badlogic.gdx.utils.JsonReader;
 import com.badlogic.gdx.utils.JsonValue;
 import com.badlogic.gdx.utils.JsonWriter.OutputType;
 import com.badlogic.gdx.utils.ScreenUtils;
+import com.bladecoder.engine.EngineContext;
 import com.bladecoder.engine.actions.ActionCallback;
 import com.bladecoder.engine.actions.ActionCallbackQueue;
 import com.bladecoder.engine.anim.Timers;
 import com.bladecoder.engine.assets.AssetConsumer;
 import com.bladecoder.engine.assets.EngineAssetManager;
 import com.bladecoder.engine.i18n.I18N;
+import com.bladecoder.engine.metrics.Metrics;
 import com.bladecoder.engine.loader.WorldXMLLoader;
+import com.bladecoder.engine.util.Config;
 import com.bladecoder.engine.util.EngineLogger;
+import com.bladecoder.engine.util.FrameProfiler;
+import com.bladecoder.engine.util.StateHash;
 
 public class World implements Serializable, AssetConsumer {
 
@@ -58,8 +67,6 @@ public class World implements Serializable, AssetConsumer {
 	
 	private static final boolean CACHE_ENABLED = true;
 
-	private static final World instance = new World();
-
 	private AssetState assetState;
 
 	private int width;
@@ -67,6 +74,13 @@ public class World implements Serializable, AssetConsumer {
 
 	private HashMap<String, Scene> scenes;
 
+	/**
+	 * When lazy scene loading is enabled, the XML of the scenes not created
+	 * yet. Scenes are created on demand when requested.
+	 */
+	private HashMap<String, String> pendingScenes;
+	private boolean lazySceneLoading;
+
 	private Scene currentScene;
 	private Dialog currentDialog;
 
@@ -105,12 +119,29 @@ public class World implements Serializable, AssetConsumer {
 
 	transient private SpriteBatch spriteBatch;
 
+	/**
+	 * Runs the game logic without graphics, sound or assets. The renderers
+	 * are replaced by HeadlessRenderers when the scene is loaded.
+	 */
+	transient private boolean headless = false;
+
 	// We not dispose the last loaded scene.
 	// Instead we cache it to improve performance when returning
 	transient private Scene cachedScene;
 
+	/**
+	 * @return the World of the current EngineContext.
+	 */
 	public static World getInstance() {
-		return instance;
+		EngineContext ctx = EngineContext.get();
+		World w = ctx.getWorld();
+
+		if (w == null) {
+			w = new World();
+			ctx.setWorld(w);
+		}
+
+		return w;
 	}
 
 	private World() {
@@ -119,6 +150,8 @@ public class World implements Serializable, AssetConsumer {
 
 	private void init() {
 		scenes = new HashMap<String, Scene>();
+		pendingScenes = new HashMap<String, String>();
+		lazySceneLoading = Config.getProperty(Config.LAZY_SCENES_PROP, false);
 		inventory = new Inventory();
 		textManager = new TextManager();
 
@@ -131,7 +164,8 @@ public class World implements Serializable, AssetConsumer {
 
 		customProperties = new HashMap<String, String>();
 
-		spriteBatch = new SpriteBatch();
+		if (!headless)
+			spriteBatch = new SpriteBatch();
 
 		transition = new Transition();
 		paused = false;
@@ -155,16 +189,20 @@ public class World implements Serializable, AssetConsumer {
 	}
 
 	public void draw() {
-		if (assetState == AssetState.LOADED) {
+		if (assetState == AssetState.LOADED && !headless) {
 
 			spriteBatch.setProjectionMatrix(currentScene.getCamera().combined);
 			spriteBatch.begin();
 			getCurrentScene().draw(spriteBatch);
 			spriteBatch.end();
+
+			FrameProfiler.addRenderCalls(spriteBatch.renderCalls);
 		}
 	}
 
 	public void update(float delta) {
+		FrameProfiler.begin(FrameProfiler.ASSET_LOADING);
+
 		if (assetState == AssetState.LOAD_ASSETS || assetState == AssetState.LOAD_ASSETS_AND_INIT_SCENE) {
 			loadAssets();
 
@@ -196,6 +234,10 @@ public class World implements Serializable, AssetConsumer {
 
 			EngineLogger.debug("ASSETS LOADING TIME (ms): " + (System.currentTimeMillis() - initLoadingTime));
 
+			Metrics m = Metrics.get();
+			m.assetLoads.inc();
+			m.assetLoadTime.update((System.currentTimeMillis() - initLoadingTime) * 1000);
+
 			// call 'init' verb only when arrives from setCurrentScene and not
 			// from load or restoring
 			if (initScene) {
@@ -204,20 +246,34 @@ public class World implements Serializable, AssetConsumer {
 
 		}
 
+		FrameProfiler.end(FrameProfiler.ASSET_LOADING);
+
 		if (paused || assetState != AssetState.LOADED)
 			return;
 
+		Metrics.get().frameTime.update((long) (delta * 1000000));
+
 		timeOfGame += delta;
 
+		FrameProfiler.begin(FrameProfiler.CALLBACKS);
 		ActionCallbackQueue.run();
+		FrameProfiler.end(FrameProfiler.CALLBACKS);
 		
 		// Check because the ActionCallbackQueue can call to setCurrentScene()
 		if (assetState != AssetState.LOADED)
 			return;
 		
+		FrameProfiler.begin(FrameProfiler.SCENE_UPDATE);
 		getCurrentScene().update(delta);
+		FrameProfiler.end(FrameProfiler.SCENE_UPDATE);
+
+		FrameProfiler.begin(FrameProfiler.TEXT_MANAGER);
 		textManager.update(delta);
+		FrameProfiler.end(FrameProfiler.TEXT_MANAGER);
+
+		FrameProfiler.begin(FrameProfiler.TIMERS);
 		timers.update(delta);
+		FrameProfiler.end(FrameProfiler.TIMERS);
 
 		if (!transition.isFinish()) {
 			transition.update(delta);
@@ -226,6 +282,9 @@ public class World implements Serializable, AssetConsumer {
 
 	@Override
 	public void loadAssets() {
+		if (headless)
+			return;
+
 		currentScene.loadAssets();
 
 		if (inventory.isDisposed())
@@ -234,12 +293,58 @@ public class World implements Serializable, AssetConsumer {
 
 	@Override
 	public void retrieveAssets() {
+		if (headless) {
+			HeadlessRenderer.install(currentScene.getActors().values());
+
+			for (int i = 0; i < inventory.getNumItems(); i++)
+				HeadlessRenderer.install(inventory.getItem(i));
+		}
+
 		if (inventory.isDisposed())
 			inventory.retrieveAssets();
 
 		getCurrentScene().retrieveAssets();
 	}
 
+	public boolean isHeadless() {
+		return headless;
+	}
+
+	/**
+	 * Must be called before loading the world.
+	 */
+	public void setHeadless(boolean headless) {
+		this.headless = headless;
+	}
+
+	/**
+	 * Hash of the logical state of the game: the current scene, the loaded
+	 * scenes and their actors, the inventory and the custom properties.
+	 * 
+	 * Positions and times are not included because they depend on the frame
+	 * rate, so the hash can be compared between runs at different speeds.
+	 */
+	public long getStateHash() {
+		long h = StateHash.start();
+
+		h = StateHash.add(h, currentChapter);
+		h = StateHash.add(h, currentScene == null ? null : currentScene.getId());
+		h = StateHash.add(h, currentDialog == null ? null : currentDialog.getId());
+		h = StateHash.add(h, cutMode);
+		h = StateHash.add(h, customProperties);
+
+		for (int i = 0; i < inventory.getNumItems(); i++)
+			h = StateHash.add(h, inventory.getItem(i).getStateHash());
+
+		// pending scenes are not loaded and keep their initial state
+		long scenesHash = 0;
+
+		for (Scene s : scenes.values())
+			scenesHash += s.getStateHash();
+
+		return StateHash.add(h, scenesHash);
+	}
+
 	public Transition getTransition() {
 		return transition;
 	}
@@ -264,14 +369,14 @@ public class World implements Serializable, AssetConsumer {
 		if (EngineAssetManager.getInstance().getUserFile(GAMESTATE_FILENAME).exists()) {
 			// 2.- SAVEGAME EXISTS
 			try {
-				instance.loadGameState();
+				loadGameState();
 			} catch (Exception e) {
 				EngineLogger.error("ERROR LOADING SAVED GAME", e);
-				instance.loadXMLChapter(null);
+				loadXMLChapter(null);
 			}
 		} else {
 			// 3.- XML LOADING
-			instance.loadXMLChapter(null);
+			loadXMLChapter(null);
 		}
 	}
 
@@ -280,7 +385,7 @@ public class World implements Serializable, AssetConsumer {
 			WorldXMLLoader.loadWorld(this);
 		} catch (Exception e) {
 			EngineLogger.error("ERROR LOADING WORLD XML", e);
-			instance.dispose();
+			dispose();
 			Gdx.app.exit();
 		}
 	}
@@ -299,17 +404,31 @@ public class World implements Serializable, AssetConsumer {
 			WorldXMLLoader.loadChapter(chapterName, this);
 		} catch (Exception e) {
 			EngineLogger.error("ERROR LOADING GAME", e);
-			instance.dispose();
+			dispose();
 			Gdx.app.exit();
 		}
 
 		EngineLogger.debug("XML LOADING TIME (ms): " + (System.currentTimeMillis() - initTime));
 	}
 
+	/**
+	 * Creates an empty chapter to be populated with 'addScene()'. Used by the
+	 * tools that build the world without XML.
+	 */
+	public void newChapter(String chapter) {
+		if (!disposed)
+			dispose();
+
+		init();
+
+		currentChapter = chapter;
+		assetState = AssetState.LOAD_ASSETS;
+	}
+
 	public void loadXMLChapter(String chapter, String scene) {
 		this.testScene = scene;
 
-		instance.loadXMLChapter(chapter);
+		loadXMLChapter(chapter);
 
 		if (testScene != null) {
 			currentScene = null;
@@ -386,19 +505,71 @@ public class World implements Serializable, AssetConsumer {
 	}
 
 	public Scene getScene(String id) {
-		return scenes.get(id);
+		Scene s = scenes.get(id);
+
+		if (s == null && pendingScenes.containsKey(id))
+			s = createPendingScene(id);
+
+		return s;
 	}
 
+	/**
+	 * Returns all the scenes in the chapter. When lazy scene loading is
+	 * enabled, the pending scenes are created. Use 'getSceneIds' when only
+	 * the ids are needed.
+	 */
 	public HashMap<String, Scene> getScenes() {
+		if (!pendingScenes.isEmpty()) {
+			for (String id : new ArrayList<String>(pendingScenes.keySet()))
+				createPendingScene(id);
+		}
+
 		return scenes;
 	}
 
+	public Set<String> getSceneIds() {
+		Set<String> ids = new HashSet<String>(scenes.keySet());
+		ids.addAll(pendingScenes.keySet());
+
+		return ids;
+	}
+
+	public boolean isLazySceneLoading() {
+		return lazySceneLoading;
+	}
+
+	/**
+	 * Registers the XML of a scene to be created when requested. Ignored if
+	 * the scene already exists.
+	 */
+	public void addPendingScene(String id, String sceneXML) {
+		if (!scenes.containsKey(id))
+			pendingScenes.put(id, sceneXML);
+	}
+
+	private Scene createPendingScene(String id) {
+		long initTime = System.currentTimeMillis();
+
+		Scene s = null;
+
+		try {
+			s = WorldXMLLoader.loadScene(pendingScenes.remove(id), this);
+			addScene(s);
+		} catch (Exception e) {
+			EngineLogger.error("ERROR LOADING SCENE: " + id, e);
+		}
+
+		EngineLogger.debug("SCENE XML LOADING TIME (ms): " + (System.currentTimeMillis() - initTime));
+
+		return s;
+	}
+
 	public void setCutMode(boolean v) {
 		cutMode = v;
 	}
 
 	public void setCurrentScene(String id) {
-		Scene s = scenes.get(id);
+		Scene s = getScene(id);
 
 		if (s != null) {
 			setCurrentScene(s);
@@ -476,9 +647,15 @@ public class World implements Serializable, AssetConsumer {
 
 			inventory.dispose();
 
-			spriteBatch.dispose();
+			if (spriteBatch != null) {
+				spriteBatch.dispose();
+				spriteBatch = null;
+			}
 
-			Sprite3DRenderer.disposeBatchs();
+			// the 3D batches are shared by all the contexts and headless
+			// worlds don't use them
+			if (!headless)
+				Sprite3DRenderer.disposeBatchs();
 
 		} catch (Exception e) {
 			EngineLogger.error(e.getMessage());
@@ -505,6 +682,10 @@ public class World implements Serializable, AssetConsumer {
 		this.currentChapter = chapter;
 	}
 
+	public String getCurrentChapter() {
+		return currentChapter;
+	}
+
 	public String getInitChapter() {
 		return initChapter;
 	}
@@ -573,6 +754,9 @@ public class World implements Serializable, AssetConsumer {
 	public void loadGameState(FileHandle savedFile) {
 		EngineLogger.debug("LOADING GAME STATE");
 
+		Metrics m = Metrics.get();
+		long t0 = m.startTime();
+
 		if (!disposed)
 			dispose();
 
@@ -581,8 +765,9 @@ public class World implements Serializable, AssetConsumer {
 		if (savedFile.exists()) {
 			assetState = AssetState.LOAD_ASSETS;
 
-			new Json().fromJson(World.class, savedFile.reader("UTF-8"));
+			read(new Json(), new JsonReader().parse(savedFile.reader("UTF-8")));
 
+			m.loadTime.updateSince(t0);
 		} else {
 			EngineLogger.error("LOADGAMESTATE: no saved game exists");
 		}
@@ -594,15 +779,18 @@ public class World implements Serializable, AssetConsumer {
 		if (disposed)
 			return;
 
+		Metrics m = Metrics.get();
+		long t0 = m.startTime();
+
 		Json json = new Json();
 		json.setOutputType(OutputType.javascript);
 
 		String s = null;
 
 		if (EngineLogger.debugMode())
-			s = json.prettyPrint(instance);
+			s = json.prettyPrint(this);
 		else
-			s = json.toJson(instance);
+			s = json.toJson(this);
 
 		Writer w = EngineAssetManager.getInstance().getUserFile(filename).writer(false, "UTF-8");
 
@@ -613,8 +801,11 @@ public class World implements Serializable, AssetConsumer {
 			EngineLogger.error("ERROR SAVING GAME", e);
 		}
 
+		m.saveTime.updateSince(t0);
+
 		// Save Screenshot
-		takeScreenshot(filename + ".png", SCREENSHOT_DEFAULT_WIDTH);
+		if (!headless)
+			takeScreenshot(filename + ".png", SCREENSHOT_DEFAULT_WIDTH);
 	}
 
 	public void takeScreenshot(String filename, int w) {
@@ -650,7 +841,7 @@ public class World implements Serializable, AssetConsumer {
 		json.writeValue("inventory", inventory);
 		json.writeValue("timeOfGame", timeOfGame);
 		json.writeValue("cutmode", cutMode);
-		json.writeValue("worldVerbs", VerbManager.worldVerbs, HashMap.class, Verb.class);
+		json.writeValue("worldVerbs", VerbManager.getWorldVerbs(), HashMap.class, Verb.class);
 		json.writeValue("timers", timers);
 		json.writeValue("textmanager", textManager);
 		json.writeValue("customProperties", customProperties);
@@ -672,33 +863,42 @@ public class World implements Serializable, AssetConsumer {
 	@SuppressWarnings("unchecked")
 	@Override
 	public void read(Json json, JsonValue jsonData) {
-		instance.scenes = json.readValue("scenes", HashMap.class, Scene.class, jsonData);
-		instance.currentScene = instance.scenes.get(json.readValue("currentScene", String.class, jsonData));
-		instance.inventory = json.readValue("inventory", Inventory.class, jsonData);
+		scenes = json.readValue("scenes", HashMap.class, Scene.class, jsonData);
+		currentScene = scenes.get(json.readValue("currentScene", String.class, jsonData));
+		inventory = json.readValue("inventory", Inventory.class, jsonData);
 
-		instance.timeOfGame = json.readValue("timeOfGame", Float.class, jsonData);
-		instance.cutMode = json.readValue("cutmode", Boolean.class, jsonData);
-		VerbManager.worldVerbs = json.readValue("worldVerbs", HashMap.class, Verb.class, jsonData);
-		instance.timers = json.readValue("timers", Timers.class, jsonData);
+		timeOfGame = json.readValue("timeOfGame", Float.class, jsonData);
+		cutMode = json.readValue("cutmode", Boolean.class, jsonData);
+		VerbManager.setWorldVerbs(json.readValue("worldVerbs", HashMap.class, Verb.class, jsonData));
+		timers = json.readValue("timers", Timers.class, jsonData);
 
-		instance.textManager = json.readValue("textmanager", TextManager.class, jsonData);
-		instance.customProperties = json.readValue("customProperties", HashMap.class, String.class, jsonData);
+		textManager = json.readValue("textmanager", TextManager.class, jsonData);
+		customProperties = json.readValue("customProperties", HashMap.class, String.class, jsonData);
 
 		String actorId = json.readValue("dialogActor", String.class, jsonData);
 		String dialogId = json.readValue("currentDialog", String.class, jsonData);
 
 		if (dialogId != null) {
-			SpriteActor actor = (SpriteActor) instance.getCurrentScene().getActor(actorId, false);
-			instance.currentDialog = actor.getDialog(dialogId);
+			SpriteActor actor = (SpriteActor) getCurrentScene().getActor(actorId, false);
+			currentDialog = actor.getDialog(dialogId);
 		}
 
 		transition = json.readValue("transition", Transition.class, jsonData);
 
-		instance.currentChapter = json.readValue("chapter", String.class, jsonData);
+		currentChapter = json.readValue("chapter", String.class, jsonData);
 
 		ActionCallbackQueue.read(json, jsonData);
 
-		I18N.loadChapter(EngineAssetManager.MODEL_DIR + instance.currentChapter);
+		I18N.loadChapter(EngineAssetManager.MODEL_DIR + currentChapter);
+
+		// Only created scenes are saved. The rest are restored from the XML.
+		if (lazySceneLoading) {
+			try {
+				WorldXMLLoader.indexChapter(currentChapter, this);
+			} catch (Exception e) {
+				EngineLogger.error("ERROR INDEXING CHAPTER: " + currentChapter, e);
+			}
+		}
 
 	}
 }
@@ -37,8 +37,17 @@ import com.bladecoder.engine.assets.EngineAssetManager;
 import com.bladecoder.engine.model.World;
 import com.bladecoder.engine.ui.UI.Screens;
 import com.bladecoder.engine.util.DPIUtils;
+import com.bladecoder.engine.util.EngineLogger;
+import com.bladecoder.engine.util.FrameProfiler;
+import com.bladecoder.engine.util.ScriptProfiler;
 
 public class DebugScreen implements BladeScreen {
+	private static final int PROFILER_SUMMARY_SIZE = 5;
+	private static final float PROFILER_REFRESH_TIME = 0.5f;
+	
+	/** Steps of the turbo playing in every frame */
+	private static final int TURBO_STEPS_PER_FRAME = 600;
+	
 	private UI ui;
 
 	private Stage stage;
@@ -52,6 +61,14 @@ public class DebugScreen implements BladeScreen {
 	private TextField testerTimeConf;
 	private TextField inSceneTimeConf;
 	private TextField testerExcludeList;
+	
+	private Label profilerSummary;
+	private float profilerRefreshTime;
+	
+	private TextButton turbo;
+	
+	/** The recorder in turbo playing or null */
+	private Recorder turboRecorder;
 
 	public DebugScreen() {
 	}
@@ -61,6 +78,16 @@ public class DebugScreen implements BladeScreen {
 		Gdx.gl.glClearColor(0, 0, 0, 1);
 		Gdx.gl.glClear(GL20.GL_COLOR_BUFFER_BIT);
 
+		if (turboRecorder != null && !updateTurbo())
+			return;
+
+		if (ScriptProfiler.isEnabled()) {
+			profilerRefreshTime -= delta;
+
+			if (profilerRefreshTime <= 0)
+				updateProfilerSummary();
+		}
+
 		stage.act(delta);
 		stage.draw();
 
@@ -150,6 +177,35 @@ public class DebugScreen implements BladeScreen {
 			}
 		});
 
+		turbo = new TextButton("Turbo", ui.getSkin());
+		turbo.addListener(new ClickListener() {
+
+			public void clicked(InputEvent event, float x, float y) {
+				// stops the turbo playing in progress
+				if (turboRecorder != null) {
+					turboRecorder.setPlaying(false);
+					return;
+				}
+				
+				SceneScreen scnScr = (SceneScreen) ui.getScreen(Screens.SCENE_SCREEN);
+				Recorder r = scnScr.getRecorder();
+
+				if (r.isPlaying())
+					r.setPlaying(false);
+
+				r.setFilename(recordings.getSelected());
+				r.load();
+				r.setVerifyCheckpoints(true);
+				r.startTurbo();
+				
+				// the world is paused while the debug screen is shown
+				World.getInstance().resume();
+				
+				turboRecorder = r;
+				turbo.setText("Stop");
+			}
+		});
+
 		rec.addListener(new ClickListener() {
 
 			public void clicked(InputEvent event, float x, float y) {
@@ -189,6 +245,7 @@ public class DebugScreen implements BladeScreen {
 		recordings.setItems(al.toArray(new String[al.size()]));
 
 		play.pad(2, 3, 2, 3);
+		turbo.pad(2, 3, 2, 3);
 		rec.pad(2, 3, 2, 3);
 		
 		recFilename = new TextField(r.getFileName(), ui.getSkin());
@@ -197,6 +254,7 @@ public class DebugScreen implements BladeScreen {
 		rGroup.space(10);
 		rGroup.addActor(recordings);
 		rGroup.addActor(play);
+		rGroup.addActor(turbo);
 		rGroup.addActor(new Label("Rec. Filename", ui.getSkin()));
 		rGroup.addActor(recFilename);
 		rGroup.addActor(rec);
@@ -220,8 +278,8 @@ public class DebugScreen implements BladeScreen {
 		go.pad(2, 3, 2, 3);
 
 		scenes = new SelectBox<String>(ui.getSkin());
-		scenes.setItems(World.getInstance().getScenes().keySet()
-				.toArray(new String[World.getInstance().getScenes().size()]));
+		scenes.setItems(World.getInstance().getSceneIds()
+				.toArray(new String[0]));
 		
 		HorizontalGroup scGroup = new HorizontalGroup();
 		scGroup.space(10);
@@ -254,8 +312,8 @@ public class DebugScreen implements BladeScreen {
 		runBot.pad(2, 3, 2, 3);
 
 		scenes = new SelectBox<String>(ui.getSkin());
-		scenes.setItems(World.getInstance().getScenes().keySet()
-				.toArray(new String[World.getInstance().getScenes().size()]));
+		scenes.setItems(World.getInstance().getSceneIds()
+				.toArray(new String[0]));
 		
 		testerTimeConf = new TextField(Float.toString(bot.getMaxWaitInverval()), ui.getSkin());
 		inSceneTimeConf = new TextField(Float.toString(bot.getInSceneTime()), ui.getSkin());
@@ -339,6 +397,101 @@ public class DebugScreen implements BladeScreen {
 		table.add();
 		table.add(botGroup2);
 
+		// ------------- SCRIPT PROFILER
+		TextButton profilerEnable = new TextButton("Enabled", ui.getSkin(), "toggle");
+		profilerEnable.addListener(new ClickListener() {
+
+			public void clicked(InputEvent event, float x, float y) {
+				ScriptProfiler.setEnabled(!ScriptProfiler.isEnabled());
+			}
+		});
+		
+		profilerEnable.setChecked(ScriptProfiler.isEnabled());
+		
+		profilerSummary = new Label("", ui.getSkin());
+		updateProfilerSummary();
+		
+		TextButton profilerReset = new TextButton("Reset", ui.getSkin());
+		profilerReset.addListener(new ClickListener() {
+
+			public void clicked(InputEvent event, float x, float y) {
+				ScriptProfiler.reset();
+				updateProfilerSummary();
+			}
+		});
+		
+		TextButton profilerDump = new TextButton("Dump CSV", ui.getSkin());
+		profilerDump.addListener(new ClickListener() {
+
+			public void clicked(InputEvent event, float x, float y) {
+				dumpProfiler(ScriptProfiler.DEFAULT_REPORT_FILENAME);
+			}
+		});
+		
+		TextButton profilerDumpJson = new TextButton("Dump JSON", ui.getSkin());
+		profilerDumpJson.addListener(new ClickListener() {
+
+			public void clicked(InputEvent event, float x, float y) {
+				dumpProfiler(ScriptProfiler.JSON_REPORT_FILENAME);
+			}
+		});
+		
+		profilerReset.pad(2, 3, 2, 3);
+		profilerDump.pad(2, 3, 2, 3);
+		profilerDumpJson.pad(2, 3, 2, 3);
+		
+		HorizontalGroup profilerGroup = new HorizontalGroup();
+		profilerGroup.space(10);
+		profilerGroup.addActor(profilerEnable);
+		profilerGroup.addActor(profilerReset);
+		profilerGroup.addActor(profilerDump);
+		profilerGroup.addActor(profilerDumpJson);
+		
+		table.row().pad(5).align(Align.left);
+		table.add("Script Profiler: ");
+		table.add(profilerGroup);
+		table.row().pad(5).align(Align.left);
+		table.add();
+		table.add(profilerSummary);
+
+		// ------------- FRAME PROFILER
+		final TextButton frameProfilerTrace = new TextButton("Trace", ui.getSkin(), "toggle");
+		final TextButton frameProfilerHUD = new TextButton("HUD", ui.getSkin(), "toggle");
+		
+		frameProfilerHUD.addListener(new ClickListener() {
+
+			public void clicked(InputEvent event, float x, float y) {
+				FrameProfiler.setEnabled(!FrameProfiler.isEnabled());
+				frameProfilerTrace.setChecked(FrameProfiler.isTracing());
+			}
+		});
+		
+		frameProfilerTrace.addListener(new ClickListener() {
+
+			public void clicked(InputEvent event, float x, float y) {
+				if (FrameProfiler.isTracing()) {
+					FrameProfiler.stopTrace();
+				} else {
+					FrameProfiler.startTrace(EngineAssetManager.getInstance().getUserFile(
+							FrameProfiler.DEFAULT_TRACE_FILENAME));
+				}
+				
+				frameProfilerHUD.setChecked(FrameProfiler.isEnabled());
+			}
+		});
+		
+		frameProfilerHUD.setChecked(FrameProfiler.isEnabled());
+		frameProfilerTrace.setChecked(FrameProfiler.isTracing());
+		
+		HorizontalGroup frameProfilerGroup = new HorizontalGroup();
+		frameProfilerGroup.space(10);
+		frameProfilerGroup.addActor(frameProfilerHUD);
+		frameProfilerGroup.addActor(frameProfilerTrace);
+		
+		table.row().pad(5).align(Align.left);
+		table.add("Frame Profiler: ");
+		table.add(frameProfilerGroup);
+
 		// ------------- BACK BUTTON
 
 		TextButton back = new TextButton("Back", ui.getSkin(), "menu");
@@ -362,8 +515,53 @@ public class DebugScreen implements BladeScreen {
 		Gdx.input.setInputProcessor(stage);
 	}
 
+	/**
+	 * Plays a slice of the turbo playing, so the screen is still responsive.
+	 * 
+	 * @return false if the playing ended and the screen was changed.
+	 */
+	private boolean updateTurbo() {
+		if (turboRecorder.stepTurbo(Recorder.TURBO_STEP, TURBO_STEPS_PER_FRAME)) {
+			turbo.setText("Stop (" + turboRecorder.getTurboSteps() + ")");
+			return true;
+		}
+
+		if (turboRecorder.getDivergence() == null)
+			EngineLogger.debug("TURBO PLAYING ENDED. STEPS: " + turboRecorder.getTurboSteps());
+
+		stopTurbo();
+		ui.setCurrentScreen(Screens.SCENE_SCREEN);
+
+		return false;
+	}
+
+	private void stopTurbo() {
+		turboRecorder.setPlaying(false);
+		turboRecorder.setVerifyCheckpoints(false);
+		turboRecorder = null;
+
+		World.getInstance().pause();
+	}
+
+	private void updateProfilerSummary() {
+		profilerSummary.setText(ScriptProfiler.getSummary(PROFILER_SUMMARY_SIZE));
+		profilerRefreshTime = PROFILER_REFRESH_TIME;
+	}
+
+	private void dumpProfiler(String filename) {
+		FileHandle file = EngineAssetManager.getInstance().getUserFile(filename);
+
+		ScriptProfiler.dump(file);
+		updateProfilerSummary();
+
+		EngineLogger.debug("Script profiler report written to " + file.path());
+	}
+
 	@Override
 	public void hide() {
+		if (turboRecorder != null)
+			stopTurbo();
+
 		dispose();
 	}
 
@@ -114,8 +114,7 @@ public class DialogUI extends Actor {
 			DialogOption o = options.get(i);
 			String str = o.getText();
 
-			if (str.charAt(0) == '@')
-				str = I18N.getString(str.substring(1));
+			str = I18N.translate(str);
 
 			if (i == selected) {
 				style.font.setColor(style.overFontColor);
@@ -140,8 +140,7 @@ public class PieMenu extends com.badlogic.gdx.scenes.scene2d.Group {
 
 		if (desc != null) {
 
-			if (desc.charAt(0) == '@')
-				desc = I18N.getString(desc.substring(1));
+			desc = I18N.translate(desc);
 					
 			layout.setText(font, desc);
 		}
@@ -15,6 +15,8 @@
  ******************************************************************************/
 package com.bladecoder.engine.ui;
 
+import java.util.HashMap;
+
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.Input.Peripheral;
 import com.badlogic.gdx.graphics.Color;
@@ -27,6 +29,7 @@ import com.badlogic.gdx.scenes.scene2d.ui.Skin;
 import com.badlogic.gdx.utils.viewport.Viewport;
 import com.bladecoder.engine.i18n.I18N;
 import com.bladecoder.engine.model.ActorRenderer;
+import com.bladecoder.engine.model.BaseActor;
 import com.bladecoder.engine.util.DPIUtils;
 import com.bladecoder.engine.util.RectangleRenderer;
 
@@ -36,10 +39,17 @@ public class Pointer {
 	private static final String HOTSPOT_ICON = "hotspotpointer";
 	
 	private static final Color DRAG_NOT_HOTSPOT_COLOR = new Color(.5f, 0.5f, 0.5f, 1f);
+	
+	/** The cache is cleared when it reaches this size */
+	private static final int MAX_CACHED_DESCS = 64;
 
 	private BitmapFont font;
 
-	private String desc = null;
+	/** The layout of the current desc or null */
+	private DescLayout desc = null;
+	
+	/** Layouts by actor to avoid layouts every frame */
+	private final HashMap<BaseActor, DescLayout> descLayouts = new HashMap<BaseActor, DescLayout>();
 
 	private TextureRegion leaveIcon;
 	private TextureRegion pointerIcon;
@@ -53,7 +63,11 @@ public class Pointer {
 	private float leaveRotation = 0f;
 //	private Skin skin;
 	
-	private final GlyphLayout layout = new GlyphLayout();
+	private static class DescLayout {
+		/** The untranslated desc */
+		String desc;
+		final GlyphLayout layout = new GlyphLayout();
+	}
 
 	public Pointer(Skin skin) {
 //		this.skin = skin;
@@ -91,16 +105,33 @@ public class Pointer {
 		currentIcon = r;
 	}
 
-	public void setDesc(String s) {
-		desc = s;
+	/**
+	 * Shows the desc of the actor.
+	 */
+	public void setDesc(BaseActor a) {
+		String s = a.getDesc();
 		
-		if (desc != null) {
-
-			if (desc.charAt(0) == '@')
-				desc = I18N.getString(desc.substring(1));
-					
-			layout.setText(font, desc);
+		if (s == null) {
+			desc = null;
+			return;
 		}
+		
+		DescLayout l = descLayouts.get(a);
+		
+		if (l == null) {
+			if (descLayouts.size() >= MAX_CACHED_DESCS)
+				descLayouts.clear();
+			
+			l = new DescLayout();
+			descLayouts.put(a, l);
+		}
+		
+		if (!s.equals(l.desc)) {
+			l.desc = s;
+			l.layout.setText(font, I18N.translate(s));
+		}
+		
+		desc = l;
 	}
 
 	private void getInputUnproject(Viewport v, Vector2 out) {
@@ -115,6 +146,7 @@ public class Pointer {
 
 		// DRAW TARGET DESCRIPTION
 		if (desc != null) {
+			GlyphLayout layout = desc.layout;
 			float margin = DPIUtils.UI_SPACE;
 
 			float textX = mousepos.x - layout.width / 2;
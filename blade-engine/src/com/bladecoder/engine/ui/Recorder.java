@@ -30,6 +30,7 @@ import com.bladecoder.engine.model.BaseActor;
 import com.bladecoder.engine.model.Dialog;
 import com.bladecoder.engine.model.Scene;
 import com.bladecoder.engine.model.World;
+import com.bladecoder.engine.model.World.AssetState;
 import com.bladecoder.engine.util.EngineLogger;
 import com.bladecoder.engine.util.RectangleRenderer;
 
@@ -37,6 +38,10 @@ import com.bladecoder.engine.util.RectangleRenderer;
  * Singleton class for recording verbs calls. This class can record and play a
  * game session.
  * 
+ * A hash of the world state is saved with every event. When checkpoint
+ * verification is enabled, the playing stops when the state diverges from
+ * the recorded one.
+ * 
  * @author rgarcia
  */
 public class Recorder {
@@ -44,6 +49,15 @@ public class Recorder {
 	public static final String RECORD_EXT = ".verbs.rec";
 	public static final String GAMESTATE_EXT = ".gamestate.rec";
 	private static final float WAITING_TIME = .5f;
+	
+	/** Default time step for turbo playing */
+	public static final float TURBO_STEP = 1f / 60f;
+	
+	/** Default max. steps of turbo playing: one hour of game at TURBO_STEP */
+	public static final long TURBO_MAX_STEPS = 60 * 60 * 60;
+	
+	/** Steps between the limit checks of playTurbo() */
+	private static final int TURBO_SLICE = 1000;
 
 	private ArrayList<TimeVerb> list = new ArrayList<TimeVerb>();
 	private boolean playing = false;
@@ -51,6 +65,11 @@ public class Recorder {
 	private float time;
 	private int pos;
 	private String fileName = DEFAULT_RECORD_FILENAME;
+	
+	private boolean verifyCheckpoints = false;
+	private String divergence;
+	private long turboSteps;
+	private boolean turboLimitReached;
 
 	public void update(float delta) {
 
@@ -76,6 +95,9 @@ public class Recorder {
 
 			// while (playing && v.time < time) {
 			if (playing && v.time < time) {
+				if (!checkpoint(v))
+					return;
+				
 				if (v.verb == null) {
 					if (v.pos == null) { // DIALOG OPTION						
 						World.getInstance().selectDialogOption(v.dialogOption);
@@ -116,12 +138,141 @@ public class Recorder {
 		}
 	}
 
+	/**
+	 * Compares the world state with the recorded hash.
+	 * 
+	 * @return false and stops playing if the state diverges.
+	 */
+	private boolean checkpoint(TimeVerb v) {
+		if (!verifyCheckpoints || v.hash == null)
+			return true;
+
+		String hash = Long.toHexString(World.getInstance().getStateHash());
+
+		if (hash.equals(v.hash))
+			return true;
+
+		divergence = "State diverged before event " + pos + " (" + (v.verb != null ? v.verb + " " + v.actorId
+				: v.pos != null ? "goto" : "dialog option " + v.dialogOption) + ") in scene "
+				+ World.getInstance().getCurrentScene().getId() + ". Expected: " + v.hash + " Found: " + hash;
+
+		EngineLogger.error("RECORDER - " + divergence);
+		setPlaying(false);
+
+		return false;
+	}
+
+	/**
+	 * Starts playing the loaded record in turbo mode. The world is advanced
+	 * by calling stepTurbo().
+	 */
+	public void startTurbo() {
+		setPlaying(true);
+		turboSteps = 0;
+		turboLimitReached = false;
+	}
+
+	/**
+	 * Advances up to 'maxSteps' fixed steps of the turbo playing without
+	 * rendering.
+	 * 
+	 * @return true if the playing has not ended: the record has not ended,
+	 *         the state has not diverged and the world is not paused.
+	 */
+	public boolean stepTurbo(float step, int maxSteps) {
+		World w = World.getInstance();
+
+		for (int i = 0; i < maxSteps && isTurboRunning(w); i++) {
+			w.update(step);
+
+			// the record time only advances when the scene is loaded
+			if (w.getAssetState() == AssetState.LOADED)
+				update(step);
+
+			turboSteps++;
+		}
+
+		return isTurboRunning(w);
+	}
+
+	private boolean isTurboRunning(World w) {
+		return playing && !w.isPaused() && !w.isDisposed();
+	}
+
+	/**
+	 * Plays the loaded record as fast as possible stepping the world at a
+	 * fixed time step without rendering. Returns when the record ends, the
+	 * state diverges, the world is paused or a limit is reached.
+	 * 
+	 * @param maxSteps
+	 *            max. number of steps. 0 for no limit.
+	 * @param timeout
+	 *            max. real time in ms. 0 for no limit.
+	 * @return false if the state diverged from the record or a limit was
+	 *         reached.
+	 */
+	public boolean playTurbo(float step, long maxSteps, long timeout) {
+		long t0 = System.nanoTime();
+
+		startTurbo();
+
+		while (true) {
+			int slice = TURBO_SLICE;
+
+			if (maxSteps > 0)
+				slice = (int) Math.min(slice, maxSteps - turboSteps);
+
+			if (!stepTurbo(step, slice))
+				break;
+
+			if ((maxSteps > 0 && turboSteps >= maxSteps)
+					|| (timeout > 0 && System.nanoTime() - t0 > timeout * 1000000L)) {
+				EngineLogger.error("RECORDER - TURBO LIMIT REACHED. STEPS: " + turboSteps);
+				turboLimitReached = true;
+				setPlaying(false);
+				break;
+			}
+		}
+
+		EngineLogger.debug("RECORDER - TURBO STEPS: " + turboSteps);
+
+		return divergence == null && !turboLimitReached;
+	}
+
+	/**
+	 * @return true if the last playTurbo() stopped by the steps or time limit.
+	 */
+	public boolean isTurboLimitReached() {
+		return turboLimitReached;
+	}
+
+	public long getTurboSteps() {
+		return turboSteps;
+	}
+
+	/**
+	 * @return the description of the divergence or null if the state matched
+	 *         the record.
+	 */
+	public String getDivergence() {
+		return divergence;
+	}
+
+	public boolean isVerifyCheckpoints() {
+		return verifyCheckpoints;
+	}
+
+	public void setVerifyCheckpoints(boolean v) {
+		verifyCheckpoints = v;
+	}
+
 	public void add(String actorId, String verb, String target) {
 		if (recording) {
 
 			time += WAITING_TIME;
 			TimeVerb v = new TimeVerb();
 			v.time = time;
+			v.hash = Long.toHexString(World.getInstance().getStateHash());
 			v.verb = verb;
 			v.target = target;
 			v.actorId = actorId;
@@ -136,6 +287,7 @@ public class Recorder {
 			TimeVerb v = new TimeVerb();
 			time += WAITING_TIME;
 			v.time = time;
+			v.hash = Long.toHexString(World.getInstance().getStateHash());
 
 			Dialog d = World.getInstance().getCurrentDialog();
 
@@ -153,6 +305,7 @@ public class Recorder {
 			TimeVerb v = new TimeVerb();
 			time += WAITING_TIME;
 			v.time = time;
+			v.hash = Long.toHexString(World.getInstance().getStateHash());
 
 			v.pos = pos;
 
@@ -188,6 +341,9 @@ public class Recorder {
 		this.recording = false;
 		time = 0;
 		pos = 0;
+		
+		if (p)
+			divergence = null;
 	}
 
 	public void draw(SpriteBatch batch) {
@@ -208,6 +364,9 @@ public class Recorder {
 		String actorId;
 		int dialogOption;
 		Vector2 pos;
+		
+		/** World state hash before the event */
+		String hash;
 	}
 	
 
@@ -45,6 +45,7 @@ import com.bladecoder.engine.ui.UI.Screens;
 import com.bladecoder.engine.util.Config;
 import com.bladecoder.engine.util.DPIUtils;
 import com.bladecoder.engine.util.EngineLogger;
+import com.bladecoder.engine.util.FrameProfiler;
 import com.bladecoder.engine.util.RectangleRenderer;
 
 public class SceneScreen implements BladeScreen {
@@ -456,7 +457,7 @@ public class SceneScreen implements BladeScreen {
 			if (currentActor != null) {
 
 				if (showDesc)
-					ui.getPointer().setDesc(currentActor.getDesc());
+					ui.getPointer().setDesc(currentActor);
 
 				if (currentActor.getVerb("leave") != null) {
 					ui.getPointer().setLeaveIcon(calcLeaveArrowRotation(currentActor));
@@ -494,13 +495,17 @@ public class SceneScreen implements BladeScreen {
 	public void render(float delta) {
 		World w = World.getInstance();
 
+		FrameProfiler.frameBegin();
+
 		update(delta);
 
 		// Gdx.gl.glClearColor(0, 0, 0, 1);
 		// Gdx.gl.glClear(GL20.GL_COLOR_BUFFER_BIT);
 
-		if (w.getAssetState() != AssetState.LOADED)
+		if (w.getAssetState() != AssetState.LOADED) {
+			FrameProfiler.frameEnd();
 			return;
+		}
 
 		SpriteBatch batch = ui.getBatch();
 
@@ -508,7 +513,9 @@ public class SceneScreen implements BladeScreen {
 		Gdx.gl.glClear(GL20.GL_COLOR_BUFFER_BIT);
 
 		// WORLD CAMERA
+		FrameProfiler.begin(FrameProfiler.WORLD_DRAW);
 		w.draw();
+		FrameProfiler.end(FrameProfiler.WORLD_DRAW);
 
 		// DRAW DEBUG BBOXES
 		if (EngineLogger.debugMode()
@@ -519,7 +526,12 @@ public class SceneScreen implements BladeScreen {
 		}
 
 		// STAGE
+		FrameProfiler.begin(FrameProfiler.STAGE_DRAW);
 		stage.draw();
+		FrameProfiler.end(FrameProfiler.STAGE_DRAW);
+
+		if (stage.getBatch() instanceof SpriteBatch)
+			FrameProfiler.addRenderCalls(((SpriteBatch) stage.getBatch()).renderCalls);
 
 		// SCREEN CAMERA
 		batch.setProjectionMatrix(viewport.getCamera().combined);
@@ -591,7 +603,27 @@ public class SceneScreen implements BladeScreen {
 		if (drawHotspots)
 			drawHotspots(batch);
 
+		// DRAW FRAME PROFILER HUD
+		if (FrameProfiler.isEnabled())
+			drawFrameProfiler(batch);
+
 		batch.end();
+
+		FrameProfiler.addRenderCalls(batch.renderCalls);
+		FrameProfiler.frameEnd();
+	}
+
+	private void drawFrameProfiler(SpriteBatch batch) {
+		BitmapFont font = ui.getSkin().getFont("debug");
+
+		textLayout.setText(font, FrameProfiler.getSummary());
+
+		float x = viewport.getScreenWidth() - textLayout.width - 10;
+		float y = viewport.getScreenHeight() - DPIUtils.getMarginSize() * 4;
+
+		RectangleRenderer.draw(batch, x - 5, y - textLayout.height - 5, textLayout.width + 10,
+				textLayout.height + 10, Color.BLACK);
+		font.draw(batch, textLayout, x, y);
 	}
 
 	private void drawHotspots(SpriteBatch batch) {
@@ -639,8 +671,7 @@ public class SceneScreen implements BladeScreen {
 			} else {
 				BitmapFont font = getUI().getSkin().getFont("desc");
 				String desc = a.getDesc();
-				if (desc.charAt(0) == '@')
-					desc = I18N.getString(desc.substring(1));
+				desc = I18N.translate(desc);
 
 				textLayout.setText(font, desc);
 
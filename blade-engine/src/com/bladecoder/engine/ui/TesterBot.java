@@ -18,8 +18,9 @@ package com.bladecoder.engine.ui;
 import java.util.ArrayList;
 
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
-import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.RandomXS128;
 import com.badlogic.gdx.math.Vector2;
+import com.bladecoder.engine.EngineContext;
 import com.bladecoder.engine.anim.AnimationDesc;
 import com.bladecoder.engine.model.BaseActor;
 import com.bladecoder.engine.model.DialogOption;
@@ -63,6 +64,7 @@ public class TesterBot {
 			return;
 		
 		World w = World.getInstance();
+		RandomXS128 rnd = EngineContext.get().getRandom();
 
 		deltaTime += d;
 		inSceneTimeDelta += d;
@@ -72,7 +74,7 @@ public class TesterBot {
 		
 		if (deltaTime > waitInverval && !w.inCutMode()) {
 			deltaTime = 0;
-			waitInverval = MathUtils.random(maxWaitInverval);
+			waitInverval = rnd.nextFloat() * maxWaitInverval;
 			
 			boolean isWalking = false;
 			SpriteActor player = w.getCurrentScene().getPlayer();
@@ -89,16 +91,16 @@ public class TesterBot {
 			if (w.getCurrentDialog() == null) {
 
 				// Select actor or goto
-				boolean chooseActor = MathUtils.randomBoolean(.75f);
+				boolean chooseActor = rnd.nextFloat() < .75f;
 
 				if (!isRunGoto() || chooseActor) {
 
 					// Select scene or actor inventory
-					boolean chooseSceneActor = MathUtils.randomBoolean();
+					boolean chooseSceneActor = rnd.nextBoolean();
 
 					if (chooseSceneActor && s.getActors().size() > 0) {
 						// SCENE ACTOR
-						int pos = MathUtils.random(s.getActors().size() - 1);
+						int pos = rnd.nextInt(s.getActors().size());
 						BaseActor scnActor = (BaseActor) (s.getActors().values().toArray()[pos]);
 
 						if (excludeList.contains(scnActor.getId()) || !scnActor.isVisible() || !scnActor.hasInteraction())
@@ -108,7 +110,7 @@ public class TesterBot {
 
 						if (scnActor.getVerb(Verb.LEAVE_VERB) != null) {
 							verb = Verb.LEAVE_VERB;
-						} else if (MathUtils.randomBoolean(0.33f)) {
+						} else if (rnd.nextFloat() < 0.33f) {
 							// LOOKAT
 							verb = Verb.LOOKAT_VERB;
 						} else {
@@ -126,14 +128,14 @@ public class TesterBot {
 						}
 					} else if (w.getInventory().getNumItems() > 0 && w.getInventory().isVisible()) {
 						// INVENTORY ACTOR
-						int pos = MathUtils.random(w.getInventory().getNumItems() - 1);
+						int pos = rnd.nextInt(w.getInventory().getNumItems());
 						BaseActor invActor = w.getInventory().getItem(pos);
 						
 						if(excludeList.contains(invActor.getId()))
 							return;
 
 						// Select lookat, action or use
-						int choosedVerb = MathUtils.random(3);
+						int choosedVerb = rnd.nextInt(4);
 
 						if (choosedVerb == 0) {
 							EngineLogger.debug("<TESTERBOT> INVENTORY: " + invActor.getId() + "::" + Verb.LOOKAT_VERB);
@@ -145,9 +147,9 @@ public class TesterBot {
 
 							BaseActor targetActor = null;
 
-							if (w.getInventory().getNumItems() > 1 && MathUtils.randomBoolean(0.33f)) {
+							if (w.getInventory().getNumItems() > 1 && rnd.nextFloat() < 0.33f) {
 								// CHOOSE TARGET FROM INVENTORY
-								int pos2 = MathUtils.random(w.getInventory().getNumItems() - 1);
+								int pos2 = rnd.nextInt(w.getInventory().getNumItems());
 
 								if (pos2 == pos)
 									pos2 = (pos2 + 1) % w.getInventory().getNumItems();
@@ -164,7 +166,7 @@ public class TesterBot {
 								else
 									targetActor.runVerb(Verb.USE_VERB, invActor.getId());
 							} else {
-								int pos2 = MathUtils.random(s.getActors().size() - 1);
+								int pos2 = rnd.nextInt(s.getActors().size());
 								targetActor = (BaseActor) (s.getActors().values().toArray()[pos2]);
 
 								if (!excludeList.contains(targetActor.getId()) && targetActor.isVisible() && targetActor.hasInteraction()) {
@@ -180,8 +182,8 @@ public class TesterBot {
 					}
 
 				} else if (s.getPlayer() != null) {
-					gotoVector.x = MathUtils.random() * w.getCurrentScene().getCamera().getScrollingWidth();
-					gotoVector.y = MathUtils.random() * w.getCurrentScene().getCamera().getScrollingHeight();
+					gotoVector.x = rnd.nextFloat() * w.getCurrentScene().getCamera().getScrollingWidth();
+					gotoVector.y = rnd.nextFloat() * w.getCurrentScene().getCamera().getScrollingHeight();
 
 					if (s.getPlayer().getVerb(Verb.GOTO_VERB) != null) {
 						EngineLogger.debug("<TESTERBOT> GOTO: GOTO VERB");
@@ -196,7 +198,7 @@ public class TesterBot {
 				ArrayList<DialogOption> visibleOptions = w.getCurrentDialog().getVisibleOptions();
 				
 				if(visibleOptions.size() > 0) {
-					int pos = MathUtils.random(visibleOptions.size() - 1);
+					int pos = rnd.nextInt(visibleOptions.size());
 					EngineLogger.debug("<TESTERBOT> SELECT OPTION: " + pos);
 					w.selectDialogOption(pos);
 				}
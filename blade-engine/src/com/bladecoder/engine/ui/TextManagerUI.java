@@ -47,6 +47,7 @@ public class TextManagerUI extends Actor {
 
 	private TextManagerUIStyle style;
 	private Text subtitle;
+	private int subtitleVersion = -1;
 	private final GlyphLayout layout = new GlyphLayout();
 	
 	private float fontX = 0;
@@ -63,10 +64,12 @@ public class TextManagerUI extends Actor {
 	public void act(float delta) {
 		super.act(delta);
 
-		Text currentSubtitle = World.getInstance().getTextManager().getCurrentSubtitle();
+		TextManager textManager = World.getInstance().getTextManager();
+		Text currentSubtitle = textManager.getCurrentSubtitle();
 
-		if (subtitle != currentSubtitle) {
+		if (subtitleVersion != textManager.getCurrentSubtitleVersion() || subtitle != currentSubtitle) {
 			subtitle = currentSubtitle;
+			subtitleVersion = textManager.getCurrentSubtitleVersion();
 
 			if (currentSubtitle == null && isVisible()) {
 				setVisible(false);
@@ -83,7 +86,8 @@ public class TextManagerUI extends Actor {
 				
 				float maxWidth = currentSubtitle.type == Text.Type.TALK?maxTalkWidth:maxRectangleWidth;
 				
-				layout.setText(style.font, currentSubtitle.str, currentSubtitle.color, maxWidth, Align.center, true);
+				layout.setText(style.font, currentSubtitle.str, currentSubtitle.start, currentSubtitle.end,
+						currentSubtitle.color, maxWidth, Align.center, true, null);
 
 				if (posx == TextManager.POS_CENTER || posx == TextManager.POS_SUBTITLE) {					
 					posx = (sceneScreen.getViewport().getScreenWidth() - layout.width)/2;
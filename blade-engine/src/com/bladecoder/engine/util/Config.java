@@ -17,6 +17,7 @@ package com.bladecoder.engine.util;
 
 import java.util.Properties;
 
+import com.bladecoder.engine.EngineContext;
 import com.bladecoder.engine.util.EngineLogger;
 
 import com.bladecoder.engine.assets.EngineAssetManager;
@@ -37,23 +38,46 @@ public class Config {
 	public static final String HELP_SCREEN_CLASS_PROP = "help_screen";
 	public static final String CREDIT_SCREEN_CLASS_PROP = "credit_screen";
 	public static final String INIT_SCREEN_CLASS_PROP = "init_screen";
+	public static final String LAZY_SCENES_PROP = "lazy_scenes";
+	public static final String CALLBACK_TIME_BUDGET_PROP = "callback_time_budget";
+	public static final String CALLBACK_MAX_PER_FRAME_PROP = "callback_max_per_frame";
+	public static final String SCRIPT_PROFILER_PROP = "script_profiler";
+	public static final String FRAME_PROFILER_PROP = "frame_profiler";
+	public static final String METRICS_PROP = "metrics";
+	public static final String METRICS_JMX_PROP = "metrics_jmx";
+	public static final String METRICS_LOG_PERIOD_PROP = "metrics_log_period";
+	public static final String METRICS_HTTP_PORT_PROP = "metrics_http_port";
 	
 	public static final String PROPERTIES_FILENAME = "BladeEngine.properties";
 
-	private static Properties config = null;
-	
 	public static String getProperty(String key, String defaultValue) {
-		if(config == null) {
-			config = new Properties();
+		return getConfig().getProperty(key, defaultValue);
+	}
+	
+	/**
+	 * The properties of the current EngineContext, loaded the first time they
+	 * are requested. The default context can be used from several threads.
+	 */
+	private static Properties getConfig() {
+		EngineContext ctx = EngineContext.get();
+		
+		synchronized (ctx) {
+			Properties config = ctx.getConfig();
 			
-			try {
-				config.load(EngineAssetManager.getInstance().getAsset(PROPERTIES_FILENAME).reader());
-			} catch (Exception e) {
-				EngineLogger.error("ERROR LOADING PROPERTIES: " + e.getMessage());
+			if(config == null) {
+				config = new Properties();
+				
+				try {
+					config.load(EngineAssetManager.getInstance().getAsset(PROPERTIES_FILENAME).reader());
+				} catch (Exception e) {
+					EngineLogger.error("ERROR LOADING PROPERTIES: " + e.getMessage());
+				}
+				
+				ctx.setConfig(config);
 			}
+			
+			return config;
 		}
-		
-		return config.getProperty(key, defaultValue);
 	}
 	
 	public static boolean getProperty(String key, boolean defaultValue) {
@@ -77,4 +101,15 @@ public class Config {
 		
 		return result;
 	}
+	
+	public static float getProperty(String key, float defaultValue) {
+		float result = 0;
+		
+		try {
+			result = Float.parseFloat(getProperty(key, String.valueOf(defaultValue)));
+		} catch (Exception e) {
+		}
+		
+		return result;
+	}
 }
@@ -17,58 +17,103 @@ package com.bladecoder.engine.util;
 
 import com.badlogic.gdx.Application;
 import com.badlogic.gdx.Gdx;
+import com.bladecoder.engine.EngineContext;
+import com.bladecoder.engine.metrics.Metrics;
 
 public class EngineLogger {
+	/**
+	 * Receives the errors logged in an EngineContext, including the
+	 * exceptions that the engine catches to keep running, like the exceptions
+	 * thrown by the actions.
+	 */
+	public interface ErrorListener {
+		/**
+		 * @param e
+		 *            the exception caught or null.
+		 */
+		void error(String message, Exception e);
+	}
+
 	private static String TAG = "ENGINE";
-	private static int level = Application.LOG_ERROR;
 
 	public static final int DEBUG0 = 0;
 	public static final int DEBUG1 = 1;
 	public static final int DEBUG2 = 2;
 
-	public static int debugLevel = DEBUG0;
-
 	public static void debug(String message) {
-		Gdx.app.debug(TAG, message);
+		if (debugMode())
+			Gdx.app.debug(TAG, message);
 	}
 
 	public static void error(String message) {
+		Metrics.get().errors.inc();
+
 		if(message != null)
 			Gdx.app.error(TAG, message);
+		
+		notifyError(message, null);
 	}
 
 	public static void error(String message, Exception e) {
+		Metrics.get().errors.inc();
+
 		if(message != null && e != null)
 			Gdx.app.error(TAG, message, e);
+		
+		notifyError(message, e);
+	}
+	
+	private static void notifyError(String message, Exception e) {
+		ErrorListener l = EngineContext.get().getErrorListener();
+		
+		if(l != null)
+			l.error(message, e);
+	}
+	
+	/**
+	 * Sets the listener of the errors of the current EngineContext. null to
+	 * remove it.
+	 */
+	public static void setErrorListener(ErrorListener l) {
+		EngineContext.get().setErrorListener(l);
 	}
 
 	public static void toggle() {
-		if (level == Application.LOG_DEBUG)
-			level = Application.LOG_ERROR;
+		if (debugMode())
+			setLevel(Application.LOG_ERROR);
 		else
-			level = Application.LOG_DEBUG;
-
-		Gdx.app.setLogLevel(level);
+			setLevel(Application.LOG_DEBUG);
 	}
 
 	public static boolean debugMode() {
-		if (level == Application.LOG_DEBUG)
+		if (EngineContext.get().getLogLevel() == Application.LOG_DEBUG)
 			return true;
 
 		return false;
 	}
 
 	public static int getDebugLevel() {
-		return debugLevel;
+		return EngineContext.get().getDebugLevel();
 	}
 
 	public static void setDebugLevel(int level) {
-		debugLevel = level;
+		EngineContext.get().setDebugLevel(level);
 	}
 	
 	public static void setDebug() {
-		level = Application.LOG_DEBUG;
+		setLevel(Application.LOG_DEBUG);
+	}
+
+	/**
+	 * Sets the level of the current EngineContext. Gdx.app is shared by all the
+	 * contexts, so only the default context can lower its level. The debug
+	 * messages of the other contexts are filtered in debug().
+	 */
+	private static void setLevel(int level) {
+		EngineContext ctx = EngineContext.get();
+		ctx.setLogLevel(level);
 
-		Gdx.app.setLogLevel(level);
+		if (ctx.isDefault() || level > Gdx.app.getLogLevel())
+			Gdx.app.setLogLevel(level);
 	}
 }
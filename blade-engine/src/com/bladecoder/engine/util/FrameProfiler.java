@@ -0,0 +1,397 @@
+/*******************************************************************************
+ * Copyright 2014 Rafael Garcia Moreno.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.bladecoder.engine.util;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.List;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.profiling.GLProfiler;
+import com.bladecoder.engine.EngineContext;
+
+/**
+ * Breaks every frame in phases and keeps the times of the last WINDOW frames
+ * to show min/avg/p99/max in the HUD. It also samples the GC count, the used
+ * heap, the SpriteBatch render calls and the texture binds.
+ *
+ * Every frame can be written to a CSV trace to profile in devices.
+ *
+ * Phases can be nested (the scene phases are inside SCENE_UPDATE). When
+ * disabled, the only cost is a boolean check in the instrumented points.
+ *
+ * There is a profiler for every EngineContext. The GLProfiler used to count
+ * the texture binds is global and only used by the default context.
+ */
+public class FrameProfiler {
+	public static final String DEFAULT_TRACE_FILENAME = "frame_trace.csv";
+
+	public static final int ASSET_LOADING = 0;
+	public static final int CALLBACKS = 1;
+	public static final int SCENE_UPDATE = 2;
+	public static final int SCENE_LAYERS = 3;
+	public static final int SCENE_ACTORS = 4;
+	public static final int SCENE_CAMERA = 5;
+	public static final int TEXT_MANAGER = 6;
+	public static final int TIMERS = 7;
+	public static final int WORLD_DRAW = 8;
+	public static final int STAGE_DRAW = 9;
+	public static final int FRAME = 10;
+
+	public static final String[] PHASE_NAMES = { "Asset loading", "ActionCallbackQueue", "Scene.update",
+			"  layers", "  actors", "  camera", "TextManager", "Timers", "World.draw", "Stage.draw", "FRAME" };
+
+	private static final int NUM_PHASES = PHASE_NAMES.length;
+
+	/** Number of frames used to calc the stats */
+	public static final int WINDOW = 120;
+
+	/** The HUD text is rebuilt every HUD_REFRESH frames */
+	private static final int HUD_REFRESH = 30;
+
+	private boolean enabled = false;
+
+	private final long[] start = new long[NUM_PHASES];
+	private final long[] current = new long[NUM_PHASES];
+	private final long[][] samples = new long[NUM_PHASES][WINDOW];
+	private final long[] sorted = new long[WINDOW];
+
+	private long frames = 0;
+
+	private int renderCalls;
+	private int lastRenderCalls;
+	private int lastTextureBinds;
+	private long lastGCCount = -1;
+
+	/** GarbageCollectorMXBeans if available in the platform */
+	private static List<?> gcBeans;
+	private static Method gcCountMethod;
+	private static boolean gcSupportChecked = false;
+
+	private Writer trace;
+
+	private String summary = "";
+	private long summaryFrame = -1;
+
+	/**
+	 * @return the profiler of the current EngineContext.
+	 */
+	private static FrameProfiler get() {
+		EngineContext ctx = EngineContext.get();
+		FrameProfiler p = ctx.getFrameProfiler();
+
+		if (p == null) {
+			p = new FrameProfiler();
+			ctx.setFrameProfiler(p);
+		}
+
+		return p;
+	}
+
+	public static boolean isEnabled() {
+		return get().enabled;
+	}
+
+	public static void setEnabled(boolean v) {
+		if (!v)
+			stopTrace();
+
+		get().enabled = v;
+
+		if (v) {
+			checkGCSupport();
+
+			if (Gdx.gl != null && EngineContext.get().isDefault())
+				GLProfiler.enable();
+		} else if (GLProfiler.isEnabled() && EngineContext.get().isDefault()) {
+			GLProfiler.disable();
+		}
+
+		reset();
+	}
+
+	public static void reset() {
+		FrameProfiler p = get();
+
+		for (long[] s : p.samples)
+			Arrays.fill(s, 0);
+
+		p.frames = 0;
+		p.summaryFrame = -1;
+	}
+
+	public static void begin(int phase) {
+		FrameProfiler p = get();
+
+		if (!p.enabled)
+			return;
+
+		p.start[phase] = System.nanoTime();
+	}
+
+	public static void end(int phase) {
+		FrameProfiler p = get();
+
+		if (!p.enabled)
+			return;
+
+		p.current[phase] += System.nanoTime() - p.start[phase];
+	}
+
+	/**
+	 * Adds the 'renderCalls' of a SpriteBatch after calling 'end()'.
+	 */
+	public static void addRenderCalls(int calls) {
+		FrameProfiler p = get();
+
+		if (!p.enabled)
+			return;
+
+		p.renderCalls += calls;
+	}
+
+	/**
+	 * Must be called at the beginning of the frame, before any other phase.
+	 */
+	public static void frameBegin() {
+		FrameProfiler p = get();
+
+		if (!p.enabled)
+			return;
+
+		Arrays.fill(p.current, 0);
+		p.renderCalls = 0;
+
+		if (GLProfiler.isEnabled() && EngineContext.get().isDefault())
+			GLProfiler.reset();
+
+		p.start[FRAME] = System.nanoTime();
+	}
+
+	/**
+	 * Must be called at the end of the frame. Stores the phase times of the
+	 * frame and writes them to the trace if recording.
+	 */
+	public static void frameEnd() {
+		FrameProfiler p = get();
+
+		if (!p.enabled)
+			return;
+
+		p.current[FRAME] = System.nanoTime() - p.start[FRAME];
+
+		int idx = (int) (p.frames % WINDOW);
+
+		for (int i = 0; i < NUM_PHASES; i++)
+			p.samples[i][idx] = p.current[i];
+
+		p.frames++;
+
+		p.lastRenderCalls = p.renderCalls;
+		p.lastTextureBinds = GLProfiler.isEnabled() && EngineContext.get().isDefault() ? GLProfiler.textureBindings
+				: -1;
+		p.lastGCCount = getGCCount();
+
+		if (p.trace != null)
+			p.writeTraceLine();
+	}
+
+	/**
+	 * @return the number of collections since the JVM started or -1 if not
+	 *         supported.
+	 */
+	public static long getGCCount() {
+		if (gcCountMethod == null)
+			return -1;
+
+		long count = 0;
+
+		try {
+			for (int i = 0; i < gcBeans.size(); i++)
+				count += (Long) gcCountMethod.invoke(gcBeans.get(i));
+		} catch (Exception e) {
+			gcCountMethod = null;
+			return -1;
+		}
+
+		return count;
+	}
+
+	public static long getUsedHeap() {
+		Runtime r = Runtime.getRuntime();
+
+		return r.totalMemory() - r.freeMemory();
+	}
+
+	private static synchronized void checkGCSupport() {
+		if (gcSupportChecked)
+			return;
+
+		gcSupportChecked = true;
+
+		try {
+			Class<?> factory = Class.forName("java.lang.management.ManagementFactory");
+			gcBeans = (List<?>) factory.getMethod("getGarbageCollectorMXBeans").invoke(null);
+			gcCountMethod = Class.forName("java.lang.management.GarbageCollectorMXBean").getMethod(
+					"getCollectionCount");
+		} catch (Exception e) {
+			gcCountMethod = null;
+			EngineLogger.debug("GC count not supported: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Stats of the phase in the last WINDOW frames in nanoseconds: {min, avg,
+	 * p99, max}.
+	 */
+	public static void getStats(int phase, long[] out) {
+		get().calcStats(phase, out);
+	}
+
+	private void calcStats(int phase, long[] out) {
+		int n = (int) Math.min(frames, WINDOW);
+
+		if (n == 0) {
+			Arrays.fill(out, 0);
+			return;
+		}
+
+		System.arraycopy(samples[phase], 0, sorted, 0, n);
+		Arrays.sort(sorted, 0, n);
+
+		long total = 0;
+
+		for (int i = 0; i < n; i++)
+			total += sorted[i];
+
+		out[0] = sorted[0];
+		out[1] = total / n;
+		out[2] = sorted[(int) Math.ceil(n * 0.99) - 1];
+		out[3] = sorted[n - 1];
+	}
+
+	/**
+	 * Text for the HUD. It is rebuilt every HUD_REFRESH frames to keep the
+	 * overhead low.
+	 */
+	public static String getSummary() {
+		FrameProfiler p = get();
+
+		if (p.summaryFrame >= 0 && p.frames - p.summaryFrame < HUD_REFRESH)
+			return p.summary;
+
+		p.summaryFrame = p.frames;
+
+		long[] stats = new long[4];
+		StringBuilder sb = new StringBuilder();
+
+		sb.append("FRAME PROFILER (ms) min / avg / p99 / max");
+
+		if (p.trace != null)
+			sb.append("  [REC]");
+
+		sb.append('\n');
+
+		for (int i = 0; i < NUM_PHASES; i++) {
+			p.calcStats(i, stats);
+
+			sb.append(PHASE_NAMES[i]).append(": ").append(String.format("%.2f / %.2f / %.2f / %.2f", stats[0] / 1000000f,
+					stats[1] / 1000000f, stats[2] / 1000000f, stats[3] / 1000000f)).append('\n');
+		}
+
+		sb.append("GC: ").append(p.lastGCCount < 0 ? "n/a" : Long.toString(p.lastGCCount));
+		sb.append("  Heap: ").append(getUsedHeap() / (1024 * 1024)).append("MB");
+		sb.append("  Render calls: ").append(p.lastRenderCalls);
+		sb.append("  Texture binds: ").append(p.lastTextureBinds < 0 ? "n/a" : Integer.toString(p.lastTextureBinds));
+
+		p.summary = sb.toString();
+
+		return p.summary;
+	}
+
+	public static boolean isTracing() {
+		return get().trace != null;
+	}
+
+	/**
+	 * Starts writing every frame to a CSV file. Enables the profiler if
+	 * needed.
+	 */
+	public static void startTrace(FileHandle file) {
+		stopTrace();
+
+		if (!isEnabled())
+			setEnabled(true);
+
+		FrameProfiler p = get();
+		p.trace = new BufferedWriter(file.writer(false, "UTF-8"));
+
+		try {
+			p.trace.write("frame");
+
+			for (String name : PHASE_NAMES)
+				p.trace.write("," + name.trim().replace(' ', '_').toLowerCase() + "_ns");
+
+			p.trace.write(",gc_count,heap_bytes,render_calls,texture_binds\n");
+		} catch (IOException e) {
+			EngineLogger.error("ERROR WRITING FRAME TRACE", e);
+			stopTrace();
+		}
+	}
+
+	public static void stopTrace() {
+		FrameProfiler p = get();
+
+		if (p.trace == null)
+			return;
+
+		try {
+			p.trace.close();
+		} catch (IOException e) {
+			EngineLogger.error("ERROR CLOSING FRAME TRACE", e);
+		}
+
+		p.trace = null;
+	}
+
+	private void writeTraceLine() {
+		try {
+			trace.write(Long.toString(frames));
+
+			for (int i = 0; i < NUM_PHASES; i++) {
+				trace.write(',');
+				trace.write(Long.toString(current[i]));
+			}
+
+			trace.write(',');
+			trace.write(Long.toString(lastGCCount));
+			trace.write(',');
+			trace.write(Long.toString(getUsedHeap()));
+			trace.write(',');
+			trace.write(Integer.toString(lastRenderCalls));
+			trace.write(',');
+			trace.write(Integer.toString(lastTextureBinds));
+			trace.write('\n');
+		} catch (IOException e) {
+			EngineLogger.error("ERROR WRITING FRAME TRACE", e);
+			stopTrace();
+		}
+	}
+}
@@ -0,0 +1,102 @@
+/*******************************************************************************
+ * Copyright 2014 Rafael Garcia Moreno.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.bladecoder.engine.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.Json;
+import com.badlogic.gdx.utils.JsonWriter.OutputType;
+
+/**
+ * Coverage report of one or several fuzzing runs.
+ *
+ * The scene and state maps contain the number of runs that reached every
+ * scene/state. States are 'scene#state' for scenes and 'scene/actor#state' for
+ * actors.
+ */
+public class FuzzReport {
+	public String chapter;
+	public int runs;
+	public long ticks;
+	public float simulatedTime;
+
+	public HashMap<String, Integer> scenes = new HashMap<String, Integer>();
+	public HashMap<String, Integer> states = new HashMap<String, Integer>();
+
+	/** 'seed: scene: exception' */
+	public ArrayList<String> exceptions = new ArrayList<String>();
+
+	/** 'seed: scene: time' */
+	public ArrayList<String> deadEnds = new ArrayList<String>();
+
+	public void addScene(String id) {
+		if (!scenes.containsKey(id))
+			scenes.put(id, 1);
+	}
+
+	public void addState(String id) {
+		if (!states.containsKey(id))
+			states.put(id, 1);
+	}
+
+	public void merge(FuzzReport r) {
+		if (chapter == null)
+			chapter = r.chapter;
+
+		runs += r.runs;
+		ticks += r.ticks;
+		simulatedTime += r.simulatedTime;
+
+		merge(scenes, r.scenes);
+		merge(states, r.states);
+
+		exceptions.addAll(r.exceptions);
+		deadEnds.addAll(r.deadEnds);
+	}
+
+	private static void merge(HashMap<String, Integer> dst, HashMap<String, Integer> src) {
+		for (Map.Entry<String, Integer> e : src.entrySet()) {
+			Integer v = dst.get(e.getKey());
+			dst.put(e.getKey(), v == null ? e.getValue() : v + e.getValue());
+		}
+	}
+
+	public String getSummary() {
+		return "RUNS: " + runs + " SCENES: " + scenes.size() + " STATES: " + states.size() + " EXCEPTIONS: "
+				+ exceptions.size() + " DEAD ENDS: " + deadEnds.size() + " SIMULATED TIME: " + simulatedTime + "s";
+	}
+
+	public void write(FileHandle file) {
+		file.writeString(getJson().prettyPrint(this), false, "UTF-8");
+	}
+
+	public static FuzzReport read(FileHandle file) {
+		return getJson().fromJson(FuzzReport.class, file.readString("UTF-8"));
+	}
+
+	private static Json getJson() {
+		Json json = new Json(OutputType.json);
+		json.setElementType(FuzzReport.class, "scenes", Integer.class);
+		json.setElementType(FuzzReport.class, "states", Integer.class);
+		json.setElementType(FuzzReport.class, "exceptions", String.class);
+		json.setElementType(FuzzReport.class, "deadEnds", String.class);
+
+		return json;
+	}
+}
@@ -0,0 +1,322 @@
+/*******************************************************************************
+ * Copyright 2014 Rafael Garcia Moreno.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.bladecoder.engine.util;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.bladecoder.engine.EngineContext;
+
+/**
+ * Low overhead profiler for the game logic.
+ *
+ * Records the number of invocations, the cumulative and the max. time and the
+ * allocated bytes (when the JVM supports it) by verb id and by action class.
+ *
+ * Verb times are inclusive: they contain the time of the actions executed and
+ * the verbs run from them.
+ *
+ * When disabled, the only cost is a boolean check in the instrumented points.
+ *
+ * There is a profiler for every EngineContext.
+ */
+public class ScriptProfiler {
+	public static final String DEFAULT_REPORT_FILENAME = "script_profile.csv";
+	public static final String JSON_REPORT_FILENAME = "script_profile.json";
+
+	public static class Entry {
+		public final String name;
+		public int count;
+		public long totalTime;
+		public long maxTime;
+		public long allocated;
+
+		public Entry(String name) {
+			this.name = name;
+		}
+
+		void add(long time, long bytes) {
+			totalTime += time;
+
+			if (time > maxTime)
+				maxTime = time;
+
+			if (bytes > 0)
+				allocated += bytes;
+		}
+	}
+
+	private boolean enabled = false;
+
+	private final HashMap<String, Entry> verbs = new HashMap<String, Entry>();
+	private final HashMap<Class<?>, Entry> actions = new HashMap<Class<?>, Entry>();
+
+	/** ThreadMXBean.getThreadAllocatedBytes() if available in the platform */
+	private static boolean allocationSupported = false;
+	private static boolean allocationSupportChecked = false;
+
+	/**
+	 * Only loaded when 'com.sun.management' is available, Android doesn't have
+	 * it.
+	 */
+	private static final class AllocationCounter {
+		private static com.sun.management.ThreadMXBean threadBean;
+
+		private static boolean init() {
+			java.lang.management.ThreadMXBean bean = java.lang.management.ManagementFactory.getThreadMXBean();
+
+			if (!(bean instanceof com.sun.management.ThreadMXBean))
+				return false;
+
+			threadBean = (com.sun.management.ThreadMXBean) bean;
+
+			return threadBean.isThreadAllocatedMemorySupported() && threadBean.isThreadAllocatedMemoryEnabled();
+		}
+
+		private static long get() {
+			return threadBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+		}
+	}
+
+	/**
+	 * @return the profiler of the current EngineContext.
+	 */
+	private static ScriptProfiler get() {
+		EngineContext ctx = EngineContext.get();
+		ScriptProfiler p = ctx.getScriptProfiler();
+
+		if (p == null) {
+			p = new ScriptProfiler();
+			ctx.setScriptProfiler(p);
+		}
+
+		return p;
+	}
+
+	public static boolean isEnabled() {
+		return get().enabled;
+	}
+
+	public static void setEnabled(boolean v) {
+		get().enabled = v;
+
+		if (v)
+			checkAllocationSupport();
+	}
+
+	public static void reset() {
+		ScriptProfiler p = get();
+
+		p.verbs.clear();
+		p.actions.clear();
+	}
+
+	/**
+	 * Called every time a verb starts its execution.
+	 */
+	public static void verbRun(String id) {
+		getVerbEntry(id).count++;
+	}
+
+	/**
+	 * Adds the time spent in a step of the verb. A verb is executed in several
+	 * steps when it contains blocking actions.
+	 *
+	 * @param t0
+	 *            the value of 'System.nanoTime()' when the step started.
+	 * @param bytes0
+	 *            the value of 'getAllocatedBytes()' when the step started.
+	 */
+	public static void verbStep(String id, long t0, long bytes0) {
+		getVerbEntry(id).add(System.nanoTime() - t0, bytes0 < 0 ? 0 : getAllocatedBytes() - bytes0);
+	}
+
+	/**
+	 * Adds an execution of an action.
+	 */
+	public static void action(Class<?> c, long t0, long bytes0) {
+		long t = System.nanoTime() - t0;
+		long bytes = bytes0 < 0 ? 0 : getAllocatedBytes() - bytes0;
+
+		HashMap<Class<?>, Entry> actions = get().actions;
+		Entry e = actions.get(c);
+
+		if (e == null) {
+			e = new Entry(c.getSimpleName());
+			actions.put(c, e);
+		}
+
+		e.count++;
+		e.add(t, bytes);
+	}
+
+	private static Entry getVerbEntry(String id) {
+		HashMap<String, Entry> verbs = get().verbs;
+		Entry e = verbs.get(id);
+
+		if (e == null) {
+			e = new Entry(id);
+			verbs.put(id, e);
+		}
+
+		return e;
+	}
+
+	/**
+	 * @return the bytes allocated by the current thread or -1 if not supported
+	 *         or the profiler is disabled.
+	 */
+	public static long getAllocatedBytes() {
+		if (!allocationSupported || !isEnabled())
+			return -1;
+
+		return AllocationCounter.get();
+	}
+
+	private static synchronized void checkAllocationSupport() {
+		if (allocationSupportChecked)
+			return;
+
+		allocationSupportChecked = true;
+
+		try {
+			Class.forName("java.lang.management.ManagementFactory");
+			Class.forName("com.sun.management.ThreadMXBean");
+
+			allocationSupported = AllocationCounter.init();
+		} catch (Throwable e) {
+			allocationSupported = false;
+			EngineLogger.debug("Allocation measurement not supported: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * @return the verb entries ordered by total time.
+	 */
+	public static List<Entry> getVerbs() {
+		return sort(get().verbs.values());
+	}
+
+	/**
+	 * @return the action entries ordered by total time.
+	 */
+	public static List<Entry> getActions() {
+		return sort(get().actions.values());
+	}
+
+	private static List<Entry> sort(Collection<Entry> values) {
+		List<Entry> l = new ArrayList<Entry>(values);
+
+		Collections.sort(l, new Comparator<Entry>() {
+			@Override
+			public int compare(Entry o1, Entry o2) {
+				return o1.totalTime < o2.totalTime ? 1 : (o1.totalTime == o2.totalTime ? 0 : -1);
+			}
+		});
+
+		return l;
+	}
+
+	/**
+	 * Text summary with the first 'max' verbs and actions.
+	 */
+	public static String getSummary(int max) {
+		StringBuilder sb = new StringBuilder();
+
+		sb.append("VERBS (count/total ms/max ms)\n");
+		appendSummary(sb, getVerbs(), max);
+		sb.append("ACTIONS (count/total ms/max ms)\n");
+		appendSummary(sb, getActions(), max);
+
+		return sb.toString();
+	}
+
+	private static void appendSummary(StringBuilder sb, List<Entry> l, int max) {
+		for (int i = 0; i < l.size() && i < max; i++) {
+			Entry e = l.get(i);
+			sb.append("  ").append(e.name).append(": ").append(e.count).append(" / ")
+					.append(String.format("%.2f", e.totalTime / 1000000f)).append(" / ")
+					.append(String.format("%.2f", e.maxTime / 1000000f)).append('\n');
+		}
+	}
+
+	/**
+	 * Writes the report to a file. The format is JSON if the file extension is
+	 * '.json' and CSV in other case.
+	 */
+	public static void dump(FileHandle file) {
+		boolean json = file.extension().equalsIgnoreCase("json");
+
+		Writer w = file.writer(false, "UTF-8");
+
+		try {
+			if (json)
+				writeJson(w);
+			else
+				writeCsv(w);
+
+			w.close();
+		} catch (IOException e) {
+			EngineLogger.error("ERROR WRITING PROFILER REPORT", e);
+		}
+	}
+
+	private static void writeCsv(Writer w) throws IOException {
+		w.write("type,name,count,total_ns,max_ns,avg_ns,allocated_bytes\n");
+
+		writeCsv(w, "verb", getVerbs());
+		writeCsv(w, "action", getActions());
+	}
+
+	private static void writeCsv(Writer w, String type, List<Entry> l) throws IOException {
+		for (Entry e : l) {
+			w.write(type + "," + e.name + "," + e.count + "," + e.totalTime + "," + e.maxTime + ","
+					+ (e.count == 0 ? 0 : e.totalTime / e.count) + "," + e.allocated + "\n");
+		}
+	}
+
+	private static void writeJson(Writer w) throws IOException {
+		w.write("{\n\"verbs\": ");
+		writeJson(w, getVerbs());
+		w.write(",\n\"actions\": ");
+		writeJson(w, getActions());
+		w.write("\n}\n");
+	}
+
+	private static void writeJson(Writer w, List<Entry> l) throws IOException {
+		w.write("[");
+
+		for (int i = 0; i < l.size(); i++) {
+			Entry e = l.get(i);
+
+			if (i > 0)
+				w.write(",");
+
+			w.write("\n  {\"name\": \"" + e.name.replace("\\", "\\\\").replace("\"", "\\\"") + "\", \"count\": "
+					+ e.count + ", \"totalNs\": " + e.totalTime + ", \"maxNs\": " + e.maxTime
+					+ ", \"allocatedBytes\": " + e.allocated + "}");
+		}
+
+		w.write("\n]");
+	}
+}
@@ -0,0 +1,131 @@
+/*******************************************************************************
+ * Copyright 2014 Rafael Garcia Moreno.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.bladecoder.engine.util;
+
+import java.util.HashMap;
+
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.LongMap;
+
+/**
+ * Uniform grid of square cells. Every item is stored in all the cells touched
+ * by its bounding rectangle, so a point query only returns the items near the
+ * point.
+ *
+ * Items are compared by identity.
+ */
+public class SpatialHash<T> {
+	private final float cellSize;
+
+	private final LongMap<Array<T>> cells = new LongMap<Array<T>>();
+
+	/** cell range (x0, y0, x1, y1) of every item */
+	private final HashMap<T, int[]> ranges = new HashMap<T, int[]>();
+
+	public SpatialHash(float cellSize) {
+		this.cellSize = cellSize;
+	}
+
+	/**
+	 * Adds or updates the item with its current bounding rectangle.
+	 */
+	public void put(T item, Rectangle bounds) {
+		int x0 = cell(bounds.x);
+		int y0 = cell(bounds.y);
+		int x1 = cell(bounds.x + bounds.width);
+		int y1 = cell(bounds.y + bounds.height);
+
+		int[] range = ranges.get(item);
+
+		if (range != null) {
+			if (range[0] == x0 && range[1] == y0 && range[2] == x1 && range[3] == y1)
+				return;
+
+			removeFromCells(item, range);
+		} else {
+			range = new int[4];
+			ranges.put(item, range);
+		}
+
+		range[0] = x0;
+		range[1] = y0;
+		range[2] = x1;
+		range[3] = y1;
+
+		for (int x = x0; x <= x1; x++) {
+			for (int y = y0; y <= y1; y++) {
+				long key = key(x, y);
+				Array<T> cell = cells.get(key);
+
+				if (cell == null) {
+					cell = new Array<T>(false, 4);
+					cells.put(key, cell);
+				}
+
+				cell.add(item);
+			}
+		}
+	}
+
+	public void remove(T item) {
+		int[] range = ranges.remove(item);
+
+		if (range != null)
+			removeFromCells(item, range);
+	}
+
+	private void removeFromCells(T item, int[] range) {
+		for (int x = range[0]; x <= range[2]; x++) {
+			for (int y = range[1]; y <= range[3]; y++) {
+				Array<T> cell = cells.get(key(x, y));
+
+				if (cell != null)
+					cell.removeValue(item, true);
+			}
+		}
+	}
+
+	/**
+	 * @return The items whose bounding rectangle can contain the point or null
+	 *         if the cell is empty. The returned array must not be modified.
+	 */
+	public Array<T> get(float x, float y) {
+		Array<T> cell = cells.get(key(cell(x), cell(y)));
+
+		if (cell == null || cell.size == 0)
+			return null;
+
+		return cell;
+	}
+
+	public boolean contains(T item) {
+		return ranges.containsKey(item);
+	}
+
+	public void clear() {
+		cells.clear();
+		ranges.clear();
+	}
+
+	private int cell(float v) {
+		return (int) Math.floor(v / cellSize);
+	}
+
+	private static long key(int x, int y) {
+		return ((long) x << 32) | (y & 0xffffffffL);
+	}
+}
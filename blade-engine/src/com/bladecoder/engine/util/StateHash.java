@@ -0,0 +1,70 @@
+/*******************************************************************************
+ * Copyright 2014 Rafael Garcia Moreno.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.bladecoder.engine.util;
+
+import java.util.Map;
+
+/**
+ * 64 bit FNV-1a hash functions to build a fingerprint of the game state.
+ *
+ * Maps are hashed independently of their iteration order, so the same state
+ * gives the same hash in every run.
+ */
+public class StateHash {
+	private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+	private static final long FNV_PRIME = 0x100000001b3L;
+
+	public static long start() {
+		return FNV_OFFSET;
+	}
+
+	public static long add(long h, long v) {
+		for (int i = 0; i < 8; i++) {
+			h ^= (v >>> (i * 8)) & 0xff;
+			h *= FNV_PRIME;
+		}
+
+		return h;
+	}
+
+	public static long add(long h, boolean v) {
+		return add(h, v ? 1 : 0);
+	}
+
+	public static long add(long h, String s) {
+		if (s == null)
+			return add(h, -1);
+
+		for (int i = 0; i < s.length(); i++) {
+			h ^= s.charAt(i);
+			h *= FNV_PRIME;
+		}
+
+		return add(h, s.length());
+	}
+
+	public static long add(long h, Map<String, String> m) {
+		if (m == null)
+			return add(h, -1);
+
+		long sum = 0;
+
+		for (Map.Entry<String, String> e : m.entrySet())
+			sum += add(add(start(), e.getKey()), e.getValue());
+
+		return add(h, sum);
+	}
+}
@@ -0,0 +1,99 @@
+/*******************************************************************************
+ * Copyright 2014 Rafael Garcia Moreno.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.bladecoder.engine;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.badlogic.gdx.ApplicationAdapter;
+import com.badlogic.gdx.backends.headless.HeadlessApplication;
+import com.bladecoder.engine.actions.Action;
+import com.bladecoder.engine.actions.ActionCallback;
+import com.bladecoder.engine.actions.Param;
+import com.bladecoder.engine.model.Verb;
+import com.bladecoder.engine.util.FuzzReport;
+
+public class FuzzWorkerTest {
+	private static HeadlessApplication app;
+
+	public static class ThrowingAction implements Action {
+		@Override
+		public boolean run(ActionCallback cb) {
+			throw new RuntimeException("Deliberate failure");
+		}
+
+		@Override
+		public void setParams(HashMap<String, String> params) {
+		}
+
+		@Override
+		public String getInfo() {
+			return "Always throws";
+		}
+
+		@Override
+		public Param[] getParams() {
+			return null;
+		}
+	}
+
+	@BeforeClass
+	public static void init() {
+		app = new HeadlessApplication(new ApplicationAdapter() {
+		});
+	}
+
+	@AfterClass
+	public static void dispose() {
+		app.exit();
+	}
+
+	@After
+	public void unbindContext() {
+		EngineContext.setCurrent(null);
+	}
+
+	@Test
+	public void testActionExceptionIsReported() {
+		FuzzWorker worker = new FuzzWorker(1234, null);
+		worker.setContext(new EngineContext());
+		worker.addErrorListener();
+
+		Verb verb = new Verb("throwing_verb");
+		verb.add(new ThrowingAction());
+		verb.add(new ThrowingAction());
+		verb.run();
+
+		FuzzReport report = worker.getFuzzReport();
+
+		// the same exception is reported once
+		assertEquals(1, report.exceptions.size());
+
+		String e = report.exceptions.get(0);
+
+		assertTrue(e, e.startsWith("1234: "));
+		assertTrue(e, e.contains("ThrowingAction"));
+		assertTrue(e, e.contains("throwing_verb"));
+		assertTrue(e, e.contains("Deliberate failure"));
+	}
+}
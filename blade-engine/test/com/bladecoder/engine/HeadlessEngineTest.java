@@ -0,0 +1,178 @@
+/*******************************************************************************
+ * Copyright 2014 Rafael Garcia Moreno.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.bladecoder.engine;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.badlogic.gdx.ApplicationAdapter;
+import com.badlogic.gdx.backends.headless.HeadlessApplication;
+import com.badlogic.gdx.files.FileHandle;
+import com.bladecoder.engine.assets.EngineAssetManager;
+import com.bladecoder.engine.model.World;
+import com.bladecoder.engine.util.Config;
+
+public class HeadlessEngineTest {
+	private static final int WIDTH = 1920;
+	private static final int HEIGHT = 1080;
+	private static final int NUM_ACTORS = 8;
+	private static final int TICKS = 20000;
+	private static final long SEED = 1234;
+
+	private static final String[] VERBS = { "lookat", "action", "talkto" };
+
+	private static HeadlessApplication app;
+	private static File baseDir;
+
+	@BeforeClass
+	public static void init() throws Exception {
+		app = new HeadlessApplication(new ApplicationAdapter() {
+		});
+
+		baseDir = Files.createTempDirectory("blade-headless").toFile();
+		FileHandle base = new FileHandle(baseDir);
+
+		base.child(EngineAssetManager.ATLASES_DIR + "1").mkdirs();
+		base.child(Config.PROPERTIES_FILENAME).writeString("", false);
+		base.child(EngineAssetManager.MODEL_DIR + "world.properties").writeString("", false);
+		base.child(EngineAssetManager.MODEL_DIR + "00.properties").writeString("", false);
+		base.child(EngineAssetManager.MODEL_DIR + "world.xml").writeString(
+				"<world width=\"" + WIDTH + "\" height=\"" + HEIGHT + "\" init_chapter=\"00\"></world>", false,
+				"UTF-8");
+		base.child(EngineAssetManager.MODEL_DIR + "00.chapter").writeString(createChapter(), false, "UTF-8");
+	}
+
+	@AfterClass
+	public static void dispose() {
+		app.exit();
+		new FileHandle(baseDir).deleteDirectory();
+	}
+
+	/**
+	 * A scene with actors whose verbs change their state and the last verb run
+	 * stored in a world property. The final state depends on the sequence of
+	 * verbs chosen by the TesterBot.
+	 */
+	private static String createChapter() {
+		StringBuilder sb = new StringBuilder();
+
+		sb.append("<chapter id=\"00\" init_scene=\"room\">\n");
+		sb.append("<scene id=\"room\">\n");
+		sb.append("<layer id=\"foreground\" visible=\"true\" dynamic=\"true\"/>\n");
+
+		for (int i = 0; i < NUM_ACTORS; i++) {
+			String id = "actor" + i;
+
+			sb.append("<actor id=\"").append(id).append("\" type=\"no_renderer\" layer=\"foreground\"")
+					.append(" bbox=\"0,0,0,100,100,100,100,0\" pos=\"").append(i * 200).append(",100\">\n");
+
+			for (String v : VERBS) {
+				sb.append("<verb id=\"").append(v).append("\">\n");
+				sb.append("<action action_name=\"State\" state=\"").append(v).append("\"/>\n");
+				sb.append("<action class=\"com.bladecoder.engine.actions.PropertyAction\" type=\"world\"")
+						.append(" prop=\"last\" value=\"").append(id).append('.').append(v).append("\"/>\n");
+				sb.append("</verb>\n");
+			}
+
+			sb.append("</actor>\n");
+		}
+
+		sb.append("</scene>\n");
+		sb.append("</chapter>\n");
+
+		return sb.toString();
+	}
+
+	/**
+	 * Plays the game with the TesterBot in its own thread and EngineContext.
+	 *
+	 * @return the initial and the final state hash.
+	 */
+	private static long[] play(CyclicBarrier start) throws Exception {
+		EngineContext ctx = new EngineContext();
+		EngineContext.setCurrent(ctx);
+
+		try {
+			EngineAssetManager.createEditInstance(baseDir.getAbsolutePath(), WIDTH, HEIGHT);
+
+			FuzzWorker engine = new FuzzWorker(SEED, null);
+			engine.setContext(ctx);
+			engine.setChapter("00");
+			engine.create();
+
+			long initHash = World.getInstance().getStateHash();
+
+			start.await();
+			engine.run(TICKS);
+
+			long endHash = World.getInstance().getStateHash();
+
+			engine.dispose();
+
+			return new long[] { initHash, endHash };
+		} finally {
+			EngineContext.setCurrent(null);
+		}
+	}
+
+	@Test
+	public void testParallelEnginesWithTheSameSeed() throws Exception {
+		final int numEngines = 2;
+		final CyclicBarrier start = new CyclicBarrier(numEngines);
+		ExecutorService executor = Executors.newFixedThreadPool(numEngines);
+
+		try {
+			List<Future<long[]>> results = new ArrayList<Future<long[]>>();
+
+			for (int i = 0; i < numEngines; i++) {
+				results.add(executor.submit(new Callable<long[]>() {
+					@Override
+					public long[] call() throws Exception {
+						return play(start);
+					}
+				}));
+			}
+
+			long[] first = results.get(0).get();
+
+			// the bot has played
+			assertNotEquals(first[0], first[1]);
+
+			for (int i = 1; i < numEngines; i++) {
+				long[] r = results.get(i).get();
+
+				assertEquals(first[0], r[0]);
+				assertEquals(first[1], r[1]);
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+}
@@ -0,0 +1,94 @@
+/*******************************************************************************
+ * Copyright 2014 Rafael Garcia Moreno.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.bladecoder.engine.model;
+
+import static org.junit.Assert.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+import com.badlogic.gdx.graphics.Color;
+
+public class TextManagerTest {
+	private static final int LINES = 1000;
+	private static final int WARMUP_RUNS = 20;
+
+	/** Margin for the allocations of the measure itself */
+	private static final long MAX_ALLOCATED_BYTES = 1024;
+
+	/**
+	 * Plain lines, lines with duration and lines with several pieces.
+	 */
+	private static String[] createConversation() {
+		String[] conversation = new String[LINES];
+
+		for (int i = 0; i < LINES; i++) {
+			switch (i % 3) {
+			case 0:
+				conversation[i] = "Line " + i + " of the conversation.";
+				break;
+			case 1:
+				conversation[i] = "2.5#Line " + i + " with its own duration.";
+				break;
+			default:
+				conversation[i] = "1#First piece of line " + i + ".\n\nSecond piece of line " + i + ".";
+				break;
+			}
+		}
+
+		return conversation;
+	}
+
+	private static void play(TextManager tm, String[] conversation) {
+		for (String l : conversation)
+			tm.addSubtitle(l, TextManager.POS_SUBTITLE, TextManager.POS_SUBTITLE, true, Text.Type.PLAIN,
+					Color.WHITE, null);
+
+		while (tm.getCurrentSubtitle() != null)
+			tm.update(10f);
+	}
+
+	@Test
+	public void testSubtitlesDontAllocate() {
+		ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+
+		Assume.assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+
+		com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) bean;
+
+		Assume.assumeTrue(threadBean.isThreadAllocatedMemorySupported());
+		threadBean.setThreadAllocatedMemoryEnabled(true);
+
+		String[] conversation = createConversation();
+		TextManager tm = new TextManager();
+
+		// grows the pool and the queue
+		for (int i = 0; i < WARMUP_RUNS; i++)
+			play(tm, conversation);
+
+		long id = Thread.currentThread().getId();
+		long before = threadBean.getThreadAllocatedBytes(id);
+
+		play(tm, conversation);
+
+		long allocated = threadBean.getThreadAllocatedBytes(id) - before;
+
+		assertTrue("Allocated bytes for " + LINES + " lines: " + allocated, allocated < MAX_ALLOCATED_BYTES);
+	}
+}